@@ -14,16 +14,49 @@
 
 package org.thinkit.api.common;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.thinkit.api.catalog.BiCatalog;
+import org.thinkit.api.common.auth.AuthProvider;
+import org.thinkit.api.common.cache.CacheRefreshPolicy;
+import org.thinkit.api.common.cache.CachedResponse;
+import org.thinkit.api.common.cache.ResponseCache;
 import org.thinkit.api.common.catalog.HttpStatus;
-import org.thinkit.common.Preconditions;
+import org.thinkit.api.common.catalog.TracePhase;
+import org.thinkit.api.common.concurrent.BulkheadRegistry;
+import org.thinkit.api.common.concurrent.ConcurrencyLimiter;
+import org.thinkit.api.common.exception.RequestRejectedException;
+import org.thinkit.api.common.loadbalance.Endpoint;
+import org.thinkit.api.common.loadbalance.EndpointGroup;
+import org.thinkit.api.common.ratelimit.DistributedRateLimiter;
+import org.thinkit.api.common.timeout.AdaptiveTimeout;
+import org.thinkit.api.common.trace.TraceContext;
+import org.thinkit.api.common.trace.Tracer;
 
 import lombok.NonNull;
 
 /**
  * {@link Communicable} インターフェースを実装したクラスの安全な呼び出しと汎用的な処理を定義したコンテキストクラスです。
+ * <p>
+ * このクラスのインスタンスは生成後に状態が変化しないため、複数のスレッドとリクエストで共有することができます。
+ * 試行回数や試行済みの接続先などの呼び出しごとの状態は呼び出しの中でのみ保持されます。リクエストは {@link #send(Communicable)}
+ * メソッド、または {@link #sendForResult(Communicable)} メソッドの引数として呼び出しごとに渡してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * private static final ApiContext CONTEXT = ApiContext.builder().withRetry().withRetryCount(3).build();
+ *
+ * String user = CONTEXT.send(new UserApi(userId));
+ * ApiResult items = CONTEXT.sendForResult(new ItemApi(itemId));
+ * </code>
+ * </pre>
  *
  * @author Kato Shinya
  * @since 1.0
@@ -32,29 +65,104 @@ import lombok.NonNull;
 public final class ApiContext {
 
     /**
-     * APIオブジェクト
+     * 既定のAPIオブジェクト
      */
-    private Communicable api;
+    private final Communicable api;
 
     /**
      * リトライ可否
      */
-    private boolean retry;
+    private final boolean retry;
 
     /**
      * リトライ数
      */
-    private int retryCount;
+    private final int retryCount;
 
     /**
      * リトライ時の待機時間
      */
-    private int latency;
+    private final int latency;
+
+    /**
+     * レスポンスキャッシュ
+     */
+    private final ResponseCache responseCache;
+
+    /**
+     * キャッシュの更新方針
+     */
+    private final CacheRefreshPolicy cacheRefreshPolicy;
+
+    /**
+     * 同時実行数の制限
+     */
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * バルクヘッド
+     */
+    private final BulkheadRegistry bulkheads;
+
+    /**
+     * スタックトレースを持たない例外を送出するか否か
+     */
+    private final boolean stacklessException;
+
+    /**
+     * 接続先のグループ
+     */
+    private final EndpointGroup endpointGroup;
+
+    /**
+     * トレーサー
+     */
+    private final Tracer tracer;
+
+    /**
+     * 認証情報の提供元
+     */
+    private final AuthProvider authProvider;
+
+    /**
+     * 複数のインスタンスで共有するリクエスト数の制限
+     */
+    private final DistributedRateLimiter rateLimiter;
 
     /**
-     * デフォルトコンストラクタ
+     * 観測した応答時間から算出するタイムアウト
      */
-    private ApiContext() {
+    private final AdaptiveTimeout adaptiveTimeout;
+
+    /**
+     * コンストラクタ
+     *
+     * @param builder 設定値を保持するビルダー
+     */
+    private ApiContext(@NonNull Builder builder) {
+        this.api = builder.api;
+        this.retry = builder.retry;
+        this.retryCount = builder.retryCount;
+        this.latency = builder.latency * 1000;
+        this.responseCache = builder.responseCache;
+        this.cacheRefreshPolicy = builder.cacheRefreshPolicy;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.bulkheads = builder.bulkheads;
+        this.stacklessException = builder.stacklessException;
+        this.endpointGroup = builder.endpointGroup;
+        this.tracer = builder.tracer;
+        this.authProvider = builder.authProvider;
+        this.rateLimiter = builder.rateLimiter;
+        this.adaptiveTimeout = builder.adaptiveTimeout;
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -67,7 +175,7 @@ public final class ApiContext {
     public static class Builder {
 
         /**
-         * APIオブジェクト
+         * 既定のAPIオブジェクト
          */
         private Communicable api;
 
@@ -86,6 +194,56 @@ public final class ApiContext {
          */
         private int latency = 5;
 
+        /**
+         * レスポンスキャッシュ
+         */
+        private ResponseCache responseCache;
+
+        /**
+         * キャッシュの更新方針
+         */
+        private CacheRefreshPolicy cacheRefreshPolicy;
+
+        /**
+         * 同時実行数の制限
+         */
+        private ConcurrencyLimiter concurrencyLimiter;
+
+        /**
+         * バルクヘッド
+         */
+        private BulkheadRegistry bulkheads;
+
+        /**
+         * スタックトレースを持たない例外を送出するか否か
+         */
+        private boolean stacklessException;
+
+        /**
+         * 接続先のグループ
+         */
+        private EndpointGroup endpointGroup;
+
+        /**
+         * トレーサー
+         */
+        private Tracer tracer;
+
+        /**
+         * 認証情報の提供元
+         */
+        private AuthProvider authProvider;
+
+        /**
+         * 複数のインスタンスで共有するリクエスト数の制限
+         */
+        private DistributedRateLimiter rateLimiter;
+
+        /**
+         * 観測した応答時間から算出するタイムアウト
+         */
+        private AdaptiveTimeout adaptiveTimeout;
+
         /**
          * デフォルトコンストラクタ
          */
@@ -93,7 +251,8 @@ public final class ApiContext {
         }
 
         /**
-         * 引数として渡された {@code api} をオブジェクトに設定します。
+         * 引数として渡された {@code api} を既定のAPIオブジェクトとして設定します。既定のAPIオブジェクトは引数を持たない
+         * {@link ApiContext#send()} メソッド、および {@link ApiContext#sendForResult()} メソッドで使用されます。
          *
          * @param api APIオブジェクト
          * @return 自分自身のインスタンス
@@ -143,106 +302,567 @@ public final class ApiContext {
         }
 
         /**
-         * 設定された値を基に {@link ApiContext} クラスの新しいインスタンスを生成し返却します。
+         * 引数として渡された {@code responseCache} をレスポンスキャッシュとして設定します。
+         * <p>
+         * レスポンスキャッシュが設定された場合は、 {@link Communicable#getRequestKey()}
+         * メソッドが返却するキーでキャッシュを参照し、キャッシュが存在する場合はHTTP通信を行わずにキャッシュされたレスポンスボディを返却します。
+         * HTTP通信を行った場合はHTTPステータスが {@code 200} のレスポンスボディをキャッシュします。
          *
-         * @return {@link ApiContext} クラスの新しいインスタンス
+         * @param responseCache レスポンスキャッシュ
+         * @return 自分自身のインスタンス
+         */
+        public Builder withResponseCache(@NonNull ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code cacheRefreshPolicy} をキャッシュの更新方針として設定します。
+         * <p>
+         * キャッシュの更新方針が設定された場合は、キャッシュ済みのレスポンスを経過時間に応じて返却し、更新が必要なレスポンスは
+         * バックグラウンドでHTTP通信を行い更新します。レスポンスキャッシュが設定されていない場合、キャッシュの更新方針は使用されません。
          *
-         * @throws InvalidContextStateException {@link #of(Communicable)}
-         *                                      メソッドが呼び出されていない場合、または、APIオブジェクトが
-         *                                      {@code null} の場合
+         * @param cacheRefreshPolicy キャッシュの更新方針
+         * @return 自分自身のインスタンス
+         *
+         * @see CacheRefreshPolicy
          */
-        public ApiContext build() {
+        public Builder withCacheRefreshPolicy(@NonNull CacheRefreshPolicy cacheRefreshPolicy) {
+            this.cacheRefreshPolicy = cacheRefreshPolicy;
+            return this;
+        }
 
-            if (this.api == null) {
-                throw new InvalidContextStateException();
-            }
+        /**
+         * 引数として渡された {@code concurrencyLimiter} を同時実行数の制限として設定します。
+         * <p>
+         * 同時実行数の制限が設定された場合は、 {@link Communicable#getResource()}
+         * メソッドが返却するリソース単位でリクエストごとに実行枠を取得し、リクエストの往復時間とHTTPステータスを通知します。
+         * 複数の {@link ApiContext} で同時実行数を制限する場合は、同一の {@link ConcurrencyLimiter} を設定してください。
+         *
+         * @param concurrencyLimiter 同時実行数の制限
+         * @return 自分自身のインスタンス
+         */
+        public Builder withConcurrencyLimiter(@NonNull ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
 
-            final ApiContext context = new ApiContext();
-            context.api = this.api;
-            context.retry = this.retry;
-            context.retryCount = this.retryCount;
-            context.latency = this.latency * 1000;
+        /**
+         * 引数として渡された {@code bulkheads} をバルクヘッドとして設定します。
+         * <p>
+         * バルクヘッドが設定された場合は、 {@link Communicable#getResource()}
+         * メソッドが返却するリソースに割り当てられたバルクヘッドの実行枠をリクエストごとに取得します。同時実行数の制限と併用する場合は、バルクヘッドの実行枠を先に取得します。
+         *
+         * @param bulkheads バルクヘッド
+         * @return 自分自身のインスタンス
+         */
+        public Builder withBulkheads(@NonNull BulkheadRegistry bulkheads) {
+            this.bulkheads = bulkheads;
+            return this;
+        }
+
+        /**
+         * {@link ApiContext#send()} メソッドが送出する例外をスタックトレースを持たない例外として生成するように設定します。
+         * <p>
+         * 大量のエラーが発生する状況で例外生成時のスタックトレースの取得処理を省略したい場合に使用してください。
+         *
+         * @return 自分自身のインスタンス
+         */
+        public Builder withStacklessException() {
+            this.stacklessException = true;
+            return this;
+        }
 
-            return context;
+        /**
+         * 引数として渡された {@code endpointGroup} を接続先のグループとして設定します。
+         * <p>
+         * 接続先のグループが設定された場合は、リクエストの試行ごとに接続先を選択し、選択された接続先のベースURIを
+         * {@link RequestOptions#getBaseUri()} として {@link Communicable#send(RequestOptions)}
+         * メソッドへ渡します。リトライ時には同一の呼び出しで試行済みの接続先を避けて接続先を選択します。
+         *
+         * @param endpointGroup 接続先のグループ
+         * @return 自分自身のインスタンス
+         */
+        public Builder withEndpointGroup(@NonNull EndpointGroup endpointGroup) {
+            this.endpointGroup = endpointGroup;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code tracer} をトレーサーとして設定します。
+         * <p>
+         * トレーサーが設定された場合は、呼び出し全体、試行ごと、リトライ前の待機の処理時間を区間として記録し、試行ごとのW3C Trace
+         * Context形式の {@code traceparent} ヘッダーを {@link RequestOptions#getHeaders()} に設定します。
+         * クエリの生成やレスポンスの受信などの {@link Communicable} 内部の処理時間は {@link RequestOptions#getTraceContext()}
+         * を介して記録してください。
+         *
+         * @param tracer トレーサー
+         * @return 自分自身のインスタンス
+         */
+        public Builder withTracer(@NonNull Tracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code authProvider} を認証情報の提供元として設定します。
+         * <p>
+         * 認証情報の提供元が設定された場合は、試行ごとに {@link AuthProvider#getAuthorization()} メソッドの戻り値を
+         * {@code Authorization} ヘッダーとして {@link RequestOptions#getHeaders()} に設定します。HTTPステータス
+         * {@code 401} を受信した場合は {@link AuthProvider#invalidate(String)} メソッドを呼び出し、新しい認証情報で1回のみ再試行します。
+         *
+         * @param authProvider 認証情報の提供元
+         * @return 自分自身のインスタンス
+         */
+        public Builder withAuthProvider(@NonNull AuthProvider authProvider) {
+            this.authProvider = authProvider;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code rateLimiter} を複数のインスタンスで共有するリクエスト数の制限として設定します。
+         * <p>
+         * リクエスト数の制限が設定された場合は、試行ごとに {@link Communicable#getResource()}
+         * メソッドが返却するリソースの実行許可を取得した上でAPIを実行します。実行許可の取得はバルクヘッド、および同時実行数の制限より先に行われます。
+         *
+         * @param rateLimiter 複数のインスタンスで共有するリクエスト数の制限
+         * @return 自分自身のインスタンス
+         */
+        public Builder withRateLimiter(@NonNull DistributedRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code adaptiveTimeout} を観測した応答時間から算出するタイムアウトとして設定します。
+         * <p>
+         * タイムアウトが設定された場合は、試行ごとに {@link Communicable#getResource()} メソッドが返却するリソースの現在のタイムアウトを
+         * {@link RequestOptions#getTimeout()} に設定し、APIの実行に要した時間を応答時間として記録します。
+         *
+         * @param adaptiveTimeout 観測した応答時間から算出するタイムアウト
+         * @return 自分自身のインスタンス
+         */
+        public Builder withAdaptiveTimeout(@NonNull AdaptiveTimeout adaptiveTimeout) {
+            this.adaptiveTimeout = adaptiveTimeout;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link ApiContext} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link ApiContext} クラスの新しいインスタンス
+         */
+        public ApiContext build() {
+            return new ApiContext(this);
         }
     }
 
     /**
-     * HTTP通信を行いAPIを実行したレスポンスを文字列型として返却します。リトライ処理を行う場合は {@link ApiContext}
-     * クラスのインスタンスを生成する際に、 {@link Builder} クラスの処理で {@link Builder#withRetry()}
-     * メソッドを実行し、 {@link Builder#withRetryCount(int)} メソッドと
-     * {@link Builder#withLatencyOnRetry(int)} メソッドを必要に応じて呼び出しリトライ時のパラメータを設定してください。
-     * <p>
-     * リトライ処理を行わない場合で、APIからのレスポンスでHTTPステータスが {@code 200} 以外の場合は {@code null} を返却します。
-     * <p>
-     * リトライ処理の対象はAPIからのレスポンスでHTTPステータスが {@code 200} 以外で、かつHTTPステータスがタイムアウト
-     * {@code 408} 、またはHTTPステータスが内部サーバーエラー {@code 500} の場合です。リトライ処理が失敗した場合は
-     * {@code null} を返却します。
+     * 既定のAPIオブジェクトでHTTP通信を行いAPIを実行したレスポンスを文字列型として返却します。
      *
      * @return APIから返却された文字列型のレスポンスボディ
      *
+     * @exception InvalidContextStateException   既定のAPIオブジェクトが設定されていない場合
      * @exception UnsupportedHttpStatusException {@link HttpStatus}
      *                                           で定義されていないHTTPステータスを検知した場合
+     * @exception RequestRejectedException       リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     *
+     * @see #send(Communicable)
      */
     public String send() {
-        return this.send(0);
+        return this.send(this.getDefaultApi());
     }
 
     /**
-     * HTTP通信を行いAPIを実行したレスポンスを文字列型として返却します。リトライ処理を行う場合は {@link ApiContext}
-     * クラスのインスタンスを生成する際に、 {@link Builder} クラスの処理で {@link Builder#withRetry()}
-     * メソッドを実行し、 {@link Builder#withRetryCount(int)} メソッドと
+     * 引数として渡された {@code api} でHTTP通信を行いAPIを実行したレスポンスを文字列型として返却します。リトライ処理を行う場合は
+     * {@link ApiContext} クラスのインスタンスを生成する際に、 {@link Builder} クラスの処理で
+     * {@link Builder#withRetry()} メソッドを実行し、 {@link Builder#withRetryCount(int)} メソッドと
      * {@link Builder#withLatencyOnRetry(int)} メソッドを必要に応じて呼び出しリトライ時のパラメータを設定してください。
      * <p>
      * リトライ処理を行わない場合で、APIからのレスポンスでHTTPステータスが {@code 200} 以外の場合は {@code null} を返却します。
      * <p>
      * リトライ処理の対象はAPIからのレスポンスでHTTPステータスが {@code 200} 以外で、かつHTTPステータスがタイムアウト
-     * {@code 408} 、またはHTTPステータスが内部サーバーエラー {@code 500} の場合です。リトライ処理が失敗した場合は
-     * {@code null} を返却します。
+     * {@code 408} 、またはHTTPステータスが内部サーバーエラー {@code 500} の場合です。接続先のグループが設定されている場合は
+     * {@code 502} 、 {@code 503} 、 {@code 504} もリトライ処理の対象となります。また、接続の失敗やタイムアウトなど
+     * {@link IOException} を原因とする例外も失敗した試行としてリトライ処理の対象となり、リトライできない場合はその例外を送出します。
+     * リトライ処理が失敗した場合は {@code null} を返却します。
+     * <p>
+     * レスポンスキャッシュが設定されている場合は、HTTP通信を行う前にキャッシュを参照します。
      *
+     * @param api APIオブジェクト
      * @return APIから返却された文字列型のレスポンスボディ
      *
      * @exception UnsupportedHttpStatusException {@link HttpStatus}
      *                                           で定義されていないHTTPステータスを検知した場合
+     * @exception RequestRejectedException       リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     */
+    public String send(@NonNull Communicable api) {
+
+        final ApiResult result = this.sendForResult(api);
+
+        if (!result.isSupportedStatus()) {
+            throw this.stacklessException
+                    ? new UnsupportedHttpStatusException(
+                            String.format("Unsupported HTTP status: %d", result.getStatusCode()), null, false, false)
+                    : new UnsupportedHttpStatusException();
+        }
+
+        return result.getBody();
+    }
+
+    /**
+     * 既定のAPIオブジェクトでHTTP通信を行いAPIを実行した結果を {@link ApiResult} として返却します。
+     *
+     * @return APIの実行結果
+     *
+     * @exception InvalidContextStateException 既定のAPIオブジェクトが設定されていない場合
+     * @exception RequestRejectedException     リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     *
+     * @see #sendForResult(Communicable)
      */
-    private String send(int retryCount) {
+    public ApiResult sendForResult() {
+        return this.sendForResult(this.getDefaultApi());
+    }
+
+    /**
+     * 引数として渡された {@code api} でHTTP通信を行いAPIを実行した結果を {@link ApiResult} として返却します。
+     * <p>
+     * {@link #send(Communicable)} メソッドと同様にリトライ処理とレスポンスキャッシュの参照を行いますが、APIの実行に失敗した場合でも
+     * {@code null} を返却せず、 {@link HttpStatus} で定義されていないHTTPステータスを検知した場合でも例外を送出しません。
+     * 実行結果のHTTPステータスと試行回数は返却された {@link ApiResult} から参照してください。
+     *
+     * @param api APIオブジェクト
+     * @return APIの実行結果
+     *
+     * @exception RequestRejectedException リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     */
+    public ApiResult sendForResult(@NonNull Communicable api) {
+
+        final TraceContext traceContext = this.tracer != null ? this.tracer.startTrace() : TraceContext.disabled();
+        ApiResult result = null;
 
-        final HttpResponse<String> response = api.send();
-        final HttpStatus httpStatus = BiCatalog.getEnum(HttpStatus.class, response.statusCode());
+        try {
+            final String requestKey = this.responseCache != null ? api.getRequestKey() : null;
+
+            if (requestKey != null) {
+                final CachedResponse cachedResponse = this.responseCache.get(requestKey);
+
+                if (cachedResponse != null && this.isServable(cachedResponse)) {
+                    if (this.cacheRefreshPolicy != null && this.cacheRefreshPolicy.needsRefresh(cachedResponse)) {
+                        this.cacheRefreshPolicy.refresh(requestKey, cachedResponse, () -> this.refresh(api, requestKey));
+                    }
+
+                    result = new ApiResult(cachedResponse.getBody(), HttpStatus.OK, HttpStatus.OK.getTag(), 0);
+                    return result;
+                }
+            }
 
-        Preconditions.requireNonNull(httpStatus, new UnsupportedHttpStatusException());
+            result = this.execute(api, traceContext);
 
-        if (httpStatus != HttpStatus.OK) {
-            if (this.retry && retryCount <= this.retryCount && this.isStatusRetryable(httpStatus)) {
-                this.sleep();
-                return this.send(++retryCount);
-            } else {
-                return null;
+            if (requestKey != null && result.isSuccess() && result.getBody() != null) {
+                this.responseCache.put(requestKey, result.getBody());
             }
+
+            return result;
+        } finally {
+            traceContext.end(result != null ? result.getStatusCode() : 0);
         }
+    }
 
-        return response.body();
+    /**
+     * 引数として渡された {@code cachedResponse} を通信を行わずに返却できるか判定します。
+     *
+     * @param cachedResponse キャッシュ済みのレスポンス
+     * @return キャッシュの更新方針が設定されていない場合、またはキャッシュの更新方針で返却可能と判定された場合は {@code true}
+     *         、それ以外は {@code false}
+     */
+    private boolean isServable(@NonNull CachedResponse cachedResponse) {
+        return this.cacheRefreshPolicy == null || this.cacheRefreshPolicy.isServable(cachedResponse);
+    }
+
+    /**
+     * バックグラウンドでAPIを実行し、成功してレスポンスボディが存在する場合はレスポンスキャッシュを更新します。
+     *
+     * @param api        APIオブジェクト
+     * @param requestKey リクエストを一意に識別するキー
+     */
+    private void refresh(@NonNull Communicable api, @NonNull String requestKey) {
+
+        final ApiResult result = this.execute(api, TraceContext.disabled());
+
+        if (result.isSuccess() && result.getBody() != null) {
+            this.responseCache.put(requestKey, result.getBody());
+        }
+    }
+
+    /**
+     * リトライ処理を含めてAPIを実行した結果を {@link ApiResult} として返却します。リトライ処理の対象はAPIからのレスポンスでHTTPステータスが
+     * {@code 200} 以外で、かつHTTPステータスがタイムアウト {@code 408} 、またはHTTPステータスが内部サーバーエラー
+     * {@code 500} の場合です。接続先のグループが設定されている場合は {@code 502} 、 {@code 503} 、 {@code 504}
+     * もリトライ処理の対象となり、次の試行は別の接続先に対して行われます。
+     * <p>
+     * 接続の失敗やタイムアウトなど {@link IOException} を原因とする例外がAPIの実行時に送出された場合も失敗した試行として扱い、
+     * リトライ可能な場合は次の試行を行います。リトライできない場合は最後に送出された例外をそのまま送出します。
+     * <p>
+     * 試行回数と試行済みの接続先は呼び出しごとにこのメソッド内で保持され、リトライはループで行われます。認証情報の提供元が設定されている場合、
+     * HTTPステータスが {@code 401} の場合は認証情報を無効化した上で1回のみ待機せずに再試行します。この再試行はリトライ数に含まれません。
+     *
+     * @param api          APIオブジェクト
+     * @param traceContext 呼び出し全体のトレース情報
+     * @return APIの実行結果
+     *
+     * @exception RequestRejectedException リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     */
+    private ApiResult execute(@NonNull Communicable api, @NonNull TraceContext traceContext) {
+
+        final List<Endpoint> triedEndpoints = this.endpointGroup != null ? new ArrayList<>() : Collections.emptyList();
+
+        int retryCount = 0;
+        boolean reauthenticated = false;
+
+        for (int attempt = 1;; attempt++) {
+            final Endpoint endpoint = this.endpointGroup != null ? this.endpointGroup.select(triedEndpoints) : null;
+            final String authorization = this.authProvider != null ? this.authProvider.getAuthorization() : null;
+            final TraceContext attemptTraceContext = traceContext.startChild(TracePhase.ATTEMPT, attempt);
+            final RequestOptions.Builder optionsBuilder = RequestOptions.builder()
+                    .withBaseUri(endpoint != null ? endpoint.getBaseUri() : null).withAttempt(attempt)
+                    .withTraceContext(attemptTraceContext);
+
+            if (authorization != null) {
+                optionsBuilder.withHeader("Authorization", authorization);
+            }
+
+            if (this.adaptiveTimeout != null) {
+                optionsBuilder.withTimeout(this.adaptiveTimeout.getTimeout(api.getResource()));
+            }
+
+            HttpResponse<String> response = null;
+
+            try {
+                response = this.execute(api, optionsBuilder.build(), endpoint);
+            } catch (RuntimeException e) {
+                if (!this.isFailureRetryable(e) || !this.retry || retryCount > this.retryCount) {
+                    throw e;
+                }
+
+                if (endpoint != null) {
+                    triedEndpoints.add(endpoint);
+                }
+
+                final long sleepStartedAt = System.nanoTime();
+                final boolean interrupted = !this.sleep();
+                traceContext.record(TracePhase.RETRY_WAIT, sleepStartedAt, System.nanoTime());
+
+                if (interrupted) {
+                    throw e;
+                }
+
+                retryCount++;
+                continue;
+            } finally {
+                attemptTraceContext.end(response != null ? response.statusCode() : 0);
+            }
+
+            final HttpStatus httpStatus = BiCatalog.getEnum(HttpStatus.class, response.statusCode());
+
+            if (httpStatus == HttpStatus.OK) {
+                return new ApiResult(response.body(), httpStatus, response.statusCode(), attempt);
+            }
+
+            if (httpStatus == HttpStatus.UNAUTHORIZED && authorization != null && !reauthenticated) {
+                reauthenticated = true;
+                this.authProvider.invalidate(authorization);
+                continue;
+            }
+
+            if (httpStatus == null || !this.retry || retryCount > this.retryCount
+                    || !this.isStatusRetryable(httpStatus)) {
+                return new ApiResult(null, httpStatus, response.statusCode(), attempt);
+            }
+
+            if (endpoint != null) {
+                triedEndpoints.add(endpoint);
+            }
+
+            final long sleepStartedAt = System.nanoTime();
+            final boolean interrupted = !this.sleep();
+            traceContext.record(TracePhase.RETRY_WAIT, sleepStartedAt, System.nanoTime());
+
+            if (interrupted) {
+                return new ApiResult(null, httpStatus, response.statusCode(), attempt);
+            }
+
+            retryCount++;
+        }
+    }
+
+    /**
+     * APIを1回実行しHTTPレスポンスを返却します。リクエスト数の制限、バルクヘッド、または同時実行数の制限が設定されている場合は、
+     * 実行許可と実行枠を取得した上でAPIを実行します。
+     *
+     * @param api      APIオブジェクト
+     * @param options  通信時のオプション
+     * @param endpoint 接続先。接続先のグループが設定されていない場合は {@code null}
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     *
+     * @exception RequestRejectedException リクエスト数の制限、同時実行数の制限、またはバルクヘッドによりリクエストが拒否された場合
+     */
+    private HttpResponse<String> execute(@NonNull Communicable api, @NonNull RequestOptions options,
+            Endpoint endpoint) {
+
+        if (this.rateLimiter != null) {
+            this.rateLimiter.acquire(api.getResource());
+        }
+
+        if (this.bulkheads == null && this.concurrencyLimiter == null) {
+            return this.invoke(api, options, endpoint);
+        }
+
+        final Resource resource = api.getResource();
+        final ConcurrencyLimiter.Permit bulkheadPermit = this.bulkheads != null ? this.bulkheads.acquire(resource)
+                : null;
+
+        try {
+            final ConcurrencyLimiter.Permit limiterPermit = this.concurrencyLimiter != null
+                    ? this.concurrencyLimiter.acquire(resource)
+                    : null;
+            final long startedAt = System.nanoTime();
+            HttpStatus httpStatus = null;
+
+            try {
+                final HttpResponse<String> response = this.invoke(api, options, endpoint);
+                httpStatus = BiCatalog.getEnum(HttpStatus.class, response.statusCode());
+                return response;
+            } finally {
+                if (limiterPermit != null) {
+                    limiterPermit.release(System.nanoTime() - startedAt, httpStatus);
+                }
+            }
+        } finally {
+            if (bulkheadPermit != null) {
+                bulkheadPermit.release(0, null);
+            }
+        }
+    }
+
+    /**
+     * 引数として渡された {@code options} を適用してAPIを呼び出します。接続先が指定されている場合は接続先に対するリクエストの開始と終了を記録します。
+     *
+     * @param api      APIオブジェクト
+     * @param options  通信時のオプション
+     * @param endpoint 接続先。接続先のグループが設定されていない場合は {@code null}
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     */
+    private HttpResponse<String> invoke(@NonNull Communicable api, @NonNull RequestOptions options,
+            Endpoint endpoint) {
+
+        if (endpoint == null) {
+            return this.send(api, options);
+        }
+
+        HttpStatus httpStatus = null;
+        this.endpointGroup.onStart(endpoint);
+
+        try {
+            final HttpResponse<String> response = this.send(api, options);
+            httpStatus = BiCatalog.getEnum(HttpStatus.class, response.statusCode());
+            return response;
+        } finally {
+            this.endpointGroup.onComplete(endpoint, httpStatus);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code options} を適用してAPIを呼び出します。タイムアウトが設定されている場合は、APIの実行に要した時間を応答時間として記録します。
+     * <p>
+     * タイムアウトした試行の応答時間は適用したタイムアウトを上限として記録し、それ以外の例外が送出された試行の応答時間は記録しません。
+     *
+     * @param api     APIオブジェクト
+     * @param options 通信時のオプション
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     */
+    private HttpResponse<String> send(@NonNull Communicable api, @NonNull RequestOptions options) {
+
+        if (this.adaptiveTimeout == null) {
+            return api.send(options);
+        }
+
+        final long startedAt = System.nanoTime();
+        final HttpResponse<String> response;
+
+        try {
+            response = api.send(options);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof HttpTimeoutException) {
+                this.adaptiveTimeout.record(api.getResource(),
+                        Math.min(System.nanoTime() - startedAt, options.getTimeout().toNanos()));
+            }
+
+            throw e;
+        }
+
+        this.adaptiveTimeout.record(api.getResource(), System.nanoTime() - startedAt);
+        return response;
     }
 
     /**
      * HTTPステータスが {@code 200} ではなかった場合にリトライ可能なステータスコードか判定します。
      *
      * @param httpStatus HTTPステータス
-     * @return HTTPステータがリクエストタイムアウトの場合、または内部サーバーエラーの場合は {@code true} 、それ以外は
+     * @return HTTPステータがリクエストタイムアウトの場合、内部サーバーエラーの場合、または接続先のグループが設定されていて
+     *         HTTPステータスが {@code 502} 、 {@code 503} 、 {@code 504} の場合は {@code true} 、それ以外は
      *         {@code false}
      */
     private boolean isStatusRetryable(@NonNull HttpStatus httpStatus) {
-        return httpStatus == HttpStatus.REQUEST_TIMEOUT || httpStatus == HttpStatus.INTERNAL_SERVER_ERROR;
+
+        if (httpStatus == HttpStatus.REQUEST_TIMEOUT || httpStatus == HttpStatus.INTERNAL_SERVER_ERROR) {
+            return true;
+        }
+
+        return this.endpointGroup != null && (httpStatus == HttpStatus.BAD_GATEWAY
+                || httpStatus == HttpStatus.SERVICE_UNAVAILABLE || httpStatus == HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    /**
+     * APIの実行時に送出された例外がリトライ可能な失敗か判定します。
+     *
+     * @param e APIの実行時に送出された例外
+     * @return 例外が {@link UncheckedIOException} の場合、または例外の原因が {@link IOException} の場合は
+     *         {@code true} 、それ以外は {@code false}
+     */
+    private boolean isFailureRetryable(@NonNull RuntimeException e) {
+        return e instanceof UncheckedIOException || e.getCause() instanceof IOException;
+    }
+
+    /**
+     * 既定のAPIオブジェクトを返却します。
+     *
+     * @return 既定のAPIオブジェクト
+     *
+     * @throws InvalidContextStateException 既定のAPIオブジェクトが設定されていない場合
+     */
+    private Communicable getDefaultApi() {
+
+        if (this.api == null) {
+            throw new InvalidContextStateException();
+        }
+
+        return this.api;
     }
 
     /**
      * {@link ApiContext} クラスのインスタンスを生成する際に設定されたリトライ時の待機時間を基にスレッドをスリープさせます。
+     * 待機中に割り込みが発生した場合は割り込み状態を復元します。
+     *
+     * @return 待機を完了した場合は {@code true} 、待機中に割り込みが発生した場合は {@code false}
      */
-    private void sleep() {
+    private boolean sleep() {
         try {
             Thread.sleep(this.latency);
+            return true;
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 }
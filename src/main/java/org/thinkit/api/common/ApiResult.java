@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common;
+
+import org.thinkit.api.common.catalog.HttpStatus;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * {@link ApiContext#sendForResult()} メソッドでAPIを実行した結果を表すクラスです。
+ * <p>
+ * APIの実行結果は例外や {@code null} ではなく、レスポンスボディ、HTTPステータス、試行回数を保持するこのクラスで表現されます。
+ * {@link HttpStatus} で定義されていないHTTPステータスを受信した場合、 {@link #getHttpStatus()} メソッドは
+ * {@code null} を返却し、受信したステータスコードは {@link #getStatusCode()} メソッドで参照することができます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ApiResult {
+
+    /**
+     * レスポンスボディ。APIの実行に失敗した場合は {@code null}
+     */
+    @Getter
+    private final String body;
+
+    /**
+     * HTTPステータス。 {@link HttpStatus} で定義されていないステータスを受信した場合は {@code null}
+     */
+    @Getter
+    private final HttpStatus httpStatus;
+
+    /**
+     * 受信したステータスコード
+     */
+    @Getter
+    private final int statusCode;
+
+    /**
+     * APIの試行回数。キャッシュからレスポンスを返却した場合は {@code 0}
+     */
+    @Getter
+    private final int attemptCount;
+
+    /**
+     * APIの実行に成功したか判定します。
+     *
+     * @return HTTPステータスが {@code 200} の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isSuccess() {
+        return this.httpStatus == HttpStatus.OK;
+    }
+
+    /**
+     * 受信したステータスコードが {@link HttpStatus} で定義されているか判定します。
+     *
+     * @return 受信したステータスコードが {@link HttpStatus} で定義されている場合は {@code true} 、それ以外は
+     *         {@code false}
+     */
+    public boolean isSupportedStatus() {
+        return this.httpStatus != null;
+    }
+}
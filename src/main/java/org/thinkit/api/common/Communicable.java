@@ -14,12 +14,8 @@
 
 package org.thinkit.api.common;
 
-import java.net.URLEncoder;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
-import org.apache.commons.lang3.StringUtils;
 import org.thinkit.api.common.annotation.ParameterMapping;
 import org.thinkit.api.common.entity.RequestParameter;
 
@@ -47,7 +43,8 @@ public interface Communicable {
      * 引数として渡された {@link RequestParameter}
      * クラスに設定された特定フィールドの値が空の場合、その値が空であったフィールドに対してのパラメータの設定処理は無視されます。
      * <p>
-     * 返却時のクエリの形式は {@code "?key1=value1&key2=value2"} です。
+     * 返却時のクエリの形式は {@code "?key1=value1&key2=value2"} です。フィールドの解析結果は {@link QueryTemplate}
+     * によりクラスごとにキャッシュされます。
      *
      * @param parameter リクエストパラメーターを生成する際に使用するキーと値が格納されたオブジェクト
      * @return 引数として渡された {@link RequestParameter}
@@ -57,32 +54,57 @@ public interface Communicable {
      * @exception NullPointerException 引数として {@code null} が渡された場合
      */
     default String createQuery(@NonNull RequestParameter requestParameter) {
+        return QueryTemplate.of(requestParameter.getClass()).createQuery(requestParameter);
+    }
 
-        final StringBuilder query = new StringBuilder();
-        query.append("?");
+    /**
+     * 通信対象のリソースを返却します。
+     * <p>
+     * 返却されたリソースは {@link ApiContext} でのレスポンスのキャッシュなど、リソース単位の制御を行う際に使用されます。
+     * 初期実装では {@code null} を返却するため、リソース単位の制御を行う場合はオーバーライドしてください。
+     *
+     * @return 通信対象のリソース。リソースが定義されていない場合は {@code null}
+     */
+    default Resource getResource() {
+        return null;
+    }
 
-        Arrays.asList(requestParameter.getClass().getDeclaredFields()).forEach(field -> {
-            if (field.isAnnotationPresent(ParameterMapping.class)) {
-                try {
-                    field.setAccessible(true);
-                    final String value = field.get(requestParameter).toString();
+    /**
+     * 通信時に使用するリクエストパラメータを返却します。
+     * <p>
+     * 初期実装では {@code null} を返却するため、リクエストパラメータを使用する場合はオーバーライドしてください。
+     *
+     * @return 通信時に使用するリクエストパラメータ。リクエストパラメータが定義されていない場合は {@code null}
+     */
+    default RequestParameter getRequestParameter() {
+        return null;
+    }
 
-                    if (!StringUtils.isEmpty(value)) {
+    /**
+     * リクエストを一意に識別するキーを返却します。
+     * <p>
+     * 初期実装では {@link #getResource()} メソッドが返却するリソースと、 {@link #getRequestParameter()}
+     * メソッドが返却するリクエストパラメータから生成したクエリを連結した値をキーとして返却します。バインド変数を含むリソースを使用する場合は、
+     * バインド後のリソースを含むキーを返却するようにオーバーライドしてください。
+     *
+     * @return リクエストを一意に識別するキー。 {@link #getResource()} メソッドが {@code null}
+     *         を返却する場合は {@code null}
+     */
+    default String getRequestKey() {
 
-                        final String keyAlias = field.getAnnotation(ParameterMapping.class).keyAlias();
+        final Resource resource = this.getResource();
 
-                        query.append(String.format("%s=%s&", StringUtils.isEmpty(keyAlias) ? field.getName() : keyAlias,
-                                URLEncoder.encode(value, StandardCharsets.UTF_8)));
-                    }
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    throw new InvalidParameterStateException(e);
-                }
-            }
-        });
+        if (resource == null) {
+            return null;
+        }
 
-        query.setLength(query.length() - 1);
+        final RequestParameter requestParameter = this.getRequestParameter();
 
-        return query.toString();
+        if (requestParameter == null) {
+            return resource.getResource();
+        }
+
+        return resource.getResource() + this.createQuery(requestParameter);
     }
 
     /**
@@ -91,4 +113,18 @@ public interface Communicable {
      * @return 文字列型のbody要素を持つHTTPレスポンス
      */
     public HttpResponse<String> send();
+
+    /**
+     * 引数として渡された {@code options} を適用してHTTPリクエストを送信し、文字列型のbody要素を持つHTTPレスポンスを返却します。
+     * <p>
+     * {@link ApiContext} はリクエストの試行ごとにこのメソッドを呼び出します。初期実装では {@code options} を無視して
+     * {@link #send()} メソッドを呼び出すため、接続先の切り替えなど {@link RequestOptions}
+     * に設定された値を使用する場合はオーバーライドしてください。
+     *
+     * @param options 通信時のオプション
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     */
+    default HttpResponse<String> send(@NonNull RequestOptions options) {
+        return this.send();
+    }
 }
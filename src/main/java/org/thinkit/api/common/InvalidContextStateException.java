@@ -22,7 +22,7 @@ package org.thinkit.api.common;
  * @since 1.0
  * @version 1.0
  */
-final class InvalidContextStateException extends RuntimeException {
+public final class InvalidContextStateException extends RuntimeException {
 
     /**
      * serialVersionUID
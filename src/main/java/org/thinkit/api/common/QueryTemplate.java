@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common;
+
+import java.lang.reflect.Field;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.thinkit.api.common.annotation.ParameterMapping;
+import org.thinkit.api.common.entity.RequestParameter;
+
+import lombok.NonNull;
+
+/**
+ * {@link RequestParameter} を実装したクラスからクエリを生成するテンプレートです。
+ * <p>
+ * {@link ParameterMapping} アノテーションが付与されたフィールドの解析結果はクラスごとに1度だけ生成され、以降のクエリの生成時に再利用されます。
+ * 起動時に {@link #of(Class)} メソッドを呼び出すことで、最初のリクエストの前に解析を済ませておくことができます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class QueryTemplate {
+
+    /**
+     * クラスごとのテンプレート
+     */
+    private static final ClassValue<QueryTemplate> TEMPLATES = new ClassValue<>() {
+
+        @Override
+        protected QueryTemplate computeValue(Class<?> type) {
+            return new QueryTemplate(type);
+        }
+    };
+
+    /**
+     * パラメータのキー名
+     */
+    private final String[] keys;
+
+    /**
+     * パラメータの値を保持するフィールド
+     */
+    private final Field[] fields;
+
+    /**
+     * コンストラクタ
+     *
+     * @param type {@link RequestParameter} を実装したクラス
+     */
+    private QueryTemplate(@NonNull Class<?> type) {
+
+        final List<String> keys = new ArrayList<>();
+        final List<Field> fields = new ArrayList<>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ParameterMapping.class)) {
+                field.setAccessible(true);
+
+                final String keyAlias = field.getAnnotation(ParameterMapping.class).keyAlias();
+                keys.add(StringUtils.isEmpty(keyAlias) ? field.getName() : keyAlias);
+                fields.add(field);
+            }
+        }
+
+        this.keys = keys.toArray(new String[0]);
+        this.fields = fields.toArray(new Field[0]);
+    }
+
+    /**
+     * 引数として渡された {@code type} に対応するテンプレートを返却します。
+     *
+     * @param type {@link RequestParameter} を実装したクラス
+     * @return テンプレート
+     */
+    public static QueryTemplate of(@NonNull Class<? extends RequestParameter> type) {
+        return TEMPLATES.get(type);
+    }
+
+    /**
+     * 引数として渡された {@code requestParameter} から {@code "?key1=value1&key2=value2"} 形式のクエリを生成し返却します。
+     * 値が空のパラメータは無視され、全ての値は {@code UTF-8} 形式でURLエンコードされます。
+     *
+     * @param requestParameter リクエストパラメータ
+     * @return 生成されたクエリ。設定されたパラメータが存在しない場合は空文字列
+     *
+     * @exception InvalidParameterStateException フィールドの値を取得できなかった場合
+     */
+    public String createQuery(@NonNull RequestParameter requestParameter) {
+
+        final StringBuilder query = new StringBuilder();
+        query.append("?");
+
+        this.forEach(requestParameter, (key, value) -> query.append(key).append('=')
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&'));
+
+        query.setLength(query.length() - 1);
+
+        return query.toString();
+    }
+
+    /**
+     * 引数として渡された {@code requestParameter} に設定されたパラメータのキー名と値を返却します。値が空のパラメータは無視されます。
+     * 返却される値はURLエンコードされていません。
+     *
+     * @param requestParameter リクエストパラメータ
+     * @return パラメータのキー名と値
+     *
+     * @exception InvalidParameterStateException フィールドの値を取得できなかった場合
+     */
+    public Map<String, String> toMap(@NonNull RequestParameter requestParameter) {
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        this.forEach(requestParameter, parameters::put);
+        return parameters;
+    }
+
+    /**
+     * 値が空ではないパラメータのキー名と値を引数として渡された {@code consumer} へ渡します。
+     *
+     * @param requestParameter リクエストパラメータ
+     * @param consumer         パラメータのキー名と値を受け取る処理
+     *
+     * @exception InvalidParameterStateException フィールドの値を取得できなかった場合
+     */
+    private void forEach(@NonNull RequestParameter requestParameter,
+            @NonNull BiConsumer<String, String> consumer) {
+        try {
+            for (int i = 0; i < this.fields.length; i++) {
+                final String value = this.fields[i].get(requestParameter).toString();
+
+                if (!StringUtils.isEmpty(value)) {
+                    consumer.accept(this.keys[i], value);
+                }
+            }
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            throw new InvalidParameterStateException(e);
+        }
+    }
+}
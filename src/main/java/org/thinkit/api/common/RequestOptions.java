@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.trace.TraceContext;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link ApiContext} がリクエストの試行ごとに {@link Communicable#send(RequestOptions)}
+ * メソッドへ渡す通信時のオプションです。
+ * <p>
+ * {@link Communicable} の実装クラスは、このオプションに設定された接続先、リクエストヘッダー、タイムアウトを使用してリクエストを生成してください。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+public final class RequestOptions {
+
+    /**
+     * オプションが設定されていない空のインスタンス
+     */
+    private static final RequestOptions EMPTY = builder().build();
+
+    /**
+     * 接続先のベースURI。接続先が指定されていない場合は {@code null}
+     */
+    @Getter
+    private URI baseUri;
+
+    /**
+     * 試行回数（1始まり）
+     */
+    @Getter
+    private int attempt;
+
+    /**
+     * 追加するリクエストヘッダー
+     */
+    @Getter
+    private Map<String, String> headers;
+
+    /**
+     * 試行のトレース情報。トレースが無効の場合は {@link TraceContext#disabled()}
+     */
+    @Getter
+    private TraceContext traceContext;
+
+    /**
+     * 試行のタイムアウト。タイムアウトが指定されていない場合は {@code null}
+     */
+    @Getter
+    private Duration timeout;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private RequestOptions() {
+    }
+
+    /**
+     * オプションが設定されていない空のインスタンスを返却します。
+     *
+     * @return オプションが設定されていない空のインスタンス
+     */
+    public static RequestOptions empty() {
+        return EMPTY;
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link RequestOptions} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続先のベースURI
+         */
+        private URI baseUri;
+
+        /**
+         * 試行回数
+         */
+        private int attempt = 1;
+
+        /**
+         * 追加するリクエストヘッダー
+         */
+        private Map<String, String> headers = new LinkedHashMap<>();
+
+        /**
+         * 試行のトレース情報
+         */
+        private TraceContext traceContext = TraceContext.disabled();
+
+        /**
+         * 試行のタイムアウト
+         */
+        private Duration timeout;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続先のベースURIを設定します。
+         *
+         * @param baseUri 接続先のベースURI
+         * @return 自分自身のインスタンス
+         */
+        public Builder withBaseUri(URI baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        /**
+         * 試行回数を設定します。
+         *
+         * @param attempt 試行回数（1始まり）
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withAttempt(int attempt) {
+
+            if (attempt <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.attempt = attempt;
+            return this;
+        }
+
+        /**
+         * リクエストに追加するヘッダーを設定します。同一の名前のヘッダーが設定済みの場合は値を上書きします。
+         *
+         * @param name  ヘッダーの名前
+         * @param value ヘッダーの値
+         * @return 自分自身のインスタンス
+         */
+        public Builder withHeader(@NonNull String name, @NonNull String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * 試行のトレース情報を設定します。トレースが有効な場合は {@code traceparent} ヘッダーを追加します。
+         *
+         * @param traceContext 試行のトレース情報
+         * @return 自分自身のインスタンス
+         */
+        public Builder withTraceContext(@NonNull TraceContext traceContext) {
+
+            this.traceContext = traceContext;
+
+            if (traceContext.isEnabled()) {
+                this.headers.put("traceparent", traceContext.toTraceparent());
+            }
+
+            return this;
+        }
+
+        /**
+         * 試行のタイムアウトを設定します。
+         *
+         * @param timeout 試行のタイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withTimeout(@NonNull Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link RequestOptions} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link RequestOptions} クラスの新しいインスタンス
+         */
+        public RequestOptions build() {
+
+            final RequestOptions options = new RequestOptions();
+            options.baseUri = this.baseUri;
+            options.attempt = this.attempt;
+            options.headers = this.headers.isEmpty() ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(this.headers));
+            options.traceContext = this.traceContext;
+            options.timeout = this.timeout;
+
+            return options;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code path} を接続先のベースURIと連結したURIを返却します。接続先が指定されていない場合は {@code path}
+     * をそのままURIとして返却します。
+     *
+     * @param path ベースURIに連結するパス
+     * @return 接続先のURI
+     *
+     * @exception ApiRequestFailedException 連結した値がURIとして不正な場合
+     */
+    public URI resolve(@NonNull String path) {
+
+        if (this.baseUri == null || path.isEmpty()) {
+            return this.baseUri == null ? this.toUri(path) : this.baseUri;
+        }
+
+        final String base = this.baseUri.toString();
+        final boolean baseEndsWithSlash = base.endsWith("/");
+        final boolean pathStartsWithSlash = path.startsWith("/");
+
+        if (baseEndsWithSlash && pathStartsWithSlash) {
+            return this.toUri(base + path.substring(1));
+        }
+
+        return this.toUri(baseEndsWithSlash || pathStartsWithSlash ? base + path : base + "/" + path);
+    }
+
+    /**
+     * 設定されたリクエストヘッダーを引数として渡された {@code builder} へ追加します。
+     *
+     * @param builder リクエストのビルダー
+     * @return 引数として渡された {@code builder}
+     */
+    public HttpRequest.Builder applyHeaders(@NonNull HttpRequest.Builder builder) {
+        this.headers.forEach(builder::setHeader);
+        return builder;
+    }
+
+    /**
+     * 設定されたタイムアウトを引数として渡された {@code builder} へ設定します。タイムアウトが指定されていない場合は何もしません。
+     *
+     * @param builder リクエストのビルダー
+     * @return 引数として渡された {@code builder}
+     */
+    public HttpRequest.Builder applyTimeout(@NonNull HttpRequest.Builder builder) {
+
+        if (this.timeout != null) {
+            builder.timeout(this.timeout);
+        }
+
+        return builder;
+    }
+
+    /**
+     * 引数として渡された文字列をURIへ変換します。
+     *
+     * @param uri URIを表す文字列
+     * @return URI
+     *
+     * @exception ApiRequestFailedException 引数として渡された文字列がURIとして不正な場合
+     */
+    private URI toUri(@NonNull String uri) {
+        try {
+            return URI.create(uri);
+        } catch (IllegalArgumentException e) {
+            throw new ApiRequestFailedException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.auth;
+
+import java.time.Instant;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 認可サーバーから取得したアクセストークンを表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(exclude = "value")
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class AccessToken {
+
+    /**
+     * アクセストークン
+     */
+    @Getter
+    @NonNull
+    private final String value;
+
+    /**
+     * 有効期限
+     */
+    @Getter
+    @NonNull
+    private final Instant expiresAt;
+
+    /**
+     * {@code Authorization} ヘッダーに設定する {@code Bearer} 形式の値を返却します。
+     *
+     * @return {@code Authorization} ヘッダーの値
+     */
+    public String toAuthorization() {
+        return "Bearer " + this.value;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.auth;
+
+/**
+ * リクエストに設定する {@code Authorization} ヘッダーの値を提供する処理を抽象化したインターフェースです。
+ * <p>
+ * {@link org.thinkit.api.common.ApiContext} に設定した場合、試行ごとに {@link #getAuthorization()}
+ * メソッドの戻り値が {@link org.thinkit.api.common.RequestOptions#getHeaders()} に設定されます。
+ * {@code 401 Unauthorized} を受信した場合は {@link #invalidate(String)} メソッドを呼び出した上で1回のみ再試行します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public interface AuthProvider {
+
+    /**
+     * {@code Authorization} ヘッダーに設定する値を返却します。
+     *
+     * @return {@code Authorization} ヘッダーの値
+     *
+     * @exception org.thinkit.api.common.exception.ApiRequestFailedException 認証情報の取得に失敗した場合
+     */
+    public String getAuthorization();
+
+    /**
+     * 送信先に拒否された {@code authorization} を無効化し、次回の {@link #getAuthorization()}
+     * メソッドの呼び出しで新しい値を返却するようにします。
+     *
+     * @param authorization 送信先に拒否された {@code Authorization} ヘッダーの値
+     */
+    public void invalidate(String authorization);
+}
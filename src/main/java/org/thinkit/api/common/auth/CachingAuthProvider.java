@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * 取得したアクセストークンを有効期限の直前までキャッシュする {@link AuthProvider} の実装クラスです。
+ * <p>
+ * アクセストークンの有効期限までの残り時間が更新開始時間を下回った場合は、キャッシュ済みのアクセストークンを返却しながら
+ * バックグラウンドで新しいアクセストークンを取得します。アクセストークンが存在しない場合、または有効期限を過ぎた場合は呼び出し元のスレッドで取得します。
+ * アクセストークンの取得は同時に1件のみ実行され、取得中に呼び出されたスレッドは実行中の取得処理の結果を待機します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * AuthProvider authProvider = CachingAuthProvider.builder().of(tokenSource).withRefreshBefore(Duration.ofMinutes(1))
+ *         .build();
+ * ApiContext context = ApiContext.builder().withAuthProvider(authProvider).withRetry().build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class CachingAuthProvider implements AuthProvider {
+
+    /**
+     * アクセストークンの取得処理
+     */
+    private TokenSource tokenSource;
+
+    /**
+     * 有効期限の何ミリ秒前から更新を開始するか
+     */
+    private long refreshBefore;
+
+    /**
+     * バックグラウンドでの取得処理を実行するエグゼキューター
+     */
+    private Executor executor;
+
+    /**
+     * キャッシュ済みのアクセストークン
+     */
+    private final AtomicReference<AccessToken> token = new AtomicReference<>();
+
+    /**
+     * 実行中の取得処理
+     */
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+
+    /**
+     * アクセストークンを取得した回数
+     */
+    private final LongAdder fetchCount = new LongAdder();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private CachingAuthProvider() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link CachingAuthProvider} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * アクセストークンの取得処理
+         */
+        private TokenSource tokenSource;
+
+        /**
+         * 有効期限から更新を開始するまでの時間
+         */
+        private Duration refreshBefore = Duration.ofSeconds(60);
+
+        /**
+         * バックグラウンドでの取得処理を実行するエグゼキューター
+         */
+        private Executor executor;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * アクセストークンの取得処理を設定します。
+         *
+         * @param tokenSource アクセストークンの取得処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull TokenSource tokenSource) {
+            this.tokenSource = tokenSource;
+            return this;
+        }
+
+        /**
+         * 有効期限のどれだけ前からバックグラウンドでの更新を開始するかを設定します。初期設定として60秒が設定されています。
+         *
+         * @param refreshBefore 有効期限から更新を開始するまでの時間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withRefreshBefore(@NonNull Duration refreshBefore) {
+
+            if (refreshBefore.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.refreshBefore = refreshBefore;
+            return this;
+        }
+
+        /**
+         * バックグラウンドでの取得処理を実行するエグゼキューターを設定します。このメソッドを呼び出さない場合はデーモンスレッドで取得処理を実行します。
+         *
+         * @param executor バックグラウンドでの取得処理を実行するエグゼキューター
+         * @return 自分自身のインスタンス
+         */
+        public Builder withExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link CachingAuthProvider} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link CachingAuthProvider} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(TokenSource)} メソッドが呼び出されていない場合
+         */
+        public CachingAuthProvider build() {
+
+            if (this.tokenSource == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final CachingAuthProvider provider = new CachingAuthProvider();
+            provider.tokenSource = this.tokenSource;
+            provider.refreshBefore = this.refreshBefore.toMillis();
+            provider.executor = this.executor != null ? this.executor : Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "auth-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            return provider;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 有効なアクセストークンがキャッシュされている場合は通信を行わずに返却します。
+     */
+    @Override
+    public String getAuthorization() {
+
+        final AccessToken current = this.token.get();
+        final Instant now = Instant.now();
+
+        if (current != null && now.isBefore(current.getExpiresAt())) {
+            if (!now.isBefore(current.getExpiresAt().minusMillis(this.refreshBefore))) {
+                this.refresh(true);
+            }
+
+            return current.toAuthorization();
+        }
+
+        try {
+            return this.refresh(false).join().toAuthorization();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiRequestFailedException) {
+                throw (ApiRequestFailedException) e.getCause();
+            }
+
+            throw new ApiRequestFailedException(e.getCause());
+        }
+    }
+
+    @Override
+    public void invalidate(String authorization) {
+
+        final AccessToken current = this.token.get();
+
+        if (current != null && current.toAuthorization().equals(authorization)) {
+            this.token.compareAndSet(current, null);
+        }
+    }
+
+    /**
+     * アクセストークンを取得した回数を返却します。
+     *
+     * @return アクセストークンを取得した回数
+     */
+    public long getFetchCount() {
+        return this.fetchCount.sum();
+    }
+
+    /**
+     * アクセストークンの取得を開始します。取得処理が実行中の場合は実行中の取得処理を返却します。
+     *
+     * @param async バックグラウンドで取得する場合は {@code true} 、呼び出し元のスレッドで取得する場合は {@code false}
+     * @return 取得処理
+     */
+    private CompletableFuture<AccessToken> refresh(boolean async) {
+
+        final CompletableFuture<AccessToken> future = new CompletableFuture<>();
+        final CompletableFuture<AccessToken> running = this.inFlight.compareAndExchange(null, future);
+
+        if (running != null) {
+            return running;
+        }
+
+        final Runnable task = () -> {
+            try {
+                final AccessToken accessToken = this.tokenSource.fetch();
+                this.fetchCount.increment();
+
+                if (accessToken == null) {
+                    throw new ApiRequestFailedException("The token source returned no access token");
+                }
+
+                this.token.set(accessToken);
+                this.inFlight.compareAndSet(future, null);
+                future.complete(accessToken);
+            } catch (RuntimeException e) {
+                this.inFlight.compareAndSet(future, null);
+                future.completeExceptionally(e);
+            }
+        };
+
+        if (!async) {
+            task.run();
+            return future;
+        }
+
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            this.inFlight.compareAndSet(future, null);
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+}
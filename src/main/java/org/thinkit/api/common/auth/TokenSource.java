@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.auth;
+
+/**
+ * 認可サーバーからアクセストークンを取得する処理を抽象化したインターフェースです。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * TokenSource source = () -&gt; {
+ *     TokenResponse response = tokenApi.requestToken(clientId, clientSecret);
+ *     return new AccessToken(response.getAccessToken(), Instant.now().plusSeconds(response.getExpiresIn()));
+ * };
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface TokenSource {
+
+    /**
+     * 新しいアクセストークンを取得します。
+     *
+     * @return アクセストークン
+     *
+     * @exception org.thinkit.api.common.exception.ApiRequestFailedException アクセストークンの取得に失敗した場合
+     */
+    public AccessToken fetch();
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.batch;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * 個別のキーによる取得要求を一定時間、または一定件数ごとにまとめ、1回の一括リクエストとして実行するクラスです。
+ * <p>
+ * {@link #load(Object)} メソッドで要求されたキーは、最初のキーが要求されてからバッチの待機時間が経過した時点、
+ * またはバッチの最大件数に達した時点でまとめて {@link Builder#withCombiner(ApiContext, Function)}
+ * で設定した関数へ渡され、生成された {@link Communicable} で共有の {@link ApiContext} を介して1回のリクエストを送信します。
+ * レスポンスは {@link Builder#withSplitter(BiFunction)} で設定した関数でキーごとの値に分割され、各呼び出し元の
+ * {@link CompletableFuture} へ返却されます。
+ * 同一のバッチ内で重複して要求されたキーは1つにまとめられます。
+ * <p>
+ * 分割結果に含まれないキーの要求は {@link ApiRequestFailedException} で完了します。分割結果に {@code null}
+ * が値として含まれるキーの値は {@code null} として返却されます。一括リクエストが失敗した場合は、バッチに含まれる全ての要求が例外で完了します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ApiContext context = ApiContext.builder().withRetry().build();
+ * BatchLoader&lt;String, String&gt; loader = BatchLoader.&lt;String, String&gt;builder()
+ *         .withCombiner(context, ids -&gt; new BulkUserApi(ids))
+ *         .withSplitter((ids, body) -&gt; parseUsers(body)).withMaxBatchSize(100).withBatchWindow(5).build();
+ * CompletableFuture&lt;String&gt; user = loader.load("user-1");
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ *
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+public final class BatchLoader<K, V> implements Closeable {
+
+    /**
+     * 全ての一括リクエストで共有するコンテキスト
+     */
+    private ApiContext context;
+
+    /**
+     * キーの一覧から一括リクエストのAPIオブジェクトを生成する関数
+     */
+    private Function<List<K>, Communicable> combiner;
+
+    /**
+     * 一括リクエストのレスポンスボディをキーごとの値に分割する関数
+     */
+    private BiFunction<List<K>, String, Map<K, V>> splitter;
+
+    /**
+     * バッチの最大件数
+     */
+    private int maxBatchSize;
+
+    /**
+     * バッチの待機時間（ミリ秒）
+     */
+    private long batchWindow;
+
+    /**
+     * 実行したバッチの件数を受け取る処理
+     */
+    private IntConsumer batchListener;
+
+    /**
+     * 一括リクエストを実行するエグゼキューター
+     */
+    private Executor executor;
+
+    /**
+     * このクラスが生成したエグゼキューター
+     */
+    private ExecutorService ownedExecutor;
+
+    /**
+     * バッチの送信を予約するスケジューラー
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 排他制御用のオブジェクト
+     */
+    private final Object lock = new Object();
+
+    /**
+     * 送信待ちのキーと値の返却先
+     */
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * 予約されたバッチの送信
+     */
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * 閉じられたか否か
+     */
+    private boolean closed;
+
+    /**
+     * 実行したバッチ数
+     */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * 実行したバッチに含まれるキー数の合計
+     */
+    private final AtomicLong keyCount = new AtomicLong();
+
+    /**
+     * 実行したバッチの最大件数
+     */
+    private final AtomicInteger largestBatchSize = new AtomicInteger();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private BatchLoader() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @param <K> キーの型
+     * @param <V> 値の型
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * {@link BatchLoader} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     *
+     * @param <K> キーの型
+     * @param <V> 値の型
+     */
+    public static class Builder<K, V> {
+
+        /**
+         * 全ての一括リクエストで共有するコンテキスト
+         */
+        private ApiContext context;
+
+        /**
+         * キーの一覧から一括リクエストのAPIオブジェクトを生成する関数
+         */
+        private Function<List<K>, Communicable> combiner;
+
+        /**
+         * 一括リクエストのレスポンスボディをキーごとの値に分割する関数
+         */
+        private BiFunction<List<K>, String, Map<K, V>> splitter;
+
+        /**
+         * バッチの最大件数
+         */
+        private int maxBatchSize = 100;
+
+        /**
+         * バッチの待機時間（ミリ秒）
+         */
+        private long batchWindow = 10;
+
+        /**
+         * 実行したバッチの件数を受け取る処理
+         */
+        private IntConsumer batchListener = size -> {
+        };
+
+        /**
+         * 一括リクエストを実行するエグゼキューター
+         */
+        private Executor executor;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 全ての一括リクエストで共有するコンテキストと、キーの一覧から一括リクエストのAPIオブジェクトを生成する関数を設定します。
+         *
+         * @param context  全ての一括リクエストで共有するコンテキスト
+         * @param combiner キーの一覧から {@link Communicable} を生成する関数
+         * @return 自分自身のインスタンス
+         */
+        public Builder<K, V> withCombiner(@NonNull ApiContext context,
+                @NonNull Function<List<K>, Communicable> combiner) {
+            this.context = context;
+            this.combiner = combiner;
+            return this;
+        }
+
+        /**
+         * 一括リクエストのレスポンスボディをキーごとの値に分割する関数を設定します。
+         *
+         * @param splitter キーの一覧とレスポンスボディからキーごとの値を生成する関数
+         * @return 自分自身のインスタンス
+         */
+        public Builder<K, V> withSplitter(@NonNull BiFunction<List<K>, String, Map<K, V>> splitter) {
+            this.splitter = splitter;
+            return this;
+        }
+
+        /**
+         * 1回の一括リクエストに含めるキーの最大件数を設定します。最大件数は初期設定として {@code 100} が設定されています。
+         *
+         * @param maxBatchSize バッチの最大件数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder<K, V> withMaxBatchSize(int maxBatchSize) {
+
+            if (maxBatchSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * 最初のキーが要求されてからバッチを送信するまでの待機時間を設定します。待機時間は初期設定として {@code 10} ミリ秒が設定されています。
+         *
+         * @param batchWindow バッチの待機時間（ミリ秒）
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder<K, V> withBatchWindow(long batchWindow) {
+
+            if (batchWindow < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.batchWindow = batchWindow;
+            return this;
+        }
+
+        /**
+         * バッチを送信するごとにバッチの件数を受け取る処理を設定します。メトリクスの記録に使用してください。
+         *
+         * @param batchListener バッチの件数を受け取る処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder<K, V> withBatchListener(@NonNull IntConsumer batchListener) {
+            this.batchListener = batchListener;
+            return this;
+        }
+
+        /**
+         * 一括リクエストを実行するエグゼキューターを設定します。
+         * <p>
+         * このメソッドを呼び出さない場合はデーモンスレッドのスレッドプールを生成し、 {@link BatchLoader#close()} メソッドの呼び出し時に停止します。
+         *
+         * @param executor 一括リクエストを実行するエグゼキューター
+         * @return 自分自身のインスタンス
+         */
+        public Builder<K, V> withExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link BatchLoader} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link BatchLoader} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #withCombiner(ApiContext, Function)} メソッド、または
+         *                                      {@link #withSplitter(BiFunction)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public BatchLoader<K, V> build() {
+
+            if (this.combiner == null || this.splitter == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final BatchLoader<K, V> loader = new BatchLoader<>();
+            loader.context = this.context;
+            loader.combiner = this.combiner;
+            loader.splitter = this.splitter;
+            loader.maxBatchSize = this.maxBatchSize;
+            loader.batchWindow = this.batchWindow;
+            loader.batchListener = this.batchListener;
+            loader.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory());
+
+            if (this.executor == null) {
+                loader.ownedExecutor = Executors.newCachedThreadPool(daemonThreadFactory());
+                loader.executor = loader.ownedExecutor;
+            } else {
+                loader.executor = this.executor;
+            }
+
+            return loader;
+        }
+
+        /**
+         * デーモンスレッドを生成するスレッドファクトリーを返却します。
+         *
+         * @return デーモンスレッドを生成するスレッドファクトリー
+         */
+        private static ThreadFactory daemonThreadFactory() {
+            return runnable -> {
+                final Thread thread = new Thread(runnable, "batch-loader");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * 引数として渡された {@code key} の値の取得を要求します。
+     *
+     * @param key キー
+     * @return 値の返却先
+     *
+     * @throws IllegalStateException 既に閉じられている場合
+     */
+    public CompletableFuture<V> load(@NonNull K key) {
+
+        final Map<K, CompletableFuture<V>> batch;
+        final CompletableFuture<V> future;
+
+        synchronized (this.lock) {
+            if (this.closed) {
+                throw new IllegalStateException("BatchLoader has been closed");
+            }
+
+            final CompletableFuture<V> pendingFuture = this.pending.get(key);
+
+            if (pendingFuture != null) {
+                return pendingFuture;
+            }
+
+            future = new CompletableFuture<>();
+            this.pending.put(key, future);
+
+            if (this.pending.size() >= this.maxBatchSize) {
+                batch = this.takePending();
+            } else {
+                if (this.pending.size() == 1) {
+                    this.scheduledFlush = this.scheduler.schedule(this::flush, this.batchWindow,
+                            TimeUnit.MILLISECONDS);
+                }
+
+                batch = null;
+            }
+        }
+
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+
+        return future;
+    }
+
+    /**
+     * 引数として渡された全てのキーの値の取得を要求します。
+     *
+     * @param keys キー
+     * @return キーと同じ順序の値の返却先
+     *
+     * @throws IllegalStateException 既に閉じられている場合
+     */
+    public List<CompletableFuture<V>> loadAll(@NonNull List<K> keys) {
+
+        final List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+        keys.forEach(key -> futures.add(this.load(key)));
+
+        return futures;
+    }
+
+    /**
+     * 待機時間の経過を待たずに送信待ちのキーを一括リクエストとして送信します。
+     */
+    public void flush() {
+
+        final Map<K, CompletableFuture<V>> batch;
+
+        synchronized (this.lock) {
+            batch = this.takePending();
+        }
+
+        if (!batch.isEmpty()) {
+            this.dispatch(batch);
+        }
+    }
+
+    /**
+     * 実行したバッチ数を返却します。
+     *
+     * @return 実行したバッチ数
+     */
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    /**
+     * 実行したバッチに含まれるキー数の合計を返却します。
+     *
+     * @return キー数の合計
+     */
+    public long getKeyCount() {
+        return this.keyCount.get();
+    }
+
+    /**
+     * 実行したバッチの平均件数を返却します。
+     *
+     * @return バッチの平均件数。バッチを実行していない場合は {@code 0.0}
+     */
+    public double getAverageBatchSize() {
+
+        final long batches = this.batchCount.get();
+
+        return batches == 0 ? 0.0 : (double) this.keyCount.get() / batches;
+    }
+
+    /**
+     * 実行したバッチの最大件数を返却します。
+     *
+     * @return バッチの最大件数
+     */
+    public int getLargestBatchSize() {
+        return this.largestBatchSize.get();
+    }
+
+    /**
+     * 送信待ちのキーを送信した上で、新しい要求の受け付けを終了します。このクラスが生成したスレッドプールは実行中の一括リクエストの完了後に停止します。
+     */
+    @Override
+    public void close() {
+
+        synchronized (this.lock) {
+            this.closed = true;
+        }
+
+        this.flush();
+        this.scheduler.shutdown();
+
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 送信待ちのキーを取り出し、予約されたバッチの送信を取り消します。このメソッドは排他制御の内側から呼び出してください。
+     *
+     * @return 送信待ちのキーと値の返却先
+     */
+    private Map<K, CompletableFuture<V>> takePending() {
+
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+
+        final Map<K, CompletableFuture<V>> batch = this.pending;
+        this.pending = new LinkedHashMap<>();
+
+        return batch;
+    }
+
+    /**
+     * 引数として渡された {@code batch} の一括リクエストをエグゼキューターで実行します。
+     *
+     * @param batch キーと値の返却先
+     */
+    private void dispatch(@NonNull Map<K, CompletableFuture<V>> batch) {
+        try {
+            this.executor.execute(() -> this.execute(batch));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 引数として渡された {@code batch} の一括リクエストを送信し、レスポンスをキーごとの値に分割して返却先へ渡します。
+     *
+     * @param batch キーと値の返却先
+     */
+    private void execute(@NonNull Map<K, CompletableFuture<V>> batch) {
+
+        final List<K> keys = new ArrayList<>(batch.keySet());
+
+        this.batchCount.incrementAndGet();
+        this.keyCount.addAndGet(keys.size());
+        this.largestBatchSize.accumulateAndGet(keys.size(), Math::max);
+
+        try {
+            this.batchListener.accept(keys.size());
+
+            final String body = this.context.send(this.combiner.apply(keys));
+
+            if (body == null) {
+                throw new ApiRequestFailedException(String.format("Failed to load the batch: %s", keys));
+            }
+
+            final Map<K, V> values = this.splitter.apply(keys, body);
+            batch.forEach((key, future) -> {
+                if (values.containsKey(key)) {
+                    future.complete(values.get(key));
+                } else {
+                    future.completeExceptionally(new ApiRequestFailedException(
+                            String.format("The batch response does not contain the key: %s", key)));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
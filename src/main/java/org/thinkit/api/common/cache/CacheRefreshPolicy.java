@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thinkit.api.common.InvalidContextStateException;
+
+import lombok.NonNull;
+
+/**
+ * キャッシュ済みのレスポンスを期限切れの前に更新し、期限切れ後も一定期間は更新を待たずに返却するための方針を定義したクラスです。
+ * <p>
+ * {@link org.thinkit.api.common.ApiContext} にレスポンスキャッシュと共に設定した場合、キャッシュ済みのレスポンスは経過時間に応じて以下のように扱われます。
+ * <ul>
+ * <li>更新開始時間未満の場合はキャッシュ済みのレスポンスを返却します。</li>
+ * <li>更新開始時間以上で有効期間未満の場合はキャッシュ済みのレスポンスを返却し、バックグラウンドで更新します。</li>
+ * <li>有効期間以上で猶予期間内の場合は期限切れのレスポンスを返却し、バックグラウンドで更新します。</li>
+ * <li>猶予期間を過ぎた場合は呼び出し元のスレッドでHTTP通信を行います。</li>
+ * </ul>
+ * <p>
+ * バックグラウンドでの更新はキーごとに同時に1件のみ実行されます。レスポンスキャッシュ自体の有効期間は有効期間と猶予期間の合計以上に設定してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * CacheRefreshPolicy policy = CacheRefreshPolicy.builder().withTimeToLive(Duration.ofMinutes(5))
+ *         .withRefreshAhead(0.8).withStaleWhileRevalidate(Duration.ofMinutes(1)).build();
+ * ApiContext context = ApiContext.builder().withResponseCache(cache).withCacheRefreshPolicy(policy).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class CacheRefreshPolicy {
+
+    /**
+     * 有効期間（ミリ秒）
+     */
+    private long timeToLive;
+
+    /**
+     * 更新を開始する経過時間（ミリ秒）
+     */
+    private long refreshAfter;
+
+    /**
+     * 期限切れのレスポンスを返却する猶予期間（ミリ秒）
+     */
+    private long staleWhileRevalidate;
+
+    /**
+     * 更新処理を実行するエグゼキューター
+     */
+    private Executor executor;
+
+    /**
+     * 更新中のキー
+     */
+    private final Map<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    /**
+     * 開始した更新の数
+     */
+    private final LongAdder refreshCount = new LongAdder();
+
+    /**
+     * 期限切れのレスポンスを返却した数
+     */
+    private final LongAdder staleCount = new LongAdder();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private CacheRefreshPolicy() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link CacheRefreshPolicy} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 有効期間
+         */
+        private Duration timeToLive;
+
+        /**
+         * 有効期間に対する更新を開始する経過時間の比率
+         */
+        private double refreshAhead = 0.8;
+
+        /**
+         * 期限切れのレスポンスを返却する猶予期間
+         */
+        private Duration staleWhileRevalidate = Duration.ZERO;
+
+        /**
+         * 更新処理を実行するエグゼキューター
+         */
+        private Executor executor;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * キャッシュ済みのレスポンスの有効期間を設定します。
+         *
+         * @param timeToLive 有効期間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withTimeToLive(@NonNull Duration timeToLive) {
+
+            if (timeToLive.isNegative() || timeToLive.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * 有効期間に対する更新を開始する経過時間の比率を設定します。比率は初期設定として {@code 0.8} が設定されています。
+         * {@code 1} を設定した場合は有効期間内の更新を行いません。
+         *
+         * @param refreshAhead 有効期間に対する更新を開始する経過時間の比率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下、または {@code 1} を超える値が渡された場合
+         */
+        public Builder withRefreshAhead(double refreshAhead) {
+
+            if (!(refreshAhead > 0 && refreshAhead <= 1)) {
+                throw new InvalidContextStateException();
+            }
+
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        /**
+         * 有効期間を過ぎたレスポンスを返却しながらバックグラウンドで更新する猶予期間を設定します。
+         * このメソッドを呼び出さない場合は猶予期間を設けません。
+         *
+         * @param staleWhileRevalidate 猶予期間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withStaleWhileRevalidate(@NonNull Duration staleWhileRevalidate) {
+
+            if (staleWhileRevalidate.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+
+        /**
+         * 更新処理を実行するエグゼキューターを設定します。このメソッドを呼び出さない場合はデーモンスレッドで更新処理を実行します。
+         *
+         * @param executor 更新処理を実行するエグゼキューター
+         * @return 自分自身のインスタンス
+         */
+        public Builder withExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link CacheRefreshPolicy} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link CacheRefreshPolicy} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #withTimeToLive(Duration)} メソッドが呼び出されていない場合
+         */
+        public CacheRefreshPolicy build() {
+
+            if (this.timeToLive == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final CacheRefreshPolicy policy = new CacheRefreshPolicy();
+            policy.timeToLive = this.timeToLive.toMillis();
+            policy.refreshAfter = (long) (policy.timeToLive * this.refreshAhead);
+            policy.staleWhileRevalidate = this.staleWhileRevalidate.toMillis();
+            policy.executor = this.executor != null ? this.executor : Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            return policy;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code cachedResponse} を通信を行わずに返却できるか判定します。
+     *
+     * @param cachedResponse キャッシュ済みのレスポンス
+     * @return 経過時間が有効期間と猶予期間の合計未満の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isServable(@NonNull CachedResponse cachedResponse) {
+        return cachedResponse.getAge() < this.timeToLive + this.staleWhileRevalidate;
+    }
+
+    /**
+     * 引数として渡された {@code cachedResponse} を更新する必要があるか判定します。
+     *
+     * @param cachedResponse キャッシュ済みのレスポンス
+     * @return 経過時間が更新を開始する経過時間以上の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean needsRefresh(@NonNull CachedResponse cachedResponse) {
+        return cachedResponse.getAge() >= this.refreshAfter;
+    }
+
+    /**
+     * 引数として渡された {@code key} の更新処理をバックグラウンドで実行します。同一のキーの更新処理が実行中の場合は何もしません。
+     *
+     * @param key            リクエストを一意に識別するキー
+     * @param cachedResponse 返却するキャッシュ済みのレスポンス
+     * @param refresher      更新処理
+     */
+    public void refresh(@NonNull String key, @NonNull CachedResponse cachedResponse, @NonNull Runnable refresher) {
+
+        if (cachedResponse.getAge() >= this.timeToLive) {
+            this.staleCount.increment();
+        }
+
+        if (this.refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+
+        try {
+            this.executor.execute(() -> {
+                try {
+                    refresher.run();
+                } finally {
+                    this.refreshing.remove(key);
+                }
+            });
+
+            this.refreshCount.increment();
+        } catch (RejectedExecutionException e) {
+            this.refreshing.remove(key);
+        }
+    }
+
+    /**
+     * 開始したバックグラウンドでの更新の数を返却します。
+     *
+     * @return 開始した更新の数
+     */
+    public long getRefreshCount() {
+        return this.refreshCount.sum();
+    }
+
+    /**
+     * 有効期間を過ぎたレスポンスを猶予期間内に返却した数を返却します。
+     *
+     * @return 期限切れのレスポンスを返却した数
+     */
+    public long getStaleCount() {
+        return this.staleCount.sum();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * キャッシュ済みのレスポンスを表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class CachedResponse {
+
+    /**
+     * レスポンスボディ
+     */
+    @Getter
+    @NonNull
+    private final String body;
+
+    /**
+     * キャッシュした日時（エポックミリ秒）
+     */
+    @Getter
+    private final long storedAt;
+
+    /**
+     * キャッシュしてからの経過時間をミリ秒単位で返却します。
+     *
+     * @return キャッシュしてからの経過時間（ミリ秒）
+     */
+    public long getAge() {
+        return Math.max(System.currentTimeMillis() - this.storedAt, 0);
+    }
+}
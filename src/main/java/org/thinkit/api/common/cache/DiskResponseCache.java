@@ -0,0 +1,756 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.thinkit.api.common.InvalidContextStateException;
+
+import lombok.NonNull;
+
+/**
+ * メモリマップドファイルで構成されたセグメントにレスポンスを永続化するディスクキャッシュです。
+ * <p>
+ * レスポンスボディは固定長のセグメントファイルへ追記され、ヒープ上にはキーとセグメント内の位置を対応付けた索引のみを保持します。
+ * 索引は生成時に既存のセグメントファイルを走査して復元されるため、再起動直後からキャッシュを参照することができます。
+ * <p>
+ * セグメントの合計サイズが {@link Builder#withMaxSize(long)} メソッドで設定された上限に達した場合は、最も古いセグメントを破棄して再利用します。
+ * セグメントの数は上限をセグメントのサイズで割った値（最大 {@code 65536} ）となるため、セグメントの合計サイズが上限を超えることはありません。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * DiskResponseCache cache = DiskResponseCache.builder().of(Path.of("cache")).withMaxSize(1L &lt;&lt; 30)
+ *         .withTimeToLive(Duration.ofHours(1)).build();
+ * ApiContext context = ApiContext.builder().of(api).withResponseCache(cache).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class DiskResponseCache implements ResponseCache, Closeable {
+
+    /**
+     * セグメントファイルの識別子
+     */
+    private static final int MAGIC = 0x41504943;
+
+    /**
+     * セグメントヘッダーのサイズ（識別子、予約領域、世代番号）
+     */
+    private static final int SEGMENT_HEADER_SIZE = 16;
+
+    /**
+     * レコードヘッダーのサイズ（キー長、ボディ長、キャッシュ日時）
+     */
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    /**
+     * 索引の位置情報のうちセグメント内オフセットに割り当てるビット数
+     */
+    private static final int OFFSET_BITS = 32;
+
+    /**
+     * 索引の位置情報からセグメント内オフセットを取り出すマスク
+     */
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    /**
+     * セグメントのサイズの初期値
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * セグメントの最小数
+     */
+    private static final int MIN_SEGMENTS = 2;
+
+    /**
+     * キャッシュファイルを格納するディレクトリ
+     */
+    private Path directory;
+
+    /**
+     * セグメントのサイズ
+     */
+    private int segmentSize;
+
+    /**
+     * セグメントの最大数
+     */
+    private int maxSegments;
+
+    /**
+     * キャッシュの有効期間（ミリ秒）
+     */
+    private long timeToLive;
+
+    /**
+     * キーとセグメント内の位置を対応付けた索引
+     */
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+    /**
+     * セグメントの読み書きを制御するロック
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * セグメント
+     */
+    private Segment[] segments;
+
+    /**
+     * 書き込み中のセグメント
+     */
+    private Segment activeSegment;
+
+    /**
+     * 最新の世代番号
+     */
+    private long generation;
+
+    /**
+     * クローズ済みか否か
+     */
+    private boolean closed;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private DiskResponseCache() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link DiskResponseCache} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * キャッシュファイルを格納するディレクトリ
+         */
+        private Path directory;
+
+        /**
+         * セグメントのサイズ。設定されていない場合は {@code 0}
+         */
+        private int segmentSize;
+
+        /**
+         * キャッシュの最大サイズ
+         */
+        private long maxSize = 1024L * 1024 * 1024;
+
+        /**
+         * キャッシュの有効期間
+         */
+        private Duration timeToLive = Duration.ZERO;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 引数として渡された {@code directory} をキャッシュファイルを格納するディレクトリとして設定します。
+         *
+         * @param directory キャッシュファイルを格納するディレクトリ
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * セグメントファイル1つあたりのサイズをバイト単位で設定します。このメソッドを呼び出さない場合、セグメントのサイズは64MBと
+         * キャッシュの最大サイズの半分のうち小さい値になります。
+         *
+         * @param segmentSize セグメントのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException セグメントのサイズが {@code 1024} バイト未満の場合
+         */
+        public Builder withSegmentSize(int segmentSize) {
+
+            if (segmentSize < 1024) {
+                throw new InvalidContextStateException();
+            }
+
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * キャッシュ全体の最大サイズをバイト単位で設定します。最大サイズは初期設定として1GBが設定されています。
+         *
+         * @param maxSize キャッシュの最大サイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMaxSize(long maxSize) {
+
+            if (maxSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * キャッシュの有効期間を設定します。このメソッドを呼び出さない場合、キャッシュは容量の上限に達して破棄されるまで有効です。
+         *
+         * @param timeToLive キャッシュの有効期間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withTimeToLive(@NonNull Duration timeToLive) {
+
+            if (timeToLive.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link DiskResponseCache} クラスの新しいインスタンスを生成し返却します。
+         * ディレクトリに既存のセグメントファイルが存在する場合は索引を復元します。
+         *
+         * @return {@link DiskResponseCache} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(Path)} メソッドが呼び出されていない場合、
+         *                                      またはキャッシュの最大サイズがセグメントのサイズの2倍未満の場合
+         * @throws UncheckedIOException         セグメントファイルの読み込みに失敗した場合
+         */
+        public DiskResponseCache build() {
+
+            final int segmentSize = this.segmentSize > 0 ? this.segmentSize
+                    : (int) Math.min(DEFAULT_SEGMENT_SIZE, this.maxSize / MIN_SEGMENTS);
+
+            if (this.directory == null || segmentSize < 1024 || this.maxSize < (long) segmentSize * MIN_SEGMENTS) {
+                throw new InvalidContextStateException();
+            }
+
+            final DiskResponseCache cache = new DiskResponseCache();
+            cache.directory = this.directory;
+            cache.segmentSize = segmentSize;
+            cache.maxSegments = (int) Math.min(this.maxSize / segmentSize, 1 << 16);
+            cache.timeToLive = this.timeToLive.toMillis();
+            cache.segments = new Segment[cache.maxSegments];
+
+            try {
+                cache.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return cache;
+        }
+    }
+
+    @Override
+    public CachedResponse get(@NonNull String key) {
+
+        this.lock.readLock().lock();
+
+        try {
+            final Long location = this.index.get(key);
+
+            if (this.closed || location == null) {
+                return null;
+            }
+
+            final CachedResponse cachedResponse = this.segments[this.segmentOf(location)].read(this.offsetOf(location),
+                    key);
+
+            if (cachedResponse == null) {
+                return null;
+            }
+
+            if (this.timeToLive > 0 && cachedResponse.getAge() > this.timeToLive) {
+                this.index.remove(key, location);
+                return null;
+            }
+
+            return cachedResponse;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(@NonNull String key, @NonNull String body) {
+
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        final long recordSize = (long) RECORD_HEADER_SIZE + keyBytes.length + bodyBytes.length;
+
+        if (recordSize > this.segmentSize - SEGMENT_HEADER_SIZE) {
+            return;
+        }
+
+        this.lock.writeLock().lock();
+
+        try {
+            if (this.closed) {
+                return;
+            }
+
+            if (this.activeSegment.remaining() < recordSize) {
+                this.rotate();
+            }
+
+            final int offset = this.activeSegment.append(keyBytes, bodyBytes, System.currentTimeMillis());
+            this.index.put(key, this.locationOf(this.activeSegment.slot, offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * キャッシュされているエントリの数を返却します。
+     *
+     * @return キャッシュされているエントリの数
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * セグメントファイルへの書き込みをディスクへ反映し、キャッシュをクローズします。
+     */
+    @Override
+    public void close() throws IOException {
+
+        this.lock.writeLock().lock();
+
+        try {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            this.index.clear();
+
+            for (Segment segment : this.segments) {
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ディレクトリ内の既存のセグメントファイルを開き、世代順に走査して索引を復元します。
+     *
+     * @throws IOException セグメントファイルの読み込みに失敗した場合
+     */
+    private void open() throws IOException {
+
+        Files.createDirectories(this.directory);
+
+        final List<Segment> existingSegments = new ArrayList<>();
+
+        for (int slot = 0; slot < this.maxSegments; slot++) {
+            final Path path = this.pathOf(slot);
+
+            if (Files.exists(path)) {
+                final Segment segment = Segment.open(path, slot, this.segmentSize);
+                this.segments[slot] = segment;
+                existingSegments.add(segment);
+            }
+        }
+
+        existingSegments.sort(Comparator.comparingLong(segment -> segment.generation));
+
+        for (Segment segment : existingSegments) {
+            segment.scan((key, offset) -> this.index.put(key, this.locationOf(segment.slot, offset)));
+            this.generation = Math.max(this.generation, segment.generation);
+        }
+
+        if (existingSegments.isEmpty()) {
+            this.activeSegment = this.segments[0] = Segment.create(this.pathOf(0), 0, this.segmentSize,
+                    ++this.generation);
+        } else {
+            this.activeSegment = existingSegments.get(existingSegments.size() - 1);
+        }
+    }
+
+    /**
+     * 書き込み先のセグメントを切り替えます。全てのセグメントが使用済みの場合は最も古いセグメントを破棄して再利用します。
+     *
+     * @throws IOException セグメントファイルの生成に失敗した場合
+     */
+    private void rotate() throws IOException {
+
+        Segment oldest = null;
+
+        for (int slot = 0; slot < this.maxSegments; slot++) {
+            final Segment segment = this.segments[slot];
+
+            if (segment == null) {
+                this.activeSegment = this.segments[slot] = Segment.create(this.pathOf(slot), slot, this.segmentSize,
+                        ++this.generation);
+                return;
+            }
+
+            if (oldest == null || segment.generation < oldest.generation) {
+                oldest = segment;
+            }
+        }
+
+        final int evictedSlot = oldest.slot;
+        this.index.values().removeIf(location -> this.segmentOf(location) == evictedSlot);
+
+        oldest.reset(++this.generation);
+        this.activeSegment = oldest;
+    }
+
+    /**
+     * 引数として渡された {@code slot} に対応するセグメントファイルのパスを返却します。
+     *
+     * @param slot セグメントの番号
+     * @return セグメントファイルのパス
+     */
+    private Path pathOf(int slot) {
+        return this.directory.resolve(String.format("segment-%05d.dat", slot));
+    }
+
+    /**
+     * セグメントの番号とセグメント内のオフセットを索引に格納する位置情報へ変換します。
+     *
+     * @param slot   セグメントの番号
+     * @param offset セグメント内のオフセット
+     * @return 位置情報
+     */
+    private long locationOf(int slot, int offset) {
+        return ((long) slot << OFFSET_BITS) | offset;
+    }
+
+    /**
+     * 位置情報からセグメントの番号を取り出します。
+     *
+     * @param location 位置情報
+     * @return セグメントの番号
+     */
+    private int segmentOf(long location) {
+        return (int) (location >>> OFFSET_BITS);
+    }
+
+    /**
+     * 位置情報からセグメント内のオフセットを取り出します。
+     *
+     * @param location 位置情報
+     * @return セグメント内のオフセット
+     */
+    private int offsetOf(long location) {
+        return (int) (location & OFFSET_MASK);
+    }
+
+    /**
+     * セグメントの走査時に検出したレコードを受け取るインターフェースです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+
+        /**
+         * 検出したレコードを受け取ります。
+         *
+         * @param key    レコードのキー
+         * @param offset セグメント内のオフセット
+         */
+        void visit(String key, int offset);
+    }
+
+    /**
+     * メモリマップドファイルで構成されたセグメントです。
+     * <p>
+     * セグメントはヘッダーとそれに続くレコードの列で構成されます。レコードの先頭にはキー長が格納され、キー長が {@code 0}
+     * のレコードはセグメントの終端を表します。書き込み途中のレコードが読み込まれないよう、キー長はレコードの他の項目を書き込んだ後に書き込みます。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Segment {
+
+        /**
+         * セグメントの番号
+         */
+        private final int slot;
+
+        /**
+         * ファイルチャネル
+         */
+        private final FileChannel channel;
+
+        /**
+         * マップされたバッファ
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 世代番号
+         */
+        private long generation;
+
+        /**
+         * 次に書き込む位置
+         */
+        private int position;
+
+        /**
+         * コンストラクタ
+         *
+         * @param slot    セグメントの番号
+         * @param channel ファイルチャネル
+         * @param buffer  マップされたバッファ
+         */
+        private Segment(int slot, FileChannel channel, MappedByteBuffer buffer) {
+            this.slot = slot;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * 新しいセグメントファイルを生成します。
+         *
+         * @param path       セグメントファイルのパス
+         * @param slot       セグメントの番号
+         * @param size       セグメントのサイズ
+         * @param generation 世代番号
+         * @return セグメント
+         *
+         * @throws IOException セグメントファイルの生成に失敗した場合
+         */
+        private static Segment create(Path path, int slot, int size, long generation) throws IOException {
+            final Segment segment = map(path, slot, size);
+            segment.buffer.putInt(0, MAGIC);
+            segment.reset(generation);
+            return segment;
+        }
+
+        /**
+         * 既存のセグメントファイルを開きます。ファイルの形式が不正な場合は空のセグメントとして初期化します。
+         *
+         * @param path セグメントファイルのパス
+         * @param slot セグメントの番号
+         * @param size セグメントのサイズ
+         * @return セグメント
+         *
+         * @throws IOException セグメントファイルの読み込みに失敗した場合
+         */
+        private static Segment open(Path path, int slot, int size) throws IOException {
+
+            final Segment segment = map(path, slot, size);
+
+            if (segment.buffer.getInt(0) != MAGIC) {
+                segment.buffer.putInt(0, MAGIC);
+                segment.reset(0);
+            } else {
+                segment.generation = segment.buffer.getLong(8);
+                segment.position = SEGMENT_HEADER_SIZE;
+            }
+
+            return segment;
+        }
+
+        /**
+         * セグメントファイルをメモリにマップします。
+         *
+         * @param path セグメントファイルのパス
+         * @param slot セグメントの番号
+         * @param size セグメントのサイズ
+         * @return セグメント
+         *
+         * @throws IOException セグメントファイルのマップに失敗した場合
+         */
+        private static Segment map(Path path, int slot, int size) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(slot, channel, channel.map(MapMode.READ_WRITE, 0, size));
+        }
+
+        /**
+         * セグメント内のレコードを破棄し、引数として渡された世代番号で初期化します。
+         *
+         * @param generation 世代番号
+         */
+        private void reset(long generation) {
+            this.buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+            this.buffer.putLong(8, generation);
+            this.generation = generation;
+            this.position = SEGMENT_HEADER_SIZE;
+        }
+
+        /**
+         * セグメント内のレコードを先頭から走査し、次に書き込む位置を復元します。
+         *
+         * @param visitor 検出したレコードを受け取る処理
+         */
+        private void scan(@NonNull RecordVisitor visitor) {
+
+            final int capacity = this.buffer.capacity();
+            int offset = SEGMENT_HEADER_SIZE;
+
+            while (offset + RECORD_HEADER_SIZE <= capacity) {
+                final int keyLength = this.buffer.getInt(offset);
+                final int bodyLength = this.buffer.getInt(offset + 4);
+
+                if (keyLength <= 0 || bodyLength < 0
+                        || (long) offset + RECORD_HEADER_SIZE + keyLength + bodyLength > capacity) {
+                    break;
+                }
+
+                visitor.visit(this.readString(offset + RECORD_HEADER_SIZE, keyLength), offset);
+                offset += RECORD_HEADER_SIZE + keyLength + bodyLength;
+            }
+
+            this.position = offset;
+        }
+
+        /**
+         * セグメントの残り容量を返却します。終端を表すキー長の領域は残り容量に含みません。
+         *
+         * @return セグメントの残り容量
+         */
+        private int remaining() {
+            return this.buffer.capacity() - this.position - 4;
+        }
+
+        /**
+         * セグメントの末尾にレコードを追記します。
+         *
+         * @param key      キー
+         * @param body     レスポンスボディ
+         * @param storedAt キャッシュした日時
+         * @return 追記したレコードのオフセット
+         */
+        private int append(byte[] key, byte[] body, long storedAt) {
+
+            final int offset = this.position;
+            final int next = offset + RECORD_HEADER_SIZE + key.length + body.length;
+
+            final ByteBuffer view = this.buffer.duplicate();
+            view.putInt(offset + 4, body.length);
+            view.putLong(offset + 8, storedAt);
+            view.position(offset + RECORD_HEADER_SIZE);
+            view.put(key);
+            view.put(body);
+
+            if (next + 4 <= view.capacity()) {
+                view.putInt(next, 0);
+            }
+
+            view.putInt(offset, key.length);
+            this.position = next;
+
+            return offset;
+        }
+
+        /**
+         * 引数として渡された {@code offset} のレコードを読み込みます。
+         *
+         * @param offset セグメント内のオフセット
+         * @param key    読み込むレコードのキー
+         * @return キャッシュ済みのレスポンス。レコードのキーが一致しない場合は {@code null}
+         */
+        private CachedResponse read(int offset, @NonNull String key) {
+
+            final int keyLength = this.buffer.getInt(offset);
+            final int bodyLength = this.buffer.getInt(offset + 4);
+            final long storedAt = this.buffer.getLong(offset + 8);
+
+            if (!key.equals(this.readString(offset + RECORD_HEADER_SIZE, keyLength))) {
+                return null;
+            }
+
+            return new CachedResponse(this.readString(offset + RECORD_HEADER_SIZE + keyLength, bodyLength), storedAt);
+        }
+
+        /**
+         * 引数として渡された位置から {@code UTF-8} 形式の文字列を読み込みます。
+         *
+         * @param offset 読み込み開始位置
+         * @param length 読み込むバイト数
+         * @return 読み込んだ文字列
+         */
+        private String readString(int offset, int length) {
+            final byte[] bytes = new byte[length];
+            final ByteBuffer view = this.buffer.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * バッファの内容をディスクへ反映し、ファイルチャネルをクローズします。
+         *
+         * @throws IOException ファイルチャネルのクローズに失敗した場合
+         */
+        private void close() throws IOException {
+            this.buffer.force();
+            this.channel.close();
+        }
+    }
+}
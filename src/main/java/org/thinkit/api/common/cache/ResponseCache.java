@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+/**
+ * APIのレスポンスをキャッシュする処理を抽象化したインターフェースです。
+ * <p>
+ * キャッシュのキーには {@link org.thinkit.api.common.Communicable#getRequestKey()}
+ * メソッドが返却するリクエストの識別子が使用されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public interface ResponseCache {
+
+    /**
+     * 引数として渡された {@code key} に紐付くキャッシュ済みのレスポンスを返却します。
+     *
+     * @param key リクエストを一意に識別するキー
+     * @return キャッシュ済みのレスポンス。キャッシュが存在しない場合は {@code null}
+     *
+     * @exception NullPointerException 引数として {@code null} が渡された場合
+     */
+    public CachedResponse get(String key);
+
+    /**
+     * 引数として渡された {@code key} に紐付けてレスポンスボディをキャッシュします。
+     *
+     * @param key  リクエストを一意に識別するキー
+     * @param body レスポンスボディ
+     *
+     * @exception NullPointerException 引数として {@code null} が渡された場合
+     */
+    public void put(String key, String body);
+}
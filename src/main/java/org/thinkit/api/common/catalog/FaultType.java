@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.catalog;
+
+import org.thinkit.api.catalog.Catalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 注入する障害の種類を管理するカタログです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public enum FaultType implements Catalog<FaultType> {
+
+    /**
+     * エラーを表すHTTPステータスの返却
+     */
+    HTTP_STATUS(0),
+
+    /**
+     * 接続の失敗
+     */
+    CONNECTION_ERROR(1),
+
+    /**
+     * 応答時間の急増
+     */
+    LATENCY_SPIKE(2),
+
+    /**
+     * 途中で切断されたレスポンスボディ
+     */
+    TRUNCATED_BODY(3);
+
+    /**
+     * コード値
+     */
+    @Getter
+    private final int code;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.catalog;
+
+import org.thinkit.api.catalog.Catalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 負荷分散時の接続先の選択方式を管理するカタログです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public enum LoadBalancingStrategy implements Catalog<LoadBalancingStrategy> {
+
+    /**
+     * 処理中のリクエストが最も少ない接続先を選択
+     */
+    LEAST_OUTSTANDING_REQUESTS(0),
+
+    /**
+     * 無作為に選んだ2つの接続先のうち処理中のリクエストが少ない接続先を選択
+     */
+    POWER_OF_TWO_CHOICES(1);
+
+    /**
+     * コード値
+     */
+    @Getter
+    private final int code;
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.catalog;
+
+import org.thinkit.api.catalog.Catalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * リクエストの優先度を管理するカタログです。コード値が小さいほど優先度が高いことを表します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public enum RequestPriority implements Catalog<RequestPriority> {
+
+    /**
+     * ユーザー操作に応答するリクエストなどの高い優先度
+     */
+    HIGH(0),
+
+    /**
+     * 通常の優先度
+     */
+    NORMAL(1),
+
+    /**
+     * バックグラウンドの同期処理などの低い優先度
+     */
+    LOW(2);
+
+    /**
+     * コード値
+     */
+    @Getter
+    private final int code;
+}
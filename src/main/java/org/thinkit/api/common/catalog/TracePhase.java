@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.catalog;
+
+import org.thinkit.api.catalog.Catalog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * トレースで記録する処理の区間を管理するカタログです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public enum TracePhase implements Catalog<TracePhase> {
+
+    /**
+     * {@link org.thinkit.api.common.ApiContext} の1回の呼び出し全体
+     */
+    CALL(0),
+
+    /**
+     * リクエストの1回の試行
+     */
+    ATTEMPT(1),
+
+    /**
+     * クエリの生成
+     */
+    QUERY_BUILDING(2),
+
+    /**
+     * 接続の確立
+     */
+    CONNECTING(3),
+
+    /**
+     * リクエストの送信からレスポンスの最初のバイトを受信するまでの待機
+     */
+    WAITING_FOR_FIRST_BYTE(4),
+
+    /**
+     * レスポンスボディの読み込み
+     */
+    READING_BODY(5),
+
+    /**
+     * リトライ前の待機
+     */
+    RETRY_WAIT(6);
+
+    /**
+     * コード値
+     */
+    @Getter
+    private final int code;
+}
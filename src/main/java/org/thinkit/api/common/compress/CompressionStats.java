@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.compress;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * リソース単位で集計したリクエストボディの圧縮結果を表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class CompressionStats {
+
+    /**
+     * 圧縮したリクエストボディの数
+     */
+    @Getter
+    private final long requestCount;
+
+    /**
+     * 圧縮前のバイト数の合計
+     */
+    @Getter
+    private final long originalBytes;
+
+    /**
+     * 圧縮後のバイト数の合計
+     */
+    @Getter
+    private final long compressedBytes;
+
+    /**
+     * 圧縮前のバイト数に対する圧縮後のバイト数の比率を返却します。
+     *
+     * @return 圧縮率。圧縮したリクエストボディが存在しない場合は {@code 0}
+     */
+    public double getRatio() {
+        return this.originalBytes > 0 ? (double) this.compressedBytes / this.originalBytes : 0;
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.compress;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import lombok.NonNull;
+
+/**
+ * 元の {@link BodyPublisher} が発行するバイト列をgzip形式に逐次圧縮して発行する {@link BodyPublisher} です。
+ * <p>
+ * 元のバイト列は送信先からの要求に応じて1バッファずつ要求され、圧縮後のバイト列はそのまま送信されるため、
+ * リクエストボディ全体の圧縮結果をメモリ上に保持することはありません。購読されるたびに元の {@link BodyPublisher}
+ * を購読し直すため、元の {@link BodyPublisher} が再送信に対応している場合はリトライ時にも使用することができます。
+ * 圧縮前と圧縮後のバイト数は、購読された回数に関わらず最初に完了した購読の結果のみが1回だけ通知されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class GzipBodyPublisher implements BodyPublisher {
+
+    /**
+     * gzip形式のヘッダー
+     */
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * 元のリクエストボディ
+     */
+    private final BodyPublisher source;
+
+    /**
+     * 圧縮レベル
+     */
+    private final int level;
+
+    /**
+     * 圧縮結果を格納するバッファのサイズ
+     */
+    private final int bufferSize;
+
+    /**
+     * 圧縮の完了時に圧縮前と圧縮後のバイト数を受け取る処理
+     */
+    private final BiConsumer<Long, Long> listener;
+
+    /**
+     * 圧縮前と圧縮後のバイト数を通知済みか否か
+     */
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    /**
+     * コンストラクタ
+     *
+     * @param source     元のリクエストボディ
+     * @param level      圧縮レベル
+     * @param bufferSize 圧縮結果を格納するバッファのサイズ
+     * @param listener   圧縮の完了時に圧縮前と圧縮後のバイト数を受け取る処理
+     */
+    GzipBodyPublisher(@NonNull BodyPublisher source, int level, int bufferSize,
+            @NonNull BiConsumer<Long, Long> listener) {
+        this.source = source;
+        this.level = level;
+        this.bufferSize = bufferSize;
+        this.listener = listener;
+    }
+
+    /**
+     * 圧縮後のバイト数は事前に確定しないため {@code -1} を返却します。
+     *
+     * @return {@code -1}
+     */
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(@NonNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+
+        final GzipSubscription subscription = new GzipSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        this.source.subscribe(subscription);
+    }
+
+    /**
+     * 元のリクエストボディを購読して圧縮し、圧縮結果を要求に応じて発行するサブスクリプションです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private final class GzipSubscription implements Flow.Subscription, Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * 発行先のサブスクライバー
+         */
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        /**
+         * 発行待ちの圧縮結果
+         */
+        private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 未処理の要求数
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * 発行処理の実行要求数
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /**
+         * 圧縮処理
+         */
+        private final Deflater deflater = new Deflater(level, true);
+
+        /**
+         * 圧縮前のバイト列のチェックサム
+         */
+        private final CRC32 crc = new CRC32();
+
+        /**
+         * 元のリクエストボディのサブスクリプション
+         */
+        private volatile Flow.Subscription upstream;
+
+        /**
+         * 元のリクエストボディへの要求が未処理か否か
+         */
+        private volatile boolean requested;
+
+        /**
+         * 元のリクエストボディの発行が完了したか否か
+         */
+        private volatile boolean upstreamDone;
+
+        /**
+         * 元のリクエストボディで発生したエラー
+         */
+        private volatile Throwable error;
+
+        /**
+         * 購読が終了したか否か
+         */
+        private volatile boolean done;
+
+        /**
+         * 圧縮処理を終了したか否か。 {@link #deflater} のロックを取得した上で参照します
+         */
+        private boolean deflaterEnded;
+
+        /**
+         * 圧縮前のバイト数
+         */
+        private long originalBytes;
+
+        /**
+         * 圧縮後のバイト数
+         */
+        private long compressedBytes;
+
+        /**
+         * コンストラクタ
+         *
+         * @param subscriber 発行先のサブスクライバー
+         */
+        GzipSubscription(@NonNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+            this.pending.add(ByteBuffer.wrap(HEADER));
+            this.compressedBytes = HEADER.length;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                this.error = new IllegalArgumentException(String.format("Non-positive subscription request: %d", n));
+                this.drain();
+                return;
+            }
+
+            this.demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.done = true;
+            this.drain();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.upstream = subscription;
+            this.drain();
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+
+            synchronized (this.deflater) {
+                if (this.deflaterEnded) {
+                    return;
+                }
+
+                this.originalBytes += item.remaining();
+                this.crc.update(item.duplicate());
+                this.deflater.setInput(item);
+
+                while (!this.deflater.needsInput()) {
+                    this.deflate();
+                }
+            }
+
+            this.requested = false;
+            this.drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.drain();
+        }
+
+        @Override
+        public void onComplete() {
+
+            synchronized (this.deflater) {
+                if (this.deflaterEnded) {
+                    return;
+                }
+
+                this.deflater.finish();
+
+                while (!this.deflater.finished()) {
+                    this.deflate();
+                }
+
+                this.endDeflater();
+
+                final ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                trailer.putInt((int) this.crc.getValue()).putInt((int) this.originalBytes).flip();
+                this.pending.add(trailer);
+                this.compressedBytes += trailer.remaining();
+            }
+
+            this.upstreamDone = true;
+            this.drain();
+        }
+
+        /**
+         * 圧縮処理から圧縮結果を取り出し、発行待ちの圧縮結果として追加します。
+         */
+        private void deflate() {
+
+            final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            this.deflater.deflate(buffer);
+
+            if (buffer.position() > 0) {
+                this.compressedBytes += buffer.position();
+                this.pending.add(buffer.flip());
+            }
+        }
+
+        /**
+         * 要求数の範囲で圧縮結果を発行し、発行待ちの圧縮結果が不足している場合は元のリクエストボディへ次のバッファを要求します。
+         * このメソッドが再帰的に呼び出された場合は実行中の発行処理で要求を処理します。
+         */
+        private void drain() {
+
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+                while (!this.done) {
+                    if (this.error != null) {
+                        this.done = true;
+                        this.cancelUpstream();
+                        this.subscriber.onError(this.error);
+                        break;
+                    }
+
+                    if (this.demand.get() > 0 && !this.pending.isEmpty()) {
+                        this.demand.decrementAndGet();
+                        this.subscriber.onNext(this.pending.poll());
+                        continue;
+                    }
+
+                    if (this.pending.isEmpty() && this.upstreamDone) {
+                        this.done = true;
+
+                        if (reported.compareAndSet(false, true)) {
+                            listener.accept(this.originalBytes, this.compressedBytes);
+                        }
+
+                        this.subscriber.onComplete();
+                        break;
+                    }
+
+                    final Flow.Subscription subscription = this.upstream;
+
+                    if (this.demand.get() > 0 && subscription != null && !this.upstreamDone && !this.requested) {
+                        this.requested = true;
+                        subscription.request(1);
+                        continue;
+                    }
+
+                    break;
+                }
+
+                if (this.done && this.error == null && !this.upstreamDone) {
+                    this.cancelUpstream();
+                }
+
+                if (this.done) {
+                    this.endDeflater();
+                }
+
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * 圧縮処理を終了し、圧縮処理が保持するネイティブメモリを解放します。既に終了している場合は何もしません。
+         */
+        private void endDeflater() {
+            synchronized (this.deflater) {
+                if (!this.deflaterEnded) {
+                    this.deflaterEnded = true;
+                    this.deflater.end();
+                }
+            }
+        }
+
+        /**
+         * 元のリクエストボディの購読を取り消します。
+         */
+        private void cancelUpstream() {
+
+            final Flow.Subscription subscription = this.upstream;
+
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.compress;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.Resource;
+
+import lombok.NonNull;
+
+/**
+ * 一定サイズ以上のリクエストボディを {@code Content-Encoding: gzip} 形式で圧縮するクラスです。
+ * <p>
+ * {@link #compress(Resource, BodyPublisher, HttpRequest.Builder)} メソッドは、リクエストボディのバイト数が
+ * しきい値以上の場合、またはバイト数が不明な場合に元の {@link BodyPublisher} を圧縮する {@link BodyPublisher}
+ * を返却し、リクエストに {@code Content-Encoding} ヘッダーを設定します。圧縮は送信時にバッファ単位で逐次行われるため、
+ * 圧縮結果をメモリ上に複製することはありません。しきい値未満の場合は元の {@link BodyPublisher} をそのまま返却します。
+ * <p>
+ * 圧縮前と圧縮後のバイト数は {@link Resource} 単位で集計され、 {@link #getStats(Resource)} メソッドで参照することができます。
+ * 送信先が {@code Content-Encoding: gzip} 形式のリクエストボディに対応していることを確認した上で使用してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * private static final GzipRequestCompressor COMPRESSOR = GzipRequestCompressor.builder().withThreshold(4096).build();
+ *
+ * public HttpResponse&lt;String&gt; send(RequestOptions options) {
+ *     HttpRequest.Builder request = options.applyHeaders(HttpRequest.newBuilder(uri))
+ *             .header("Content-Type", "application/json");
+ *     BodyPublisher body = COMPRESSOR.compress(this.getResource(), BodyPublishers.ofString(json), request);
+ *     return client.send(request.POST(body).build(), BodyHandlers.ofString());
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class GzipRequestCompressor {
+
+    /**
+     * リソースが定義されていないリクエストを集計するキー
+     */
+    private static final Object NO_RESOURCE = new Object();
+
+    /**
+     * 圧縮を行うリクエストボディのバイト数のしきい値
+     */
+    private long threshold;
+
+    /**
+     * 圧縮レベル
+     */
+    private int level;
+
+    /**
+     * 圧縮結果を格納するバッファのサイズ
+     */
+    private int bufferSize;
+
+    /**
+     * リソースごとの集計値
+     */
+    private final Map<Object, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private GzipRequestCompressor() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link GzipRequestCompressor} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 圧縮を行うリクエストボディのバイト数のしきい値
+         */
+        private long threshold = 1024;
+
+        /**
+         * 圧縮レベル
+         */
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        /**
+         * 圧縮結果を格納するバッファのサイズ
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 圧縮を行うリクエストボディのバイト数のしきい値を設定します。しきい値は初期設定として {@code 1024} バイトが設定されています。
+         *
+         * @param threshold 圧縮を行うリクエストボディのバイト数のしきい値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withThreshold(long threshold) {
+
+            if (threshold < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * 圧縮レベルを {@code 0} から {@code 9} の範囲で設定します。圧縮レベルは初期設定として
+         * {@link Deflater#DEFAULT_COMPRESSION} が設定されています。
+         *
+         * @param level 圧縮レベル
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 範囲外の値が渡された場合
+         */
+        public Builder withCompressionLevel(int level) {
+
+            if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+                throw new InvalidContextStateException();
+            }
+
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * 圧縮結果を格納するバッファのサイズを設定します。サイズは初期設定として {@code 8192} バイトが設定されています。
+         *
+         * @param bufferSize 圧縮結果を格納するバッファのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withBufferSize(int bufferSize) {
+
+            if (bufferSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link GzipRequestCompressor} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link GzipRequestCompressor} クラスの新しいインスタンス
+         */
+        public GzipRequestCompressor build() {
+
+            final GzipRequestCompressor compressor = new GzipRequestCompressor();
+            compressor.threshold = this.threshold;
+            compressor.level = this.level;
+            compressor.bufferSize = this.bufferSize;
+
+            return compressor;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code body} のバイト数がしきい値以上の場合、またはバイト数が不明な場合は {@code body}
+     * を圧縮する {@link BodyPublisher} を返却し、 {@code request} に {@code Content-Encoding}
+     * ヘッダーを設定します。しきい値未満の場合は {@code body} をそのまま返却し、 {@code request} は変更しません。
+     *
+     * @param resource 通信対象のリソース。リソースが定義されていない場合は {@code null}
+     * @param body     元のリクエストボディ
+     * @param request  送信するリクエスト
+     * @return リクエストに設定するリクエストボディ
+     */
+    public BodyPublisher compress(Resource resource, @NonNull BodyPublisher body,
+            @NonNull HttpRequest.Builder request) {
+
+        final long contentLength = body.contentLength();
+
+        if (contentLength >= 0 && contentLength < this.threshold) {
+            return body;
+        }
+
+        final Counter counter = this.counters.computeIfAbsent(resource != null ? resource : NO_RESOURCE,
+                key -> new Counter());
+
+        request.setHeader("Content-Encoding", "gzip");
+
+        return new GzipBodyPublisher(body, this.level, this.bufferSize, counter::add);
+    }
+
+    /**
+     * 引数として渡された {@code resource} で圧縮したリクエストボディの集計結果を返却します。
+     *
+     * @param resource 通信対象のリソース。リソースが定義されていない場合は {@code null}
+     * @return 圧縮したリクエストボディの集計結果
+     */
+    public CompressionStats getStats(Resource resource) {
+
+        final Counter counter = this.counters.get(resource != null ? resource : NO_RESOURCE);
+
+        if (counter == null) {
+            return new CompressionStats(0, 0, 0);
+        }
+
+        return new CompressionStats(counter.requestCount.sum(), counter.originalBytes.sum(),
+                counter.compressedBytes.sum());
+    }
+
+    /**
+     * リソース単位の圧縮前と圧縮後のバイト数を集計するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Counter {
+
+        /**
+         * 圧縮したリクエストボディの数
+         */
+        private final LongAdder requestCount = new LongAdder();
+
+        /**
+         * 圧縮前のバイト数の合計
+         */
+        private final LongAdder originalBytes = new LongAdder();
+
+        /**
+         * 圧縮後のバイト数の合計
+         */
+        private final LongAdder compressedBytes = new LongAdder();
+
+        /**
+         * 1件分の圧縮結果を集計します。
+         *
+         * @param originalBytes   圧縮前のバイト数
+         * @param compressedBytes 圧縮後のバイト数
+         */
+        void add(long originalBytes, long compressedBytes) {
+            this.requestCount.increment();
+            this.originalBytes.add(originalBytes);
+            this.compressedBytes.add(compressedBytes);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.concurrent;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+import lombok.NonNull;
+
+/**
+ * 観測したレイテンシとHTTPステータスを基に、リソース単位の同時実行数の上限を自動で調整するクラスです。
+ * <p>
+ * 上限の調整にはAIMD（加算増加・乗算減少）を使用します。リクエストが成功するたびに上限を {@code 1 / 上限}
+ * ずつ増加させ、過負荷を示すHTTPステータス、またはしきい値を超えるレイテンシを観測した場合は上限を一定の比率で減少させます。
+ * 過負荷を示すHTTPステータスは {@link HttpStatus#REQUEST_TIMEOUT} 、 {@link HttpStatus#BAD_GATEWAY} 、
+ * {@link HttpStatus#SERVICE_UNAVAILABLE} 、 {@link HttpStatus#GATEWAY_TIMEOUT} です。
+ * <p>
+ * 上限を超えたリクエストは {@link Builder#withMaxQueueSize(int)} メソッドで設定された数まで待機し、
+ * 待機数の上限を超えた場合、または待機時間の上限を超えた場合は {@link RequestRejectedException} を送出して即座に拒否されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(20).withMaxLimit(200)
+ *         .withLatencyThreshold(Duration.ofSeconds(2)).build();
+ * ApiContext context = ApiContext.builder().of(api).withConcurrencyLimiter(limiter).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+    /**
+     * 過負荷を示すHTTPステータス
+     */
+    private static final Set<HttpStatus> OVERLOADED_STATUSES = EnumSet.of(HttpStatus.REQUEST_TIMEOUT,
+            HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT);
+
+    /**
+     * リソースが定義されていないリクエストを集計するキー
+     */
+    private static final Object NO_RESOURCE = new Object();
+
+    /**
+     * 上限の初期値
+     */
+    private int initialLimit;
+
+    /**
+     * 上限の最小値
+     */
+    private int minLimit;
+
+    /**
+     * 上限の最大値
+     */
+    private int maxLimit;
+
+    /**
+     * 上限を減少させる際の比率
+     */
+    private double backoffRatio;
+
+    /**
+     * 過負荷と判定するレイテンシのしきい値（ナノ秒）
+     */
+    private long latencyThreshold;
+
+    /**
+     * 待機できるリクエストの最大数
+     */
+    private int maxQueueSize;
+
+    /**
+     * 待機時間の上限（ナノ秒）
+     */
+    private long maxWait;
+
+    /**
+     * リソースごとの上限
+     */
+    private final Map<Object, Limit> limits = new ConcurrentHashMap<>();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private AdaptiveConcurrencyLimiter() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link AdaptiveConcurrencyLimiter} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 上限の初期値
+         */
+        private int initialLimit = 10;
+
+        /**
+         * 上限の最小値
+         */
+        private int minLimit = 1;
+
+        /**
+         * 上限の最大値
+         */
+        private int maxLimit = 200;
+
+        /**
+         * 上限を減少させる際の比率
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 過負荷と判定するレイテンシのしきい値
+         */
+        private Duration latencyThreshold = Duration.ZERO;
+
+        /**
+         * 待機できるリクエストの最大数
+         */
+        private int maxQueueSize;
+
+        /**
+         * 待機時間の上限
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 同時実行数の上限の初期値を設定します。初期値は初期設定として {@code 10} が設定されています。
+         *
+         * @param initialLimit 上限の初期値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withInitialLimit(int initialLimit) {
+
+            if (initialLimit <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * 同時実行数の上限の最小値を設定します。最小値は初期設定として {@code 1} が設定されています。
+         *
+         * @param minLimit 上限の最小値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMinLimit(int minLimit) {
+
+            if (minLimit <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * 同時実行数の上限の最大値を設定します。最大値は初期設定として {@code 200} が設定されています。
+         *
+         * @param maxLimit 上限の最大値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMaxLimit(int maxLimit) {
+
+            if (maxLimit <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * 過負荷を検知した際に上限へ乗算する比率を設定します。比率は初期設定として {@code 0.9} が設定されています。
+         *
+         * @param backoffRatio 上限を減少させる際の比率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} より大きく {@code 1} 未満の値ではない場合
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new InvalidContextStateException();
+            }
+
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * 過負荷と判定するレイテンシのしきい値を設定します。このメソッドを呼び出さない場合はHTTPステータスのみで過負荷を判定します。
+         *
+         * @param latencyThreshold 過負荷と判定するレイテンシのしきい値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withLatencyThreshold(@NonNull Duration latencyThreshold) {
+
+            if (latencyThreshold.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        /**
+         * 上限を超えた際に待機できるリクエストの最大数を設定します。このメソッドを呼び出さない場合、上限を超えたリクエストは即座に拒否されます。
+         *
+         * @param maxQueueSize 待機できるリクエストの最大数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withMaxQueueSize(int maxQueueSize) {
+
+            if (maxQueueSize < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * 上限を超えた際に実行枠が空くまで待機する時間の上限を設定します。待機時間の上限は初期設定として1秒が設定されています。
+         *
+         * @param maxWait 待機時間の上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withMaxWait(@NonNull Duration maxWait) {
+
+            if (maxWait.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link AdaptiveConcurrencyLimiter} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link AdaptiveConcurrencyLimiter} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException 上限の最小値、初期値、最大値の大小関係が不正な場合
+         */
+        public AdaptiveConcurrencyLimiter build() {
+
+            if (this.minLimit > this.initialLimit || this.initialLimit > this.maxLimit) {
+                throw new InvalidContextStateException();
+            }
+
+            final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+            limiter.initialLimit = this.initialLimit;
+            limiter.minLimit = this.minLimit;
+            limiter.maxLimit = this.maxLimit;
+            limiter.backoffRatio = this.backoffRatio;
+            limiter.latencyThreshold = this.latencyThreshold.toNanos();
+            limiter.maxQueueSize = this.maxQueueSize;
+            limiter.maxWait = this.maxWait.toNanos();
+
+            return limiter;
+        }
+    }
+
+    @Override
+    public Permit acquire(Resource resource) {
+        return this.limitOf(resource).acquire();
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対する現在の同時実行数の上限を返却します。
+     *
+     * @param resource リソース。リソースが定義されていないリクエストの場合は {@code null}
+     * @return 現在の同時実行数の上限
+     */
+    public int getLimit(Resource resource) {
+        return (int) this.limitOf(resource).limit;
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対して実行中のリクエストの数を返却します。
+     *
+     * @param resource リソース。リソースが定義されていないリクエストの場合は {@code null}
+     * @return 実行中のリクエストの数
+     */
+    public int getInFlight(Resource resource) {
+        return this.limitOf(resource).inFlight;
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対して拒否したリクエストの数を返却します。
+     *
+     * @param resource リソース。リソースが定義されていないリクエストの場合は {@code null}
+     * @return 拒否したリクエストの数
+     */
+    public long getRejectedCount(Resource resource) {
+        return this.limitOf(resource).rejected.get();
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対する上限を返却します。
+     *
+     * @param resource リソース
+     * @return リソースに対する上限
+     */
+    private Limit limitOf(Resource resource) {
+        return this.limits.computeIfAbsent(resource != null ? resource : NO_RESOURCE, key -> new Limit());
+    }
+
+    /**
+     * リソースごとの同時実行数の上限を管理するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private final class Limit {
+
+        /**
+         * ロック
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 実行枠が空いたことを通知する条件
+         */
+        private final Condition available = this.lock.newCondition();
+
+        /**
+         * 拒否したリクエストの数
+         */
+        private final AtomicLong rejected = new AtomicLong();
+
+        /**
+         * 同時実行数の上限
+         */
+        private volatile double limit = initialLimit;
+
+        /**
+         * 実行中のリクエストの数
+         */
+        private volatile int inFlight;
+
+        /**
+         * 待機中のリクエストの数
+         */
+        private int waiting;
+
+        /**
+         * 実行枠を取得します。実行枠が空いていない場合は設定に従い待機、または拒否します。返却された実行枠は1回のみ返却することができます。
+         *
+         * @return 取得した実行枠
+         *
+         * @throws RequestRejectedException 実行枠を取得できなかった場合
+         */
+        private Permit acquire() {
+
+            this.lock.lock();
+
+            try {
+                if (this.inFlight < (int) this.limit) {
+                    this.inFlight++;
+                    return new SingleReleasePermit(this::release);
+                }
+
+                if (this.waiting >= maxQueueSize) {
+                    this.rejected.incrementAndGet();
+                    throw new RequestRejectedException("The concurrency limit has been reached.");
+                }
+
+                this.waiting++;
+
+                try {
+                    long remaining = maxWait;
+
+                    while (this.inFlight >= (int) this.limit) {
+                        if (remaining <= 0) {
+                            this.rejected.incrementAndGet();
+                            throw new RequestRejectedException("Timed out waiting for the concurrency limit.");
+                        }
+
+                        remaining = this.available.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.rejected.incrementAndGet();
+                    throw new RequestRejectedException(e);
+                } finally {
+                    this.waiting--;
+                }
+
+                this.inFlight++;
+                return new SingleReleasePermit(this::release);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * リクエストの結果を基に上限を調整し、実行枠を返却します。
+         *
+         * @param roundTripTime リクエストの往復時間（ナノ秒）
+         * @param httpStatus    レスポンスのHTTPステータス
+         */
+        private void release(long roundTripTime, HttpStatus httpStatus) {
+
+            this.lock.lock();
+
+            try {
+                final int utilization = this.inFlight--;
+
+                if (httpStatus == null || OVERLOADED_STATUSES.contains(httpStatus)
+                        || (latencyThreshold > 0 && roundTripTime > latencyThreshold)) {
+                    this.limit = Math.max(minLimit, this.limit * backoffRatio);
+                } else if (utilization * 2 >= this.limit) {
+                    this.limit = Math.min(maxLimit, this.limit + 1 / this.limit);
+                }
+
+                this.available.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
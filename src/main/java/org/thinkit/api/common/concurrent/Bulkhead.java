@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 同時に実行できるリクエストの数を固定の実行枠で隔離するバルクヘッドです。
+ * <p>
+ * 実行枠はセマフォで管理され、実行枠が空いていないリクエストは {@link Builder#withMaxWaitingCalls(int)}
+ * メソッドで設定された数まで待機します。待機数の上限を超えた場合、または待機時間の上限を超えた場合は
+ * {@link RequestRejectedException} を送出して拒否されます。
+ * <p>
+ * バルクヘッドの飽和状態は {@link #getActiveCalls()} 、 {@link #getWaitingCalls()} 、
+ * {@link #getRejectedCount()} 、 {@link #getSaturation()} メソッドで参照することができます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class Bulkhead {
+
+    /**
+     * バルクヘッドの名前
+     */
+    @Getter
+    private String name;
+
+    /**
+     * 同時に実行できるリクエストの最大数
+     */
+    @Getter
+    private int maxConcurrentCalls;
+
+    /**
+     * 待機できるリクエストの最大数
+     */
+    @Getter
+    private int maxWaitingCalls;
+
+    /**
+     * 待機時間の上限（ナノ秒）
+     */
+    private long maxWait;
+
+    /**
+     * 実行枠
+     */
+    private Semaphore semaphore;
+
+    /**
+     * 待機中のリクエストの数
+     */
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    /**
+     * 拒否したリクエストの数
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private Bulkhead() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link Bulkhead} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * バルクヘッドの名前
+         */
+        private String name = "";
+
+        /**
+         * 同時に実行できるリクエストの最大数
+         */
+        private int maxConcurrentCalls = 10;
+
+        /**
+         * 待機できるリクエストの最大数
+         */
+        private int maxWaitingCalls;
+
+        /**
+         * 待機時間の上限
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * メトリクスの識別に使用するバルクヘッドの名前を設定します。
+         *
+         * @param name バルクヘッドの名前
+         * @return 自分自身のインスタンス
+         */
+        public Builder withName(@NonNull String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * 同時に実行できるリクエストの最大数を設定します。最大数は初期設定として {@code 10} が設定されています。
+         *
+         * @param maxConcurrentCalls 同時に実行できるリクエストの最大数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMaxConcurrentCalls(int maxConcurrentCalls) {
+
+            if (maxConcurrentCalls <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * 実行枠が空いていない場合に待機できるリクエストの最大数を設定します。このメソッドを呼び出さない場合、実行枠が空いていないリクエストは即座に拒否されます。
+         *
+         * @param maxWaitingCalls 待機できるリクエストの最大数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withMaxWaitingCalls(int maxWaitingCalls) {
+
+            if (maxWaitingCalls < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxWaitingCalls = maxWaitingCalls;
+            return this;
+        }
+
+        /**
+         * 実行枠が空くまで待機する時間の上限を設定します。待機時間の上限は初期設定として1秒が設定されています。
+         *
+         * @param maxWait 待機時間の上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withMaxWait(@NonNull Duration maxWait) {
+
+            if (maxWait.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link Bulkhead} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link Bulkhead} クラスの新しいインスタンス
+         */
+        public Bulkhead build() {
+
+            final Bulkhead bulkhead = new Bulkhead();
+            bulkhead.name = this.name;
+            bulkhead.maxConcurrentCalls = this.maxConcurrentCalls;
+            bulkhead.maxWaitingCalls = this.maxWaitingCalls;
+            bulkhead.maxWait = this.maxWait.toNanos();
+            bulkhead.semaphore = new Semaphore(this.maxConcurrentCalls, true);
+
+            return bulkhead;
+        }
+    }
+
+    /**
+     * 実行枠を取得します。実行枠が空いていない場合は設定に従い待機、または拒否します。
+     * 待機中のリクエストが存在する場合は、新しいリクエストが待機中のリクエストより先に実行枠を取得することはありません。
+     * <p>
+     * 返却された実行枠は1回のみ返却することができ、2回目以降の返却は無視されます。
+     *
+     * @return 取得した実行枠
+     *
+     * @exception RequestRejectedException 実行枠を取得できなかった場合
+     */
+    public ConcurrencyLimiter.Permit acquire() {
+
+        try {
+            // 引数なしのtryAcquireは公平性の設定を無視して待機中のスレッドを追い越すため、待機時間0で公平性を維持する
+            if (this.semaphore.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return new SingleReleasePermit(this::release);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.rejectedCount.incrementAndGet();
+            throw new RequestRejectedException(e);
+        }
+
+        if (this.waitingCalls.incrementAndGet() > this.maxWaitingCalls) {
+            this.waitingCalls.decrementAndGet();
+            this.rejectedCount.incrementAndGet();
+            throw new RequestRejectedException(String.format("The bulkhead is full: %s", this.name));
+        }
+
+        try {
+            if (!this.semaphore.tryAcquire(this.maxWait, TimeUnit.NANOSECONDS)) {
+                this.rejectedCount.incrementAndGet();
+                throw new RequestRejectedException(String.format("Timed out waiting for the bulkhead: %s", this.name));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.rejectedCount.incrementAndGet();
+            throw new RequestRejectedException(e);
+        } finally {
+            this.waitingCalls.decrementAndGet();
+        }
+
+        return new SingleReleasePermit(this::release);
+    }
+
+    /**
+     * 実行中のリクエストの数を返却します。
+     *
+     * @return 実行中のリクエストの数
+     */
+    public int getActiveCalls() {
+        return this.maxConcurrentCalls - this.semaphore.availablePermits();
+    }
+
+    /**
+     * 待機中のリクエストの数を返却します。
+     *
+     * @return 待機中のリクエストの数
+     */
+    public int getWaitingCalls() {
+        return this.waitingCalls.get();
+    }
+
+    /**
+     * 拒否したリクエストの数を返却します。
+     *
+     * @return 拒否したリクエストの数
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * 実行枠の使用率を {@code 0.0} から {@code 1.0} の範囲で返却します。
+     *
+     * @return 実行枠の使用率
+     */
+    public double getSaturation() {
+        return (double) this.getActiveCalls() / this.maxConcurrentCalls;
+    }
+
+    /**
+     * 実行枠を返却します。
+     *
+     * @param roundTripTime リクエストの往復時間（ナノ秒）
+     * @param httpStatus    レスポンスのHTTPステータス
+     */
+    private void release(long roundTripTime, HttpStatus httpStatus) {
+        this.semaphore.release();
+    }
+}
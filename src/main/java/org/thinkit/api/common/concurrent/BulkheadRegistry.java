@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.concurrent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+import lombok.NonNull;
+
+/**
+ * リソース、またはリソースのグループごとに {@link Bulkhead} を割り当てるクラスです。
+ * <p>
+ * {@link Builder#assign(Bulkhead, Resource...)} メソッドで割り当てられたリソースは指定されたバルクヘッドを共有し、
+ * 割り当てられていないリソースには {@link Builder#withDefault(Supplier)} メソッドで設定された生成処理からリソースごとに個別のバルクヘッドが生成されます。
+ * リソースが定義されていないリクエストは1つの共通のバルクヘッドを使用します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * BulkheadRegistry bulkheads = BulkheadRegistry.builder()
+ *         .assign(Bulkhead.builder().withName("search").withMaxConcurrentCalls(4).build(), SearchResource.values())
+ *         .withDefault(() -&gt; Bulkhead.builder().withMaxConcurrentCalls(16).withMaxWaitingCalls(32).build()).build();
+ * ApiContext context = ApiContext.builder().of(api).withBulkheads(bulkheads).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class BulkheadRegistry implements ConcurrencyLimiter {
+
+    /**
+     * リソースが定義されていないリクエストに割り当てるキー
+     */
+    private static final Object NO_RESOURCE = new Object();
+
+    /**
+     * リソースに割り当てられたバルクヘッド
+     */
+    private final Map<Object, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 割り当てられていないリソースのバルクヘッドを生成する処理
+     */
+    private Supplier<Bulkhead> defaultBulkhead;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private BulkheadRegistry() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link BulkheadRegistry} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * リソースに割り当てられたバルクヘッド
+         */
+        private final Map<Object, Bulkhead> bulkheads = new HashMap<>();
+
+        /**
+         * 割り当てられていないリソースのバルクヘッドを生成する処理
+         */
+        private Supplier<Bulkhead> defaultBulkhead = () -> Bulkhead.builder().build();
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 引数として渡された {@code resources} に {@code bulkhead} を割り当てます。複数のリソースを渡した場合、それらのリソースは1つのバルクヘッドを共有します。
+         *
+         * @param bulkhead  割り当てるバルクヘッド
+         * @param resources バルクヘッドを割り当てるリソース（可変長引数）
+         * @return 自分自身のインスタンス
+         */
+        public Builder assign(@NonNull Bulkhead bulkhead, @NonNull Resource... resources) {
+
+            for (Resource resource : resources) {
+                this.bulkheads.put(resource, bulkhead);
+            }
+
+            return this;
+        }
+
+        /**
+         * 割り当てられていないリソースに対してバルクヘッドを生成する処理を設定します。生成処理はリソースごとに1回だけ呼び出されます。
+         * 初期設定では {@link Bulkhead.Builder} の初期値でバルクヘッドを生成します。
+         *
+         * @param defaultBulkhead バルクヘッドを生成する処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder withDefault(@NonNull Supplier<Bulkhead> defaultBulkhead) {
+            this.defaultBulkhead = defaultBulkhead;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link BulkheadRegistry} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link BulkheadRegistry} クラスの新しいインスタンス
+         */
+        public BulkheadRegistry build() {
+
+            final BulkheadRegistry registry = new BulkheadRegistry();
+            registry.bulkheads.putAll(this.bulkheads);
+            registry.defaultBulkhead = this.defaultBulkhead;
+
+            return registry;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code resource} に割り当てられたバルクヘッドから実行枠を取得します。
+     *
+     * @param resource リクエスト対象のリソース。リソースが定義されていない場合は {@code null}
+     * @return 取得した実行枠
+     *
+     * @exception RequestRejectedException 実行枠を取得できなかった場合
+     */
+    @Override
+    public Permit acquire(Resource resource) {
+        return this.getBulkhead(resource).acquire();
+    }
+
+    /**
+     * 引数として渡された {@code resource} に割り当てられたバルクヘッドを返却します。
+     *
+     * @param resource リソース。リソースが定義されていないリクエストの場合は {@code null}
+     * @return リソースに割り当てられたバルクヘッド
+     */
+    public Bulkhead getBulkhead(Resource resource) {
+        return this.bulkheads.computeIfAbsent(resource != null ? resource : NO_RESOURCE,
+                key -> this.defaultBulkhead.get());
+    }
+
+    /**
+     * 生成済みの全てのバルクヘッドを返却します。
+     *
+     * @return 生成済みのバルクヘッド
+     */
+    public Set<Bulkhead> getBulkheads() {
+        return Set.copyOf(this.bulkheads.values());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.concurrent;
+
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+/**
+ * リソース単位で同時に実行するリクエストの数を制限する処理を抽象化したインターフェースです。
+ * <p>
+ * リクエストの送信前に {@link #acquire(Resource)} メソッドで実行枠を取得し、レスポンスを受信した後に
+ * {@link Permit#release(long, HttpStatus)} メソッドで実行枠を返却してください。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * 引数として渡された {@code resource} に対するリクエストの実行枠を取得します。
+     *
+     * @param resource リクエスト対象のリソース。リソースが定義されていない場合は {@code null}
+     * @return 取得した実行枠
+     *
+     * @exception RequestRejectedException 実行枠を取得できなかった場合
+     */
+    public Permit acquire(Resource resource);
+
+    /**
+     * {@link ConcurrencyLimiter#acquire(Resource)} メソッドで取得したリクエストの実行枠です。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public interface Permit {
+
+        /**
+         * リクエストの結果を通知し、実行枠を返却します。実行枠は1回のみ返却され、2回目以降の呼び出しは無視されます。
+         *
+         * @param roundTripTime リクエストの往復時間（ナノ秒）
+         * @param httpStatus    レスポンスのHTTPステータス。レスポンスを受信できなかった場合は {@code null}
+         */
+        public void release(long roundTripTime, HttpStatus httpStatus);
+    }
+}
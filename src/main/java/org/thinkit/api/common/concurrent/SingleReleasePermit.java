@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.concurrent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.thinkit.api.common.catalog.HttpStatus;
+
+import lombok.NonNull;
+
+/**
+ * 実行枠の返却を1回のみ委譲先へ通知する {@link ConcurrencyLimiter.Permit} です。
+ * <p>
+ * 2回目以降の {@link #release(long, HttpStatus)} メソッドの呼び出しは無視されるため、
+ * 誤って複数回返却された場合でも実行枠の数や同時実行数の上限が変化することはありません。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class SingleReleasePermit implements ConcurrencyLimiter.Permit {
+
+    /**
+     * 実行枠の返却処理
+     */
+    private final ConcurrencyLimiter.Permit delegate;
+
+    /**
+     * 実行枠を返却したか否か
+     */
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * コンストラクタ
+     *
+     * @param delegate 実行枠の返却処理
+     */
+    SingleReleasePermit(@NonNull ConcurrencyLimiter.Permit delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void release(long roundTripTime, HttpStatus httpStatus) {
+        if (this.released.compareAndSet(false, true)) {
+            this.delegate.release(roundTripTime, httpStatus);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.download;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * {@link SegmentedDownload} の実行結果を表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class DownloadReport {
+
+    /**
+     * リソース全体のバイト数
+     */
+    @Getter
+    private final long totalBytes;
+
+    /**
+     * 今回の実行で受信したバイト数
+     */
+    @Getter
+    private final long transferredBytes;
+
+    /**
+     * セグメント数。範囲リクエストに対応していないリソースの場合は {@code 1}
+     */
+    @Getter
+    private final int segmentCount;
+
+    /**
+     * 前回の実行で取得済みのため再開時に読み飛ばしたセグメント数
+     */
+    @Getter
+    private final int resumedSegments;
+
+    /**
+     * リトライしたセグメントの試行回数の合計
+     */
+    @Getter
+    private final int retries;
+
+    /**
+     * 範囲リクエストを使用したか否か
+     */
+    @Getter
+    private final boolean rangeSupported;
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.download;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lombok.NonNull;
+
+/**
+ * 分割ダウンロードの進捗を保持する状態ファイルを管理するクラスです。
+ * <p>
+ * 状態ファイルはヘッダーとセグメントごとの完了フラグで構成されます。ヘッダーにはリソース全体のバイト数、セグメントのサイズ、
+ * リソースのETagが記録され、再開時にいずれかが一致しない場合は進捗を破棄してダウンロードをやり直します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class DownloadState implements Closeable {
+
+    /**
+     * 状態ファイルの識別子
+     */
+    private static final int MAGIC = 0x41504453;
+
+    /**
+     * 完了フラグ
+     */
+    private static final byte COMPLETED = 1;
+
+    /**
+     * 状態ファイル
+     */
+    private final Path path;
+
+    /**
+     * 状態ファイルのチャネル
+     */
+    private final FileChannel channel;
+
+    /**
+     * ヘッダーのバイト数
+     */
+    private final int headerSize;
+
+    /**
+     * セグメントごとの完了フラグ
+     */
+    private final boolean[] completed;
+
+    /**
+     * 前回の実行の進捗を引き継いだか否か
+     */
+    private final boolean resumed;
+
+    /**
+     * コンストラクタ
+     *
+     * @param path       状態ファイル
+     * @param channel    状態ファイルのチャネル
+     * @param headerSize ヘッダーのバイト数
+     * @param completed  セグメントごとの完了フラグ
+     * @param resumed    前回の実行の進捗を引き継いだか否か
+     */
+    private DownloadState(@NonNull Path path, @NonNull FileChannel channel, int headerSize,
+            @NonNull boolean[] completed, boolean resumed) {
+        this.path = path;
+        this.channel = channel;
+        this.headerSize = headerSize;
+        this.completed = completed;
+        this.resumed = resumed;
+    }
+
+    /**
+     * 状態ファイルを開きます。状態ファイルが存在しない場合、または記録された内容が引数の値と一致しない場合は新しい状態ファイルを作成します。
+     *
+     * @param path         状態ファイル
+     * @param totalBytes   リソース全体のバイト数
+     * @param segmentSize  セグメントのサイズ
+     * @param segmentCount セグメント数
+     * @param etag         リソースのETag。ETagが存在しない場合は空文字
+     * @return 状態ファイルを管理するオブジェクト
+     *
+     * @throws IOException 状態ファイルの読み書きに失敗した場合
+     */
+    static DownloadState open(@NonNull Path path, long totalBytes, long segmentSize, int segmentCount,
+            @NonNull String etag) throws IOException {
+
+        final byte[] etagBytes = etag.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 3 + Long.BYTES * 2 + etagBytes.length);
+        header.putInt(MAGIC).putLong(totalBytes).putLong(segmentSize).putInt(segmentCount).putInt(etagBytes.length)
+                .put(etagBytes).flip();
+
+        final boolean[] completed = new boolean[segmentCount];
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            if (channel.size() == header.remaining() + segmentCount && matches(channel, header.duplicate())) {
+                final ByteBuffer flags = ByteBuffer.allocate(segmentCount);
+                channel.read(flags, header.remaining());
+
+                for (int i = 0; i < segmentCount; i++) {
+                    completed[i] = flags.get(i) == COMPLETED;
+                }
+
+                return new DownloadState(path, channel, header.remaining(), completed, true);
+            }
+
+            final int headerSize = header.remaining();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.write(ByteBuffer.allocate(segmentCount), headerSize);
+            channel.force(false);
+
+            return new DownloadState(path, channel, headerSize, completed, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 前回の実行の進捗を引き継いだか判定します。
+     *
+     * @return 進捗を引き継いだ場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isResumed() {
+        return this.resumed;
+    }
+
+    /**
+     * 引数として渡されたセグメントが完了済みか判定します。
+     *
+     * @param index セグメントのインデックス
+     * @return 完了済みの場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isCompleted(int index) {
+        return this.completed[index];
+    }
+
+    /**
+     * 引数として渡されたセグメントを完了済みとして記録します。
+     *
+     * @param index セグメントのインデックス
+     *
+     * @throws IOException 状態ファイルへの書き込みに失敗した場合
+     */
+    void markCompleted(int index) throws IOException {
+        this.channel.write(ByteBuffer.wrap(new byte[] { COMPLETED }), this.headerSize + index);
+        this.channel.force(false);
+        this.completed[index] = true;
+    }
+
+    /**
+     * 状態ファイルを閉じて削除します。
+     *
+     * @throws IOException 状態ファイルの削除に失敗した場合
+     */
+    void delete() throws IOException {
+        this.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * 状態ファイルのヘッダーが引数として渡された {@code expected} と一致するか判定します。
+     *
+     * @param channel  状態ファイルのチャネル
+     * @param expected 期待するヘッダー
+     * @return 一致する場合は {@code true} 、それ以外は {@code false}
+     *
+     * @throws IOException 状態ファイルの読み込みに失敗した場合
+     */
+    private static boolean matches(@NonNull FileChannel channel, @NonNull ByteBuffer expected) throws IOException {
+
+        final ByteBuffer actual = ByteBuffer.allocate(expected.remaining());
+
+        while (actual.hasRemaining() && channel.read(actual, actual.position()) > 0) {
+            // ヘッダー全体を読み込むまで繰り返す
+        }
+
+        return actual.flip().equals(expected);
+    }
+}
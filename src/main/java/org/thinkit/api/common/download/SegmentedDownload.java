@@ -0,0 +1,608 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.stream.StreamSource;
+
+import lombok.NonNull;
+
+/**
+ * 範囲リクエストを使用してリソースをセグメントに分割し、並列でファイルへダウンロードするクラスです。
+ * <p>
+ * 最初に {@code Range: bytes=0-0} のリクエストでリソース全体のバイト数を取得し、一定サイズのセグメントごとに並列で取得します。
+ * 取得したバイト列は1つの {@link FileChannel} の該当する位置へ直接書き込まれます。取得に失敗したセグメントは他のセグメントとは独立してリトライされます。
+ * <p>
+ * 完了したセグメントはダウンロード先のファイルと同じディレクトリの状態ファイル（ファイル名に {@code .state} を付加）に記録され、
+ * 処理が中断された場合でも次回の実行時に未完了のセグメントのみを取得して再開します。リソースのETagが変更されていた場合は最初からやり直します。
+ * サーバーが範囲リクエストに対応していない場合は、リソース全体を1回のリクエストで取得します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * DownloadReport report = SegmentedDownload.builder().of(source).withTarget(Path.of("archive.zip"))
+ *         .withSegmentSize(16 * 1024 * 1024).withParallelism(8).build().download();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class SegmentedDownload {
+
+    /**
+     * 読み込み用のバッファのサイズ
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * 接続処理
+     */
+    private StreamSource source;
+
+    /**
+     * ダウンロード先のファイル
+     */
+    private Path target;
+
+    /**
+     * セグメントのサイズ
+     */
+    private long segmentSize;
+
+    /**
+     * 並列数
+     */
+    private int parallelism;
+
+    /**
+     * セグメントごとのリトライ数
+     */
+    private int retryCount;
+
+    /**
+     * リトライ時の待機時間（ミリ秒）
+     */
+    private long retryDelay;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private SegmentedDownload() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link SegmentedDownload} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続処理
+         */
+        private StreamSource source;
+
+        /**
+         * ダウンロード先のファイル
+         */
+        private Path target;
+
+        /**
+         * セグメントのサイズ
+         */
+        private long segmentSize = 8L * 1024 * 1024;
+
+        /**
+         * 並列数
+         */
+        private int parallelism = 4;
+
+        /**
+         * セグメントごとのリトライ数
+         */
+        private int retryCount = 3;
+
+        /**
+         * リトライ時の待機時間（ミリ秒）
+         */
+        private long retryDelay = 1000;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続処理を設定します。接続処理は {@link RequestOptions#getHeaders()} に設定された {@code Range} ヘッダーと
+         * {@code If-Range} ヘッダーをリクエストへ追加する必要があります。 {@code If-Range} ヘッダーには強いETag、または
+         * {@code Last-Modified} ヘッダーの値が設定されます。
+         *
+         * @param source 接続処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull StreamSource source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * ダウンロード先のファイルを設定します。
+         *
+         * @param target ダウンロード先のファイル
+         * @return 自分自身のインスタンス
+         */
+        public Builder withTarget(@NonNull Path target) {
+            this.target = target;
+            return this;
+        }
+
+        /**
+         * セグメントのサイズを設定します。セグメントのサイズは初期設定として {@code 8MB} が設定されています。
+         *
+         * @param segmentSize セグメントのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withSegmentSize(long segmentSize) {
+
+            if (segmentSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * セグメントを並列で取得する際の最大並列数を設定します。並列数は初期設定として {@code 4} が設定されています。
+         *
+         * @param parallelism 最大並列数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withParallelism(int parallelism) {
+
+            if (parallelism <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * セグメントごとのリトライ数を設定します。リトライ数は初期設定として {@code 3} が設定されています。
+         *
+         * @param retryCount セグメントごとのリトライ数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withRetryCount(int retryCount) {
+
+            if (retryCount < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.retryCount = retryCount;
+            return this;
+        }
+
+        /**
+         * セグメントのリトライ時の待機時間を設定します。待機時間は初期設定として {@code 1000} ミリ秒が設定されています。
+         *
+         * @param retryDelay リトライ時の待機時間（ミリ秒）
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withRetryDelay(long retryDelay) {
+
+            if (retryDelay < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.retryDelay = retryDelay;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link SegmentedDownload} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link SegmentedDownload} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(StreamSource)} メソッド、または
+         *                                      {@link #withTarget(Path)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public SegmentedDownload build() {
+
+            if (this.source == null || this.target == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final SegmentedDownload download = new SegmentedDownload();
+            download.source = this.source;
+            download.target = this.target;
+            download.segmentSize = this.segmentSize;
+            download.parallelism = this.parallelism;
+            download.retryCount = this.retryCount;
+            download.retryDelay = this.retryDelay;
+
+            return download;
+        }
+    }
+
+    /**
+     * リソースをダウンロード先のファイルへダウンロードします。前回の実行が中断されている場合は未完了のセグメントのみを取得します。
+     *
+     * @return ダウンロードの実行結果
+     *
+     * @throws ApiRequestFailedException リトライ数を超えてセグメントの取得に失敗した場合、または予期しないHTTPステータスを受信した場合
+     * @throws UncheckedIOException      ファイルの読み書きに失敗した場合
+     */
+    public DownloadReport download() {
+
+        try {
+            final HttpResponse<InputStream> probe = this.source
+                    .open(RequestOptions.builder().withHeader("Range", "bytes=0-0").build());
+            final int statusCode = probe.statusCode();
+
+            if (statusCode == HttpStatus.OK.getTag()) {
+                return this.downloadWhole(probe);
+            }
+
+            final long totalBytes = parseTotalBytes(probe.headers().firstValue("Content-Range").orElse(""));
+            close(probe.body());
+
+            if (statusCode != HttpStatus.PARTIAL_CONTENT.getTag()
+                    && statusCode != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.getTag()) {
+                throw new ApiRequestFailedException(String.format("Unexpected HTTP status: %d", statusCode));
+            }
+
+            if (totalBytes < 0) {
+                return this.downloadWhole(this.source.open(RequestOptions.empty()));
+            }
+
+            final String etag = probe.headers().firstValue("ETag").orElse("");
+            return this.downloadSegments(totalBytes, etag, validator(probe, etag));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * リソースをセグメントに分割して並列で取得します。
+     *
+     * @param totalBytes リソース全体のバイト数
+     * @param etag       リソースのETag。ETagが存在しない場合は空文字
+     * @param validator  {@code If-Range} ヘッダーへ設定する検証子。検証子が存在しない場合は空文字
+     * @return ダウンロードの実行結果
+     *
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private DownloadReport downloadSegments(long totalBytes, @NonNull String etag, @NonNull String validator)
+            throws IOException {
+
+        final int segmentCount = (int) ((totalBytes + this.segmentSize - 1) / this.segmentSize);
+        final Path statePath = this.target.resolveSibling(this.target.getFileName() + ".state");
+        final AtomicInteger retries = new AtomicInteger();
+
+        try (FileChannel file = FileChannel.open(this.target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                DownloadState state = DownloadState.open(statePath, totalBytes, this.segmentSize, segmentCount, etag)) {
+
+            if (!state.isResumed()) {
+                file.truncate(0);
+            }
+
+            final ExecutorService executor = Executors
+                    .newFixedThreadPool(Math.max(1, Math.min(this.parallelism, segmentCount)));
+            final List<Future<Long>> futures = new ArrayList<>();
+            int resumedSegments = 0;
+
+            try {
+                for (int i = 0; i < segmentCount; i++) {
+                    if (state.isCompleted(i)) {
+                        resumedSegments++;
+                        continue;
+                    }
+
+                    final int index = i;
+                    final long start = index * this.segmentSize;
+                    final long end = Math.min(start + this.segmentSize, totalBytes) - 1;
+
+                    futures.add(executor.submit(() -> {
+                        final long transferred = this.fetchSegment(file, start, end, validator, retries);
+                        file.force(false);
+                        state.markCompleted(index);
+                        return transferred;
+                    }));
+                }
+
+                long transferredBytes = 0;
+
+                for (Future<Long> future : futures) {
+                    transferredBytes += await(future);
+                }
+
+                file.truncate(totalBytes);
+                state.delete();
+
+                return new DownloadReport(totalBytes, transferredBytes, segmentCount, resumedSegments, retries.get(),
+                        true);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 1つのセグメントを取得しファイルへ書き込みます。取得に失敗した場合はリトライ数を上限としてリトライします。
+     *
+     * @param file    ダウンロード先のファイル
+     * @param start   セグメントの開始位置
+     * @param end     セグメントの終了位置（終了位置を含む）
+     * @param validator {@code If-Range} ヘッダーへ設定する検証子
+     * @param retries   リトライした回数の合計
+     * @return 受信したバイト数
+     *
+     * @throws ApiRequestFailedException リトライ数を超えて取得に失敗した場合
+     */
+    private long fetchSegment(@NonNull FileChannel file, long start, long end, @NonNull String validator,
+            @NonNull AtomicInteger retries) {
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                return this.transferSegment(file, start, end, validator, buffer);
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= this.retryCount) {
+                    throw new ApiRequestFailedException(
+                            String.format("Failed to download the segment: bytes=%d-%d", start, end), e);
+                }
+
+                retries.incrementAndGet();
+                this.sleep();
+            }
+        }
+    }
+
+    /**
+     * 範囲リクエストで1つのセグメントを取得し、ファイルの該当する位置へ書き込みます。
+     *
+     * @param file   ダウンロード先のファイル
+     * @param start  セグメントの開始位置
+     * @param end    セグメントの終了位置（終了位置を含む）
+     * @param validator {@code If-Range} ヘッダーへ設定する検証子
+     * @param buffer    読み込み用のバッファ
+     * @return 受信したバイト数
+     *
+     * @throws IOException               受信、またはファイルへの書き込みに失敗した場合
+     * @throws ApiRequestFailedException 範囲リクエストに対するレスポンスではない場合
+     */
+    private long transferSegment(@NonNull FileChannel file, long start, long end, @NonNull String validator,
+            @NonNull byte[] buffer) throws IOException {
+
+        final RequestOptions.Builder options = RequestOptions.builder().withHeader("Range",
+                String.format("bytes=%d-%d", start, end));
+
+        if (!validator.isEmpty()) {
+            options.withHeader("If-Range", validator);
+        }
+
+        final HttpResponse<InputStream> response = this.source.open(options.build());
+
+        try (InputStream input = response.body()) {
+            if (response.statusCode() != HttpStatus.PARTIAL_CONTENT.getTag() || !response.headers()
+                    .firstValue("Content-Range").orElse("").startsWith(String.format("bytes %d-", start))) {
+                throw new ApiRequestFailedException(
+                        String.format("Unexpected response for the range: HTTP status %d", response.statusCode()));
+            }
+
+            long position = start;
+            int read;
+
+            while (position <= end && (read = input.read(buffer)) >= 0) {
+                final int length = (int) Math.min(read, end + 1 - position);
+                write(file, ByteBuffer.wrap(buffer, 0, length), position);
+                position += length;
+            }
+
+            if (position != end + 1) {
+                throw new IOException(String.format("Premature end of the segment: bytes=%d-%d", start, end));
+            }
+
+            return end + 1 - start;
+        }
+    }
+
+    /**
+     * 範囲リクエストの {@code If-Range} ヘッダーへ設定する検証子を返却します。
+     * <p>
+     * {@code If-Range} ヘッダーには弱いETagを使用できないため、強いETagが存在する場合のみETagを返却し、それ以外の場合は
+     * {@code Last-Modified} ヘッダーの値を返却します。いずれも存在しない場合は検証子を送信せず、リソースの変更は状態ファイルに記録された
+     * リソース全体のバイト数とETagで検出します。
+     *
+     * @param probe リソース全体のバイト数を取得したHTTPレスポンス
+     * @param etag  リソースのETag。ETagが存在しない場合は空文字
+     * @return {@code If-Range} ヘッダーへ設定する検証子。検証子が存在しない場合は空文字
+     */
+    private static String validator(@NonNull HttpResponse<?> probe, @NonNull String etag) {
+
+        if (!etag.isEmpty() && !etag.startsWith("W/")) {
+            return etag;
+        }
+
+        return probe.headers().firstValue("Last-Modified").orElse("");
+    }
+
+    /**
+     * 範囲リクエストを使用せずに、引数として渡された {@code response} のレスポンスボディ全体をファイルへ書き込みます。
+     *
+     * @param response リソース全体を持つHTTPレスポンス
+     * @return ダウンロードの実行結果
+     *
+     * @throws IOException               受信、またはファイルへの書き込みに失敗した場合
+     * @throws ApiRequestFailedException HTTPステータスが {@code 200} ではない場合
+     */
+    private DownloadReport downloadWhole(@NonNull HttpResponse<InputStream> response) throws IOException {
+
+        try (InputStream input = response.body();
+                FileChannel file = FileChannel.open(this.target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            if (response.statusCode() != HttpStatus.OK.getTag()) {
+                throw new ApiRequestFailedException(
+                        String.format("Unexpected HTTP status: %d", response.statusCode()));
+            }
+
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            int read;
+
+            while ((read = input.read(buffer)) >= 0) {
+                write(file, ByteBuffer.wrap(buffer, 0, read), position);
+                position += read;
+            }
+
+            return new DownloadReport(position, position, 1, 0, 0, false);
+        }
+    }
+
+    /**
+     * {@code Content-Range} ヘッダーの値からリソース全体のバイト数を取得します。
+     *
+     * @param contentRange {@code Content-Range} ヘッダーの値
+     * @return リソース全体のバイト数。取得できない場合は {@code -1}
+     */
+    private static long parseTotalBytes(@NonNull String contentRange) {
+
+        final int slash = contentRange.lastIndexOf('/');
+
+        if (slash < 0) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code buffer} の内容をファイルの指定された位置へ全て書き込みます。
+     *
+     * @param file     書き込み先のファイル
+     * @param buffer   書き込む内容
+     * @param position 書き込み位置
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private static void write(@NonNull FileChannel file, @NonNull ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += file.write(buffer, position);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code input} を閉じます。
+     *
+     * @param input 入力ストリーム
+     *
+     * @throws IOException 閉じる際に失敗した場合
+     */
+    private static void close(InputStream input) throws IOException {
+        if (input != null) {
+            input.close();
+        }
+    }
+
+    /**
+     * 引数として渡された {@code future} の完了を待機し結果を返却します。
+     *
+     * @param <T>    結果の型
+     * @param future 待機対象
+     * @return 処理結果
+     *
+     * @throws ApiRequestFailedException 処理が失敗した場合、または待機中に割り込みが発生した場合
+     */
+    private static <T> T await(@NonNull Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiRequestFailedException) {
+                throw (ApiRequestFailedException) e.getCause();
+            }
+
+            throw new ApiRequestFailedException(e.getCause());
+        }
+    }
+
+    /**
+     * リトライ時の待機時間だけスレッドをスリープさせます。
+     *
+     * @throws ApiRequestFailedException 待機中に割り込みが発生した場合
+     */
+    private void sleep() {
+        try {
+            Thread.sleep(this.retryDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        }
+    }
+}
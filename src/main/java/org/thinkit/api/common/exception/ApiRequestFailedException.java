@@ -79,4 +79,26 @@ public final class ApiRequestFailedException extends RuntimeException {
     public ApiRequestFailedException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Constructs a new exception with the specified detail message, cause,
+     * suppression enabled or disabled, and writable stack trace enabled or
+     * disabled.
+     * <p>
+     * Passing {@code false} as <code>writableStackTrace</code> skips
+     * {@link Throwable#fillInStackTrace()}, which makes the exception cheap to
+     * create on hot failure paths.
+     *
+     * @param message            the detail message.
+     * @param cause              the cause. (A {@code null} value is permitted, and
+     *                           indicates that the cause is nonexistent or
+     *                           unknown.)
+     * @param enableSuppression  whether or not suppression is enabled or disabled
+     * @param writableStackTrace whether or not the stack trace should be writable
+     * @since 1.0
+     */
+    public ApiRequestFailedException(String message, Throwable cause, boolean enableSuppression,
+            boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
\ No newline at end of file
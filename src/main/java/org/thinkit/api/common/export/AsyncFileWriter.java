@@ -0,0 +1,308 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import lombok.NonNull;
+
+/**
+ * 文字列をUTF-8で符号化し、専用のスレッドで {@link FileChannel} へ非同期に書き込むクラスです。
+ * <p>
+ * 符号化したバイト列は固定数のダイレクトバッファに蓄積され、バッファが一杯になると書き込み用のスレッドへ渡されます。
+ * 全てのバッファが書き込み中の場合、呼び出し元は書き込みが完了するまで待機するため、使用するメモリ量は書き込む量に関わらず一定です。
+ * 書き込み時に発生した例外は以降の {@link #write(CharSequence)} 、 {@link #sync(SyncAction)} 、または
+ * {@link #close()} メソッドの呼び出し時に送出されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class AsyncFileWriter implements Closeable {
+
+    /**
+     * 書き込み先のチャネル
+     */
+    private final FileChannel channel;
+
+    /**
+     * 書き込み用のスレッド
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 使用可能なバッファ
+     */
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+
+    /**
+     * 文字列の符号化処理
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * 符号化中のバッファ
+     */
+    private ByteBuffer current;
+
+    /**
+     * 書き込み用のスレッドへ渡したバイト数を含むファイルの末尾の位置
+     */
+    private long position;
+
+    /**
+     * 書き込み時に発生した例外
+     */
+    private volatile IOException failure;
+
+    /**
+     * 閉じられたか否か
+     */
+    private boolean closed;
+
+    /**
+     * ファイルの同期後に実行する処理です。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    @FunctionalInterface
+    interface SyncAction {
+
+        /**
+         * 処理を実行します。
+         *
+         * @throws IOException 処理に失敗した場合
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param channel     書き込み先のチャネル
+     * @param position    書き込みを開始する位置
+     * @param bufferSize  バッファのサイズ
+     * @param bufferCount バッファの数
+     */
+    private AsyncFileWriter(@NonNull FileChannel channel, long position, int bufferSize, int bufferCount) {
+        this.channel = channel;
+        this.position = position;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "export-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 1; i < bufferCount; i++) {
+            this.freeBuffers.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+
+        this.current = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * 引数として渡された {@code path} を開き、 {@code position} 以降の内容を切り捨てた上で {@code position} から書き込む
+     * {@link AsyncFileWriter} を生成します。
+     *
+     * @param path        書き込み先のファイル
+     * @param position    書き込みを開始する位置
+     * @param bufferSize  バッファのサイズ
+     * @param bufferCount バッファの数
+     * @return {@link AsyncFileWriter} クラスの新しいインスタンス
+     *
+     * @throws IOException ファイルを開けなかった場合
+     */
+    static AsyncFileWriter open(@NonNull Path path, long position, int bufferSize, int bufferCount)
+            throws IOException {
+
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        try {
+            channel.truncate(position);
+            return new AsyncFileWriter(channel, Math.min(position, channel.size()), bufferSize, bufferCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 書き込みを依頼した全てのバイト数を含むファイルの末尾の位置を返却します。
+     *
+     * @return ファイルの末尾の位置
+     */
+    long getPosition() {
+        return this.position + this.current.position();
+    }
+
+    /**
+     * 引数として渡された {@code text} をUTF-8で符号化し書き込みます。
+     *
+     * @param text 書き込む文字列
+     *
+     * @throws IOException 以前の書き込みが失敗していた場合、またはバッファの待機中に割り込みが発生した場合
+     */
+    void write(@NonNull CharSequence text) throws IOException {
+
+        this.checkFailure();
+
+        final CharBuffer input = CharBuffer.wrap(text);
+
+        while (true) {
+            final CoderResult result = this.encoder.encode(input, this.current, true);
+
+            if (result.isUnderflow()) {
+                break;
+            }
+
+            this.dispatch();
+        }
+
+        while (this.encoder.flush(this.current).isOverflow()) {
+            this.dispatch();
+        }
+
+        this.encoder.reset();
+    }
+
+    /**
+     * 依頼済みの内容を全て書き込みファイルを同期した後に、書き込み用のスレッドで引数として渡された {@code action} を実行します。
+     * <p>
+     * このメソッドは同期の完了を待機しません。 {@code action} で発生した例外は書き込み時の例外と同様に扱われます。
+     *
+     * @param action ファイルの同期後に実行する処理
+     *
+     * @throws IOException 以前の書き込みが失敗していた場合、またはバッファの待機中に割り込みが発生した場合
+     */
+    void sync(@NonNull SyncAction action) throws IOException {
+
+        this.checkFailure();
+
+        if (this.current.position() > 0) {
+            this.dispatch();
+        }
+
+        this.executor.execute(() -> {
+            if (this.failure != null) {
+                return;
+            }
+
+            try {
+                this.channel.force(false);
+                action.run();
+            } catch (IOException e) {
+                this.failure = e;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        try {
+            if (this.failure == null && this.current.position() > 0) {
+                this.dispatch();
+            }
+
+            this.executor.shutdown();
+
+            if (!this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                throw new InterruptedIOException();
+            }
+
+            this.checkFailure();
+            this.channel.force(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            this.executor.shutdownNow();
+            this.channel.close();
+        }
+    }
+
+    /**
+     * 符号化中のバッファを書き込み用のスレッドへ渡し、使用可能なバッファを取得します。
+     *
+     * @throws IOException 以前の書き込みが失敗していた場合、またはバッファの待機中に割り込みが発生した場合
+     */
+    private void dispatch() throws IOException {
+
+        final ByteBuffer buffer = this.current.flip();
+        final long offset = this.position;
+        this.position += buffer.remaining();
+
+        this.executor.execute(() -> {
+            try {
+                long writePosition = offset;
+
+                while (this.failure == null && buffer.hasRemaining()) {
+                    writePosition += this.channel.write(buffer, writePosition);
+                }
+            } catch (IOException e) {
+                this.failure = e;
+            } finally {
+                this.freeBuffers.offer(buffer.clear());
+            }
+        });
+
+        try {
+            this.current = this.freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        this.checkFailure();
+    }
+
+    /**
+     * 書き込み時に例外が発生していた場合は送出します。
+     *
+     * @throws IOException 書き込み時に発生した例外
+     */
+    private void checkFailure() throws IOException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lombok.NonNull;
+
+/**
+ * エクスポートの進捗を保持するチェックポイントファイルを管理するクラスです。
+ * <p>
+ * チェックポイントファイルには書き込みが完了した次のページのインデックス、その時点の出力ファイルのバイト数、出力したレコード数が記録されます。
+ * 再開時はページサイズが一致する場合のみ進捗を引き継ぎ、出力ファイルを記録されたバイト数に切り詰めた上で次のページから取得を再開します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class ExportCheckpoint implements Closeable {
+
+    /**
+     * チェックポイントファイルの識別子
+     */
+    private static final int MAGIC = 0x41504558;
+
+    /**
+     * チェックポイントファイルのバイト数
+     */
+    private static final int SIZE = Integer.BYTES * 3 + Long.BYTES * 2;
+
+    /**
+     * チェックポイントファイル
+     */
+    private final Path path;
+
+    /**
+     * チェックポイントファイルのチャネル
+     */
+    private final FileChannel channel;
+
+    /**
+     * ページサイズ
+     */
+    private final int pageSize;
+
+    /**
+     * 書き込み用のバッファ
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+
+    /**
+     * 次に取得するページのインデックス
+     */
+    private int nextPage;
+
+    /**
+     * 出力ファイルのバイト数
+     */
+    private long position;
+
+    /**
+     * 出力したレコード数
+     */
+    private long recordCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param path     チェックポイントファイル
+     * @param channel  チェックポイントファイルのチャネル
+     * @param pageSize ページサイズ
+     */
+    private ExportCheckpoint(@NonNull Path path, @NonNull FileChannel channel, int pageSize) {
+        this.path = path;
+        this.channel = channel;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * チェックポイントファイルを開きます。チェックポイントファイルが存在しない場合、または記録されたページサイズが一致しない場合は最初のページから開始します。
+     *
+     * @param path     チェックポイントファイル
+     * @param pageSize ページサイズ
+     * @return チェックポイントファイルを管理するオブジェクト
+     *
+     * @throws IOException チェックポイントファイルの読み込みに失敗した場合
+     */
+    static ExportCheckpoint open(@NonNull Path path, int pageSize) throws IOException {
+
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            final ExportCheckpoint checkpoint = new ExportCheckpoint(path, channel, pageSize);
+
+            if (channel.size() == SIZE) {
+                final ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+
+                while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                    // チェックポイント全体を読み込むまで繰り返す
+                }
+
+                buffer.flip();
+
+                if (buffer.getInt() == MAGIC && buffer.getInt() == pageSize) {
+                    checkpoint.nextPage = buffer.getInt();
+                    checkpoint.position = buffer.getLong();
+                    checkpoint.recordCount = buffer.getLong();
+                }
+            }
+
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 前回の実行の進捗を引き継いだか判定します。
+     *
+     * @return 進捗を引き継いだ場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isResumed() {
+        return this.nextPage > 0;
+    }
+
+    /**
+     * 次に取得するページのインデックスを返却します。
+     *
+     * @return 次に取得するページのインデックス
+     */
+    int getNextPage() {
+        return this.nextPage;
+    }
+
+    /**
+     * 出力ファイルのバイト数を返却します。
+     *
+     * @return 出力ファイルのバイト数
+     */
+    long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * 出力したレコード数を返却します。
+     *
+     * @return 出力したレコード数
+     */
+    long getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * 進捗を記録します。出力ファイルは {@code position} までの内容が同期済みである必要があります。
+     *
+     * @param nextPage    次に取得するページのインデックス
+     * @param position    出力ファイルのバイト数
+     * @param recordCount 出力したレコード数
+     *
+     * @throws IOException チェックポイントファイルへの書き込みに失敗した場合
+     */
+    void save(int nextPage, long position, long recordCount) throws IOException {
+
+        this.buffer.clear();
+        this.buffer.putInt(MAGIC).putInt(this.pageSize).putInt(nextPage).putLong(position).putLong(recordCount)
+                .flip();
+
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer, this.buffer.position());
+        }
+
+        this.channel.force(false);
+        this.nextPage = nextPage;
+        this.position = position;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * チェックポイントファイルを閉じて削除します。
+     *
+     * @throws IOException チェックポイントファイルの削除に失敗した場合
+     */
+    void delete() throws IOException {
+        this.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
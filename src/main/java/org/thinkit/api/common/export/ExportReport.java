@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * {@link PageExport} の実行結果を表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ExportReport {
+
+    /**
+     * 今回の実行で取得したページ数
+     */
+    @Getter
+    private final int pageCount;
+
+    /**
+     * 出力ファイルに含まれるレコード数
+     */
+    @Getter
+    private final long recordCount;
+
+    /**
+     * 出力ファイルのバイト数
+     */
+    @Getter
+    private final long totalBytes;
+
+    /**
+     * 前回の実行で出力済みのため再開時に読み飛ばしたページ数
+     */
+    @Getter
+    private final int resumedPages;
+}
@@ -0,0 +1,601 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.ExportFormat;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.pagination.Page;
+
+import lombok.NonNull;
+
+/**
+ * ページネーション形式のAPIの全てのページを共有の {@link ApiContext} を介して取得し、CSV、または改行区切りのJSON形式のファイルへ出力するクラスです。
+ * <p>
+ * ページは先読み数を上限として別スレッドで取得され、取得済みのページを {@link RecordTransformer} で変換してファイルへ書き込む間に後続のページの取得が進みます。
+ * ファイルへの書き込みは専用のスレッドで非同期に行われ、先読みするページ数と書き込み用のバッファの数はいずれも固定のため、
+ * 総件数に関わらず使用するメモリ量は一定です。総件数を指定しない場合は、変換後のレコードが空のページを最終ページとして扱います。
+ * <p>
+ * 一定のページ数ごとに出力ファイルを同期した上で、出力ファイルと同じディレクトリのチェックポイントファイル（ファイル名に
+ * {@code .checkpoint} を付加）に進捗が記録されます。処理が中断された場合、次回の実行時は出力ファイルを最後のチェックポイントの位置まで切り詰め、
+ * 続きのページから取得を再開します。全てのページを出力するとチェックポイントファイルは削除されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ApiContext context = ApiContext.builder().withRetry().build();
+ * ExportReport report = PageExport.builder().of(context, page -&gt; new ListApi(page.getOffset(), page.getLimit()))
+ *         .withTransformer((page, body) -&gt; toRows(body)).withTarget(Path.of("users.csv"))
+ *         .withFormat(ExportFormat.CSV).withHeader(PageExport.toCsvRow("id", "name")).withPageSize(500).build()
+ *         .export();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class PageExport {
+
+    /**
+     * 書き込み用のバッファの数
+     */
+    private static final int BUFFER_COUNT = 2;
+
+    /**
+     * 全てのページの取得で共有するコンテキスト
+     */
+    private ApiContext context;
+
+    /**
+     * ページごとのAPIオブジェクトを生成する関数
+     */
+    private Function<Page, Communicable> apiFactory;
+
+    /**
+     * レスポンスボディをレコードへ変換する処理
+     */
+    private RecordTransformer transformer;
+
+    /**
+     * 出力先のファイル
+     */
+    private Path target;
+
+    /**
+     * 出力形式
+     */
+    private ExportFormat format;
+
+    /**
+     * 先頭に出力するヘッダー行
+     */
+    private String header;
+
+    /**
+     * 総件数。総件数を指定しない場合は {@code -1}
+     */
+    private long totalCount;
+
+    /**
+     * ページサイズ
+     */
+    private int pageSize;
+
+    /**
+     * 先読みするページ数
+     */
+    private int prefetch;
+
+    /**
+     * チェックポイントを記録するページ数の間隔
+     */
+    private int checkpointInterval;
+
+    /**
+     * 書き込み用のバッファのサイズ
+     */
+    private int bufferSize;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private PageExport() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link PageExport} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 全てのページの取得で共有するコンテキスト
+         */
+        private ApiContext context;
+
+        /**
+         * ページごとのAPIオブジェクトを生成する関数
+         */
+        private Function<Page, Communicable> apiFactory;
+
+        /**
+         * レスポンスボディをレコードへ変換する処理
+         */
+        private RecordTransformer transformer;
+
+        /**
+         * 出力先のファイル
+         */
+        private Path target;
+
+        /**
+         * 出力形式
+         */
+        private ExportFormat format = ExportFormat.CSV;
+
+        /**
+         * 先頭に出力するヘッダー行
+         */
+        private String header;
+
+        /**
+         * 総件数
+         */
+        private long totalCount = -1;
+
+        /**
+         * ページサイズ
+         */
+        private int pageSize = 100;
+
+        /**
+         * 先読みするページ数
+         */
+        private int prefetch = 2;
+
+        /**
+         * チェックポイントを記録するページ数の間隔
+         */
+        private int checkpointInterval = 10;
+
+        /**
+         * 書き込み用のバッファのサイズ
+         */
+        private int bufferSize = 65536;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 全てのページの取得で共有するコンテキストと、ページごとのAPIオブジェクトを生成する関数を設定します。
+         * リトライ、同時実行数の制限、レスポンスキャッシュなどのコンテキストの設定は全てのページで共有されます。
+         *
+         * @param context    全てのページの取得で共有するコンテキスト
+         * @param apiFactory 取得対象の {@link Page} を基に {@link Communicable} を生成する関数
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull ApiContext context, @NonNull Function<Page, Communicable> apiFactory) {
+            this.context = context;
+            this.apiFactory = apiFactory;
+            return this;
+        }
+
+        /**
+         * レスポンスボディを出力するレコードへ変換する処理を設定します。
+         *
+         * @param transformer レスポンスボディをレコードへ変換する処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder withTransformer(@NonNull RecordTransformer transformer) {
+            this.transformer = transformer;
+            return this;
+        }
+
+        /**
+         * 出力先のファイルを設定します。
+         *
+         * @param target 出力先のファイル
+         * @return 自分自身のインスタンス
+         */
+        public Builder withTarget(@NonNull Path target) {
+            this.target = target;
+            return this;
+        }
+
+        /**
+         * 出力形式を設定します。出力形式は初期設定として {@link ExportFormat#CSV} が設定されています。
+         *
+         * @param format 出力形式
+         * @return 自分自身のインスタンス
+         */
+        public Builder withFormat(@NonNull ExportFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * ファイルの先頭に出力するヘッダー行を設定します。ヘッダー行は区切り文字を含まない文字列で指定してください。
+         *
+         * @param header ヘッダー行
+         * @return 自分自身のインスタンス
+         */
+        public Builder withHeader(@NonNull String header) {
+            this.header = header;
+            return this;
+        }
+
+        /**
+         * 取得対象の総件数を設定します。このメソッドを呼び出さない場合は、変換後のレコードが空のページまで取得します。
+         *
+         * @param totalCount 総件数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 総件数として負数が渡された場合
+         */
+        public Builder withTotalCount(long totalCount) {
+
+            if (totalCount < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.totalCount = totalCount;
+            return this;
+        }
+
+        /**
+         * 1ページあたりの取得件数を設定します。ページサイズは初期設定として {@code 100} が設定されています。
+         *
+         * @param pageSize ページサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException ページサイズとして {@code 0} 以下の値が渡された場合
+         */
+        public Builder withPageSize(int pageSize) {
+
+            if (pageSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * ファイルへの書き込みと並行して先読みするページ数を設定します。先読み数は初期設定として {@code 2} が設定されています。
+         *
+         * @param prefetch 先読みするページ数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withPrefetch(int prefetch) {
+
+            if (prefetch <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /**
+         * チェックポイントを記録するページ数の間隔を設定します。間隔は初期設定として {@code 10} が設定されています。
+         * チェックポイントの記録ごとに出力ファイルを同期するため、間隔を短くすると再開時に取得し直すページ数が減る代わりに書き込みの性能が低下します。
+         *
+         * @param checkpointInterval チェックポイントを記録するページ数の間隔
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withCheckpointInterval(int checkpointInterval) {
+
+            if (checkpointInterval <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * 書き込み用のバッファのサイズを設定します。バッファのサイズは初期設定として {@code 65536} が設定されています。
+         *
+         * @param bufferSize 書き込み用のバッファのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 16} 未満の値が渡された場合
+         */
+        public Builder withBufferSize(int bufferSize) {
+
+            if (bufferSize < 16) {
+                throw new InvalidContextStateException();
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link PageExport} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link PageExport} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(ApiContext, Function)} メソッド、
+         *                                      {@link #withTransformer(RecordTransformer)} メソッド、または
+         *                                      {@link #withTarget(Path)} メソッドが呼び出されていない場合
+         */
+        public PageExport build() {
+
+            if (this.context == null || this.transformer == null || this.target == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final PageExport export = new PageExport();
+            export.context = this.context;
+            export.apiFactory = this.apiFactory;
+            export.transformer = this.transformer;
+            export.target = this.target;
+            export.format = this.format;
+            export.header = this.header;
+            export.totalCount = this.totalCount;
+            export.pageSize = this.pageSize;
+            export.prefetch = this.prefetch;
+            export.checkpointInterval = this.checkpointInterval;
+            export.bufferSize = this.bufferSize;
+
+            return export;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code fields} をCSV形式の1行へ変換します。カンマ、ダブルクォート、改行を含む値はダブルクォートで囲み、
+     * {@code null} は空の値として扱います。
+     *
+     * @param fields 列の値
+     * @return CSV形式の1行。区切り文字は含みません
+     */
+    public static String toCsvRow(@NonNull String... fields) {
+
+        final StringBuilder row = new StringBuilder();
+
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+
+            final String field = fields[i];
+
+            if (field == null) {
+                continue;
+            }
+
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\r') < 0
+                    && field.indexOf('\n') < 0) {
+                row.append(field);
+                continue;
+            }
+
+            row.append('"');
+
+            for (int j = 0, length = field.length(); j < length; j++) {
+                final char c = field.charAt(j);
+
+                if (c == '"') {
+                    row.append('"');
+                }
+
+                row.append(c);
+            }
+
+            row.append('"');
+        }
+
+        return row.toString();
+    }
+
+    /**
+     * 全てのページを取得しファイルへ出力します。チェックポイントファイルが存在する場合は前回の続きから再開します。
+     *
+     * @return エクスポートの実行結果
+     *
+     * @throws ApiRequestFailedException いずれかのページの取得に失敗した場合、または改行区切りのJSON形式のレコードが改行を含む場合
+     * @throws UncheckedIOException      ファイルの読み書きに失敗した場合
+     */
+    public ExportReport export() {
+
+        final Path checkpointPath = this.target.resolveSibling(this.target.getFileName() + ".checkpoint");
+
+        try (ExportCheckpoint checkpoint = ExportCheckpoint.open(checkpointPath, this.pageSize)) {
+            final boolean resumed = checkpoint.isResumed() && Files.exists(this.target)
+                    && Files.size(this.target) >= checkpoint.getPosition();
+            final int startPage = resumed ? checkpoint.getNextPage() : 0;
+            final long resumedRecords = resumed ? checkpoint.getRecordCount() : 0;
+            final ExecutorService executor = Executors.newFixedThreadPool(this.prefetch);
+            final ExportReport report;
+
+            try (AsyncFileWriter writer = AsyncFileWriter.open(this.target, resumed ? checkpoint.getPosition() : 0,
+                    this.bufferSize, BUFFER_COUNT)) {
+
+                if (!resumed && this.header != null) {
+                    writer.write(this.header);
+                    writer.write(this.format.getLineSeparator());
+                }
+
+                final int pageCount = this.totalCount < 0 ? Integer.MAX_VALUE
+                        : (int) ((this.totalCount + this.pageSize - 1) / this.pageSize);
+                final Deque<Future<String>> window = new ArrayDeque<>(this.prefetch);
+                int nextPage = startPage;
+                int fetchedPages = 0;
+                long recordCount = resumedRecords;
+
+                while (window.size() < this.prefetch && nextPage < pageCount) {
+                    window.add(this.submit(executor, this.createPage(nextPage++)));
+                }
+
+                for (int index = startPage; !window.isEmpty(); index++) {
+                    final String body = await(window.poll());
+
+                    if (nextPage < pageCount) {
+                        window.add(this.submit(executor, this.createPage(nextPage++)));
+                    }
+
+                    final Page page = this.createPage(index);
+                    final List<String> records = this.transformer.transform(page, body);
+
+                    if (this.totalCount < 0 && records.isEmpty()) {
+                        break;
+                    }
+
+                    for (String record : records) {
+                        this.write(writer, page, record);
+                    }
+
+                    fetchedPages++;
+                    recordCount += records.size();
+
+                    if ((index + 1 - startPage) % this.checkpointInterval == 0) {
+                        final int checkpointPage = index + 1;
+                        final long position = writer.getPosition();
+                        final long checkpointRecords = recordCount;
+                        writer.sync(() -> checkpoint.save(checkpointPage, position, checkpointRecords));
+                    }
+                }
+
+                report = new ExportReport(fetchedPages, recordCount, writer.getPosition(), startPage);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // 出力ファイルが全て書き込まれて閉じられた後にのみチェックポイントを削除する
+            checkpoint.delete();
+
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code index} のページを生成します。
+     *
+     * @param index ページのインデックス
+     * @return ページ
+     */
+    private Page createPage(int index) {
+
+        final long offset = (long) index * this.pageSize;
+        final int limit = this.totalCount < 0 ? this.pageSize
+                : (int) Math.min(this.pageSize, this.totalCount - offset);
+
+        return new Page(index, offset, limit);
+    }
+
+    /**
+     * 引数として渡された {@code page} の取得を {@code executor} へ依頼します。
+     *
+     * @param executor 取得処理を実行するスレッドプール
+     * @param page     取得対象のページ
+     * @return 取得したレスポンスボディ
+     */
+    private Future<String> submit(@NonNull ExecutorService executor, @NonNull Page page) {
+        return executor.submit(() -> {
+
+            final String body = this.context.send(this.apiFactory.apply(page));
+
+            if (body == null) {
+                throw new ApiRequestFailedException(String.format("Failed to fetch the page: %s", page));
+            }
+
+            return body;
+        });
+    }
+
+    /**
+     * 1レコード分の文字列と区切り文字を書き込みます。
+     *
+     * @param writer 書き込み先
+     * @param page   レコードを含むページ
+     * @param record レコード
+     *
+     * @throws IOException               書き込みに失敗した場合
+     * @throws ApiRequestFailedException 改行区切りのJSON形式のレコードが改行を含む場合
+     */
+    private void write(@NonNull AsyncFileWriter writer, @NonNull Page page, @NonNull String record)
+            throws IOException {
+
+        if (this.format == ExportFormat.NDJSON && (record.indexOf('\n') >= 0 || record.indexOf('\r') >= 0)) {
+            throw new ApiRequestFailedException(String.format("The record contains a line break: %s", page));
+        }
+
+        writer.write(record);
+        writer.write(this.format.getLineSeparator());
+    }
+
+    /**
+     * 引数として渡された {@code future} の完了を待機し結果を返却します。
+     *
+     * @param <T>    結果の型
+     * @param future 待機対象
+     * @return 処理結果
+     *
+     * @throws ApiRequestFailedException 処理が失敗した場合、または待機中に割り込みが発生した場合
+     */
+    private static <T> T await(@NonNull Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiRequestFailedException) {
+                throw (ApiRequestFailedException) e.getCause();
+            }
+
+            throw new ApiRequestFailedException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import java.util.List;
+
+import org.thinkit.api.common.pagination.Page;
+
+/**
+ * 取得した1ページ分のレスポンスボディを出力するレコードへ変換する処理を抽象化したインターフェースです。
+ * <p>
+ * 変換後のレコードは区切り文字を含まない1レコード分の文字列です。CSV形式の場合は {@link PageExport#toCsvRow(String...)}
+ * メソッドで列の値をエスケープして連結することができます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * RecordTransformer transformer = (page, body) -&gt; parseUsers(body).stream()
+ *         .map(user -&gt; PageExport.toCsvRow(user.getId(), user.getName())).collect(Collectors.toList());
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface RecordTransformer {
+
+    /**
+     * 引数として渡された {@code body} を出力するレコードへ変換します。
+     *
+     * @param page 取得したページ
+     * @param body 取得したレスポンスボディ
+     * @return 出力するレコード。総件数を指定していない場合、空のリストは最終ページを表します
+     */
+    public List<String> transform(Page page, String body);
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.fault;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.catalog.FaultType;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.entity.RequestParameter;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+import lombok.NonNull;
+
+/**
+ * {@link Communicable} を装飾し、設定された確率で障害を注入するクラスです。
+ * <p>
+ * リトライ、待機時間、タイムアウトなどの {@link org.thinkit.api.common.ApiContext} の設定が障害発生時のスループットに与える影響を
+ * ベンチマークや負荷試験で比較するために使用します。注入できる障害は以下の通りです。
+ * <ul>
+ * <li>エラーを表すHTTPステータスの返却。装飾対象のAPIは呼び出されません。</li>
+ * <li>接続の失敗。 {@link ConnectException} を原因とする {@link UncheckedIOException} を送出します。</li>
+ * <li>応答時間の急増。装飾対象のAPIを呼び出す前に指定された時間だけ待機します。</li>
+ * <li>途中で切断されたレスポンスボディ。装飾対象のAPIが返却したレスポンスボディの一部のみを返却します。</li>
+ * </ul>
+ * <p>
+ * HTTPステータスと接続の失敗は1回の呼び出しでいずれか1つのみが選択され、応答時間の急増とレスポンスボディの切断はそれぞれ独立して判定されます。
+ * シード値を設定した場合、各呼び出しの判定に使用する乱数は呼び出しの通し番号とシード値から生成されるため、
+ * 複数のスレッドから呼び出した場合でもn回目の呼び出しに注入される障害は実行ごとに同一になります。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * Communicable api = FaultInjectingCommunicable.builder().of(new ConcreteApi()).withSeed(42)
+ *         .withStatusFault(HttpStatus.INTERNAL_SERVER_ERROR, 0.05).withConnectionError(0.01)
+ *         .withLatencySpike(0.02, Duration.ofMillis(500)).build();
+ * ApiResult result = context.sendForResult(api);
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class FaultInjectingCommunicable implements Communicable {
+
+    /**
+     * 呼び出しごとのシード値を分散させるための定数
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * 装飾対象のAPIオブジェクト
+     */
+    private Communicable api;
+
+    /**
+     * 乱数のシード値
+     */
+    private long seed;
+
+    /**
+     * HTTPステータスの障害
+     */
+    private List<StatusFault> statusFaults;
+
+    /**
+     * 接続の失敗を注入する確率
+     */
+    private double connectionErrorProbability;
+
+    /**
+     * 応答時間の急増を注入する確率
+     */
+    private double latencySpikeProbability;
+
+    /**
+     * 急増時の応答時間
+     */
+    private Duration latencySpike;
+
+    /**
+     * レスポンスボディを切断する確率
+     */
+    private double truncatedBodyProbability;
+
+    /**
+     * 呼び出しの通し番号
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 呼び出し数
+     */
+    private final LongAdder requestCount = new LongAdder();
+
+    /**
+     * 障害の種類ごとの注入数
+     */
+    private final Map<FaultType, LongAdder> injectedCounts = new EnumMap<>(FaultType.class);
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private FaultInjectingCommunicable() {
+        for (FaultType faultType : FaultType.values()) {
+            this.injectedCounts.put(faultType, new LongAdder());
+        }
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link FaultInjectingCommunicable} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 装飾対象のAPIオブジェクト
+         */
+        private Communicable api;
+
+        /**
+         * 乱数のシード値
+         */
+        private long seed = ThreadLocalRandom.current().nextLong();
+
+        /**
+         * HTTPステータスの障害
+         */
+        private final List<StatusFault> statusFaults = new ArrayList<>();
+
+        /**
+         * 接続の失敗を注入する確率
+         */
+        private double connectionErrorProbability;
+
+        /**
+         * 応答時間の急増を注入する確率
+         */
+        private double latencySpikeProbability;
+
+        /**
+         * 急増時の応答時間
+         */
+        private Duration latencySpike = Duration.ZERO;
+
+        /**
+         * レスポンスボディを切断する確率
+         */
+        private double truncatedBodyProbability;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 装飾対象のAPIオブジェクトを設定します。
+         *
+         * @param api APIオブジェクト
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull Communicable api) {
+            this.api = api;
+            return this;
+        }
+
+        /**
+         * 障害の判定に使用する乱数のシード値を設定します。このメソッドを呼び出さない場合はインスタンスごとに異なるシード値が使用されます。
+         *
+         * @param seed 乱数のシード値
+         * @return 自分自身のインスタンス
+         */
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code httpStatus} を返却する障害を追加します。
+         *
+         * @param httpStatus  返却するHTTPステータス
+         * @param probability 障害を注入する確率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 確率として {@code 0} から {@code 1} の範囲外の値が渡された場合
+         */
+        public Builder withStatusFault(@NonNull HttpStatus httpStatus, double probability) {
+            this.statusFaults.add(new StatusFault(httpStatus, requireProbability(probability)));
+            return this;
+        }
+
+        /**
+         * 接続の失敗を注入する確率を設定します。
+         *
+         * @param probability 障害を注入する確率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 確率として {@code 0} から {@code 1} の範囲外の値が渡された場合
+         */
+        public Builder withConnectionError(double probability) {
+            this.connectionErrorProbability = requireProbability(probability);
+            return this;
+        }
+
+        /**
+         * 応答時間の急増を注入する確率と急増時に追加する待機時間を設定します。
+         *
+         * @param probability 障害を注入する確率
+         * @param latency     追加する待機時間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 確率として {@code 0} から {@code 1}
+         *                                      の範囲外の値が渡された場合、または負の待機時間が渡された場合
+         */
+        public Builder withLatencySpike(double probability, @NonNull Duration latency) {
+
+            if (latency.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.latencySpikeProbability = requireProbability(probability);
+            this.latencySpike = latency;
+            return this;
+        }
+
+        /**
+         * レスポンスボディを途中で切断する確率を設定します。
+         *
+         * @param probability 障害を注入する確率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 確率として {@code 0} から {@code 1} の範囲外の値が渡された場合
+         */
+        public Builder withTruncatedBody(double probability) {
+            this.truncatedBodyProbability = requireProbability(probability);
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link FaultInjectingCommunicable} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link FaultInjectingCommunicable} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(Communicable)}
+         *                                      メソッドが呼び出されていない場合、またはHTTPステータスと接続の失敗の確率の合計が
+         *                                      {@code 1} を超える場合
+         */
+        public FaultInjectingCommunicable build() {
+
+            if (this.api == null) {
+                throw new InvalidContextStateException();
+            }
+
+            double total = this.connectionErrorProbability;
+
+            for (StatusFault statusFault : this.statusFaults) {
+                total += statusFault.probability;
+            }
+
+            if (total > 1.0) {
+                throw new InvalidContextStateException();
+            }
+
+            final FaultInjectingCommunicable communicable = new FaultInjectingCommunicable();
+            communicable.api = this.api;
+            communicable.seed = this.seed;
+            communicable.statusFaults = Collections.unmodifiableList(new ArrayList<>(this.statusFaults));
+            communicable.connectionErrorProbability = this.connectionErrorProbability;
+            communicable.latencySpikeProbability = this.latencySpikeProbability;
+            communicable.latencySpike = this.latencySpike;
+            communicable.truncatedBodyProbability = this.truncatedBodyProbability;
+
+            return communicable;
+        }
+
+        /**
+         * 引数として渡された {@code probability} が確率として有効な値か検査します。
+         *
+         * @param probability 確率
+         * @return 引数として渡された確率
+         *
+         * @throws InvalidContextStateException {@code 0} から {@code 1} の範囲外の値が渡された場合
+         */
+        private static double requireProbability(double probability) {
+
+            if (!(probability >= 0 && probability <= 1)) {
+                throw new InvalidContextStateException();
+            }
+
+            return probability;
+        }
+    }
+
+    @Override
+    public HttpResponse<String> send() {
+        return this.send(RequestOptions.empty());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @exception UncheckedIOException 接続の失敗を注入した場合
+     */
+    @Override
+    public HttpResponse<String> send(@NonNull RequestOptions options) {
+
+        this.requestCount.increment();
+
+        final SplittableRandom random = new SplittableRandom(
+                this.seed + this.sequence.getAndIncrement() * GOLDEN_GAMMA);
+
+        if (random.nextDouble() < this.latencySpikeProbability) {
+            this.injectedCounts.get(FaultType.LATENCY_SPIKE).increment();
+            this.sleep();
+        }
+
+        double draw = random.nextDouble();
+
+        if (draw < this.connectionErrorProbability) {
+            this.injectedCounts.get(FaultType.CONNECTION_ERROR).increment();
+            throw new UncheckedIOException(new ConnectException("Injected connection failure"));
+        }
+
+        draw -= this.connectionErrorProbability;
+
+        for (StatusFault statusFault : this.statusFaults) {
+            if (draw < statusFault.probability) {
+                this.injectedCounts.get(FaultType.HTTP_STATUS).increment();
+                return BufferedHttpResponse.<String>builder().withStatusCode(statusFault.httpStatus.getTag())
+                        .withBody("").build();
+            }
+
+            draw -= statusFault.probability;
+        }
+
+        final boolean truncate = random.nextDouble() < this.truncatedBodyProbability;
+        final HttpResponse<String> response = this.api.send(options);
+
+        if (!truncate || response.body() == null || response.body().isEmpty()) {
+            return response;
+        }
+
+        this.injectedCounts.get(FaultType.TRUNCATED_BODY).increment();
+
+        return BufferedHttpResponse.<String>builder().withStatusCode(response.statusCode())
+                .withHeaders(response.headers()).withBody(response.body().substring(0,
+                        random.nextInt(response.body().length())))
+                .withRequest(response.request()).withUri(response.uri()).withVersion(response.version()).build();
+    }
+
+    /**
+     * 呼び出し数を返却します。
+     *
+     * @return 呼び出し数
+     */
+    public long getRequestCount() {
+        return this.requestCount.sum();
+    }
+
+    /**
+     * 引数として渡された {@code faultType} の障害を注入した回数を返却します。
+     *
+     * @param faultType 障害の種類
+     * @return 障害を注入した回数
+     */
+    public long getInjectedCount(@NonNull FaultType faultType) {
+        return this.injectedCounts.get(faultType).sum();
+    }
+
+    @Override
+    public String createQuery(@NonNull RequestParameter requestParameter) {
+        return this.api.createQuery(requestParameter);
+    }
+
+    @Override
+    public Resource getResource() {
+        return this.api.getResource();
+    }
+
+    @Override
+    public RequestParameter getRequestParameter() {
+        return this.api.getRequestParameter();
+    }
+
+    @Override
+    public String getRequestKey() {
+        return this.api.getRequestKey();
+    }
+
+    /**
+     * 急増時の応答時間だけスレッドをスリープさせます。待機中に割り込みが発生した場合は割り込み状態を復元します。
+     */
+    private void sleep() {
+        try {
+            Thread.sleep(this.latencySpike.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * HTTPステータスの障害を表すクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class StatusFault {
+
+        /**
+         * 返却するHTTPステータス
+         */
+        private final HttpStatus httpStatus;
+
+        /**
+         * 障害を注入する確率
+         */
+        private final double probability;
+
+        /**
+         * コンストラクタ
+         *
+         * @param httpStatus  返却するHTTPステータス
+         * @param probability 障害を注入する確率
+         */
+        StatusFault(@NonNull HttpStatus httpStatus, double probability) {
+            this.httpStatus = httpStatus;
+            this.probability = probability;
+        }
+    }
+}
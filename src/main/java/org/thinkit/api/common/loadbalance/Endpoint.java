@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.loadbalance;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link EndpointGroup} に属する接続先の1つを表すクラスです。
+ * <p>
+ * 接続先ごとに処理中のリクエストの数と連続して失敗したリクエストの数を保持し、失敗が続いた接続先は一定期間選択の対象から除外されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class Endpoint {
+
+    /**
+     * 接続先のベースURI
+     */
+    @Getter
+    @ToString.Include
+    private final URI baseUri;
+
+    /**
+     * 処理中のリクエストの数
+     */
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+
+    /**
+     * 連続して失敗したリクエストの数
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 選択の対象から除外する期限（{@link System#nanoTime()} の値）
+     */
+    private volatile long ejectedUntil;
+
+    /**
+     * 除外されているか否か
+     */
+    private volatile boolean ejected;
+
+    /**
+     * コンストラクタ
+     *
+     * @param baseUri 接続先のベースURI
+     */
+    Endpoint(@NonNull URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * 処理中のリクエストの数を返却します。
+     *
+     * @return 処理中のリクエストの数
+     */
+    public int getOutstandingRequests() {
+        return this.outstandingRequests.get();
+    }
+
+    /**
+     * 連続して失敗したリクエストの数を返却します。
+     *
+     * @return 連続して失敗したリクエストの数
+     */
+    public int getConsecutiveFailures() {
+        return this.consecutiveFailures.get();
+    }
+
+    /**
+     * 接続先が選択の対象となる状態か判定します。
+     *
+     * @return 接続先が選択の対象となる場合は {@code true} 、除外されている場合は {@code false}
+     */
+    public boolean isHealthy() {
+        return !this.ejected || System.nanoTime() - this.ejectedUntil >= 0;
+    }
+
+    /**
+     * リクエストの開始を記録します。
+     */
+    void onStart() {
+        this.outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * リクエストの終了を記録します。連続して失敗したリクエストの数がしきい値に達した場合は接続先を一定期間除外します。
+     *
+     * @param failed           リクエストが失敗したか否か
+     * @param failureThreshold 接続先を除外する連続失敗数のしきい値
+     * @param ejectionDuration 接続先を除外する期間（ナノ秒）
+     */
+    void onComplete(boolean failed, int failureThreshold, long ejectionDuration) {
+
+        this.outstandingRequests.decrementAndGet();
+
+        if (!failed) {
+            this.consecutiveFailures.set(0);
+            this.ejected = false;
+            return;
+        }
+
+        if (this.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            this.consecutiveFailures.set(0);
+            this.ejectedUntil = System.nanoTime() + ejectionDuration;
+            this.ejected = true;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.loadbalance;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.catalog.LoadBalancingStrategy;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * 同一のAPIを提供する複数の接続先をまとめ、リクエストごとに接続先を選択するクラスです。
+ * <p>
+ * 接続先は {@link LoadBalancingStrategy} に従い選択されます。レスポンスを受信できなかった場合、または
+ * {@link HttpStatus#REQUEST_TIMEOUT} 、 {@link HttpStatus#INTERNAL_SERVER_ERROR} 、
+ * {@link HttpStatus#BAD_GATEWAY} 、 {@link HttpStatus#SERVICE_UNAVAILABLE} 、
+ * {@link HttpStatus#GATEWAY_TIMEOUT} を受信した場合はリクエストの失敗として記録し、失敗が連続した接続先は一定期間選択の対象から除外されます。
+ * <p>
+ * {@link org.thinkit.api.common.ApiContext} に設定した場合、リトライ時には同一の呼び出しで試行済みの接続先を避けて別の接続先が選択されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * EndpointGroup group = EndpointGroup.builder().withEndpoint(URI.create("https://replica1.example.com"))
+ *         .withEndpoint(URI.create("https://replica2.example.com"))
+ *         .withStrategy(LoadBalancingStrategy.POWER_OF_TWO_CHOICES).build();
+ * ApiContext context = ApiContext.builder().of(api).withRetry().withEndpointGroup(group).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class EndpointGroup {
+
+    /**
+     * リクエストの失敗とみなすHTTPステータス
+     */
+    private static final Set<HttpStatus> FAILURE_STATUSES = EnumSet.of(HttpStatus.REQUEST_TIMEOUT,
+            HttpStatus.INTERNAL_SERVER_ERROR, HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE,
+            HttpStatus.GATEWAY_TIMEOUT);
+
+    /**
+     * 接続先
+     */
+    @Getter
+    private List<Endpoint> endpoints;
+
+    /**
+     * 接続先の選択方式
+     */
+    @Getter
+    private LoadBalancingStrategy strategy;
+
+    /**
+     * 接続先を除外する連続失敗数のしきい値
+     */
+    private int failureThreshold;
+
+    /**
+     * 接続先を除外する期間（ナノ秒）
+     */
+    private long ejectionDuration;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private EndpointGroup() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link EndpointGroup} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続先のベースURI
+         */
+        private final List<URI> baseUris = new ArrayList<>();
+
+        /**
+         * 接続先の選択方式
+         */
+        private LoadBalancingStrategy strategy = LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS;
+
+        /**
+         * 接続先を除外する連続失敗数のしきい値
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 接続先を除外する期間
+         */
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続先のベースURIを追加します。
+         *
+         * @param baseUri 接続先のベースURI
+         * @return 自分自身のインスタンス
+         */
+        public Builder withEndpoint(@NonNull URI baseUri) {
+            this.baseUris.add(baseUri);
+            return this;
+        }
+
+        /**
+         * 接続先の選択方式を設定します。選択方式は初期設定として
+         * {@link LoadBalancingStrategy#LEAST_OUTSTANDING_REQUESTS} が設定されています。
+         *
+         * @param strategy 接続先の選択方式
+         * @return 自分自身のインスタンス
+         */
+        public Builder withStrategy(@NonNull LoadBalancingStrategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * 接続先を除外する連続失敗数のしきい値を設定します。しきい値は初期設定として {@code 5} が設定されています。
+         *
+         * @param failureThreshold 接続先を除外する連続失敗数のしきい値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withFailureThreshold(int failureThreshold) {
+
+            if (failureThreshold <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * 連続して失敗した接続先を選択の対象から除外する期間を設定します。期間は初期設定として30秒が設定されています。
+         *
+         * @param ejectionDuration 接続先を除外する期間
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withEjectionDuration(@NonNull Duration ejectionDuration) {
+
+            if (ejectionDuration.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.ejectionDuration = ejectionDuration;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link EndpointGroup} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link EndpointGroup} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException 接続先が追加されていない場合
+         */
+        public EndpointGroup build() {
+
+            if (this.baseUris.isEmpty()) {
+                throw new InvalidContextStateException();
+            }
+
+            final List<Endpoint> endpoints = new ArrayList<>(this.baseUris.size());
+            this.baseUris.forEach(baseUri -> endpoints.add(new Endpoint(baseUri)));
+
+            final EndpointGroup group = new EndpointGroup();
+            group.endpoints = Collections.unmodifiableList(endpoints);
+            group.strategy = this.strategy;
+            group.failureThreshold = this.failureThreshold;
+            group.ejectionDuration = this.ejectionDuration.toNanos();
+
+            return group;
+        }
+    }
+
+    /**
+     * 接続先を選択します。
+     * <p>
+     * 除外されていない接続先のうち {@code excluded} に含まれない接続先から選択します。該当する接続先が存在しない場合は
+     * {@code excluded} に含まれる接続先も対象とし、全ての接続先が除外されている場合は除外状態に関わらず全ての接続先を対象とします。
+     *
+     * @param excluded 可能な限り選択を避ける接続先
+     * @return 選択された接続先
+     */
+    public Endpoint select(@NonNull Collection<Endpoint> excluded) {
+
+        List<Endpoint> candidates = this.filter(true, excluded);
+
+        if (candidates.isEmpty()) {
+            candidates = this.filter(true, Collections.emptyList());
+        }
+
+        if (candidates.isEmpty()) {
+            candidates = this.filter(false, excluded);
+        }
+
+        if (candidates.isEmpty()) {
+            candidates = this.endpoints;
+        }
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (this.strategy == LoadBalancingStrategy.POWER_OF_TWO_CHOICES) {
+            final int first = random.nextInt(candidates.size());
+            final int second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+            final Endpoint a = candidates.get(first);
+            final Endpoint b = candidates.get(second);
+
+            return a.getOutstandingRequests() <= b.getOutstandingRequests() ? a : b;
+        }
+
+        final int offset = random.nextInt(candidates.size());
+        Endpoint selected = null;
+
+        for (int i = 0, size = candidates.size(); i < size; i++) {
+            final Endpoint candidate = candidates.get((offset + i) % size);
+
+            if (selected == null || candidate.getOutstandingRequests() < selected.getOutstandingRequests()) {
+                selected = candidate;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * 引数として渡された {@code endpoint} に対するリクエストの開始を記録します。
+     *
+     * @param endpoint 接続先
+     */
+    public void onStart(@NonNull Endpoint endpoint) {
+        endpoint.onStart();
+    }
+
+    /**
+     * 引数として渡された {@code endpoint} に対するリクエストの終了を記録します。
+     *
+     * @param endpoint   接続先
+     * @param httpStatus 受信したHTTPステータス。レスポンスを受信できなかった場合は {@code null}
+     */
+    public void onComplete(@NonNull Endpoint endpoint, HttpStatus httpStatus) {
+        endpoint.onComplete(httpStatus == null || FAILURE_STATUSES.contains(httpStatus), this.failureThreshold,
+                this.ejectionDuration);
+    }
+
+    /**
+     * 条件に一致する接続先を返却します。
+     *
+     * @param healthyOnly 除外されていない接続先のみを対象とするか否か
+     * @param excluded    対象としない接続先
+     * @return 条件に一致する接続先
+     */
+    private List<Endpoint> filter(boolean healthyOnly, @NonNull Collection<Endpoint> excluded) {
+
+        final List<Endpoint> candidates = new ArrayList<>(this.endpoints.size());
+
+        for (Endpoint endpoint : this.endpoints) {
+            if ((!healthyOnly || endpoint.isHealthy()) && !excluded.contains(endpoint)) {
+                candidates.add(endpoint);
+            }
+        }
+
+        return candidates;
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.QueryTemplate;
+import org.thinkit.api.common.catalog.ContentType;
+import org.thinkit.api.common.entity.RequestParameter;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * {@code multipart/form-data} 形式のリクエストボディを生成する {@link BodyPublisher} です。
+ * <p>
+ * ファイルのパートはリクエストの送信時に {@link FileChannel} から一定サイズのチャンク単位で読み込まれ、
+ * 送信先からの要求に応じて逐次的に送信されるため、ファイルサイズに関わらず使用するメモリ量は一定に保たれます。
+ * {@link org.thinkit.api.common.annotation.ParameterMapping} が付与されたリクエストパラメータのフィールドは
+ * {@link Builder#withParameter(RequestParameter)} メソッドでフォームのパートとして追加することができます。
+ * <p>
+ * リクエストボディは購読されるたびにディスクから読み直されるため、同一のインスタンスを使用したリクエストを
+ * {@link org.thinkit.api.common.ApiContext} のリトライ処理で再送信することができます。リクエストの {@code Content-Type}
+ * ヘッダーには {@link #getContentType()} メソッドの戻り値を設定してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * MultipartBodyPublisher body = MultipartBodyPublisher.builder().withParameter(parameter)
+ *         .withFile("document", Path.of("report.pdf"), ContentType.PDF).build();
+ * HttpRequest request = HttpRequest.newBuilder(uri).header("Content-Type", body.getContentType()).POST(body).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class MultipartBodyPublisher implements BodyPublisher {
+
+    /**
+     * 改行文字
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * 境界文字列
+     */
+    @Getter
+    private String boundary;
+
+    /**
+     * リクエストボディを構成するセグメント
+     */
+    private List<Segment> segments;
+
+    /**
+     * ファイルを読み込むチャンクのサイズ
+     */
+    private int chunkSize;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private MultipartBodyPublisher() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link MultipartBodyPublisher} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 境界文字列
+         */
+        private String boundary = UUID.randomUUID().toString();
+
+        /**
+         * 追加された順のパート
+         */
+        private final List<Part> parts = new ArrayList<>();
+
+        /**
+         * ファイルを読み込むチャンクのサイズ
+         */
+        private int chunkSize = 65536;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 境界文字列を設定します。境界文字列は初期設定として無作為に生成された値が設定されています。
+         *
+         * @param boundary 境界文字列
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 境界文字列が {@code 1} 文字以上 {@code 70} 文字以下ではない場合
+         */
+        public Builder withBoundary(@NonNull String boundary) {
+
+            if (boundary.isEmpty() || boundary.length() > 70) {
+                throw new InvalidContextStateException();
+            }
+
+            this.boundary = boundary;
+            return this;
+        }
+
+        /**
+         * 引数として渡された {@code requestParameter} のパラメータをフォームのパートとして追加します。値が空のパラメータは無視されます。
+         *
+         * @param requestParameter リクエストパラメータ
+         * @return 自分自身のインスタンス
+         */
+        public Builder withParameter(@NonNull RequestParameter requestParameter) {
+            QueryTemplate.of(requestParameter.getClass()).toMap(requestParameter).forEach(this::withField);
+            return this;
+        }
+
+        /**
+         * フォームのパートを追加します。
+         *
+         * @param name  パートの名前
+         * @param value パートの値
+         * @return 自分自身のインスタンス
+         */
+        public Builder withField(@NonNull String name, @NonNull String value) {
+            this.parts.add(new Part(name, null, null, value, null));
+            return this;
+        }
+
+        /**
+         * ファイルのパートを追加します。ファイル名には {@code path} のファイル名が使用されます。
+         *
+         * @param name        パートの名前
+         * @param path        送信するファイル
+         * @param contentType ファイルのContent-Type
+         * @return 自分自身のインスタンス
+         */
+        public Builder withFile(@NonNull String name, @NonNull Path path, @NonNull ContentType contentType) {
+            return this.withFile(name, path, contentType, path.getFileName().toString());
+        }
+
+        /**
+         * ファイルのパートを追加します。
+         *
+         * @param name        パートの名前
+         * @param path        送信するファイル
+         * @param contentType ファイルのContent-Type
+         * @param fileName    送信先へ通知するファイル名
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code path} が読み込み可能なファイルではない場合
+         */
+        public Builder withFile(@NonNull String name, @NonNull Path path, @NonNull ContentType contentType,
+                @NonNull String fileName) {
+
+            if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+                throw new InvalidContextStateException();
+            }
+
+            this.parts.add(new Part(name, fileName, contentType.getTag(), null, path));
+            return this;
+        }
+
+        /**
+         * ファイルを読み込むチャンクのサイズを設定します。チャンクのサイズは初期設定として {@code 65536} バイトが設定されています。
+         *
+         * @param chunkSize チャンクのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withChunkSize(int chunkSize) {
+
+            if (chunkSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link MultipartBodyPublisher} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link MultipartBodyPublisher} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException パートが追加されていない場合
+         */
+        public MultipartBodyPublisher build() {
+
+            if (this.parts.isEmpty()) {
+                throw new InvalidContextStateException();
+            }
+
+            final List<Segment> segments = new ArrayList<>();
+            final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+            for (Part part : this.parts) {
+                final StringBuilder header = new StringBuilder().append("--").append(this.boundary).append(CRLF)
+                        .append("Content-Disposition: form-data; name=\"").append(escape(part.name)).append('"');
+
+                if (part.fileName != null) {
+                    header.append("; filename=\"").append(escape(part.fileName)).append('"');
+                }
+
+                if (part.contentType != null) {
+                    header.append(CRLF).append("Content-Type: ").append(part.contentType);
+                }
+
+                header.append(CRLF).append(CRLF);
+                pending.writeBytes(header.toString().getBytes(StandardCharsets.UTF_8));
+
+                if (part.path == null) {
+                    pending.writeBytes(part.value.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    segments.add(new Segment(pending.toByteArray(), null));
+                    segments.add(new Segment(null, part.path));
+                    pending.reset();
+                }
+
+                pending.writeBytes(CRLF.getBytes(StandardCharsets.UTF_8));
+            }
+
+            pending.writeBytes(("--" + this.boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8));
+            segments.add(new Segment(pending.toByteArray(), null));
+
+            final MultipartBodyPublisher publisher = new MultipartBodyPublisher();
+            publisher.boundary = this.boundary;
+            publisher.segments = Collections.unmodifiableList(segments);
+            publisher.chunkSize = this.chunkSize;
+
+            return publisher;
+        }
+
+        /**
+         * パートのヘッダーに含めることができない文字をエスケープします。
+         *
+         * @param value エスケープする値
+         * @return エスケープされた値
+         */
+        private static String escape(@NonNull String value) {
+            return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+        }
+    }
+
+    /**
+     * リクエストの {@code Content-Type} ヘッダーに設定する値を返却します。
+     *
+     * @return 境界文字列を含む {@code multipart/form-data} 形式のContent-Type
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + this.boundary;
+    }
+
+    /**
+     * リクエストボディのバイト数を返却します。ファイルのサイズは呼び出し時点の値が使用されます。
+     *
+     * @return リクエストボディのバイト数。ファイルのサイズを取得できなかった場合は {@code -1}
+     */
+    @Override
+    public long contentLength() {
+
+        long contentLength = 0;
+
+        for (Segment segment : this.segments) {
+            if (segment.bytes != null) {
+                contentLength += segment.bytes.length;
+                continue;
+            }
+
+            try {
+                contentLength += Files.size(segment.path);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        return contentLength;
+    }
+
+    @Override
+    public void subscribe(@NonNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new MultipartSubscription(subscriber));
+    }
+
+    /**
+     * リクエストボディを要求に応じて逐次的に発行するサブスクリプションです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private final class MultipartSubscription implements Flow.Subscription {
+
+        /**
+         * 発行先のサブスクライバー
+         */
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        /**
+         * 未処理の要求数
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * 発行処理の実行要求数
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /**
+         * 発行中のセグメントのインデックス
+         */
+        private int index;
+
+        /**
+         * 読み込み中のファイル
+         */
+        private FileChannel channel;
+
+        /**
+         * 購読が終了したか否か
+         */
+        private volatile boolean done;
+
+        /**
+         * 発行処理からサブスクライバーへ通知するエラー
+         */
+        private volatile Throwable error;
+
+        /**
+         * コンストラクタ
+         *
+         * @param subscriber 発行先のサブスクライバー
+         */
+        MultipartSubscription(@NonNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                this.fail(new IllegalArgumentException(String.format("Non-positive subscription request: %d", n)));
+                this.drain();
+                return;
+            }
+
+            this.demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.done = true;
+            this.drain();
+        }
+
+        /**
+         * 要求数の範囲でリクエストボディを発行します。このメソッドが再帰的に呼び出された場合は実行中の発行処理で要求を処理します。
+         */
+        private void drain() {
+
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+                try {
+                    while (!this.done && this.error == null && this.demand.get() > 0) {
+                        final ByteBuffer buffer = this.next();
+
+                        if (buffer == null) {
+                            this.done = true;
+                            this.subscriber.onComplete();
+                            break;
+                        }
+
+                        this.demand.decrementAndGet();
+                        this.subscriber.onNext(buffer);
+                    }
+                } catch (IOException e) {
+                    this.fail(new UncheckedIOException(e));
+                }
+
+                final Throwable throwable = this.error;
+
+                if (throwable != null && !this.done) {
+                    this.done = true;
+                    this.subscriber.onError(throwable);
+                }
+
+                if (this.done) {
+                    this.closeChannel();
+                }
+
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * 次に発行するバッファを返却します。
+         *
+         * @return 次に発行するバッファ。全てのセグメントを発行した場合は {@code null}
+         *
+         * @throws IOException ファイルの読み込みに失敗した場合
+         */
+        private ByteBuffer next() throws IOException {
+
+            while (this.index < segments.size()) {
+                final Segment segment = segments.get(this.index);
+
+                if (segment.bytes != null) {
+                    this.index++;
+                    return ByteBuffer.wrap(segment.bytes);
+                }
+
+                if (this.channel == null) {
+                    this.channel = FileChannel.open(segment.path, StandardOpenOption.READ);
+                }
+
+                final ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+
+                if (this.channel.read(buffer) >= 0) {
+                    return buffer.flip();
+                }
+
+                this.closeChannel();
+                this.index++;
+            }
+
+            return null;
+        }
+
+        /**
+         * 発生したエラーを記録します。記録したエラーは発行処理からサブスクライバーへ通知されます。既にエラーを記録している場合は最初のエラーを優先します。
+         *
+         * @param throwable 発生したエラー
+         */
+        private void fail(@NonNull Throwable throwable) {
+
+            if (this.error == null) {
+                this.error = throwable;
+            }
+        }
+
+        /**
+         * 読み込み中のファイルを閉じます。
+         */
+        private void closeChannel() {
+
+            if (this.channel == null) {
+                return;
+            }
+
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // 読み込みは完了しているため例外を無視する
+            } finally {
+                this.channel = null;
+            }
+        }
+    }
+
+    /**
+     * ビルダーに追加されたパートを表すクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Part {
+
+        /**
+         * パートの名前
+         */
+        private final String name;
+
+        /**
+         * ファイル名
+         */
+        private final String fileName;
+
+        /**
+         * Content-Type
+         */
+        private final String contentType;
+
+        /**
+         * フォームの値
+         */
+        private final String value;
+
+        /**
+         * ファイル
+         */
+        private final Path path;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name        パートの名前
+         * @param fileName    ファイル名
+         * @param contentType Content-Type
+         * @param value       フォームの値
+         * @param path        ファイル
+         */
+        Part(String name, String fileName, String contentType, String value, Path path) {
+            this.name = name;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.value = value;
+            this.path = path;
+        }
+    }
+
+    /**
+     * リクエストボディを構成するバイト列、またはファイルを表すクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Segment {
+
+        /**
+         * バイト列。ファイルの場合は {@code null}
+         */
+        private final byte[] bytes;
+
+        /**
+         * ファイル。バイト列の場合は {@code null}
+         */
+        private final Path path;
+
+        /**
+         * コンストラクタ
+         *
+         * @param bytes バイト列
+         * @param path  ファイル
+         */
+        Segment(byte[] bytes, Path path) {
+            this.bytes = bytes;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import lombok.NonNull;
+
+/**
+ * 固定サイズのダイレクトバッファを再利用するプールです。
+ * <p>
+ * このクラスはイベントループのスレッドからのみ使用されるため排他制御を行いません。保持するバッファ数の上限を超えて返却されたバッファは破棄されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class BufferPool {
+
+    /**
+     * バッファのサイズ
+     */
+    private final int bufferSize;
+
+    /**
+     * 保持するバッファ数の上限
+     */
+    private final int maxPooled;
+
+    /**
+     * 再利用可能なバッファ
+     */
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+
+    /**
+     * 生成したバッファの数
+     */
+    private volatile int allocatedCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param bufferSize バッファのサイズ
+     * @param maxPooled  保持するバッファ数の上限
+     */
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * 再利用可能なバッファを返却します。再利用可能なバッファが存在しない場合は新しいバッファを生成します。
+     *
+     * @return 書き込み可能な状態のバッファ
+     */
+    ByteBuffer acquire() {
+
+        final ByteBuffer buffer = this.buffers.pollFirst();
+
+        if (buffer != null) {
+            return buffer;
+        }
+
+        this.allocatedCount++;
+        return ByteBuffer.allocateDirect(this.bufferSize);
+    }
+
+    /**
+     * 使用を終えたバッファをプールへ返却します。
+     *
+     * @param buffer 使用を終えたバッファ
+     */
+    void release(@NonNull ByteBuffer buffer) {
+        if (this.buffers.size() < this.maxPooled) {
+            this.buffers.addFirst(buffer.clear());
+        }
+    }
+
+    /**
+     * 生成したバッファの数を返却します。
+     *
+     * @return 生成したバッファの数
+     */
+    int getAllocatedCount() {
+        return this.allocatedCount;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.NonNull;
+
+/**
+ * 送信待ちのリクエストと、レスポンスを受け取る {@link CompletableFuture} の組を表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class Exchange {
+
+    /**
+     * リクエスト
+     */
+    final NioRequest request;
+
+    /**
+     * HTTP/1.1形式に変換したリクエスト
+     */
+    final byte[] encoded;
+
+    /**
+     * タイムアウトする時刻（{@link System#nanoTime()} 基準）。タイムアウトしない場合は {@link Long#MAX_VALUE}
+     */
+    final long deadline;
+
+    /**
+     * レスポンスを受け取る {@link CompletableFuture}
+     */
+    final CompletableFuture<HttpResponse<String>> future = new CompletableFuture<>();
+
+    /**
+     * 切断により再送したか否か
+     */
+    boolean retried;
+
+    /**
+     * コンストラクタ
+     *
+     * @param request  リクエスト
+     * @param encoded  HTTP/1.1形式に変換したリクエスト
+     * @param deadline タイムアウトする時刻
+     */
+    Exchange(@NonNull NioRequest request, @NonNull byte[] encoded, long deadline) {
+        this.request = request;
+        this.encoded = encoded;
+        this.deadline = deadline;
+    }
+
+    /**
+     * 引数として渡された時刻の時点でタイムアウトしているか判定します。
+     *
+     * @param now 現在の時刻（{@link System#nanoTime()} 基準）
+     * @return タイムアウトしている場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isExpired(long now) {
+        return this.deadline != Long.MAX_VALUE && now - this.deadline >= 0;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import lombok.NonNull;
+
+/**
+ * 接続先のホストごとの接続と、接続の割り当てを待機しているリクエストを保持するクラスです。
+ * <p>
+ * このクラスはイベントループのスレッドからのみ使用されるため排他制御を行いません。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class HostPool {
+
+    /**
+     * 接続先のアドレス
+     */
+    final InetSocketAddress address;
+
+    /**
+     * 確立済み、または接続中の接続
+     */
+    final List<NioConnection> connections = new ArrayList<>();
+
+    /**
+     * 接続の割り当てを待機しているリクエスト
+     */
+    final Deque<Exchange> pending = new ArrayDeque<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param address 接続先のアドレス
+     */
+    HostPool(@NonNull InetSocketAddress address) {
+        this.address = address;
+    }
+}
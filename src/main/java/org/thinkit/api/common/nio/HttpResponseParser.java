@@ -0,0 +1,518 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.NonNull;
+
+/**
+ * 受信したバイト列からHTTP/1.1のレスポンスを逐次的に解析するクラスです。
+ * <p>
+ * 受信データは {@link ByteBuffer} から直接読み込まれ、行とボディの一時領域は接続ごとに再利用されるため、
+ * レスポンスごとに生成されるオブジェクトはヘッダーとボディの文字列のみです。ボディは {@code Content-Length}
+ * 、チャンク形式、または接続の切断までの3つの形式に対応しています。 {@code 1xx} の中間レスポンスは読み飛ばします。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class HttpResponseParser {
+
+    /**
+     * 1行の最大バイト数
+     */
+    private static final int MAX_LINE_LENGTH = 65536;
+
+    /**
+     * 再利用するボディの一時領域の最大バイト数
+     */
+    private static final int MAX_RETAINED_BODY = 1 << 20;
+
+    /**
+     * 解析の状態です。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private enum State {
+        STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, UNTIL_CLOSE, COMPLETE
+    }
+
+    /**
+     * 解析の状態
+     */
+    private State state = State.STATUS_LINE;
+
+    /**
+     * 行の一時領域
+     */
+    private byte[] line = new byte[256];
+
+    /**
+     * 行の一時領域に読み込んだバイト数
+     */
+    private int lineLength;
+
+    /**
+     * ボディの一時領域
+     */
+    private byte[] body = new byte[1024];
+
+    /**
+     * ボディの一時領域に読み込んだバイト数
+     */
+    private int bodyLength;
+
+    /**
+     * ボディ、またはチャンクの残りのバイト数
+     */
+    private long remaining;
+
+    /**
+     * 現在のレスポンスのバイトを読み込んだか否か
+     */
+    private boolean started;
+
+    /**
+     * ステータスコード
+     */
+    private int statusCode;
+
+    /**
+     * レスポンスヘッダー
+     */
+    private Map<String, List<String>> headers;
+
+    /**
+     * ボディのバイト数。 {@code Content-Length} ヘッダーが存在しない場合は {@code -1}
+     */
+    private long contentLength;
+
+    /**
+     * チャンク形式か否か
+     */
+    private boolean chunked;
+
+    /**
+     * レスポンスの受信後も接続を維持するか否か
+     */
+    private boolean keepAlive;
+
+    /**
+     * コンストラクタ
+     */
+    HttpResponseParser() {
+        this.reset();
+    }
+
+    /**
+     * 次のレスポンスを解析するために状態を初期化します。
+     */
+    void reset() {
+        this.state = State.STATUS_LINE;
+        this.lineLength = 0;
+        this.bodyLength = 0;
+        this.started = false;
+        this.statusCode = 0;
+        this.headers = null;
+        this.contentLength = -1;
+        this.chunked = false;
+        this.keepAlive = true;
+
+        if (this.body.length > MAX_RETAINED_BODY) {
+            this.body = new byte[1024];
+        }
+    }
+
+    /**
+     * 引数として渡された {@code buffer} の読み込み可能なバイトを解析します。レスポンスの解析が完了した場合は、
+     * 後続のレスポンスのバイトを {@code buffer} に残したまま処理を終了します。
+     *
+     * @param buffer 受信したバイト列
+     * @return レスポンスの解析が完了した場合は {@code true} 、それ以外は {@code false}
+     *
+     * @throws IOException レスポンスの形式が不正な場合
+     */
+    boolean parse(@NonNull ByteBuffer buffer) throws IOException {
+
+        if (buffer.hasRemaining()) {
+            this.started = true;
+        }
+
+        while (buffer.hasRemaining() && this.state != State.COMPLETE) {
+            switch (this.state) {
+            case STATUS_LINE:
+                if (this.readLine(buffer)) {
+                    this.parseStatusLine();
+                }
+                break;
+            case HEADERS:
+                if (this.readLine(buffer)) {
+                    this.parseHeaderLine();
+                }
+                break;
+            case BODY:
+            case CHUNK_DATA:
+                this.readBody(buffer);
+                break;
+            case CHUNK_SIZE:
+                if (this.readLine(buffer)) {
+                    this.parseChunkSize();
+                }
+                break;
+            case CHUNK_END:
+                if (this.readLine(buffer)) {
+                    this.expectEmptyLine();
+                    this.state = State.CHUNK_SIZE;
+                }
+                break;
+            case TRAILERS:
+                if (this.readLine(buffer)) {
+                    this.state = this.lineLength == 0 ? State.COMPLETE : State.TRAILERS;
+                    this.lineLength = 0;
+                }
+                break;
+            case UNTIL_CLOSE:
+                this.remaining = buffer.remaining();
+                this.readBody(buffer);
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+        return this.state == State.COMPLETE;
+    }
+
+    /**
+     * 接続が切断された時点で解析を終了します。
+     *
+     * @return 切断までをボディとするレスポンスの解析が完了した場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean finish() {
+
+        if (this.state == State.UNTIL_CLOSE) {
+            this.state = State.COMPLETE;
+        }
+
+        return this.state == State.COMPLETE;
+    }
+
+    /**
+     * 現在のレスポンスのバイトを読み込んだか判定します。
+     *
+     * @return 読み込んだ場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * ステータスコードを返却します。
+     *
+     * @return ステータスコード
+     */
+    int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * レスポンスヘッダーを返却します。
+     *
+     * @return レスポンスヘッダー
+     */
+    Map<String, List<String>> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * レスポンスの受信後も接続を維持するか判定します。
+     *
+     * @return 接続を維持する場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean isKeepAlive() {
+        return this.keepAlive;
+    }
+
+    /**
+     * {@code Content-Type} ヘッダーの文字コードでボディを文字列へ変換し返却します。文字コードが指定されていない場合、
+     * または不正な場合は {@code UTF-8} を使用します。
+     *
+     * @return ボディの文字列
+     */
+    String getBody() {
+        return new String(this.body, 0, this.bodyLength, this.getCharset());
+    }
+
+    /**
+     * ステータス行を解析します。
+     *
+     * @throws IOException ステータス行の形式が不正な場合
+     */
+    private void parseStatusLine() throws IOException {
+
+        if (this.lineLength < 12 || this.line[0] != 'H' || this.line[4] != '/' || this.line[8] != ' ') {
+            throw new IOException("Malformed status line");
+        }
+
+        int statusCode = 0;
+
+        for (int i = 9; i < 12; i++) {
+            final int digit = this.line[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Malformed status code");
+            }
+
+            statusCode = statusCode * 10 + digit;
+        }
+
+        this.statusCode = statusCode;
+        this.keepAlive = this.line[5] == '1' && this.line[7] != '0';
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.lineLength = 0;
+        this.state = State.HEADERS;
+    }
+
+    /**
+     * ヘッダー行を解析します。空行の場合はボディの形式を決定します。
+     *
+     * @throws IOException ヘッダー行の形式が不正な場合
+     */
+    private void parseHeaderLine() throws IOException {
+
+        if (this.lineLength == 0) {
+            this.startBody();
+            return;
+        }
+
+        int colon = 0;
+
+        while (colon < this.lineLength && this.line[colon] != ':') {
+            colon++;
+        }
+
+        if (colon == 0 || colon == this.lineLength) {
+            throw new IOException("Malformed header line");
+        }
+
+        int start = colon + 1;
+        int end = this.lineLength;
+
+        while (start < end && (this.line[start] == ' ' || this.line[start] == '\t')) {
+            start++;
+        }
+
+        while (end > start && (this.line[end - 1] == ' ' || this.line[end - 1] == '\t')) {
+            end--;
+        }
+
+        final String name = new String(this.line, 0, colon, StandardCharsets.ISO_8859_1);
+        final String value = new String(this.line, start, end - start, StandardCharsets.ISO_8859_1);
+        this.headers.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+        this.lineLength = 0;
+
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            try {
+                this.contentLength = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed Content-Length", e);
+            }
+        } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+            this.chunked = value.toLowerCase().contains("chunked");
+        } else if ("Connection".equalsIgnoreCase(name)) {
+            if ("close".equalsIgnoreCase(value)) {
+                this.keepAlive = false;
+            } else if ("keep-alive".equalsIgnoreCase(value)) {
+                this.keepAlive = true;
+            }
+        }
+    }
+
+    /**
+     * ヘッダーの内容を基にボディの形式を決定します。
+     */
+    private void startBody() {
+
+        if (this.statusCode >= 100 && this.statusCode < 200) {
+            this.reset();
+            return;
+        }
+
+        if (this.statusCode == 204 || this.statusCode == 304) {
+            this.state = State.COMPLETE;
+        } else if (this.chunked) {
+            this.state = State.CHUNK_SIZE;
+        } else if (this.contentLength >= 0) {
+            this.remaining = this.contentLength;
+            this.state = this.contentLength == 0 ? State.COMPLETE : State.BODY;
+        } else {
+            this.keepAlive = false;
+            this.state = State.UNTIL_CLOSE;
+        }
+    }
+
+    /**
+     * チャンクのサイズを表す行を解析します。
+     *
+     * @throws IOException チャンクのサイズが不正な場合
+     */
+    private void parseChunkSize() throws IOException {
+
+        long size = 0;
+        int i = 0;
+
+        for (; i < this.lineLength && this.line[i] != ';'; i++) {
+            final int digit = Character.digit(this.line[i], 16);
+
+            if (digit < 0) {
+                break;
+            }
+
+            size = (size << 4) + digit;
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Chunk too large");
+            }
+        }
+
+        if (i == 0) {
+            throw new IOException("Malformed chunk size");
+        }
+
+        this.lineLength = 0;
+        this.remaining = size;
+        this.state = size == 0 ? State.TRAILERS : State.CHUNK_DATA;
+    }
+
+    /**
+     * 空行であることを確認します。
+     *
+     * @throws IOException 空行ではない場合
+     */
+    private void expectEmptyLine() throws IOException {
+
+        if (this.lineLength != 0) {
+            throw new IOException("Malformed chunk terminator");
+        }
+    }
+
+    /**
+     * 残りのバイト数を上限としてボディを読み込みます。
+     *
+     * @param buffer 受信したバイト列
+     *
+     * @throws IOException ボディが大きすぎる場合
+     */
+    private void readBody(@NonNull ByteBuffer buffer) throws IOException {
+
+        final int length = (int) Math.min(this.remaining, buffer.remaining());
+
+        if ((long) this.bodyLength + length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Response body too large");
+        }
+
+        if (this.bodyLength + length > this.body.length) {
+            this.body = Arrays.copyOf(this.body, Math.max(this.bodyLength + length, this.body.length * 2));
+        }
+
+        buffer.get(this.body, this.bodyLength, length);
+        this.bodyLength += length;
+        this.remaining -= length;
+
+        if (this.remaining == 0) {
+            if (this.state == State.BODY) {
+                this.state = State.COMPLETE;
+            } else if (this.state == State.CHUNK_DATA) {
+                this.state = State.CHUNK_END;
+            }
+        }
+    }
+
+    /**
+     * 改行までのバイトを行の一時領域へ読み込みます。行末の {@code CR} は取り除かれます。
+     *
+     * @param buffer 受信したバイト列
+     * @return 改行まで読み込んだ場合は {@code true} 、それ以外は {@code false}
+     *
+     * @throws IOException 行が長すぎる場合
+     */
+    private boolean readLine(@NonNull ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            final byte b = buffer.get();
+
+            if (b == '\n') {
+                if (this.lineLength > 0 && this.line[this.lineLength - 1] == '\r') {
+                    this.lineLength--;
+                }
+
+                return true;
+            }
+
+            if (this.lineLength == this.line.length) {
+                if (this.line.length >= MAX_LINE_LENGTH) {
+                    throw new IOException("Line too long");
+                }
+
+                this.line = Arrays.copyOf(this.line, this.line.length * 2);
+            }
+
+            this.line[this.lineLength++] = b;
+        }
+
+        return false;
+    }
+
+    /**
+     * {@code Content-Type} ヘッダーから文字コードを取得します。
+     *
+     * @return 文字コード。指定されていない場合、または不正な場合は {@code UTF-8}
+     */
+    private Charset getCharset() {
+
+        final List<String> contentTypes = this.headers != null ? this.headers.get("Content-Type") : null;
+
+        if (contentTypes == null || contentTypes.isEmpty()) {
+            return StandardCharsets.UTF_8;
+        }
+
+        final String contentType = contentTypes.get(0);
+        final int index = contentType.toLowerCase().indexOf("charset=");
+
+        if (index < 0) {
+            return StandardCharsets.UTF_8;
+        }
+
+        final String charset = contentType.substring(index + 8).split(";", 2)[0].trim().replace("\"", "");
+
+        try {
+            return Charset.forName(charset);
+        } catch (RuntimeException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardSocketOptions;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+import lombok.NonNull;
+
+/**
+ * 1つの非ブロッキングな {@link SocketChannel} 上でHTTP/1.1のリクエストを送信し、レスポンスを受信するクラスです。
+ * <p>
+ * 割り当てられたリクエストは順番に送信用のバッファへ連結して書き込まれ、レスポンスは送信した順に対応付けられます。
+ * パイプライン化が有効な場合は、前のレスポンスの受信を待たずに後続のリクエストを送信します。このクラスはイベントループのスレッドからのみ使用されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class NioConnection {
+
+    /**
+     * イベントループ
+     */
+    private final NioEventLoop loop;
+
+    /**
+     * 接続先のホスト
+     */
+    final HostPool host;
+
+    /**
+     * ソケットチャネル
+     */
+    private final SocketChannel channel;
+
+    /**
+     * セレクションキー
+     */
+    private final SelectionKey key;
+
+    /**
+     * 受信用のバッファ
+     */
+    private final ByteBuffer readBuffer;
+
+    /**
+     * 送信用のバッファ
+     */
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * レスポンスの解析処理
+     */
+    private final HttpResponseParser parser = new HttpResponseParser();
+
+    /**
+     * 送信用のバッファへの書き込みが完了していないリクエスト
+     */
+    private final Deque<Exchange> unwritten = new ArrayDeque<>();
+
+    /**
+     * 送信用のバッファへの書き込みが完了し、レスポンスを待機しているリクエスト
+     */
+    private final Deque<Exchange> awaiting = new ArrayDeque<>();
+
+    /**
+     * 先頭の未書き込みのリクエストのうち送信用のバッファへ書き込んだバイト数
+     */
+    private int writeOffset;
+
+    /**
+     * 割り当てられた冪等ではないリクエストの数
+     */
+    private int nonIdempotentCount;
+
+    /**
+     * 接続が確立したか否か
+     */
+    private boolean connected;
+
+    /**
+     * 新しいリクエストの割り当てを停止したか否か
+     */
+    private boolean draining;
+
+    /**
+     * 接続が閉じられたか否か
+     */
+    private boolean closed;
+
+    /**
+     * 接続のタイムアウトの時刻（{@link System#nanoTime()} 基準）
+     */
+    private final long connectDeadline;
+
+    /**
+     * コンストラクタ
+     *
+     * @param loop            イベントループ
+     * @param host            接続先のホスト
+     * @param channel         ソケットチャネル
+     * @param key             セレクションキー
+     * @param readBuffer      受信用のバッファ
+     * @param writeBuffer     送信用のバッファ
+     * @param connectDeadline 接続のタイムアウトの時刻
+     */
+    private NioConnection(@NonNull NioEventLoop loop, @NonNull HostPool host, @NonNull SocketChannel channel,
+            @NonNull SelectionKey key, @NonNull ByteBuffer readBuffer, @NonNull ByteBuffer writeBuffer,
+            long connectDeadline) {
+        this.loop = loop;
+        this.host = host;
+        this.channel = channel;
+        this.key = key;
+        this.readBuffer = readBuffer;
+        this.writeBuffer = writeBuffer;
+        this.connectDeadline = connectDeadline;
+    }
+
+    /**
+     * 引数として渡された {@code host} への接続を開始します。
+     *
+     * @param loop            イベントループ
+     * @param selector        セレクター
+     * @param host            接続先のホスト
+     * @param pool            バッファのプール
+     * @param connectDeadline 接続のタイムアウトの時刻
+     * @return 接続
+     *
+     * @throws IOException 接続の開始に失敗した場合
+     */
+    static NioConnection open(@NonNull NioEventLoop loop, @NonNull Selector selector, @NonNull HostPool host,
+            @NonNull BufferPool pool, long connectDeadline) throws IOException {
+
+        final SocketChannel channel = SocketChannel.open();
+
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            final boolean connected = channel.connect(host.address);
+            final SelectionKey key = channel.register(selector,
+                    connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT);
+            final NioConnection connection = new NioConnection(loop, host, channel, key, pool.acquire(),
+                    pool.acquire(), connectDeadline);
+            connection.connected = connected;
+            key.attach(connection);
+
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 割り当てられているリクエストの数を返却します。
+     *
+     * @return 割り当てられているリクエストの数
+     */
+    int getLoad() {
+        return this.unwritten.size() + this.awaiting.size();
+    }
+
+    /**
+     * 引数として渡された {@code exchange} を割り当て可能か判定します。
+     * <p>
+     * 割り当て中のリクエストが存在しない場合は常に割り当て可能です。パイプライン化が有効な場合は、割り当て中のリクエストと
+     * {@code exchange} が全て冪等で、割り当て中のリクエストの数がパイプラインの深さ未満の場合に割り当て可能です。
+     *
+     * @param exchange 割り当て対象のリクエスト
+     * @param depth    パイプラインの深さ
+     * @return 割り当て可能な場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean canAccept(@NonNull Exchange exchange, int depth) {
+
+        if (this.draining || this.closed) {
+            return false;
+        }
+
+        final int load = this.getLoad();
+
+        return load == 0 || (load < depth && this.connected && this.nonIdempotentCount == 0
+                && exchange.request.isIdempotent());
+    }
+
+    /**
+     * 引数として渡された {@code exchange} を割り当て、可能な限り送信します。
+     *
+     * @param exchange 割り当てるリクエスト
+     *
+     * @throws IOException 送信に失敗した場合
+     */
+    void assign(@NonNull Exchange exchange) throws IOException {
+
+        this.unwritten.addLast(exchange);
+
+        if (!exchange.request.isIdempotent()) {
+            this.nonIdempotentCount++;
+        }
+
+        if (this.connected) {
+            this.flush();
+        }
+    }
+
+    /**
+     * 接続の確立を完了します。
+     *
+     * @throws IOException 接続に失敗した場合
+     */
+    void onConnectable() throws IOException {
+
+        if (!this.channel.finishConnect()) {
+            return;
+        }
+
+        this.connected = true;
+        this.key.interestOps(SelectionKey.OP_READ);
+        this.flush();
+
+        if (this.loop.getPipeliningDepth() > 1) {
+            this.loop.onAvailable(this);
+        }
+    }
+
+    /**
+     * 送信可能になった時点で未送信のバイトを送信します。
+     *
+     * @throws IOException 送信に失敗した場合
+     */
+    void onWritable() throws IOException {
+        this.flush();
+    }
+
+    /**
+     * 受信したバイトを読み込み、解析が完了したレスポンスを送信した順にリクエストへ対応付けます。
+     *
+     * @throws IOException 受信に失敗した場合、またはレスポンスの形式が不正な場合
+     */
+    void onReadable() throws IOException {
+
+        final int read = this.channel.read(this.readBuffer);
+
+        if (read < 0) {
+            if (!this.awaiting.isEmpty() && this.parser.finish()) {
+                this.complete();
+            }
+
+            this.close(new IOException("Connection closed by the server"));
+            return;
+        }
+
+        this.readBuffer.flip();
+
+        try {
+            while (this.readBuffer.hasRemaining()) {
+                if (this.awaiting.isEmpty()) {
+                    throw new IOException("Unexpected response");
+                }
+
+                if (!this.parser.parse(this.readBuffer)) {
+                    break;
+                }
+
+                final boolean keepAlive = this.parser.isKeepAlive();
+                this.complete();
+
+                if (!keepAlive) {
+                    this.close(new IOException("Connection closed by the server"));
+                    return;
+                }
+            }
+        } finally {
+            if (!this.closed) {
+                this.readBuffer.compact();
+            }
+        }
+
+        if (this.getLoad() == 0 || this.loop.getPipeliningDepth() > 1) {
+            this.loop.onAvailable(this);
+        }
+    }
+
+    /**
+     * タイムアウトしたリクエストが存在する場合は接続を閉じます。
+     *
+     * @param now 現在の時刻（{@link System#nanoTime()} 基準）
+     * @return 接続を閉じた場合は {@code true} 、それ以外は {@code false}
+     */
+    boolean expire(long now) {
+
+        if (!this.connected && now - this.connectDeadline >= 0) {
+            this.close(new ConnectException("Connect timed out"));
+            return true;
+        }
+
+        Exchange expired = null;
+
+        for (Exchange exchange : this.awaiting) {
+            if (exchange.isExpired(now)) {
+                expired = exchange;
+                break;
+            }
+        }
+
+        if (expired == null) {
+            for (Exchange exchange : this.unwritten) {
+                if (exchange.isExpired(now)) {
+                    expired = exchange;
+                    break;
+                }
+            }
+        }
+
+        if (expired == null) {
+            return false;
+        }
+
+        this.awaiting.remove(expired);
+
+        if (this.unwritten.peekFirst() == expired && this.writeOffset > 0) {
+            this.unwritten.removeFirst();
+            this.writeOffset = 0;
+        } else {
+            this.unwritten.remove(expired);
+        }
+
+        expired.future.completeExceptionally(new HttpTimeoutException("Request timed out"));
+        this.close(new IOException("Connection closed after a request timed out"));
+
+        return true;
+    }
+
+    /**
+     * 接続を閉じます。未送信のリクエストは再度割り当て、送信済みのリクエストは冪等かつ再送していない場合のみ再度割り当てます。
+     * 接続が確立していない場合は全てのリクエストを失敗させます。
+     *
+     * @param cause 接続を閉じる原因
+     */
+    void close(@NonNull IOException cause) {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.key.cancel();
+
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+
+        final List<Exchange> requeued = new ArrayList<>();
+        final boolean sentAny = this.connected;
+
+        for (Exchange exchange : this.awaiting) {
+            this.requeueOrFail(exchange, true, sentAny, cause, requeued);
+        }
+
+        boolean partiallyWritten = this.writeOffset > 0;
+
+        for (Exchange exchange : this.unwritten) {
+            this.requeueOrFail(exchange, partiallyWritten, sentAny, cause, requeued);
+            partiallyWritten = false;
+        }
+
+        this.awaiting.clear();
+        this.unwritten.clear();
+        this.loop.onClosed(this, requeued, this.readBuffer, this.writeBuffer);
+    }
+
+    /**
+     * 切断時に引数として渡された {@code exchange} を再度割り当てるか失敗させるかを決定します。
+     *
+     * @param exchange  対象のリクエスト
+     * @param sent      送信済みの可能性があるか否か
+     * @param connected 接続が確立していたか否か
+     * @param cause     切断の原因
+     * @param requeued  再度割り当てるリクエスト
+     */
+    private void requeueOrFail(@NonNull Exchange exchange, boolean sent, boolean connected,
+            @NonNull IOException cause, @NonNull List<Exchange> requeued) {
+
+        if (connected && (!sent || (exchange.request.isIdempotent() && !exchange.retried))) {
+            exchange.retried |= sent;
+            requeued.add(exchange);
+        } else {
+            exchange.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 解析が完了したレスポンスを先頭の送信済みリクエストへ対応付けます。
+     */
+    private void complete() {
+
+        final Exchange exchange = this.awaiting.removeFirst();
+
+        if (!exchange.request.isIdempotent()) {
+            this.nonIdempotentCount--;
+        }
+
+        final HttpResponse<String> response = BufferedHttpResponse.<String>builder()
+                .withStatusCode(this.parser.getStatusCode()).withHeaders(this.parser.getHeaders())
+                .withBody(this.parser.getBody()).withUri(exchange.request.getUri()).withVersion(Version.HTTP_1_1)
+                .build();
+
+        this.parser.reset();
+        exchange.future.complete(response);
+    }
+
+    /**
+     * 未送信のリクエストを送信用のバッファへ連結し、ソケットが受け付ける限り送信します。送信しきれなかった場合は送信可能になった時点で再開します。
+     *
+     * @throws IOException 送信に失敗した場合
+     */
+    private void flush() throws IOException {
+
+        while (true) {
+            while (this.writeBuffer.hasRemaining() && !this.unwritten.isEmpty()) {
+                final Exchange exchange = this.unwritten.peekFirst();
+                final int length = Math.min(this.writeBuffer.remaining(), exchange.encoded.length - this.writeOffset);
+                this.writeBuffer.put(exchange.encoded, this.writeOffset, length);
+                this.writeOffset += length;
+
+                if (this.writeOffset == exchange.encoded.length) {
+                    this.awaiting.addLast(this.unwritten.removeFirst());
+                    this.writeOffset = 0;
+                }
+            }
+
+            this.writeBuffer.flip();
+
+            if (!this.writeBuffer.hasRemaining()) {
+                this.writeBuffer.clear();
+                this.key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+
+            this.channel.write(this.writeBuffer);
+            final boolean blocked = this.writeBuffer.hasRemaining();
+            this.writeBuffer.compact();
+
+            if (blocked) {
+                this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+}
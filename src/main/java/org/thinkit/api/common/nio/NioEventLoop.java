@@ -0,0 +1,468 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.NonNull;
+
+/**
+ * 1つのスレッドで {@link Selector} を監視し、全ての接続の送受信を処理するイベントループです。
+ * <p>
+ * 他のスレッドから依頼されたリクエストはタスクとしてキューに追加され、イベントループのスレッドで接続へ割り当てられます。
+ * 接続はホストごとに上限数まで確立され、全ての接続が使用中の場合はパイプライン化が可能な接続へ割り当てるか、接続が空くまで待機させます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class NioEventLoop implements Closeable {
+
+    /**
+     * タイムアウトを確認する間隔（ミリ秒）
+     */
+    private static final long EXPIRY_INTERVAL_MILLIS = 10;
+
+    /**
+     * プールに保持するバッファ数の上限
+     */
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    /**
+     * セレクター
+     */
+    private final Selector selector;
+
+    /**
+     * イベントループのスレッド
+     */
+    private final Thread thread;
+
+    /**
+     * 他のスレッドから依頼されたタスク
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * セレクターの起床を依頼済みか否か
+     */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    /**
+     * ホストごとの接続
+     */
+    private final Map<String, HostPool> pools = new HashMap<>();
+
+    /**
+     * 全ての接続
+     */
+    private final List<NioConnection> connections = new ArrayList<>();
+
+    /**
+     * バッファのプール
+     */
+    private final BufferPool bufferPool;
+
+    /**
+     * ホストごとの最大接続数
+     */
+    private final int maxConnectionsPerHost;
+
+    /**
+     * パイプラインの深さ
+     */
+    private final int pipeliningDepth;
+
+    /**
+     * 接続のタイムアウト（ナノ秒）
+     */
+    private final long connectTimeoutNanos;
+
+    /**
+     * 確立済み、または接続中の接続の数
+     */
+    private volatile int connectionCount;
+
+    /**
+     * 閉じられたか否か
+     */
+    private volatile boolean closed;
+
+    /**
+     * コンストラクタ
+     *
+     * @param bufferSize            送受信用のバッファのサイズ
+     * @param maxConnectionsPerHost ホストごとの最大接続数
+     * @param pipeliningDepth       パイプラインの深さ
+     * @param connectTimeoutNanos   接続のタイムアウト（ナノ秒）
+     *
+     * @throws IOException セレクターの生成に失敗した場合
+     */
+    NioEventLoop(int bufferSize, int maxConnectionsPerHost, int pipeliningDepth, long connectTimeoutNanos)
+            throws IOException {
+        this.selector = Selector.open();
+        this.bufferPool = new BufferPool(bufferSize, MAX_POOLED_BUFFERS);
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.pipeliningDepth = pipeliningDepth;
+        this.connectTimeoutNanos = connectTimeoutNanos;
+        this.thread = new Thread(this::run, "nio-event-loop");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 引数として渡された {@code exchange} の送信を依頼します。イベントループが閉じられている場合は即座に失敗させます。
+     *
+     * @param exchange 送信するリクエスト
+     */
+    void submit(@NonNull Exchange exchange) {
+
+        if (this.closed) {
+            exchange.future.completeExceptionally(new IOException("Transport closed"));
+            return;
+        }
+
+        final Runnable task = () -> this.dispatch(exchange);
+        this.tasks.add(task);
+
+        if (this.closed && this.tasks.remove(task)) {
+            exchange.future.completeExceptionally(new IOException("Transport closed"));
+            return;
+        }
+
+        if (this.wakeupPending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * パイプラインの深さを返却します。
+     *
+     * @return パイプラインの深さ
+     */
+    int getPipeliningDepth() {
+        return this.pipeliningDepth;
+    }
+
+    /**
+     * 確立済み、または接続中の接続の数を返却します。
+     *
+     * @return 接続の数
+     */
+    int getConnectionCount() {
+        return this.connectionCount;
+    }
+
+    /**
+     * 生成した送受信用のバッファの数を返却します。
+     *
+     * @return 生成したバッファの数
+     */
+    int getAllocatedBufferCount() {
+        return this.bufferPool.getAllocatedCount();
+    }
+
+    /**
+     * 引数として渡された {@code connection} が新しいリクエストを受け付け可能になった時点で、待機しているリクエストを割り当てます。
+     *
+     * @param connection 接続
+     */
+    void onAvailable(@NonNull NioConnection connection) {
+        this.drain(connection.host);
+    }
+
+    /**
+     * 閉じられた {@code connection} を破棄し、再送するリクエストを待機しているリクエストの先頭へ戻します。
+     *
+     * @param connection  閉じられた接続
+     * @param requeued    再送するリクエスト
+     * @param readBuffer  受信用のバッファ
+     * @param writeBuffer 送信用のバッファ
+     */
+    void onClosed(@NonNull NioConnection connection, @NonNull List<Exchange> requeued,
+            @NonNull ByteBuffer readBuffer, @NonNull ByteBuffer writeBuffer) {
+
+        final HostPool pool = connection.host;
+        pool.connections.remove(connection);
+        this.connections.remove(connection);
+        this.connectionCount = this.connections.size();
+        this.bufferPool.release(readBuffer);
+        this.bufferPool.release(writeBuffer);
+
+        for (ListIterator<Exchange> iterator = requeued.listIterator(requeued.size()); iterator.hasPrevious();) {
+            pool.pending.addFirst(iterator.previous());
+        }
+
+        if (!this.closed) {
+            this.drain(pool);
+        }
+    }
+
+    /**
+     * イベントループを停止し、全ての接続を閉じます。送信待ち、およびレスポンス待ちのリクエストは失敗します。
+     */
+    @Override
+    public void close() {
+
+        this.closed = true;
+        this.selector.wakeup();
+
+        if (Thread.currentThread() != this.thread) {
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * イベントループを実行します。
+     */
+    private void run() {
+
+        long nextExpiry = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXPIRY_INTERVAL_MILLIS);
+
+        try {
+            while (!this.closed) {
+                this.selector.select(this.connections.isEmpty() ? 0 : EXPIRY_INTERVAL_MILLIS);
+                this.wakeupPending.set(false);
+
+                Runnable task;
+
+                while ((task = this.tasks.poll()) != null) {
+                    task.run();
+                }
+
+                for (SelectionKey key : this.selector.selectedKeys()) {
+                    this.handle(key);
+                }
+
+                this.selector.selectedKeys().clear();
+
+                final long now = System.nanoTime();
+
+                if (now - nextExpiry >= 0) {
+                    this.expire(now);
+
+                    nextExpiry = now + TimeUnit.MILLISECONDS.toNanos(EXPIRY_INTERVAL_MILLIS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            this.closed = true;
+        } finally {
+            this.shutdown();
+        }
+    }
+
+    /**
+     * 選択されたキーに対応する接続の送受信を処理します。処理に失敗した場合は接続を閉じます。
+     *
+     * @param key 選択されたキー
+     */
+    private void handle(@NonNull SelectionKey key) {
+
+        final NioConnection connection = (NioConnection) key.attachment();
+
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                connection.onConnectable();
+            }
+
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException e) {
+            connection.close(e);
+        } catch (RuntimeException e) {
+            connection.close(new IOException(e));
+        }
+    }
+
+    /**
+     * 引数として渡された {@code exchange} を接続へ割り当てます。割り当て可能な接続が存在しない場合は待機させます。
+     *
+     * @param exchange 送信するリクエスト
+     */
+    private void dispatch(@NonNull Exchange exchange) {
+
+        if (this.closed) {
+            exchange.future.completeExceptionally(new IOException("Transport closed"));
+            return;
+        }
+
+        final NioRequest request = exchange.request;
+        final String hostKey = request.getUri().getHost() + ':' + request.getPort();
+        final HostPool pool = this.pools.computeIfAbsent(hostKey,
+                key -> new HostPool(new InetSocketAddress(request.getUri().getHost(), request.getPort())));
+
+        if (!pool.pending.isEmpty() || !this.tryAssign(pool, exchange)) {
+            pool.pending.addLast(exchange);
+        }
+    }
+
+    /**
+     * 待機しているリクエストを割り当て可能な限り接続へ割り当てます。
+     *
+     * @param pool 接続先のホスト
+     */
+    private void drain(@NonNull HostPool pool) {
+        while (!pool.pending.isEmpty() && this.tryAssign(pool, pool.pending.peekFirst())) {
+            pool.pending.pollFirst();
+        }
+    }
+
+    /**
+     * 引数として渡された {@code exchange} を割り当てます。空いている接続、新しい接続、パイプライン化が可能な接続の順で割り当て先を選択します。
+     *
+     * @param pool     接続先のホスト
+     * @param exchange 送信するリクエスト
+     * @return 割り当てた場合、または接続の開始に失敗しリクエストを失敗させた場合は {@code true} 、それ以外は {@code false}
+     */
+    private boolean tryAssign(@NonNull HostPool pool, @NonNull Exchange exchange) {
+
+        if (exchange.future.isDone()) {
+            return true;
+        }
+
+        for (NioConnection connection : pool.connections) {
+            if (connection.getLoad() == 0 && connection.canAccept(exchange, this.pipeliningDepth)) {
+                this.assign(connection, exchange);
+                return true;
+            }
+        }
+
+        if (pool.connections.size() < this.maxConnectionsPerHost) {
+            final NioConnection connection;
+
+            try {
+                connection = NioConnection.open(this, this.selector, pool, this.bufferPool,
+                        System.nanoTime() + this.connectTimeoutNanos);
+            } catch (IOException | RuntimeException e) {
+                exchange.future.completeExceptionally(e);
+                return true;
+            }
+
+            pool.connections.add(connection);
+            this.connections.add(connection);
+            this.connectionCount = this.connections.size();
+            this.assign(connection, exchange);
+
+            return true;
+        }
+
+        NioConnection selected = null;
+
+        for (NioConnection connection : pool.connections) {
+            if (connection.canAccept(exchange, this.pipeliningDepth)
+                    && (selected == null || connection.getLoad() < selected.getLoad())) {
+                selected = connection;
+            }
+        }
+
+        if (selected == null) {
+            return false;
+        }
+
+        this.assign(selected, exchange);
+        return true;
+    }
+
+    /**
+     * 引数として渡された {@code connection} へ {@code exchange} を割り当てます。送信に失敗した場合は接続を閉じます。
+     *
+     * @param connection 接続
+     * @param exchange   送信するリクエスト
+     */
+    private void assign(@NonNull NioConnection connection, @NonNull Exchange exchange) {
+        try {
+            connection.assign(exchange);
+        } catch (IOException e) {
+            connection.close(e);
+        }
+    }
+
+    /**
+     * タイムアウトしたリクエストを失敗させます。送信済みのリクエストがタイムアウトした接続は閉じられます。
+     *
+     * @param now 現在の時刻（{@link System#nanoTime()} 基準）
+     */
+    private void expire(long now) {
+
+        for (NioConnection connection : new ArrayList<>(this.connections)) {
+            connection.expire(now);
+        }
+
+        for (HostPool pool : this.pools.values()) {
+            pool.pending.removeIf(exchange -> {
+                if (!exchange.isExpired(now)) {
+                    return false;
+                }
+
+                exchange.future.completeExceptionally(new HttpTimeoutException("Request timed out"));
+                return true;
+            });
+        }
+    }
+
+    /**
+     * 全ての接続を閉じ、待機しているリクエストを失敗させます。
+     */
+    private void shutdown() {
+
+        final IOException cause = new IOException("Transport closed");
+
+        for (NioConnection connection : new ArrayList<>(this.connections)) {
+            connection.close(cause);
+        }
+
+        for (HostPool pool : this.pools.values()) {
+            pool.pending.forEach(exchange -> exchange.future.completeExceptionally(cause));
+            pool.pending.clear();
+        }
+
+        Runnable task;
+
+        while ((task = this.tasks.poll()) != null) {
+            task.run();
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            // 停止時の例外は無視する
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.HttpMethod;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * {@link NioTransport} で送信するHTTP/1.1のリクエストを表すクラスです。
+ * <p>
+ * 接続先のURIは {@code http} スキームである必要があります。 {@code Host} ヘッダーと {@code Content-Length}
+ * ヘッダーは送信時に自動的に設定されるため、指定された場合は無視されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * NioRequest request = NioRequest.builder().of(HttpMethod.GET, URI.create("http://localhost:8080/users/1"))
+ *         .withHeader("Accept", "application/json").withTimeout(Duration.ofSeconds(2)).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(exclude = "body")
+public final class NioRequest {
+
+    /**
+     * HTTPメソッド
+     */
+    @Getter
+    private HttpMethod method;
+
+    /**
+     * 接続先のURI
+     */
+    @Getter
+    private URI uri;
+
+    /**
+     * リクエストヘッダー
+     */
+    @Getter
+    private Map<String, String> headers;
+
+    /**
+     * リクエストボディ。リクエストボディが存在しない場合は {@code null}
+     */
+    @Getter
+    private String body;
+
+    /**
+     * タイムアウト。タイムアウトが指定されていない場合は {@code null}
+     */
+    @Getter
+    private Duration timeout;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private NioRequest() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link NioRequest} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * HTTPメソッド
+         */
+        private HttpMethod method;
+
+        /**
+         * 接続先のURI
+         */
+        private URI uri;
+
+        /**
+         * リクエストヘッダー
+         */
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        /**
+         * リクエストボディ
+         */
+        private String body;
+
+        /**
+         * タイムアウト
+         */
+        private Duration timeout;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * HTTPメソッドと接続先のURIを設定します。
+         *
+         * @param method HTTPメソッド
+         * @param uri    接続先のURI
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull HttpMethod method, @NonNull URI uri) {
+            this.method = method;
+            this.uri = uri;
+            return this;
+        }
+
+        /**
+         * リクエストヘッダーを設定します。同一の名前のヘッダーが設定済みの場合は値を上書きします。
+         *
+         * @param name  ヘッダーの名前
+         * @param value ヘッダーの値
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException ヘッダーの名前、または値が改行を含む場合
+         */
+        public Builder withHeader(@NonNull String name, @NonNull String value) {
+
+            if (containsLineBreak(name) || containsLineBreak(value)) {
+                throw new InvalidContextStateException();
+            }
+
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * リクエストボディを設定します。リクエストボディは {@code UTF-8} 形式で送信されます。
+         *
+         * @param body リクエストボディ
+         * @return 自分自身のインスタンス
+         */
+        public Builder withBody(@NonNull String body) {
+            this.body = body;
+            return this;
+        }
+
+        /**
+         * リクエストの送信からレスポンスの受信完了までのタイムアウトを設定します。このメソッドを呼び出さない場合は
+         * {@link NioTransport} に設定されたタイムアウトが使用されます。
+         *
+         * @param timeout タイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withTimeout(@NonNull Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link NioRequest} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link NioRequest} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(HttpMethod, URI)} メソッドが呼び出されていない場合、
+         *                                      またはURIが {@code http} スキームではない場合
+         */
+        public NioRequest build() {
+
+            if (this.uri == null || !"http".equalsIgnoreCase(this.uri.getScheme()) || this.uri.getHost() == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final NioRequest request = new NioRequest();
+            request.method = this.method;
+            request.uri = this.uri;
+            request.headers = this.headers.isEmpty() ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(this.headers));
+            request.body = this.body;
+            request.timeout = this.timeout;
+
+            return request;
+        }
+    }
+
+    /**
+     * 接続先のポート番号を返却します。URIにポート番号が含まれない場合は {@code 80} を返却します。
+     *
+     * @return 接続先のポート番号
+     */
+    public int getPort() {
+        return this.uri.getPort() < 0 ? 80 : this.uri.getPort();
+    }
+
+    /**
+     * 冪等なHTTPメソッドか判定します。冪等なリクエストのみパイプライン化と切断時の再送の対象となります。
+     *
+     * @return {@link HttpMethod#POST} 、 {@link HttpMethod#PATCH} 以外の場合は {@code true} 、それ以外は
+     *         {@code false}
+     */
+    public boolean isIdempotent() {
+        return this.method != HttpMethod.POST && this.method != HttpMethod.PATCH;
+    }
+
+    /**
+     * リクエストをHTTP/1.1の形式でバイト列へ変換します。
+     *
+     * @param extraHeaders 追加するリクエストヘッダー。同一の名前のヘッダーはリクエストに設定された値より優先されます
+     * @return HTTP/1.1形式のリクエスト
+     */
+    byte[] encode(@NonNull Map<String, String> extraHeaders) {
+
+        final String path = this.uri.getRawPath();
+        final StringBuilder head = new StringBuilder(128).append(this.method.name()).append(' ')
+                .append(path == null || path.isEmpty() ? "/" : path);
+
+        if (this.uri.getRawQuery() != null) {
+            head.append('?').append(this.uri.getRawQuery());
+        }
+
+        head.append(" HTTP/1.1\r\nHost: ").append(this.uri.getHost());
+
+        if (this.uri.getPort() >= 0) {
+            head.append(':').append(this.uri.getPort());
+        }
+
+        head.append("\r\n");
+
+        this.headers.forEach((name, value) -> {
+            if (!extraHeaders.containsKey(name)) {
+                appendHeader(head, name, value);
+            }
+        });
+
+        extraHeaders.forEach((name, value) -> appendHeader(head, name, value));
+
+        final byte[] content = this.body != null ? this.body.getBytes(StandardCharsets.UTF_8) : null;
+
+        if (content != null || this.method == HttpMethod.POST || this.method == HttpMethod.PUT
+                || this.method == HttpMethod.PATCH) {
+            head.append("Content-Length: ").append(content != null ? content.length : 0).append("\r\n");
+        }
+
+        final byte[] headBytes = head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        if (content == null || content.length == 0) {
+            return headBytes;
+        }
+
+        final byte[] encoded = new byte[headBytes.length + content.length];
+        System.arraycopy(headBytes, 0, encoded, 0, headBytes.length);
+        System.arraycopy(content, 0, encoded, headBytes.length, content.length);
+
+        return encoded;
+    }
+
+    /**
+     * 引数として渡された {@code value} が改行を含むか判定します。
+     *
+     * @param value 判定対象の文字列
+     * @return 改行を含む場合は {@code true} 、それ以外は {@code false}
+     */
+    private static boolean containsLineBreak(@NonNull String value) {
+        return value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0;
+    }
+
+    /**
+     * 自動的に設定されるヘッダー以外のヘッダーを追加します。
+     *
+     * @param head  追加先
+     * @param name  ヘッダーの名前
+     * @param value ヘッダーの値
+     */
+    private static void appendHeader(@NonNull StringBuilder head, @NonNull String name, @NonNull String value) {
+        if (!"Host".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
+            head.append(name).append(": ").append(value).append("\r\n");
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * {@link java.net.http.HttpClient} の代わりに、1つのスレッドで動作するNIOのイベントループでHTTP/1.1の通信を行うクラスです。
+ * <p>
+ * 少数のホストに対して大量のリクエストを送信する用途を想定しています。全ての接続は非ブロッキングな
+ * {@link java.nio.channels.SocketChannel} としてイベントループで処理され、送受信用のダイレクトバッファはプールから再利用されます。
+ * 接続はホストごとに上限数まで維持され、全ての接続が使用中の場合は空くまでリクエストを待機させます。
+ * <p>
+ * {@link Builder#withPipelining(int)} で2以上の深さを設定した場合は、冪等なリクエストを前のレスポンスの受信を待たずに同一の接続へ連続して送信します。
+ * 送信済みのリクエストが接続の切断により失敗した場合、冪等なリクエストは1回のみ別の接続で再送されます。
+ * <p>
+ * TLSには対応していないため、接続先は {@code http} スキームである必要があります。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * try (NioTransport transport = NioTransport.builder().withMaxConnectionsPerHost(4).withPipelining(8).build()) {
+ *     Communicable api = transport.communicable(options -&gt; NioRequest.builder()
+ *             .of(HttpMethod.GET, URI.create("http://localhost:8080/users/1")).build());
+ *     String body = ApiContext.builder().of(api).withRetry().build().send();
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class NioTransport implements Closeable {
+
+    /**
+     * イベントループ
+     */
+    private NioEventLoop loop;
+
+    /**
+     * リクエストのタイムアウト。タイムアウトが指定されていない場合は {@code null}
+     */
+    private Duration timeout;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private NioTransport() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link NioTransport} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * ホストごとの最大接続数
+         */
+        private int maxConnectionsPerHost = 4;
+
+        /**
+         * パイプラインの深さ
+         */
+        private int pipeliningDepth = 1;
+
+        /**
+         * 送受信用のバッファのサイズ
+         */
+        private int bufferSize = 16384;
+
+        /**
+         * 接続のタイムアウト
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * リクエストのタイムアウト
+         */
+        private Duration timeout;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * ホストごとの最大接続数を設定します。最大接続数は初期設定として {@code 4} が設定されています。
+         *
+         * @param maxConnectionsPerHost ホストごとの最大接続数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMaxConnectionsPerHost(int maxConnectionsPerHost) {
+
+            if (maxConnectionsPerHost <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * 1つの接続でレスポンスを待たずに送信する冪等なリクエストの最大数を設定します。深さは初期設定として {@code 1}
+         * が設定されており、パイプライン化は行いません。
+         *
+         * @param pipeliningDepth パイプラインの深さ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withPipelining(int pipeliningDepth) {
+
+            if (pipeliningDepth <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.pipeliningDepth = pipeliningDepth;
+            return this;
+        }
+
+        /**
+         * 接続ごとの送受信用のバッファのサイズを設定します。バッファのサイズは初期設定として {@code 16384} が設定されています。
+         *
+         * @param bufferSize 送受信用のバッファのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 1024} 未満の値が渡された場合
+         */
+        public Builder withBufferSize(int bufferSize) {
+
+            if (bufferSize < 1024) {
+                throw new InvalidContextStateException();
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 接続のタイムアウトを設定します。タイムアウトは初期設定として10秒が設定されています。
+         *
+         * @param connectTimeout 接続のタイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withConnectTimeout(@NonNull Duration connectTimeout) {
+
+            if (connectTimeout.isNegative() || connectTimeout.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * {@link NioRequest} 、および {@link RequestOptions} にタイムアウトが指定されていないリクエストのタイムアウトを設定します。
+         * このメソッドを呼び出さない場合はタイムアウトを設けません。
+         *
+         * @param timeout リクエストのタイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withTimeout(@NonNull Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 設定された値を基にイベントループを開始し、 {@link NioTransport} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link NioTransport} クラスの新しいインスタンス
+         *
+         * @throws UncheckedIOException セレクターの生成に失敗した場合
+         */
+        public NioTransport build() {
+
+            final NioTransport transport = new NioTransport();
+            transport.timeout = this.timeout;
+
+            try {
+                transport.loop = new NioEventLoop(this.bufferSize, this.maxConnectionsPerHost, this.pipeliningDepth,
+                        this.connectTimeout.toNanos());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return transport;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code request} を非同期に送信します。
+     *
+     * @param request リクエスト
+     * @return レスポンスを受け取る {@link CompletableFuture} 。通信に失敗した場合は {@link IOException}
+     *         、タイムアウトした場合は {@link java.net.http.HttpTimeoutException} で失敗します
+     */
+    public CompletableFuture<HttpResponse<String>> sendAsync(@NonNull NioRequest request) {
+        return this.submit(request, Collections.emptyMap(), request.getTimeout());
+    }
+
+    /**
+     * 引数として渡された {@code request} を送信し、レスポンスの受信が完了するまで待機します。
+     *
+     * @param request リクエスト
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     *
+     * @throws UncheckedIOException      通信に失敗した場合、またはタイムアウトした場合
+     * @throws ApiRequestFailedException 待機中に割り込みが発生した場合
+     */
+    public HttpResponse<String> send(@NonNull NioRequest request) {
+        return await(this.sendAsync(request));
+    }
+
+    /**
+     * 引数として渡された {@code requestFactory} で生成したリクエストをこのトランスポートで送信する {@link Communicable} を返却します。
+     * <p>
+     * 返却される {@link Communicable} は試行ごとに {@link RequestOptions} を基にリクエストを生成し、
+     * {@link RequestOptions#getHeaders()} のヘッダーを追加して送信します。 {@link RequestOptions#getTimeout()}
+     * が指定されている場合は、リクエストに設定されたタイムアウトより優先して使用します。
+     *
+     * @param requestFactory 通信時のオプションを基にリクエストを生成する関数
+     * @return このトランスポートで送信する {@link Communicable}
+     */
+    public Communicable communicable(@NonNull Function<RequestOptions, NioRequest> requestFactory) {
+        return new Communicable() {
+
+            @Override
+            public HttpResponse<String> send() {
+                return this.send(RequestOptions.empty());
+            }
+
+            @Override
+            public HttpResponse<String> send(@NonNull RequestOptions options) {
+
+                final NioRequest request = requestFactory.apply(options);
+
+                return await(submit(request, options.getHeaders(),
+                        options.getTimeout() != null ? options.getTimeout() : request.getTimeout()));
+            }
+        };
+    }
+
+    /**
+     * 確立済み、または接続中の接続の数を返却します。
+     *
+     * @return 接続の数
+     */
+    public int getConnectionCount() {
+        return this.loop.getConnectionCount();
+    }
+
+    /**
+     * 生成した送受信用のダイレクトバッファの数を返却します。
+     *
+     * @return 生成したバッファの数
+     */
+    public int getAllocatedBufferCount() {
+        return this.loop.getAllocatedBufferCount();
+    }
+
+    /**
+     * イベントループを停止し全ての接続を閉じます。完了していないリクエストは失敗します。
+     */
+    @Override
+    public void close() {
+        this.loop.close();
+    }
+
+    /**
+     * リクエストを変換しイベントループへ送信を依頼します。
+     *
+     * @param request      リクエスト
+     * @param extraHeaders 追加するリクエストヘッダー
+     * @param timeout      リクエストのタイムアウト。指定されていない場合は {@code null}
+     * @return レスポンスを受け取る {@link CompletableFuture}
+     */
+    private CompletableFuture<HttpResponse<String>> submit(@NonNull NioRequest request,
+            @NonNull Map<String, String> extraHeaders, Duration timeout) {
+
+        final Duration effectiveTimeout = timeout != null ? timeout : this.timeout;
+        final Exchange exchange = new Exchange(request, request.encode(extraHeaders),
+                effectiveTimeout != null ? System.nanoTime() + effectiveTimeout.toNanos() : Long.MAX_VALUE);
+
+        this.loop.submit(exchange);
+
+        return exchange.future;
+    }
+
+    /**
+     * 引数として渡された {@code future} の完了を待機し結果を返却します。
+     *
+     * @param future 待機対象
+     * @return 文字列型のbody要素を持つHTTPレスポンス
+     *
+     * @throws UncheckedIOException      通信に失敗した場合、またはタイムアウトした場合
+     * @throws ApiRequestFailedException 待機中に割り込みが発生した場合
+     */
+    private static HttpResponse<String> await(@NonNull CompletableFuture<HttpResponse<String>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new ApiRequestFailedException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * ページネーション処理で取得する1ページ分の範囲を表すクラスです。
+ * <p>
+ * オフセット形式のAPIでは {@link #getOffset()} と {@link #getLimit()} を、ページ番号形式のAPIでは
+ * {@link #getNumber()} を使用してリクエストを生成してください。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class Page {
+
+    /**
+     * ページのインデックス（0始まり）
+     */
+    @Getter
+    private final int index;
+
+    /**
+     * 取得開始位置のオフセット
+     */
+    @Getter
+    private final long offset;
+
+    /**
+     * 取得件数
+     */
+    @Getter
+    private final int limit;
+
+    /**
+     * 1始まりのページ番号を返却します。
+     *
+     * @return 1始まりのページ番号
+     */
+    public int getNumber() {
+        return this.index + 1;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.pagination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 総件数が既知のオフセット形式、またはページ番号形式のAPIを範囲分割し、並列で取得するクラスです。
+ * <p>
+ * 総件数とページサイズから取得範囲を {@link Page} 単位に分割し、各ページを共有の {@link ApiContext}
+ * を介して上限付きのスレッドプールで並列に取得します。取得結果はページ順に再構成して返却する {@link #fetchAll()}
+ * メソッド、または取得が完了した順に逐次処理する {@link #fetchEach(BiConsumer)} メソッドで受け取ることができます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ApiContext context = ApiContext.builder().withRetry().build();
+ * List&lt;String&gt; pages = ParallelPaginator.builder()
+ *         .of(context, page -&gt; new ListApi(page.getOffset(), page.getLimit())).withTotalCount(100000)
+ *         .withPageSize(500).withParallelism(8).withRateLimit(20.0).build().fetchAll();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class ParallelPaginator {
+
+    /**
+     * 全てのページの取得で共有するコンテキスト
+     */
+    private ApiContext context;
+
+    /**
+     * ページごとのAPIオブジェクトを生成する関数
+     */
+    private Function<Page, Communicable> apiFactory;
+
+    /**
+     * 総件数
+     */
+    private long totalCount;
+
+    /**
+     * ページサイズ
+     */
+    private int pageSize;
+
+    /**
+     * 並列数
+     */
+    private int parallelism;
+
+    /**
+     * 全ての取得処理で共有するリクエスト数の上限を制御するオブジェクト。上限が設定されていない場合は {@code null}
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private ParallelPaginator() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link ParallelPaginator} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 全てのページの取得で共有するコンテキスト
+         */
+        private ApiContext context;
+
+        /**
+         * ページごとのAPIオブジェクトを生成する関数
+         */
+        private Function<Page, Communicable> apiFactory;
+
+        /**
+         * 総件数
+         */
+        private long totalCount = -1;
+
+        /**
+         * ページサイズ
+         */
+        private int pageSize = 100;
+
+        /**
+         * 並列数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 1秒あたりの最大リクエスト数
+         */
+        private double permitsPerSecond;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 全てのページの取得で共有するコンテキストと、ページごとのAPIオブジェクトを生成する関数を設定します。
+         *
+         * @param context    全てのページの取得で共有するコンテキスト
+         * @param apiFactory 取得対象の {@link Page} を基に {@link Communicable} を生成する関数
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull ApiContext context, @NonNull Function<Page, Communicable> apiFactory) {
+            this.context = context;
+            this.apiFactory = apiFactory;
+            return this;
+        }
+
+        /**
+         * 取得対象の総件数を設定します。
+         *
+         * @param totalCount 総件数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 総件数として負数が渡された場合
+         */
+        public Builder withTotalCount(long totalCount) {
+
+            if (totalCount < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.totalCount = totalCount;
+            return this;
+        }
+
+        /**
+         * 1ページあたりの取得件数を設定します。ページサイズは初期設定として {@code 100} が設定されています。
+         *
+         * @param pageSize ページサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException ページサイズとして {@code 0} 以下の値が渡された場合
+         */
+        public Builder withPageSize(int pageSize) {
+
+            if (pageSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * ページを並列で取得する際の最大並列数を設定します。並列数は初期設定として {@code 4} が設定されています。
+         *
+         * @param parallelism 最大並列数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 並列数として {@code 0} 以下の値が渡された場合
+         */
+        public Builder withParallelism(int parallelism) {
+
+            if (parallelism <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 1秒あたりに送信するリクエスト数の上限を設定します。上限は全ての並列処理と、同一のインスタンスに対する
+         * {@link ParallelPaginator#fetchAll()} メソッドと {@link ParallelPaginator#fetchEach(BiConsumer)}
+         * メソッドの全ての呼び出しで共有されます。
+         * このメソッドを呼び出さない場合はリクエスト数の上限を設けません。
+         *
+         * @param permitsPerSecond 1秒あたりの最大リクエスト数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withRateLimit(double permitsPerSecond) {
+
+            if (permitsPerSecond <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link ParallelPaginator} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link ParallelPaginator} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(ApiContext, Function)} メソッド、または
+         *                                      {@link #withTotalCount(long)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public ParallelPaginator build() {
+
+            if (this.context == null || this.totalCount < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            final ParallelPaginator paginator = new ParallelPaginator();
+            paginator.context = this.context;
+            paginator.apiFactory = this.apiFactory;
+            paginator.totalCount = this.totalCount;
+            paginator.pageSize = this.pageSize;
+            paginator.parallelism = this.parallelism;
+            paginator.rateLimiter = this.permitsPerSecond > 0 ? RateLimiter.create(this.permitsPerSecond) : null;
+
+            return paginator;
+        }
+    }
+
+    /**
+     * 総件数とページサイズを基に分割された取得対象のページを返却します。
+     *
+     * @return 取得対象のページ
+     */
+    public List<Page> getPages() {
+
+        final List<Page> pages = new ArrayList<>();
+
+        for (long offset = 0; offset < this.totalCount; offset += this.pageSize) {
+            pages.add(new Page(pages.size(), offset, (int) Math.min(this.pageSize, this.totalCount - offset)));
+        }
+
+        return pages;
+    }
+
+    /**
+     * 全てのページを並列で取得し、ページ順に並べたレスポンスボディを返却します。
+     *
+     * @return ページ順に並べられたレスポンスボディ
+     *
+     * @throws ApiRequestFailedException いずれかのページの取得に失敗した場合
+     */
+    public List<String> fetchAll() {
+
+        final List<Page> pages = this.getPages();
+        final ExecutorService executor = Executors
+                .newFixedThreadPool(Math.min(this.parallelism, Math.max(pages.size(), 1)));
+
+        try {
+            final List<Future<String>> futures = new ArrayList<>(pages.size());
+            pages.forEach(page -> futures.add(executor.submit(() -> this.fetch(page))));
+
+            final List<String> bodies = new ArrayList<>(pages.size());
+
+            for (Future<String> future : futures) {
+                bodies.add(this.await(future));
+            }
+
+            return bodies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 全てのページを並列で取得し、取得が完了した順に引数として渡された {@code consumer} へ渡します。
+     * <p>
+     * {@code consumer} は呼び出し元のスレッドで逐次的に実行されるため、 {@code consumer} 側で排他制御を行う必要はありません。
+     *
+     * @param consumer 取得したページとレスポンスボディを受け取る処理
+     *
+     * @throws ApiRequestFailedException いずれかのページの取得に失敗した場合
+     */
+    public void fetchEach(@NonNull BiConsumer<Page, String> consumer) {
+
+        final List<Page> pages = this.getPages();
+        final ExecutorService executor = Executors
+                .newFixedThreadPool(Math.min(this.parallelism, Math.max(pages.size(), 1)));
+        final CompletionService<PageResult> completionService = new ExecutorCompletionService<>(executor);
+
+        try {
+            pages.forEach(page -> completionService.submit(() -> new PageResult(page, this.fetch(page))));
+
+            for (int i = 0, size = pages.size(); i < size; i++) {
+                final PageResult result = this.await(completionService.take());
+                consumer.accept(result.page, result.body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 引数として渡された {@code page} を取得します。
+     *
+     * @param page 取得対象のページ
+     * @return 取得したレスポンスボディ
+     *
+     * @throws ApiRequestFailedException ページの取得に失敗した場合
+     */
+    private String fetch(@NonNull Page page) {
+
+        if (this.rateLimiter != null) {
+            this.rateLimiter.acquire();
+        }
+
+        final String body = this.context.send(this.apiFactory.apply(page));
+
+        if (body == null) {
+            throw new ApiRequestFailedException(String.format("Failed to fetch the page: %s", page));
+        }
+
+        return body;
+    }
+
+    /**
+     * 引数として渡された {@code future} の完了を待機し結果を返却します。
+     *
+     * @param <T>    結果の型
+     * @param future 待機対象
+     * @return 処理結果
+     *
+     * @throws ApiRequestFailedException 処理が失敗した場合、または待機中に割り込みが発生した場合
+     */
+    private <T> T await(@NonNull Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiRequestFailedException) {
+                throw (ApiRequestFailedException) e.getCause();
+            }
+
+            throw new ApiRequestFailedException(e.getCause());
+        }
+    }
+
+    /**
+     * 1ページ分の取得結果を保持するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    @RequiredArgsConstructor
+    private static final class PageResult {
+
+        /**
+         * ページ
+         */
+        private final Page page;
+
+        /**
+         * レスポンスボディ
+         */
+        private final String body;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+import lombok.NonNull;
+
+/**
+ * 複数のインスタンスで共有する上限に従い、リクエストの送信数を制限するクラスです。
+ * <p>
+ * 実行許可は {@link PermitStore} から一定数の束として借り受け、借り受けた実行許可を使い切るまではストアへアクセスせずにリクエストを許可します。
+ * 束のサイズを大きくするとストアへのアクセス回数は減りますが、期間の終了時に使われずに失効する実行許可が増えます。
+ * 期間内の実行許可を使い切った場合は次の期間まで待機し、待機時間が上限を超える場合はリクエストを拒否します。
+ * <p>
+ * 実行許可は {@link Resource#getResource()} メソッドが返却する値ごとに管理されます。全てのリソースで上限を共有する場合は
+ * {@link Builder#withSharedQuota()} メソッドを呼び出してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * DistributedRateLimiter rateLimiter = DistributedRateLimiter.builder().of(store)
+ *         .withLimit(6000, Duration.ofMinutes(1)).withLeaseSize(20).build();
+ * ApiContext context = ApiContext.builder().withRateLimiter(rateLimiter).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class DistributedRateLimiter {
+
+    /**
+     * 全てのリソースで共有する上限のキー
+     */
+    private static final String SHARED_KEY = "*";
+
+    /**
+     * 実行許可の貸し出し元
+     */
+    private PermitStore store;
+
+    /**
+     * キーの接頭辞
+     */
+    private String namespace;
+
+    /**
+     * 期間ごとの上限
+     */
+    private int limit;
+
+    /**
+     * 期間の長さ（ミリ秒）
+     */
+    private long windowMillis;
+
+    /**
+     * 一度に借り受ける実行許可の数
+     */
+    private int leaseSize;
+
+    /**
+     * 実行許可を待機する時間の上限（ミリ秒）
+     */
+    private long maxWaitMillis;
+
+    /**
+     * 全てのリソースで上限を共有するか否か
+     */
+    private boolean sharedQuota;
+
+    /**
+     * キーごとに借り受けた実行許可
+     */
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * ストアへのアクセス回数
+     */
+    private final LongAdder storeAccessCount = new LongAdder();
+
+    /**
+     * 拒否したリクエストの数
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private DistributedRateLimiter() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link DistributedRateLimiter} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 実行許可の貸し出し元
+         */
+        private PermitStore store;
+
+        /**
+         * キーの接頭辞
+         */
+        private String namespace = "rate-limit";
+
+        /**
+         * 期間ごとの上限
+         */
+        private int limit;
+
+        /**
+         * 期間の長さ
+         */
+        private Duration window;
+
+        /**
+         * 一度に借り受ける実行許可の数
+         */
+        private int leaseSize = 10;
+
+        /**
+         * 実行許可を待機する時間の上限
+         */
+        private Duration maxWait;
+
+        /**
+         * 全てのリソースで上限を共有するか否か
+         */
+        private boolean sharedQuota;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 実行許可の貸し出し元を設定します。
+         *
+         * @param store 実行許可の貸し出し元
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull PermitStore store) {
+            this.store = store;
+            return this;
+        }
+
+        /**
+         * ストアに保存するキーの接頭辞を設定します。同一のストアを異なる上限の送信先で共有する場合に設定してください。
+         *
+         * @param namespace キーの接頭辞
+         * @return 自分自身のインスタンス
+         */
+        public Builder withNamespace(@NonNull String namespace) {
+            this.namespace = namespace;
+            return this;
+        }
+
+        /**
+         * 期間ごとのリクエスト数の上限を設定します。
+         *
+         * @param limit  期間ごとの上限
+         * @param window 期間の長さ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 上限として {@code 0} 以下の値が渡された場合、または期間の長さとして
+         *                                      {@code 1} ミリ秒未満の期間が渡された場合
+         */
+        public Builder withLimit(int limit, @NonNull Duration window) {
+
+            if (limit <= 0 || window.toMillis() <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.limit = limit;
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * 一度に借り受ける実行許可の数を設定します。初期設定として {@code 10} が設定されています。
+         *
+         * @param leaseSize 一度に借り受ける実行許可の数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withLeaseSize(int leaseSize) {
+
+            if (leaseSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.leaseSize = leaseSize;
+            return this;
+        }
+
+        /**
+         * 実行許可を待機する時間の上限を設定します。このメソッドを呼び出さない場合は期間の長さが上限として使用されます。
+         *
+         * @param maxWait 実行許可を待機する時間の上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負の期間が渡された場合
+         */
+        public Builder withMaxWait(@NonNull Duration maxWait) {
+
+            if (maxWait.isNegative()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * 全てのリソースで上限を共有するように設定します。
+         *
+         * @return 自分自身のインスタンス
+         */
+        public Builder withSharedQuota() {
+            this.sharedQuota = true;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link DistributedRateLimiter} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link DistributedRateLimiter} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(PermitStore)} メソッド、または
+         *                                      {@link #withLimit(int, Duration)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public DistributedRateLimiter build() {
+
+            if (this.store == null || this.window == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final DistributedRateLimiter rateLimiter = new DistributedRateLimiter();
+            rateLimiter.store = this.store;
+            rateLimiter.namespace = this.namespace;
+            rateLimiter.limit = this.limit;
+            rateLimiter.windowMillis = this.window.toMillis();
+            rateLimiter.leaseSize = Math.min(this.leaseSize, this.limit);
+            rateLimiter.maxWaitMillis = (this.maxWait != null ? this.maxWait : this.window).toMillis();
+            rateLimiter.sharedQuota = this.sharedQuota;
+
+            return rateLimiter;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対するリクエストの実行許可を取得します。実行許可が残っていない場合は次の期間まで待機します。
+     *
+     * @param resource リクエスト対象のリソース。リソースが定義されていない場合は {@code null}
+     *
+     * @exception RequestRejectedException 待機時間が上限を超える場合、または待機中に割り込みが発生した場合
+     */
+    public void acquire(Resource resource) {
+
+        final String key = this.namespace + ":"
+                + (this.sharedQuota || resource == null ? SHARED_KEY : resource.getResource());
+        final LocalLease lease = this.leases.computeIfAbsent(key, k -> new LocalLease());
+        final long deadline = System.currentTimeMillis() + this.maxWaitMillis;
+
+        synchronized (lease) {
+            while (true) {
+                final long now = System.currentTimeMillis();
+
+                if (lease.remaining > 0 && now < lease.expiresAt) {
+                    lease.remaining--;
+                    return;
+                }
+
+                if (!lease.exhausted || now >= lease.expiresAt) {
+                    final PermitLease permitLease = this.store.lease(key, this.leaseSize, this.limit,
+                            this.windowMillis);
+                    this.storeAccessCount.increment();
+
+                    lease.remaining = permitLease.getGranted();
+                    lease.expiresAt = permitLease.getExpiresAt();
+                    lease.exhausted = permitLease.getGranted() < this.leaseSize;
+
+                    if (lease.remaining > 0) {
+                        lease.remaining--;
+                        return;
+                    }
+                }
+
+                if (lease.expiresAt > deadline) {
+                    this.rejectedCount.increment();
+                    throw new RequestRejectedException(
+                            String.format("No permits are available for %s until the next window", key));
+                }
+
+                try {
+                    lease.wait(Math.max(lease.expiresAt - now, 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.rejectedCount.increment();
+                    throw new RequestRejectedException("Interrupted while waiting for a permit");
+                }
+            }
+        }
+    }
+
+    /**
+     * ストアへアクセスした回数を返却します。
+     *
+     * @return ストアへのアクセス回数
+     */
+    public long getStoreAccessCount() {
+        return this.storeAccessCount.sum();
+    }
+
+    /**
+     * 拒否したリクエストの数を返却します。
+     *
+     * @return 拒否したリクエストの数
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+    /**
+     * このインスタンスが借り受けた実行許可の状態を保持するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class LocalLease {
+
+        /**
+         * 残りの実行許可の数
+         */
+        private int remaining;
+
+        /**
+         * 実行許可が有効な期間の終了日時（エポックミリ秒）
+         */
+        private long expiresAt;
+
+        /**
+         * 現在の期間の実行許可を使い切ったか否か
+         */
+        private boolean exhausted;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.ratelimit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.NonNull;
+
+/**
+ * 実行許可の数をファイルで管理し、ファイルロックで排他制御する {@link PermitStore} の実装クラスです。
+ * <p>
+ * 同一のホスト上で動作する複数のプロセスで実行許可を共有する場合、または外部ストアを使用せずに分散環境での動作を確認する場合に使用します。
+ * キーごとに1つのファイルが作成され、期間の開始日時と使用済みの実行許可の数が記録されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * PermitStore store = FilePermitStore.of(Path.of("/var/run/api-permits"));
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class FilePermitStore implements PermitStore {
+
+    /**
+     * 記録のバイト数
+     */
+    private static final int RECORD_SIZE = 16;
+
+    /**
+     * ファイルを格納するディレクトリ
+     */
+    private final Path directory;
+
+    /**
+     * 同一のJVM内での排他制御に使用するキーごとのロック
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param directory ファイルを格納するディレクトリ
+     */
+    private FilePermitStore(@NonNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 引数として渡された {@code directory} にファイルを格納する {@link FilePermitStore} を生成し返却します。
+     *
+     * @param directory ファイルを格納するディレクトリ
+     * @return {@link FilePermitStore} クラスの新しいインスタンス
+     *
+     * @throws UncheckedIOException ディレクトリの作成に失敗した場合
+     */
+    public static FilePermitStore of(@NonNull Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new FilePermitStore(directory);
+    }
+
+    @Override
+    public PermitLease lease(@NonNull String key, int requested, int limit, long windowMillis) {
+
+        final Path path = this.directory
+                .resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".permits");
+
+        synchronized (this.locks.computeIfAbsent(key, k -> new Object())) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                final FileLock lock = channel.lock();
+
+                try {
+                    final long now = System.currentTimeMillis();
+                    final long windowStart = now - now % windowMillis;
+                    final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+                    int read = 0;
+
+                    while (read < RECORD_SIZE) {
+                        final int count = channel.read(record, read);
+
+                        if (count < 0) {
+                            break;
+                        }
+
+                        read += count;
+                    }
+
+                    long used = 0;
+
+                    if (read == RECORD_SIZE && record.getLong(0) == windowStart) {
+                        used = record.getLong(Long.BYTES);
+                    }
+
+                    final int granted = (int) Math.max(Math.min(requested, limit - used), 0);
+                    record.clear();
+                    record.putLong(windowStart).putLong(used + granted).flip();
+
+                    while (record.hasRemaining()) {
+                        channel.write(record, record.position());
+                    }
+
+                    return new PermitLease(granted, windowStart + windowMillis);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
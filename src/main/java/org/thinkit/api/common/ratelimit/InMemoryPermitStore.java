@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.NonNull;
+
+/**
+ * 実行許可の数をメモリ上で管理する {@link PermitStore} の実装クラスです。
+ * <p>
+ * 同一のJVM内で動作する複数の {@link DistributedRateLimiter} で実行許可を共有する場合、またはテストで使用します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class InMemoryPermitStore implements PermitStore {
+
+    /**
+     * キーごとの実行許可の使用状況
+     */
+    private final Map<String, long[]> windows = new ConcurrentHashMap<>();
+
+    @Override
+    public PermitLease lease(@NonNull String key, int requested, int limit, long windowMillis) {
+
+        final long now = System.currentTimeMillis();
+        final long windowStart = now - now % windowMillis;
+        final int[] granted = new int[1];
+
+        this.windows.compute(key, (k, window) -> {
+            final long[] current = window == null || window[0] != windowStart ? new long[] { windowStart, 0 } : window;
+            granted[0] = (int) Math.max(Math.min(requested, limit - current[1]), 0);
+            current[1] += granted[0];
+            return current;
+        });
+
+        return new PermitLease(granted[0], windowStart + windowMillis);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.ratelimit;
+
+/**
+ * 複数のインスタンスで共有する実行許可の数を管理する処理を抽象化したインターフェースです。
+ * <p>
+ * 実行許可は壁時計の時刻で区切られた固定長の期間ごとに {@code limit} 件まで貸し出されます。期間の区切りは全てのインスタンスで一致するように
+ * エポックミリ秒を期間の長さで割った値で決定してください。Redisなどの外部ストアを使用する場合はこのインターフェースを実装してください。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public interface PermitStore {
+
+    /**
+     * 引数として渡された {@code key} の現在の期間の残りの実行許可から最大 {@code requested} 件を貸し出します。
+     *
+     * @param key          実行許可を共有する単位を識別するキー
+     * @param requested    要求する実行許可の数
+     * @param limit        期間ごとの実行許可の上限
+     * @param windowMillis 期間の長さ（ミリ秒）
+     * @return 貸し出された実行許可。残りの実行許可が存在しない場合は貸し出された数が {@code 0} の実行許可
+     *
+     * @exception java.io.UncheckedIOException ストアへのアクセスに失敗した場合
+     */
+    public PermitLease lease(String key, int requested, int limit, long windowMillis);
+}
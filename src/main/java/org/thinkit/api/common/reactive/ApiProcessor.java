@@ -0,0 +1,610 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.reactive;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.ApiResult;
+import org.thinkit.api.common.InvalidContextStateException;
+
+import lombok.NonNull;
+
+/**
+ * 上流から受け取った要素ごとに共有の {@link ApiContext} を介してAPIを実行し、実行結果を下流へ発行する {@link Flow.Processor} です。
+ * <p>
+ * 上流へは最大同時実行数を上限として要素を要求し、実行結果を下流へ発行するごとに同数の要素を追加で要求します。
+ * そのため実行中、または発行待ちの要素数は常に最大同時実行数以下に保たれ、下流の要求数を超えて実行結果を発行することはありません。
+ * <p>
+ * 実行結果は初期設定では実行が完了した順に発行されます。 {@link Builder#withOrderedEmission()}
+ * メソッドを呼び出した場合は上流から受け取った順に発行されます。APIの実行中に送出された例外は {@link ItemResult#getError()}
+ * として発行され、ストリームは継続されます。上流でエラーが発生した場合は、実行中の要素の結果を発行した後に下流へエラーを通知します。
+ * <p>
+ * このクラスは1つの上流と1つの下流にのみ対応しています。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ApiContext context = ApiContext.builder().withRetry().build();
+ * ApiProcessor&lt;RequestParameter&gt; processor = ApiProcessor.&lt;RequestParameter&gt;builder()
+ *         .of(context, parameter -&gt; new ConcreteApi(parameter)).withMaxInFlight(32).withOrderedEmission().build();
+ * publisher.subscribe(processor);
+ * processor.subscribe(subscriber);
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ *
+ * @param <T> 上流から受け取る要素の型
+ */
+public final class ApiProcessor<T> implements Flow.Processor<T, ItemResult<T>> {
+
+    /**
+     * 全ての要素の実行で共有するコンテキスト
+     */
+    private ApiContext context;
+
+    /**
+     * 要素ごとのAPIオブジェクトを生成する関数
+     */
+    private Function<? super T, Communicable> apiFactory;
+
+    /**
+     * 最大同時実行数
+     */
+    private int maxInFlight;
+
+    /**
+     * 上流から受け取った順に発行するか否か
+     */
+    private boolean ordered;
+
+    /**
+     * APIを実行するエグゼキューター。設定されていない場合は {@code null}
+     */
+    private Executor executor;
+
+    /**
+     * このクラスが生成したエグゼキューター
+     */
+    private ExecutorService ownedExecutor;
+
+    /**
+     * 発行待ちの要素
+     */
+    private final Queue<Slot<T>> slots = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 下流の未処理の要求数
+     */
+    private final AtomicLong demand = new AtomicLong();
+
+    /**
+     * 発行処理の実行要求数
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /**
+     * 上流から受け取り、まだ下流へ発行していない要素数
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /**
+     * 上流のサブスクリプション
+     */
+    private volatile Flow.Subscription upstream;
+
+    /**
+     * 下流のサブスクライバー
+     */
+    private volatile Flow.Subscriber<? super ItemResult<T>> downstream;
+
+    /**
+     * 上流が終了したか否か
+     */
+    private volatile boolean upstreamDone;
+
+    /**
+     * 上流で発生したエラー
+     */
+    private volatile Throwable upstreamError;
+
+    /**
+     * 下流からの不正な要求により発生したエラー
+     */
+    private volatile Throwable requestError;
+
+    /**
+     * 下流が購読を取り消したか否か
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 上流への要求を開始したか否か
+     */
+    private boolean started;
+
+    /**
+     * 下流へ終了を通知したか否か
+     */
+    private boolean terminated;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private ApiProcessor() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @param <T> 上流から受け取る要素の型
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * {@link ApiProcessor} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     *
+     * @param <T> 上流から受け取る要素の型
+     */
+    public static class Builder<T> {
+
+        /**
+         * 全ての要素の実行で共有するコンテキスト
+         */
+        private ApiContext context;
+
+        /**
+         * 要素ごとのAPIオブジェクトを生成する関数
+         */
+        private Function<? super T, Communicable> apiFactory;
+
+        /**
+         * 最大同時実行数
+         */
+        private int maxInFlight = 16;
+
+        /**
+         * 上流から受け取った順に発行するか否か
+         */
+        private boolean ordered;
+
+        /**
+         * APIを実行するエグゼキューター
+         */
+        private Executor executor;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 全ての要素の実行で共有するコンテキストと、要素ごとのAPIオブジェクトを生成する関数を設定します。
+         *
+         * @param context    全ての要素の実行で共有するコンテキスト
+         * @param apiFactory 上流から受け取った要素を基に {@link Communicable} を生成する関数
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> of(@NonNull ApiContext context, @NonNull Function<? super T, Communicable> apiFactory) {
+            this.context = context;
+            this.apiFactory = apiFactory;
+            return this;
+        }
+
+        /**
+         * 同時に実行するAPIの最大数を設定します。最大同時実行数は初期設定として {@code 16} が設定されています。
+         *
+         * @param maxInFlight 最大同時実行数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder<T> withMaxInFlight(int maxInFlight) {
+
+            if (maxInFlight <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * 実行結果を上流から受け取った順に発行するように設定します。
+         * <p>
+         * 先頭の要素の実行が完了するまで後続の実行結果は発行されないため、実行時間のばらつきが大きい場合はスループットが低下します。
+         *
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withOrderedEmission() {
+            this.ordered = true;
+            return this;
+        }
+
+        /**
+         * APIを実行するエグゼキューターを設定します。
+         * <p>
+         * このメソッドを呼び出さない場合は最大同時実行数と同数のスレッドを持つスレッドプールを生成し、ストリームの終了時に停止します。
+         * 設定されたエグゼキューターはストリームの終了時に停止しません。
+         *
+         * @param executor APIを実行するエグゼキューター
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link ApiProcessor} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link ApiProcessor} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(ApiContext, Function)} メソッドが呼び出されていない場合
+         */
+        public ApiProcessor<T> build() {
+
+            if (this.context == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final ApiProcessor<T> processor = new ApiProcessor<>();
+            processor.context = this.context;
+            processor.apiFactory = this.apiFactory;
+            processor.maxInFlight = this.maxInFlight;
+            processor.ordered = this.ordered;
+            processor.executor = this.executor;
+
+            return processor;
+        }
+    }
+
+    @Override
+    public void subscribe(@NonNull Flow.Subscriber<? super ItemResult<T>> subscriber) {
+
+        synchronized (this) {
+            if (this.downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("ApiProcessor supports only one subscriber"));
+                return;
+            }
+
+            this.downstream = subscriber;
+        }
+
+        subscriber.onSubscribe(new DownstreamSubscription());
+        this.start();
+    }
+
+    @Override
+    public void onSubscribe(@NonNull Flow.Subscription subscription) {
+
+        synchronized (this) {
+            if (this.upstream != null) {
+                subscription.cancel();
+                return;
+            }
+
+            this.upstream = subscription;
+        }
+
+        this.start();
+    }
+
+    @Override
+    public void onNext(@NonNull T item) {
+
+        if (this.cancelled) {
+            return;
+        }
+
+        this.outstanding.incrementAndGet();
+        final Slot<T> slot = new Slot<>(item);
+
+        if (this.ordered) {
+            this.slots.offer(slot);
+        }
+
+        try {
+            this.executor.execute(() -> this.execute(slot));
+        } catch (RejectedExecutionException e) {
+            this.complete(slot, null, e);
+        }
+    }
+
+    @Override
+    public void onError(@NonNull Throwable throwable) {
+        this.upstreamError = throwable;
+        this.upstreamDone = true;
+        this.drain();
+    }
+
+    @Override
+    public void onComplete() {
+        this.upstreamDone = true;
+        this.drain();
+    }
+
+    /**
+     * 上流と下流の両方が揃った時点で上流への要求を開始します。
+     */
+    private synchronized void start() {
+
+        if (this.started || this.upstream == null || this.downstream == null) {
+            return;
+        }
+
+        this.started = true;
+
+        if (this.cancelled) {
+            this.upstream.cancel();
+            return;
+        }
+
+        if (this.executor == null) {
+            this.ownedExecutor = Executors.newFixedThreadPool(this.maxInFlight);
+            this.executor = this.ownedExecutor;
+        }
+
+        this.upstream.request(this.maxInFlight);
+        this.drain();
+    }
+
+    /**
+     * 引数として渡された {@code slot} の要素に対してAPIを実行します。
+     *
+     * @param slot 実行対象の要素
+     */
+    private void execute(@NonNull Slot<T> slot) {
+
+        if (this.cancelled) {
+            return;
+        }
+
+        try {
+            this.complete(slot, this.context.sendForResult(this.apiFactory.apply(slot.item)), null);
+        } catch (RuntimeException e) {
+            this.complete(slot, null, e);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code slot} を完了状態にし、発行可能な実行結果を下流へ発行します。
+     *
+     * @param slot   完了した要素
+     * @param result APIの実行結果
+     * @param error  APIの実行中に送出された例外
+     */
+    private void complete(@NonNull Slot<T> slot, ApiResult result, Throwable error) {
+
+        slot.result = result;
+        slot.error = error;
+        slot.done = true;
+
+        if (!this.ordered) {
+            this.slots.offer(slot);
+        }
+
+        this.drain();
+    }
+
+    /**
+     * 下流の要求数の範囲で発行可能な実行結果を発行し、発行した数だけ上流へ要素を要求します。
+     * 上流が終了し全ての実行結果を発行した場合は下流へ終了を通知します。
+     * <p>
+     * このメソッドは複数のスレッドから呼び出されますが、下流への通知は常に1つのスレッドから逐次的に行われます。
+     */
+    private void drain() {
+
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        do {
+            final Flow.Subscriber<? super ItemResult<T>> subscriber = this.downstream;
+
+            if (this.cancelled) {
+                this.slots.clear();
+            } else if (subscriber != null && !this.terminated) {
+                this.emit(subscriber);
+            }
+
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 発行可能な実行結果を下流へ発行します。このメソッドは {@link #drain()} メソッドからのみ呼び出されます。
+     *
+     * @param subscriber 下流のサブスクライバー
+     */
+    private void emit(@NonNull Flow.Subscriber<? super ItemResult<T>> subscriber) {
+
+        if (this.requestError != null) {
+            this.terminate();
+
+            if (this.upstream != null) {
+                this.upstream.cancel();
+            }
+
+            subscriber.onError(this.requestError);
+            return;
+        }
+
+        final long requested = this.demand.get();
+        long emitted = 0;
+
+        while (emitted != requested && !this.cancelled) {
+            final Slot<T> head = this.slots.peek();
+
+            if (head == null || !head.done) {
+                break;
+            }
+
+            this.slots.poll();
+            subscriber.onNext(new ItemResult<>(head.item, head.result, head.error));
+            emitted++;
+        }
+
+        if (emitted > 0) {
+            if (requested != Long.MAX_VALUE) {
+                this.demand.addAndGet(-emitted);
+            }
+
+            this.outstanding.addAndGet((int) -emitted);
+
+            if (!this.upstreamDone && !this.cancelled) {
+                this.upstream.request(emitted);
+            }
+        }
+
+        if (this.upstreamDone && this.outstanding.get() == 0) {
+            this.terminate();
+
+            if (this.upstreamError != null) {
+                subscriber.onError(this.upstreamError);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    /**
+     * 終了状態にし、このクラスが生成したエグゼキューターを停止します。
+     */
+    private void terminate() {
+
+        this.terminated = true;
+
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 下流へ渡すサブスクリプションです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                requestError = new IllegalArgumentException(
+                        String.format("Non-positive subscription request: %d", n));
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+
+            cancelled = true;
+
+            synchronized (ApiProcessor.this) {
+                if (upstream != null && started) {
+                    upstream.cancel();
+                }
+
+                if (ownedExecutor != null) {
+                    ownedExecutor.shutdown();
+                }
+            }
+
+            drain();
+        }
+    }
+
+    /**
+     * 上流から受け取った1要素の実行状態を保持するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     *
+     * @param <T> 要素の型
+     */
+    private static final class Slot<T> {
+
+        /**
+         * 要素
+         */
+        private final T item;
+
+        /**
+         * APIの実行結果
+         */
+        private ApiResult result;
+
+        /**
+         * APIの実行中に送出された例外
+         */
+        private Throwable error;
+
+        /**
+         * 実行が完了したか否か
+         */
+        private volatile boolean done;
+
+        /**
+         * コンストラクタ
+         *
+         * @param item 要素
+         */
+        Slot(@NonNull T item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.reactive;
+
+import org.thinkit.api.common.ApiResult;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * {@link ApiProcessor} が入力された要素ごとに発行する処理結果を表すクラスです。
+ * <p>
+ * APIの実行中に例外が送出された場合は {@link #getResult()} メソッドは {@code null} を返却し、送出された例外は
+ * {@link #getError()} メソッドで参照することができます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ *
+ * @param <T> 入力された要素の型
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ItemResult<T> {
+
+    /**
+     * 入力された要素
+     */
+    @Getter
+    private final T item;
+
+    /**
+     * APIの実行結果。例外が送出された場合は {@code null}
+     */
+    @Getter
+    private final ApiResult result;
+
+    /**
+     * APIの実行中に送出された例外。例外が送出されなかった場合は {@code null}
+     */
+    @Getter
+    private final Throwable error;
+
+    /**
+     * APIの実行に成功したか判定します。
+     *
+     * @return 例外が送出されず、かつHTTPステータスが {@code 200} の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isSuccess() {
+        return this.error == null && this.result.isSuccess();
+    }
+}
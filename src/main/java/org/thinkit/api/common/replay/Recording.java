@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.replay;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 記録された1回分のリクエストとレスポンスを表すクラスです。
+ * <p>
+ * リクエストの送信時に例外が送出された場合は、レスポンスの代わりに送出された例外の型とメッセージが記録されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(exclude = { "requestBody", "body" })
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class Recording {
+
+    /**
+     * リクエストを一意に識別するキー。APIオブジェクトにキーが定義されていない場合はHTTPメソッドとURIから生成したキー、
+     * それも取得できない場合は {@code null}
+     */
+    @Getter
+    private final String requestKey;
+
+    /**
+     * HTTPメソッド。取得できない場合は {@code null}
+     */
+    @Getter
+    private final String method;
+
+    /**
+     * リクエストのURI。取得できない場合は {@code null}
+     */
+    @Getter
+    private final String uri;
+
+    /**
+     * リクエストヘッダー。認証情報の値は伏せ字に置き換えられます
+     */
+    @Getter
+    @NonNull
+    private final Map<String, List<String>> requestHeaders;
+
+    /**
+     * リクエストボディ。リクエストボディが存在しない場合、または取得できない場合は {@code null}
+     */
+    @Getter
+    private final String requestBody;
+
+    /**
+     * ステータスコード。送信に失敗した場合は {@code 0}
+     */
+    @Getter
+    private final int statusCode;
+
+    /**
+     * レスポンスヘッダー
+     */
+    @Getter
+    @NonNull
+    private final Map<String, List<String>> headers;
+
+    /**
+     * レスポンスボディ
+     */
+    @Getter
+    private final String body;
+
+    /**
+     * リクエストの送信からレスポンスの受信、または例外の送出までの所要時間（ナノ秒）
+     */
+    @Getter
+    private final long elapsedNanos;
+
+    /**
+     * 送信時に送出された例外のクラス名。送信に成功した場合は {@code null}
+     */
+    @Getter
+    private final String failureType;
+
+    /**
+     * 送信時に送出された例外の原因のクラス名。原因が存在しない場合は {@code null}
+     */
+    @Getter
+    private final String failureCauseType;
+
+    /**
+     * 送信時に送出された例外のメッセージ
+     */
+    @Getter
+    private final String failureMessage;
+
+    /**
+     * リクエストの送信に失敗した記録か判定します。
+     *
+     * @return リクエストの送信に失敗した記録の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isFailed() {
+        return this.failureType != null;
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.entity.RequestParameter;
+
+import lombok.NonNull;
+
+/**
+ * {@link Communicable} を装飾し、送信したリクエストと受信したレスポンスを記録するクラスです。
+ * <p>
+ * リクエストのHTTPメソッド、URI、ヘッダー、ボディと、レスポンスのステータスコード、ヘッダー、ボディ、所要時間は
+ * {@link RecordingWriter} を介してファイルへ書き込まれます。記録したファイルは {@link ReplayTransport} で再生することができます。
+ * <p>
+ * HTTPメソッド、リクエストヘッダー、リクエストボディはレスポンスが {@link HttpResponse#request()} を返却する場合のみ記録され、
+ * それ以外の場合は {@link RequestOptions} に設定された接続先とリクエストヘッダーを記録します。リクエストボディは {@code UTF-8}
+ * の文字列として記録され、 {@code Authorization} ヘッダーと {@code Proxy-Authorization} ヘッダーの値は伏せ字に置き換えられます。
+ * 送信時に例外が送出された場合は、例外の型とメッセージを記録した上で例外をそのまま送出します。
+ * <p>
+ * APIオブジェクトにリクエストキーが定義されていない場合は、HTTPメソッドとURIから生成したキーで記録します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * try (RecordingWriter writer = RecordingWriter.open(Path.of("recording.bin"))) {
+ *     Communicable api = RecordingCommunicable.builder().of(new ConcreteApi()).withWriter(writer).build();
+ *     ApiContext.builder().of(api).build().send();
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class RecordingCommunicable implements Communicable {
+
+    /**
+     * 伏せ字に置き換えるリクエストヘッダー
+     */
+    private static final List<String> REDACTED_HEADERS = List.of("Authorization", "Proxy-Authorization");
+
+    /**
+     * 伏せ字
+     */
+    private static final String REDACTED = "<redacted>";
+
+    /**
+     * リクエストボディの読み込みを待機する時間（秒）
+     */
+    private static final long BODY_TIMEOUT_SECONDS = 5;
+
+    /**
+     * 装飾対象のAPIオブジェクト
+     */
+    private Communicable api;
+
+    /**
+     * 記録の書き込み先
+     */
+    private RecordingWriter writer;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private RecordingCommunicable() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link RecordingCommunicable} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 装飾対象のAPIオブジェクト
+         */
+        private Communicable api;
+
+        /**
+         * 記録の書き込み先
+         */
+        private RecordingWriter writer;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 装飾対象のAPIオブジェクトを設定します。
+         *
+         * @param api APIオブジェクト
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull Communicable api) {
+            this.api = api;
+            return this;
+        }
+
+        /**
+         * 記録の書き込み先を設定します。
+         *
+         * @param writer 記録の書き込み先
+         * @return 自分自身のインスタンス
+         */
+        public Builder withWriter(@NonNull RecordingWriter writer) {
+            this.writer = writer;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link RecordingCommunicable} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link RecordingCommunicable} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(Communicable)} メソッド、または
+         *                                      {@link #withWriter(RecordingWriter)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public RecordingCommunicable build() {
+
+            if (this.api == null || this.writer == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final RecordingCommunicable recordingCommunicable = new RecordingCommunicable();
+            recordingCommunicable.api = this.api;
+            recordingCommunicable.writer = this.writer;
+
+            return recordingCommunicable;
+        }
+    }
+
+    @Override
+    public HttpResponse<String> send() {
+        return this.send(RequestOptions.empty());
+    }
+
+    @Override
+    public HttpResponse<String> send(@NonNull RequestOptions options) {
+
+        final long startedAt = System.nanoTime();
+        final HttpResponse<String> response;
+
+        try {
+            response = this.api.send(options);
+        } catch (RuntimeException e) {
+            this.writer.write(this.record(options, null, System.nanoTime() - startedAt, e));
+            throw e;
+        }
+
+        this.writer.write(this.record(options, response, System.nanoTime() - startedAt, null));
+
+        return response;
+    }
+
+    /**
+     * 1回分のリクエストと、レスポンスまたは送信時に送出された例外から記録を生成します。
+     *
+     * @param options      通信時のオプション
+     * @param response     受信したレスポンス。送信に失敗した場合は {@code null}
+     * @param elapsedNanos 所要時間（ナノ秒）
+     * @param failure      送信時に送出された例外。送信に成功した場合は {@code null}
+     * @return 生成された記録
+     */
+    private Recording record(@NonNull RequestOptions options, HttpResponse<String> response, long elapsedNanos,
+            RuntimeException failure) {
+
+        final HttpRequest request = response != null ? response.request() : null;
+        final String method = request != null ? request.method() : null;
+        final URI uri = request != null ? request.uri()
+                : response != null && response.uri() != null ? response.uri() : options.getBaseUri();
+
+        final Map<String, List<String>> requestHeaders = new LinkedHashMap<>();
+
+        if (request != null) {
+            requestHeaders.putAll(request.headers().map());
+        } else {
+            options.getHeaders().forEach((name, value) -> requestHeaders.put(name, List.of(value)));
+        }
+
+        requestHeaders.replaceAll((name, values) -> REDACTED_HEADERS.stream().anyMatch(name::equalsIgnoreCase)
+                ? Collections.nCopies(values.size(), REDACTED)
+                : values);
+
+        String requestKey = this.api.getRequestKey();
+
+        if (requestKey == null && uri != null) {
+            requestKey = method != null ? method + " " + uri : uri.toString();
+        }
+
+        final Throwable cause = failure != null ? failure.getCause() : null;
+
+        return new Recording(requestKey, method, uri != null ? uri.toString() : null,
+                Collections.unmodifiableMap(requestHeaders), request != null ? readBody(request) : null,
+                response != null ? response.statusCode() : 0,
+                response != null ? response.headers().map() : Collections.emptyMap(),
+                response != null ? response.body() : null, elapsedNanos,
+                failure != null ? failure.getClass().getName() : null,
+                cause != null ? cause.getClass().getName() : null, failure != null ? failure.getMessage() : null);
+    }
+
+    /**
+     * 引数として渡された {@code request} のリクエストボディを {@code UTF-8} の文字列として読み込みます。
+     *
+     * @param request リクエスト
+     * @return リクエストボディ。リクエストボディが存在しない場合、または読み込みに失敗した場合は {@code null}
+     */
+    private static String readBody(@NonNull HttpRequest request) {
+
+        final Optional<HttpRequest.BodyPublisher> publisher = request.bodyPublisher();
+
+        if (publisher.isEmpty() || publisher.get().contentLength() == 0) {
+            return null;
+        }
+
+        final BodyCollector collector = new BodyCollector();
+        publisher.get().subscribe(collector);
+
+        try {
+            return collector.future.get(BODY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String createQuery(@NonNull RequestParameter requestParameter) {
+        return this.api.createQuery(requestParameter);
+    }
+
+    @Override
+    public Resource getResource() {
+        return this.api.getResource();
+    }
+
+    @Override
+    public RequestParameter getRequestParameter() {
+        return this.api.getRequestParameter();
+    }
+
+    @Override
+    public String getRequestKey() {
+        return this.api.getRequestKey();
+    }
+
+    /**
+     * リクエストボディを購読し、全てのバイト列を {@code UTF-8} の文字列として収集するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class BodyCollector implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * 収集したバイト列
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * 収集したリクエストボディ
+         */
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            final byte[] chunk = new byte[item.remaining()];
+            item.get(chunk);
+            this.bytes.writeBytes(chunk);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.future.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            this.future.complete(new String(this.bytes.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import lombok.NonNull;
+
+/**
+ * {@link Recording} をバイナリ形式でファイルへ書き込むクラスです。
+ * <p>
+ * 書き込みはスレッドセーフに行われるため、複数の {@link RecordingCommunicable} で1つのインスタンスを共有することができます。
+ * 書き込まれたファイルは {@link ReplayTransport} で読み込むことができます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class RecordingWriter implements Closeable {
+
+    /**
+     * ファイルの識別子
+     */
+    static final int MAGIC = 0x41505252;
+
+    /**
+     * ファイル形式のバージョン
+     */
+    static final int VERSION = 2;
+
+    /**
+     * 出力ストリーム
+     */
+    private final DataOutputStream output;
+
+    /**
+     * コンストラクタ
+     *
+     * @param output 出力ストリーム
+     */
+    private RecordingWriter(@NonNull DataOutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * 引数として渡された {@code path} へ書き込む {@link RecordingWriter} を生成します。ファイルが既に存在する場合は上書きします。
+     *
+     * @param path 書き込み先のファイル
+     * @return {@link RecordingWriter} クラスの新しいインスタンス
+     *
+     * @throws UncheckedIOException ファイルの生成に失敗した場合
+     */
+    public static RecordingWriter open(@NonNull Path path) {
+        try {
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+
+            return new RecordingWriter(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code recording} をファイルへ書き込みます。
+     *
+     * @param recording 書き込む記録
+     *
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    public synchronized void write(@NonNull Recording recording) {
+        try {
+            this.writeString(recording.getRequestKey());
+            this.writeString(recording.getMethod());
+            this.writeString(recording.getUri());
+            this.writeHeaders(recording.getRequestHeaders());
+            this.writeString(recording.getRequestBody());
+            this.output.writeInt(recording.getStatusCode());
+            this.output.writeLong(recording.getElapsedNanos());
+            this.writeHeaders(recording.getHeaders());
+            this.writeString(recording.getBody());
+            this.writeString(recording.getFailureType());
+            this.writeString(recording.getFailureCauseType());
+            this.writeString(recording.getFailureMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * バッファリングされた記録をファイルへ書き込みます。
+     *
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    public synchronized void flush() {
+        try {
+            this.output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.output.close();
+    }
+
+    /**
+     * ヘッダーの件数と、ヘッダー名ごとの値の件数と値を書き込みます。
+     *
+     * @param headers 書き込むヘッダー
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void writeHeaders(@NonNull Map<String, List<String>> headers) throws IOException {
+
+        this.output.writeInt(headers.size());
+
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            this.writeString(header.getKey());
+            this.output.writeInt(header.getValue().size());
+
+            for (String value : header.getValue()) {
+                this.writeString(value);
+            }
+        }
+    }
+
+    /**
+     * 文字列をバイト長と {@code UTF-8} 形式のバイト列で書き込みます。 {@code null} の場合はバイト長として {@code -1} を書き込みます。
+     *
+     * @param value 書き込む文字列
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void writeString(String value) throws IOException {
+
+        if (value == null) {
+            this.output.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.output.writeInt(bytes.length);
+        this.output.write(bytes);
+    }
+}
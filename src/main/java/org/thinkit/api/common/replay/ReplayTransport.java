@@ -0,0 +1,498 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.entity.RequestParameter;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+import lombok.NonNull;
+
+/**
+ * {@link RecordingCommunicable} で記録したファイルを読み込み、ネットワークを使用せずにレスポンスを再生するクラスです。
+ * <p>
+ * 再生時は記録された所要時間に {@link Builder#withTimeScale(double)} で設定した倍率を掛けた時間だけ待機してからレスポンスを返却します。
+ * 倍率に {@code 0} を設定した場合は待機せずに即座にレスポンスを返却します。
+ * <p>
+ * {@link #replay(Communicable)} メソッドはAPIオブジェクトのリクエストキーに対応する記録を、
+ * {@link #sequential()} メソッドは記録された順に記録を返却する {@link Communicable} を生成します。
+ * 同一のキーに複数の記録が存在する場合は記録された順に循環して返却します。
+ * <p>
+ * 送信に失敗した記録を再生する場合は、記録された例外と同じ種類の例外を送出します。 {@link java.io.UncheckedIOException}
+ * は同じ型で、それ以外の例外は {@link ApiRequestFailedException} として送出し、原因が {@link IOException}
+ * の場合は同じ型の原因を設定します。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * ReplayTransport transport = ReplayTransport.builder().of(Path.of("recording.bin")).withTimeScale(0.5).build();
+ * String body = ApiContext.builder().of(transport.replay(new ConcreteApi())).build().send();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class ReplayTransport {
+
+    /**
+     * 記録された順の記録
+     */
+    private List<Recording> recordings;
+
+    /**
+     * リクエストキーごとの記録
+     */
+    private Map<String, List<Recording>> recordingsByKey;
+
+    /**
+     * リクエストキーごとの再生回数
+     */
+    private Map<String, AtomicLong> cursors;
+
+    /**
+     * 記録順に再生した回数
+     */
+    private AtomicLong sequence;
+
+    /**
+     * 所要時間の倍率
+     */
+    private double timeScale;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private ReplayTransport() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link ReplayTransport} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 記録ファイル
+         */
+        private Path path;
+
+        /**
+         * 所要時間の倍率
+         */
+        private double timeScale = 1.0;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 再生する記録ファイルを設定します。
+         *
+         * @param path 記録ファイル
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * 記録された所要時間に掛ける倍率を設定します。倍率は初期設定として {@code 1.0} が設定されています。
+         *
+         * @param timeScale 所要時間の倍率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withTimeScale(double timeScale) {
+
+            if (timeScale < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeScale = timeScale;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に記録ファイルを読み込み、 {@link ReplayTransport} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link ReplayTransport} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(Path)} メソッドが呼び出されていない場合
+         * @throws UncheckedIOException         記録ファイルの読み込みに失敗した場合
+         */
+        public ReplayTransport build() {
+
+            if (this.path == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final List<Recording> recordings = read(this.path);
+            final Map<String, List<Recording>> recordingsByKey = new HashMap<>();
+            final Map<String, AtomicLong> cursors = new HashMap<>();
+
+            for (Recording recording : recordings) {
+                final String key = recording.getRequestKey();
+
+                if (key == null) {
+                    continue;
+                }
+
+                recordingsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(recording);
+                cursors.putIfAbsent(key, new AtomicLong());
+            }
+
+            final ReplayTransport transport = new ReplayTransport();
+            transport.recordings = Collections.unmodifiableList(recordings);
+            transport.recordingsByKey = recordingsByKey;
+            transport.cursors = cursors;
+            transport.sequence = new AtomicLong();
+            transport.timeScale = this.timeScale;
+
+            return transport;
+        }
+    }
+
+    /**
+     * 記録の件数を返却します。
+     *
+     * @return 記録の件数
+     */
+    public int size() {
+        return this.recordings.size();
+    }
+
+    /**
+     * 記録された順の記録を返却します。
+     *
+     * @return 記録された順の記録
+     */
+    public List<Recording> getRecordings() {
+        return this.recordings;
+    }
+
+    /**
+     * 引数として渡された {@code api} のリクエストキーに対応する記録を再生する {@link Communicable} を返却します。
+     * <p>
+     * リクエストキーが定義されていないAPIオブジェクトの記録はHTTPメソッドとURIから生成したキーで記録されるため、
+     * 該当するキーを返却するAPIオブジェクトを渡すか、 {@link #sequential()} メソッドで再生してください。
+     * <p>
+     * 返却される {@link Communicable} はリソースとリクエストパラメータを {@code api} から取得し、 {@code api}
+     * の送信処理は呼び出しません。
+     *
+     * @param api 再生対象のAPIオブジェクト
+     * @return 記録を再生する {@link Communicable}
+     */
+    public Communicable replay(@NonNull Communicable api) {
+        return new Communicable() {
+
+            @Override
+            public HttpResponse<String> send() {
+                return send(RequestOptions.empty());
+            }
+
+            @Override
+            public HttpResponse<String> send(@NonNull RequestOptions options) {
+                return play(nextByKey(api.getRequestKey()));
+            }
+
+            @Override
+            public String createQuery(@NonNull RequestParameter requestParameter) {
+                return api.createQuery(requestParameter);
+            }
+
+            @Override
+            public Resource getResource() {
+                return api.getResource();
+            }
+
+            @Override
+            public RequestParameter getRequestParameter() {
+                return api.getRequestParameter();
+            }
+
+            @Override
+            public String getRequestKey() {
+                return api.getRequestKey();
+            }
+        };
+    }
+
+    /**
+     * リクエストキーに関わらず記録された順に記録を再生する {@link Communicable} を返却します。
+     * 全ての記録を再生した後は先頭の記録から再生します。
+     *
+     * @return 記録を再生する {@link Communicable}
+     */
+    public Communicable sequential() {
+        return () -> this.play(this.nextInSequence());
+    }
+
+    /**
+     * 引数として渡された {@code requestKey} に対応する次の記録を返却します。
+     *
+     * @param requestKey リクエストキー
+     * @return 次の記録
+     *
+     * @throws ApiRequestFailedException {@code requestKey} が {@code null} の場合、または {@code requestKey}
+     *                                   に対応する記録が存在しない場合
+     */
+    private Recording nextByKey(String requestKey) {
+
+        if (requestKey == null) {
+            throw new ApiRequestFailedException("The API does not define a request key");
+        }
+
+        final List<Recording> candidates = this.recordingsByKey.get(requestKey);
+
+        if (candidates == null) {
+            throw new ApiRequestFailedException(String.format("No recording found for the request: %s", requestKey));
+        }
+
+        return candidates.get((int) (this.cursors.get(requestKey).getAndIncrement() % candidates.size()));
+    }
+
+    /**
+     * 記録された順で次の記録を返却します。
+     *
+     * @return 次の記録
+     *
+     * @throws ApiRequestFailedException 記録が存在しない場合
+     */
+    private Recording nextInSequence() {
+
+        if (this.recordings.isEmpty()) {
+            throw new ApiRequestFailedException("No recording found");
+        }
+
+        return this.recordings.get((int) (this.sequence.getAndIncrement() % this.recordings.size()));
+    }
+
+    /**
+     * 記録された所要時間に倍率を掛けた時間だけ待機し、引数として渡された {@code recording} からレスポンスを生成し返却します。
+     * 送信に失敗した記録の場合は記録された例外を送出します。
+     *
+     * @param recording 再生する記録
+     * @return 再生されたレスポンス
+     *
+     * @throws ApiRequestFailedException 待機中に割り込みが発生した場合、または送信に失敗した記録の場合
+     * @throws UncheckedIOException      {@link UncheckedIOException} が送出された記録の場合
+     */
+    private HttpResponse<String> play(@NonNull Recording recording) {
+
+        final long delay = (long) (recording.getElapsedNanos() * this.timeScale);
+
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiRequestFailedException(e);
+            }
+        }
+
+        if (recording.isFailed()) {
+            throw failure(recording);
+        }
+
+        return BufferedHttpResponse.<String>builder().withStatusCode(recording.getStatusCode())
+                .withHeaders(recording.getHeaders()).withBody(recording.getBody()).build();
+    }
+
+    /**
+     * 送信に失敗した記録から、記録された例外と同じ種類の例外を生成します。
+     *
+     * @param recording 送信に失敗した記録
+     * @return 生成された例外
+     */
+    private static RuntimeException failure(@NonNull Recording recording) {
+
+        final String message = recording.getFailureMessage();
+        final IOException cause = ioException(recording.getFailureCauseType(), message);
+
+        if (UncheckedIOException.class.getName().equals(recording.getFailureType())) {
+            return new UncheckedIOException(message, cause != null ? cause : new IOException(message));
+        }
+
+        return new ApiRequestFailedException(message, cause);
+    }
+
+    /**
+     * 引数として渡された {@code type} が {@link IOException} のサブクラスの場合、そのクラスの例外を生成します。
+     * クラスを生成できない場合は {@link IOException} を生成します。
+     *
+     * @param type    例外のクラス名
+     * @param message 例外のメッセージ
+     * @return 生成された例外。 {@code type} が {@link IOException} のサブクラスではない場合、またはクラスが見つからない場合は
+     *         {@code null}
+     */
+    private static IOException ioException(String type, String message) {
+
+        if (type == null) {
+            return null;
+        }
+
+        final Class<?> exceptionClass;
+
+        try {
+            exceptionClass = Class.forName(type);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        if (!IOException.class.isAssignableFrom(exceptionClass)) {
+            return null;
+        }
+
+        try {
+            return (IOException) exceptionClass.getConstructor(String.class).newInstance(message);
+        } catch (ReflectiveOperationException e) {
+            return new IOException(message);
+        }
+    }
+
+    /**
+     * 引数として渡された {@code path} から全ての記録を読み込みます。
+     *
+     * @param path 記録ファイル
+     * @return 記録された順の記録
+     *
+     * @throws UncheckedIOException 記録ファイルの読み込みに失敗した場合、または記録ファイルの形式が不正な場合
+     */
+    private static List<Recording> read(@NonNull Path path) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+
+            if (input.readInt() != RecordingWriter.MAGIC || input.readShort() != RecordingWriter.VERSION) {
+                throw new IOException(String.format("Unsupported recording file: %s", path));
+            }
+
+            final List<Recording> recordings = new ArrayList<>();
+
+            while (true) {
+                final String requestKey;
+
+                try {
+                    requestKey = readString(input);
+                } catch (EOFException e) {
+                    return recordings;
+                }
+
+                final String method = readString(input);
+                final String uri = readString(input);
+                final Map<String, List<String>> requestHeaders = readHeaders(input);
+                final String requestBody = readString(input);
+                final int statusCode = input.readInt();
+                final long elapsedNanos = input.readLong();
+                final Map<String, List<String>> headers = readHeaders(input);
+                final String body = readString(input);
+
+                recordings.add(new Recording(requestKey, method, uri, requestHeaders, requestBody, statusCode, headers,
+                        body, elapsedNanos, readString(input), readString(input), readString(input)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * ヘッダーの件数と、ヘッダー名ごとの値の件数と値からヘッダーを読み込みます。
+     *
+     * @param input 入力ストリーム
+     * @return 読み込んだヘッダー
+     *
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static Map<String, List<String>> readHeaders(@NonNull DataInputStream input) throws IOException {
+
+        final int headerCount = input.readInt();
+        final Map<String, List<String>> headers = new LinkedHashMap<>(headerCount * 2);
+
+        for (int i = 0; i < headerCount; i++) {
+            final String name = readString(input);
+            final int valueCount = input.readInt();
+            final List<String> values = new ArrayList<>(valueCount);
+
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(input));
+            }
+
+            headers.put(name, Collections.unmodifiableList(values));
+        }
+
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * バイト長と {@code UTF-8} 形式のバイト列から文字列を読み込みます。
+     *
+     * @param input 入力ストリーム
+     * @return 読み込んだ文字列。バイト長が {@code -1} の場合は {@code null}
+     *
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static String readString(@NonNull DataInputStream input) throws IOException {
+
+        final int length = input.readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
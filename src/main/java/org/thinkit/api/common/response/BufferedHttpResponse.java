@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.response;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+
+import javax.net.ssl.SSLSession;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * 受信済みのレスポンスを保持する {@link HttpResponse} の実装クラスです。
+ * <p>
+ * 記録されたレスポンスの再生や障害の注入など、実際の通信を行わずにレスポンスを生成する場合に使用します。
+ *
+ * @param <T> レスポンスボディの型
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(exclude = "body")
+public final class BufferedHttpResponse<T> implements HttpResponse<T> {
+
+    /**
+     * ヘッダーを全て受け入れるフィルター
+     */
+    private static final BiPredicate<String, String> ACCEPT_ALL = (name, value) -> true;
+
+    /**
+     * ステータスコード
+     */
+    private int statusCode;
+
+    /**
+     * ヘッダー
+     */
+    private HttpHeaders headers;
+
+    /**
+     * レスポンスボディ
+     */
+    private T body;
+
+    /**
+     * リクエスト
+     */
+    private HttpRequest request;
+
+    /**
+     * URI
+     */
+    private URI uri;
+
+    /**
+     * HTTPのバージョン
+     */
+    private Version version;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private BufferedHttpResponse() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @param <T> レスポンスボディの型
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * {@link BufferedHttpResponse} オブジェクトを生成するビルダークラスです。
+     *
+     * @param <T> レスポンスボディの型
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder<T> {
+
+        /**
+         * ステータスコード
+         */
+        private int statusCode = 200;
+
+        /**
+         * ヘッダー
+         */
+        private HttpHeaders headers = HttpHeaders.of(Map.of(), ACCEPT_ALL);
+
+        /**
+         * レスポンスボディ
+         */
+        private T body;
+
+        /**
+         * リクエスト
+         */
+        private HttpRequest request;
+
+        /**
+         * URI
+         */
+        private URI uri;
+
+        /**
+         * HTTPのバージョン
+         */
+        private Version version = Version.HTTP_1_1;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * ステータスコードを設定します。ステータスコードは初期設定として {@code 200} が設定されています。
+         *
+         * @param statusCode ステータスコード
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withStatusCode(int statusCode) {
+            this.statusCode = statusCode;
+            return this;
+        }
+
+        /**
+         * ヘッダーを設定します。
+         *
+         * @param headers ヘッダー
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withHeaders(@NonNull Map<String, List<String>> headers) {
+            this.headers = HttpHeaders.of(headers, ACCEPT_ALL);
+            return this;
+        }
+
+        /**
+         * ヘッダーを設定します。
+         *
+         * @param headers ヘッダー
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withHeaders(@NonNull HttpHeaders headers) {
+            this.headers = headers;
+            return this;
+        }
+
+        /**
+         * レスポンスボディを設定します。
+         *
+         * @param body レスポンスボディ
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withBody(T body) {
+            this.body = body;
+            return this;
+        }
+
+        /**
+         * レスポンスに対応するリクエストを設定します。
+         *
+         * @param request リクエスト
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withRequest(HttpRequest request) {
+            this.request = request;
+            return this;
+        }
+
+        /**
+         * レスポンスを受信したURIを設定します。
+         *
+         * @param uri URI
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withUri(URI uri) {
+            this.uri = uri;
+            return this;
+        }
+
+        /**
+         * HTTPのバージョンを設定します。バージョンは初期設定として {@link Version#HTTP_1_1} が設定されています。
+         *
+         * @param version HTTPのバージョン
+         * @return 自分自身のインスタンス
+         */
+        public Builder<T> withVersion(@NonNull Version version) {
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link BufferedHttpResponse} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link BufferedHttpResponse} クラスの新しいインスタンス
+         */
+        public BufferedHttpResponse<T> build() {
+
+            final BufferedHttpResponse<T> response = new BufferedHttpResponse<>();
+            response.statusCode = this.statusCode;
+            response.headers = this.headers;
+            response.body = this.body;
+            response.request = this.request;
+            response.uri = this.uri != null || this.request == null ? this.uri : this.request.uri();
+            response.version = this.version;
+
+            return response;
+        }
+    }
+
+    @Override
+    public int statusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * レスポンスに対応するリクエストを返却します。
+     *
+     * @return レスポンスに対応するリクエスト。リクエストが設定されていない場合は {@code null}
+     */
+    @Override
+    public HttpRequest request() {
+        return this.request;
+    }
+
+    @Override
+    public Optional<HttpResponse<T>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return this.headers;
+    }
+
+    @Override
+    public T body() {
+        return this.body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    /**
+     * レスポンスを受信したURIを返却します。
+     *
+     * @return レスポンスを受信したURI。URIが設定されていない場合は {@code null}
+     */
+    @Override
+    public URI uri() {
+        return this.uri;
+    }
+
+    @Override
+    public Version version() {
+        return this.version;
+    }
+}
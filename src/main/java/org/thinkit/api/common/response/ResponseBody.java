@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.response;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+import lombok.NonNull;
+
+/**
+ * 受信したレスポンスボディをバイト列のまま保持し、文字列への変換を必要になった時点で行うクラスです。
+ * <p>
+ * {@code HttpResponse<String>} は受信時にレスポンスボディ全体をUTF-16の文字列へ変換するため、ステータスのみを確認する場合や
+ * バイト列のまま後続の処理へ渡す場合にも変換の負荷と変換後の文字列分のメモリを要します。このクラスはバイト列のみを保持し、
+ * {@link #asString()} メソッドが呼び出された時点で {@code Content-Type} ヘッダーの {@code charset}
+ * パラメータが示す文字セットで変換を行います。 {@code charset} パラメータが指定されていない場合、または解釈できない場合は
+ * {@code UTF-8} で変換します。
+ * <p>
+ * UTF-8のバイト列を直接解釈できるデコーダーへは {@link #asByteBuffer()} メソッド、または {@link #asInputStream()}
+ * メソッドでバイト列を複製せずに渡すことができます。変換後の文字列はキャッシュされないため、繰り返し参照する場合は呼び出し元で保持してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * HttpResponse&lt;ResponseBody&gt; response = client.send(request, ResponseBodyHandler.of());
+ * if (response.statusCode() == 200) {
+ *     Entity entity = objectMapper.readValue(response.body().asInputStream(), Entity.class);
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class ResponseBody {
+
+    /**
+     * 空のレスポンスボディ
+     */
+    private static final ResponseBody EMPTY = new ResponseBody(new byte[0], 0, 0, StandardCharsets.UTF_8);
+
+    /**
+     * バイト列
+     */
+    private final byte[] bytes;
+
+    /**
+     * バイト列の開始位置
+     */
+    private final int offset;
+
+    /**
+     * バイト数
+     */
+    private final int length;
+
+    /**
+     * 文字セット
+     */
+    private final Charset charset;
+
+    /**
+     * コンストラクタ
+     *
+     * @param bytes   バイト列
+     * @param offset  バイト列の開始位置
+     * @param length  バイト数
+     * @param charset 文字セット
+     */
+    private ResponseBody(@NonNull byte[] bytes, int offset, int length, @NonNull Charset charset) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    /**
+     * 空のレスポンスボディを返却します。
+     *
+     * @return 空のレスポンスボディ
+     */
+    public static ResponseBody empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 引数として渡された {@code bytes} を保持するレスポンスボディを生成し返却します。 {@code bytes}
+     * は複製されずに保持されるため、生成後に変更しないでください。
+     *
+     * @param bytes       バイト列
+     * @param contentType {@code Content-Type} ヘッダーの値。ヘッダーが存在しない場合は {@code null}
+     * @return レスポンスボディ
+     */
+    public static ResponseBody of(@NonNull byte[] bytes, String contentType) {
+        return new ResponseBody(bytes, 0, bytes.length, charsetOf(contentType));
+    }
+
+    /**
+     * 引数として渡された {@code buffer} の残りのバイト列を保持するレスポンスボディを生成し返却します。 {@code buffer}
+     * がヒープ上の配列を持つ場合は配列を複製せずに保持します。 {@code buffer} の位置は変更されません。
+     *
+     * @param buffer      バイト列を格納したバッファ
+     * @param contentType {@code Content-Type} ヘッダーの値。ヘッダーが存在しない場合は {@code null}
+     * @return レスポンスボディ
+     */
+    public static ResponseBody of(@NonNull ByteBuffer buffer, String contentType) {
+
+        final Charset charset = charsetOf(contentType);
+
+        if (buffer.hasArray() && !buffer.isReadOnly()) {
+            return new ResponseBody(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(),
+                    charset);
+        }
+
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+
+        return new ResponseBody(bytes, 0, bytes.length, charset);
+    }
+
+    /**
+     * 引数として渡された {@code bytes} を保持し、 {@code headers} の {@code Content-Type}
+     * ヘッダーが示す文字セットで変換するレスポンスボディを生成し返却します。
+     *
+     * @param bytes   バイト列
+     * @param headers レスポンスヘッダー
+     * @return レスポンスボディ
+     */
+    public static ResponseBody of(@NonNull byte[] bytes, @NonNull HttpHeaders headers) {
+        return of(bytes, headers.firstValue("Content-Type").orElse(null));
+    }
+
+    /**
+     * レスポンスボディのバイト数を返却します。
+     *
+     * @return バイト数
+     */
+    public int size() {
+        return this.length;
+    }
+
+    /**
+     * レスポンスボディが空か判定します。
+     *
+     * @return レスポンスボディが空の場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    /**
+     * 文字列へ変換する際に使用する文字セットを返却します。
+     *
+     * @return 文字セット
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * レスポンスボディのバイト列を読み込み専用のバッファとして返却します。バイト列は複製されません。
+     *
+     * @return 読み込み専用のバッファ
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(this.bytes, this.offset, this.length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * レスポンスボディのバイト列を読み込むストリームを返却します。バイト列は複製されません。
+     *
+     * @return バイト列を読み込むストリーム
+     */
+    public InputStream asInputStream() {
+        return new ByteArrayInputStream(this.bytes, this.offset, this.length);
+    }
+
+    /**
+     * レスポンスボディのバイト列の複製を返却します。
+     *
+     * @return バイト列の複製
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(this.bytes, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * レスポンスボディを {@link #getCharset()} メソッドが返却する文字セットで文字列へ変換し返却します。
+     * 変換結果はキャッシュされないため、呼び出しのたびに変換が行われます。
+     *
+     * @return レスポンスボディを変換した文字列
+     */
+    public String asString() {
+        return this.length == 0 ? "" : new String(this.bytes, this.offset, this.length, this.charset);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResponseBody(size=%d, charset=%s)", this.length, this.charset);
+    }
+
+    /**
+     * {@code Content-Type} ヘッダーの値から文字セットを取得します。
+     *
+     * @param contentType {@code Content-Type} ヘッダーの値
+     * @return 文字セット。 {@code charset} パラメータが指定されていない場合、または解釈できない場合は {@code UTF-8}
+     */
+    static Charset charsetOf(String contentType) {
+
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+
+        for (String parameter : contentType.split(";")) {
+            final int separator = parameter.indexOf('=');
+
+            if (separator < 0 || !parameter.substring(0, separator).trim().equalsIgnoreCase("charset")) {
+                continue;
+            }
+
+            String name = parameter.substring(separator + 1).trim();
+
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+
+            try {
+                return Charset.forName(name);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.response;
+
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+
+/**
+ * レスポンスボディを {@link ResponseBody} として受信する {@link BodyHandler} の実装クラスです。
+ * <p>
+ * 受信したバイト列は文字列へ変換されずに保持されます。文字列への変換には {@code Content-Type} ヘッダーの
+ * {@code charset} パラメータが示す文字セットが使用されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * HttpResponse&lt;ResponseBody&gt; response = client.send(request, ResponseBodyHandler.of());
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class ResponseBodyHandler implements BodyHandler<ResponseBody> {
+
+    /**
+     * 唯一のインスタンス
+     */
+    private static final ResponseBodyHandler INSTANCE = new ResponseBodyHandler();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private ResponseBodyHandler() {
+    }
+
+    /**
+     * レスポンスボディを {@link ResponseBody} として受信するハンドラーを返却します。
+     *
+     * @return レスポンスボディを {@link ResponseBody} として受信するハンドラー
+     */
+    public static BodyHandler<ResponseBody> of() {
+        return INSTANCE;
+    }
+
+    @Override
+    public BodySubscriber<ResponseBody> apply(ResponseInfo responseInfo) {
+
+        final String contentType = responseInfo.headers().firstValue("Content-Type").orElse(null);
+
+        return BodySubscribers.mapping(BodySubscribers.ofByteArray(),
+                bytes -> bytes.length == 0 ? ResponseBody.empty() : ResponseBody.of(bytes, contentType));
+    }
+}
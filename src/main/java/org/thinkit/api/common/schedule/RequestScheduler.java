@@ -0,0 +1,620 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.schedule;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.ApiResult;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.RequestPriority;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+import lombok.NonNull;
+
+/**
+ * 優先度と期限に基づきリクエストの実行順序を制御するスケジューラーです。
+ * <p>
+ * 登録されたリクエストは {@link RequestPriority} ごとの待ち行列に格納され、優先度の高い待ち行列から順に実行されます。
+ * 同一の優先度の待ち行列では期限が早いリクエストから順に実行され（Earliest Deadline First）、期限が同じ場合は登録順に実行されます。
+ * 実行時点で期限を過ぎていたリクエストは実行されずに {@link RequestRejectedException} で完了します。
+ * <p>
+ * 待ち行列の合計が上限に達した状態で新しいリクエストが登録された場合は、より優先度の低いリクエストのうち最も優先度が低く期限が遅いリクエストを破棄します。
+ * 破棄できるリクエストが存在しない場合は新しいリクエストを拒否します。待ち行列での待機時間は優先度ごとに集計されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * RequestScheduler scheduler = RequestScheduler.builder().withConcurrency(8).withMaxQueueSize(500).build();
+ * CompletableFuture&lt;ApiResult&gt; result = scheduler.submit(context, new ConcreteApi(), RequestPriority.HIGH,
+ *         Duration.ofMillis(300));
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class RequestScheduler implements Closeable {
+
+    /**
+     * 期限が設定されていないことを表す値
+     */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * 待ち行列の上限
+     */
+    private int maxQueueSize;
+
+    /**
+     * 優先度ごとの待ち行列
+     */
+    private final Map<RequestPriority, PriorityQueue<Task>> queues = new EnumMap<>(RequestPriority.class);
+
+    /**
+     * 優先度ごとの統計情報
+     */
+    private final Map<RequestPriority, Statistics> statistics = new EnumMap<>(RequestPriority.class);
+
+    /**
+     * 待ち行列の排他制御
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 待ち行列にリクエストが登録されたことを通知する条件
+     */
+    private final Condition notEmpty = this.lock.newCondition();
+
+    /**
+     * 待ち行列に格納されたリクエストの合計
+     */
+    private int size;
+
+    /**
+     * 登録順を表す連番
+     */
+    private long sequence;
+
+    /**
+     * 閉じられたか否か
+     */
+    private boolean closed;
+
+    /**
+     * リクエストを実行するスレッド
+     */
+    private List<Thread> workers;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private RequestScheduler() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            this.queues.put(priority, new PriorityQueue<>(
+                    Comparator.comparingLong((Task task) -> task.deadline).thenComparingLong(task -> task.sequence)));
+            this.statistics.put(priority, new Statistics());
+        }
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link RequestScheduler} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 同時に実行するリクエストの最大数
+         */
+        private int concurrency = 4;
+
+        /**
+         * 待ち行列の上限
+         */
+        private int maxQueueSize = 1000;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 同時に実行するリクエストの最大数を設定します。最大数は初期設定として {@code 4} が設定されています。
+         *
+         * @param concurrency 同時に実行するリクエストの最大数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withConcurrency(int concurrency) {
+
+            if (concurrency <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * 全ての優先度の待ち行列に格納できるリクエストの合計の上限を設定します。上限は初期設定として {@code 1000} が設定されています。
+         *
+         * @param maxQueueSize 待ち行列の上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMaxQueueSize(int maxQueueSize) {
+
+            if (maxQueueSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link RequestScheduler} クラスの新しいインスタンスを生成し、リクエストを実行するスレッドを開始します。
+         *
+         * @return {@link RequestScheduler} クラスの新しいインスタンス
+         */
+        public RequestScheduler build() {
+
+            final RequestScheduler scheduler = new RequestScheduler();
+            scheduler.maxQueueSize = this.maxQueueSize;
+            scheduler.workers = new ArrayList<>(this.concurrency);
+
+            for (int i = 0; i < this.concurrency; i++) {
+                final Thread worker = new Thread(scheduler::work, String.format("request-scheduler-%d", i));
+                worker.setDaemon(true);
+                scheduler.workers.add(worker);
+            }
+
+            scheduler.workers.forEach(Thread::start);
+
+            return scheduler;
+        }
+    }
+
+    /**
+     * 期限を設定せずにリクエストを登録します。コンテキストは複数のリクエストで共有できます。
+     *
+     * @param context  リクエストを実行するコンテキスト
+     * @param api      実行するAPIオブジェクト
+     * @param priority 優先度
+     * @return APIの実行結果の返却先。リクエストが拒否、または破棄された場合は {@link RequestRejectedException} で完了します
+     */
+    public CompletableFuture<ApiResult> submit(@NonNull ApiContext context, @NonNull Communicable api,
+            @NonNull RequestPriority priority) {
+        return this.enqueue(context, api, priority, NO_DEADLINE);
+    }
+
+    /**
+     * 期限を設定してリクエストを登録します。コンテキストは複数のリクエストで共有できます。
+     *
+     * @param context  リクエストを実行するコンテキスト
+     * @param api      実行するAPIオブジェクト
+     * @param priority 優先度
+     * @param timeout  登録時点から実行を開始するまでの期限
+     * @return APIの実行結果の返却先。リクエストが拒否、破棄、または期限切れとなった場合は {@link RequestRejectedException}
+     *         で完了します
+     */
+    public CompletableFuture<ApiResult> submit(@NonNull ApiContext context, @NonNull Communicable api,
+            @NonNull RequestPriority priority, @NonNull Duration timeout) {
+
+        final long now = System.nanoTime();
+        final long nanos = timeout.toNanos();
+
+        return this.enqueue(context, api, priority, nanos >= NO_DEADLINE - now ? NO_DEADLINE : now + nanos);
+    }
+
+    /**
+     * 引数として渡された優先度の待ち行列に格納されたリクエスト数を返却します。
+     *
+     * @param priority 優先度
+     * @return 待ち行列に格納されたリクエスト数
+     */
+    public int getQueueSize(@NonNull RequestPriority priority) {
+
+        this.lock.lock();
+
+        try {
+            return this.queues.get(priority).size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 引数として渡された優先度のリクエストが待ち行列で待機した平均時間を返却します。
+     *
+     * @param priority 優先度
+     * @return 平均待機時間。待ち行列から取り出されたリクエストが存在しない場合は {@link Duration#ZERO}
+     */
+    public Duration getAverageQueueTime(@NonNull RequestPriority priority) {
+
+        final Statistics stats = this.statistics.get(priority);
+        final long dequeued = stats.dequeued.get();
+
+        return dequeued == 0 ? Duration.ZERO : Duration.ofNanos(stats.totalQueueTime.get() / dequeued);
+    }
+
+    /**
+     * 引数として渡された優先度のリクエストが待ち行列で待機した最大時間を返却します。
+     *
+     * @param priority 優先度
+     * @return 最大待機時間
+     */
+    public Duration getMaxQueueTime(@NonNull RequestPriority priority) {
+        return Duration.ofNanos(this.statistics.get(priority).maxQueueTime.get());
+    }
+
+    /**
+     * 引数として渡された優先度のリクエストが、より優先度の高いリクエストのために破棄された数を返却します。
+     *
+     * @param priority 優先度
+     * @return 破棄された数
+     */
+    public long getShedCount(@NonNull RequestPriority priority) {
+        return this.statistics.get(priority).shed.get();
+    }
+
+    /**
+     * 引数として渡された優先度のリクエストが、待ち行列の上限により拒否された数を返却します。
+     *
+     * @param priority 優先度
+     * @return 拒否された数
+     */
+    public long getRejectedCount(@NonNull RequestPriority priority) {
+        return this.statistics.get(priority).rejected.get();
+    }
+
+    /**
+     * 引数として渡された優先度のリクエストが、実行前に期限切れとなった数を返却します。
+     *
+     * @param priority 優先度
+     * @return 期限切れとなった数
+     */
+    public long getExpiredCount(@NonNull RequestPriority priority) {
+        return this.statistics.get(priority).expired.get();
+    }
+
+    /**
+     * 新しいリクエストの受け付けを終了し、待ち行列に格納されたリクエストを {@link RequestRejectedException} で完了します。
+     * 実行中のリクエストは完了まで実行されます。
+     */
+    @Override
+    public void close() {
+
+        final List<Task> remaining = new ArrayList<>();
+        this.lock.lock();
+
+        try {
+            this.closed = true;
+            this.queues.values().forEach(queue -> {
+                remaining.addAll(queue);
+                queue.clear();
+            });
+            this.size = 0;
+            this.notEmpty.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        remaining.forEach(task -> task.future
+                .completeExceptionally(new RequestRejectedException("The request scheduler has been closed")));
+    }
+
+    /**
+     * リクエストを待ち行列へ格納します。待ち行列が上限に達している場合は優先度の低いリクエストを破棄、または新しいリクエストを拒否します。
+     *
+     * @param context  リクエストを実行するコンテキスト
+     * @param api      実行するAPIオブジェクト
+     * @param priority 優先度
+     * @param deadline 実行を開始するまでの期限（単調増加時刻のナノ秒）
+     * @return APIの実行結果の返却先
+     */
+    private CompletableFuture<ApiResult> enqueue(@NonNull ApiContext context, @NonNull Communicable api,
+            @NonNull RequestPriority priority, long deadline) {
+
+        final CompletableFuture<ApiResult> future = new CompletableFuture<>();
+        Task shed = null;
+        boolean accepted = false;
+        boolean closed;
+
+        this.lock.lock();
+
+        try {
+            closed = this.closed;
+
+            if (!closed) {
+                if (this.size >= this.maxQueueSize) {
+                    shed = this.removeSheddable(priority);
+                }
+
+                if (this.size < this.maxQueueSize) {
+                    this.queues.get(priority)
+                            .add(new Task(context, api, priority, deadline, this.sequence++, System.nanoTime(),
+                                    future));
+                    this.size++;
+                    this.notEmpty.signal();
+                    accepted = true;
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (shed != null) {
+            this.statistics.get(shed.priority).shed.incrementAndGet();
+            shed.future.completeExceptionally(
+                    new RequestRejectedException(String.format("Shed for a %s priority request", priority)));
+        }
+
+        if (!accepted) {
+            this.statistics.get(priority).rejected.incrementAndGet();
+            future.completeExceptionally(new RequestRejectedException(
+                    closed ? "The request scheduler has been closed" : "The request queue is full"));
+        }
+
+        return future;
+    }
+
+    /**
+     * 引数として渡された優先度より低い優先度のリクエストのうち、最も優先度が低く期限が遅いリクエストを待ち行列から取り除きます。
+     * このメソッドは排他制御の内側から呼び出してください。
+     *
+     * @param priority 新しいリクエストの優先度
+     * @return 取り除いたリクエスト。取り除くことができるリクエストが存在しない場合は {@code null}
+     */
+    private Task removeSheddable(@NonNull RequestPriority priority) {
+
+        final RequestPriority[] priorities = RequestPriority.values();
+
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            final PriorityQueue<Task> queue = this.queues.get(priorities[i]);
+            Task latest = null;
+
+            for (Task task : queue) {
+                if (latest == null || task.deadline > latest.deadline
+                        || task.deadline == latest.deadline && task.sequence > latest.sequence) {
+                    latest = task;
+                }
+            }
+
+            if (latest != null) {
+                queue.remove(latest);
+                this.size--;
+                return latest;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 待ち行列からリクエストを取り出して実行します。このメソッドはスケジューラーが閉じられるまで繰り返されます。
+     */
+    private void work() {
+        while (true) {
+            final Task task = this.take();
+
+            if (task == null) {
+                return;
+            }
+
+            final long now = System.nanoTime();
+            this.statistics.get(task.priority).record(now - task.enqueuedAt);
+
+            if (task.deadline != NO_DEADLINE && now - task.deadline > 0) {
+                this.statistics.get(task.priority).expired.incrementAndGet();
+                task.future.completeExceptionally(new RequestRejectedException("The request deadline has passed"));
+                continue;
+            }
+
+            if (task.future.isDone()) {
+                continue;
+            }
+
+            try {
+                task.future.complete(task.context.sendForResult(task.api));
+            } catch (RuntimeException e) {
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 最も優先度の高い待ち行列から期限が最も早いリクエストを取り出します。待ち行列が空の場合はリクエストが登録されるまで待機します。
+     *
+     * @return 取り出したリクエスト。スケジューラーが閉じられた場合、または待機中に割り込みが発生した場合は {@code null}
+     */
+    private Task take() {
+
+        this.lock.lock();
+
+        try {
+            while (this.size == 0) {
+                if (this.closed) {
+                    return null;
+                }
+
+                this.notEmpty.await();
+            }
+
+            for (PriorityQueue<Task> queue : this.queues.values()) {
+                final Task task = queue.poll();
+
+                if (task != null) {
+                    this.size--;
+                    return task;
+                }
+            }
+
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 待ち行列に格納されたリクエストを表すクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Task {
+
+        /**
+         * リクエストを実行するコンテキスト
+         */
+        private final ApiContext context;
+
+        /**
+         * 実行するAPIオブジェクト
+         */
+        private final Communicable api;
+
+        /**
+         * 優先度
+         */
+        private final RequestPriority priority;
+
+        /**
+         * 実行を開始するまでの期限（単調増加時刻のナノ秒）
+         */
+        private final long deadline;
+
+        /**
+         * 登録順を表す連番
+         */
+        private final long sequence;
+
+        /**
+         * 待ち行列へ格納した時刻（単調増加時刻のナノ秒）
+         */
+        private final long enqueuedAt;
+
+        /**
+         * APIの実行結果の返却先
+         */
+        private final CompletableFuture<ApiResult> future;
+
+        /**
+         * コンストラクタ
+         *
+         * @param context    リクエストを実行するコンテキスト
+         * @param api        実行するAPIオブジェクト
+         * @param priority   優先度
+         * @param deadline   実行を開始するまでの期限
+         * @param sequence   登録順を表す連番
+         * @param enqueuedAt 待ち行列へ格納した時刻
+         * @param future     APIの実行結果の返却先
+         */
+        Task(ApiContext context, Communicable api, RequestPriority priority, long deadline, long sequence,
+                long enqueuedAt, CompletableFuture<ApiResult> future) {
+            this.context = context;
+            this.api = api;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 優先度ごとの統計情報を保持するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static final class Statistics {
+
+        /**
+         * 待ち行列から取り出されたリクエスト数
+         */
+        private final AtomicLong dequeued = new AtomicLong();
+
+        /**
+         * 待機時間の合計（ナノ秒）
+         */
+        private final AtomicLong totalQueueTime = new AtomicLong();
+
+        /**
+         * 最大待機時間（ナノ秒）
+         */
+        private final AtomicLong maxQueueTime = new AtomicLong();
+
+        /**
+         * 破棄された数
+         */
+        private final AtomicLong shed = new AtomicLong();
+
+        /**
+         * 拒否された数
+         */
+        private final AtomicLong rejected = new AtomicLong();
+
+        /**
+         * 期限切れとなった数
+         */
+        private final AtomicLong expired = new AtomicLong();
+
+        /**
+         * 待ち行列から取り出されたリクエストの待機時間を記録します。
+         *
+         * @param queueTime 待機時間（ナノ秒）
+         */
+        void record(long queueTime) {
+            this.dequeued.incrementAndGet();
+            this.totalQueueTime.addAndGet(queueTime);
+            this.maxQueueTime.accumulateAndGet(queueTime, Math::max);
+        }
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * {@code text/event-stream} 形式のレスポンスからServer-Sent Eventsを逐次的に読み込むクラスです。
+ * <p>
+ * 接続が切断された場合は、最後に受信したイベントIDを {@code Last-Event-ID} ヘッダーに設定して再接続します。
+ * 再接続までの待機時間はサーバーから {@code retry} フィールドを受信した場合はその値に更新されます。
+ * 接続に失敗した場合、またはHTTPステータスが {@code 200} 、 {@code 204} 以外の場合も同様に待機した上で再接続します。
+ * イベントを受信せずに連続して再接続した回数が上限を超えた場合、またはHTTPステータス {@code 204} を受信した場合は反復を終了します。
+ * <p>
+ * このクラスは1回のみ反復することができます。反復を中断する場合は {@link #close()} メソッドを呼び出してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * try (EventStream stream = EventStream.builder().of(source).withMaxReconnects(10).build()) {
+ *     for (ServerSentEvent event : stream) {
+ *         handle(event.getEvent(), event.getData());
+ *     }
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class EventStream implements Iterable<ServerSentEvent>, Closeable {
+
+    /**
+     * イベントの種類の初期値
+     */
+    private static final String DEFAULT_EVENT = "message";
+
+    /**
+     * 接続処理
+     */
+    private StreamSource source;
+
+    /**
+     * イベントを受信せずに連続して再接続する回数の上限
+     */
+    private int maxReconnects;
+
+    /**
+     * 再接続までの待機時間（ミリ秒）
+     */
+    private long reconnectDelay;
+
+    /**
+     * 行の読み込み処理
+     */
+    private LineReader lineReader;
+
+    /**
+     * イベントのデータのバッファ
+     */
+    private final StringBuilder data = new StringBuilder();
+
+    /**
+     * レスポンスボディの入力ストリーム
+     */
+    private volatile InputStream input;
+
+    /**
+     * 最後に受信したイベントID
+     */
+    private String lastEventId = "";
+
+    /**
+     * 反復を開始したか否か
+     */
+    private boolean iterated;
+
+    /**
+     * 反復を中断したか否か
+     */
+    private volatile boolean closed;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private EventStream() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link EventStream} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続処理
+         */
+        private StreamSource source;
+
+        /**
+         * イベントを受信せずに連続して再接続する回数の上限
+         */
+        private int maxReconnects = 3;
+
+        /**
+         * 再接続までの待機時間（ミリ秒）
+         */
+        private long reconnectDelay = 3000;
+
+        /**
+         * 読み込み用のバッファのサイズ
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続処理を設定します。
+         *
+         * @param source 接続処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull StreamSource source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * イベントを受信せずに連続して再接続する回数の上限を設定します。上限は初期設定として {@code 3} が設定されています。
+         *
+         * @param maxReconnects 再接続する回数の上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withMaxReconnects(int maxReconnects) {
+
+            if (maxReconnects < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maxReconnects = maxReconnects;
+            return this;
+        }
+
+        /**
+         * 再接続までの待機時間を設定します。待機時間は初期設定として {@code 3000} ミリ秒が設定されています。
+         *
+         * @param reconnectDelay 再接続までの待機時間（ミリ秒）
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withReconnectDelay(long reconnectDelay) {
+
+            if (reconnectDelay < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.reconnectDelay = reconnectDelay;
+            return this;
+        }
+
+        /**
+         * 読み込み用のバッファのサイズを設定します。バッファのサイズは初期設定として {@code 8192} バイトが設定されています。
+         *
+         * @param bufferSize 読み込み用のバッファのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withBufferSize(int bufferSize) {
+
+            if (bufferSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link EventStream} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link EventStream} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(StreamSource)} メソッドが呼び出されていない場合
+         */
+        public EventStream build() {
+
+            if (this.source == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final EventStream stream = new EventStream();
+            stream.source = this.source;
+            stream.maxReconnects = this.maxReconnects;
+            stream.reconnectDelay = this.reconnectDelay;
+            stream.lineReader = new LineReader(this.bufferSize);
+
+            return stream;
+        }
+    }
+
+    /**
+     * APIへ接続し、受信したイベントを逐次的に返却するイテレーターを返却します。
+     *
+     * @return 受信したイベントを返却するイテレーター
+     *
+     * @throws IllegalStateException     既に反復を開始している場合
+     * @throws ApiRequestFailedException 再接続の上限を超えてHTTPステータスが {@code 200} 、 {@code 204} 以外の場合
+     * @throws UncheckedIOException      再接続の上限を超えて接続、または読み込みに失敗した場合
+     */
+    @Override
+    public Iterator<ServerSentEvent> iterator() {
+
+        if (this.iterated) {
+            throw new IllegalStateException("EventStream can be iterated only once");
+        }
+
+        this.iterated = true;
+
+        return new Iterator<ServerSentEvent>() {
+
+            /**
+             * 次に返却するイベント
+             */
+            private ServerSentEvent next;
+
+            /**
+             * 反復が終了したか否か
+             */
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+
+                if (this.next == null && !this.finished) {
+                    this.next = nextEvent();
+                    this.finished = this.next == null;
+                }
+
+                return this.next != null;
+            }
+
+            @Override
+            public ServerSentEvent next() {
+
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final ServerSentEvent event = this.next;
+                this.next = null;
+
+                return event;
+            }
+        };
+    }
+
+    /**
+     * 最後に受信したイベントIDを返却します。
+     *
+     * @return 最後に受信したイベントID。イベントIDを受信していない場合は空文字
+     */
+    public String getLastEventId() {
+        return this.lastEventId;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        this.closed = true;
+        final InputStream current = this.input;
+
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 次のイベントを受信します。接続が切断された場合、または接続に失敗した場合は再接続します。
+     *
+     * @return 次のイベント。反復を終了する場合は {@code null}
+     *
+     * @throws ApiRequestFailedException 再接続の上限を超えてHTTPステータスが {@code 200} 、 {@code 204} 以外の場合
+     * @throws UncheckedIOException      再接続の上限を超えて接続、または読み込みに失敗した場合
+     */
+    private ServerSentEvent nextEvent() {
+
+        int reconnects = 0;
+        Exception failure = null;
+
+        while (!this.closed) {
+            try {
+                if (this.input == null) {
+                    if (reconnects > 0) {
+                        this.sleep();
+                    }
+
+                    if (!this.connect()) {
+                        return null;
+                    }
+                }
+
+                final ServerSentEvent event = this.readEvent();
+
+                if (event != null) {
+                    return event;
+                }
+
+                failure = null;
+            } catch (IOException e) {
+                failure = e;
+            } catch (ApiRequestFailedException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+
+                failure = e;
+            }
+
+            StreamResponses.closeQuietly(this.input);
+            this.input = null;
+
+            if (this.closed) {
+                return null;
+            }
+
+            if (++reconnects > this.maxReconnects) {
+                if (failure instanceof IOException) {
+                    throw new UncheckedIOException((IOException) failure);
+                }
+
+                if (failure != null) {
+                    throw (ApiRequestFailedException) failure;
+                }
+
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * APIへ接続します。イベントIDを受信している場合は {@code Last-Event-ID} ヘッダーを設定します。
+     *
+     * @return 接続した場合は {@code true} 、HTTPステータス {@code 204} を受信した場合は {@code false}
+     *
+     * @throws IOException               接続に失敗した場合
+     * @throws ApiRequestFailedException HTTPステータスが {@code 200} 、 {@code 204} 以外の場合
+     */
+    private boolean connect() throws IOException {
+
+        final RequestOptions.Builder options = RequestOptions.builder().withHeader("Accept", "text/event-stream");
+
+        if (!this.lastEventId.isEmpty()) {
+            options.withHeader("Last-Event-ID", this.lastEventId);
+        }
+
+        final InputStream opened = StreamResponses.open(this.source, options.build());
+
+        if (opened == null) {
+            return false;
+        }
+
+        this.lineReader.reset(opened);
+        this.input = opened;
+
+        return true;
+    }
+
+    /**
+     * 次のイベントを読み込みます。
+     *
+     * @return 次のイベント。イベントを受信する前に終端に達した場合は {@code null}
+     *
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private ServerSentEvent readEvent() throws IOException {
+
+        String event = DEFAULT_EVENT;
+        String eventId = this.lastEventId;
+        this.data.setLength(0);
+        String line;
+
+        while ((line = this.lineReader.readLine()) != null) {
+            if (line.isEmpty()) {
+                // イベントIDは空行でイベントが確定した時点でのみ反映し、途中で切断されたイベントのIDを再接続時に送信しない
+                this.lastEventId = eventId;
+
+                if (this.data.length() == 0) {
+                    event = DEFAULT_EVENT;
+                    continue;
+                }
+
+                this.data.setLength(this.data.length() - 1);
+                return new ServerSentEvent(this.lastEventId, event, this.data.toString());
+            }
+
+            if (line.charAt(0) == ':') {
+                continue;
+            }
+
+            final int colon = line.indexOf(':');
+            final String field = colon < 0 ? line : line.substring(0, colon);
+            final int valueStart = colon < 0 ? line.length()
+                    : colon + 1 < line.length() && line.charAt(colon + 1) == ' ' ? colon + 2 : colon + 1;
+
+            switch (field) {
+                case "event":
+                    event = line.substring(valueStart);
+                    break;
+
+                case "data":
+                    this.data.append(line, valueStart, line.length()).append('\n');
+                    break;
+
+                case "id":
+                    if (line.indexOf('\0', valueStart) < 0) {
+                        eventId = line.substring(valueStart);
+                    }
+                    break;
+
+                case "retry":
+                    this.updateReconnectDelay(line.substring(valueStart));
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * サーバーから受信した {@code retry} フィールドの値で再接続までの待機時間を更新します。数値でない場合は無視します。
+     *
+     * @param value {@code retry} フィールドの値
+     */
+    private void updateReconnectDelay(@NonNull String value) {
+
+        if (value.isEmpty() || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return;
+        }
+
+        try {
+            this.reconnectDelay = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // 桁数が大きすぎる値は無視する
+        }
+    }
+
+    /**
+     * 再接続までの待機時間だけスレッドをスリープさせます。
+     *
+     * @throws ApiRequestFailedException 待機中に割り込みが発生した場合
+     */
+    private void sleep() {
+        try {
+            Thread.sleep(this.reconnectDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiRequestFailedException(e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import lombok.NonNull;
+
+/**
+ * 入力ストリームから {@code UTF-8} 形式の行を逐次的に読み込むクラスです。
+ * <p>
+ * 行の区切りとして {@code LF} 、 {@code CRLF} 、 {@code CR} を認識します。読み込み用のバッファと行のバッファは
+ * {@link #reset(InputStream)} メソッドで入力ストリームを切り替えた後も再利用されます。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class LineReader {
+
+    /**
+     * 読み込み用のバッファ
+     */
+    private final byte[] buffer;
+
+    /**
+     * 読み込み用のバッファの読み込み位置
+     */
+    private int position;
+
+    /**
+     * 読み込み用のバッファの有効なバイト数
+     */
+    private int limit;
+
+    /**
+     * 行のバッファ
+     */
+    private byte[] line = new byte[256];
+
+    /**
+     * 行のバッファの有効なバイト数
+     */
+    private int lineLength;
+
+    /**
+     * 直前の行が {@code CR} で終了したか否か
+     */
+    private boolean skipLineFeed;
+
+    /**
+     * 入力ストリーム
+     */
+    private InputStream input;
+
+    /**
+     * コンストラクタ
+     *
+     * @param bufferSize 読み込み用のバッファのサイズ
+     */
+    LineReader(int bufferSize) {
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * 読み込み対象の入力ストリームを切り替え、読み込み状態を初期化します。
+     *
+     * @param input 入力ストリーム
+     */
+    void reset(@NonNull InputStream input) {
+        this.input = input;
+        this.position = 0;
+        this.limit = 0;
+        this.lineLength = 0;
+        this.skipLineFeed = false;
+    }
+
+    /**
+     * 次の行を読み込みます。
+     *
+     * @return 改行文字を含まない行。入力ストリームの終端に達した場合は {@code null}
+     *
+     * @throws IOException 読み込みに失敗した場合
+     */
+    String readLine() throws IOException {
+
+        this.lineLength = 0;
+
+        while (true) {
+            if (this.position == this.limit) {
+                final int read = this.input.read(this.buffer);
+
+                if (read < 0) {
+                    this.limit = this.position = 0;
+                    return this.lineLength > 0 ? this.decode() : null;
+                }
+
+                this.position = 0;
+                this.limit = read;
+            }
+
+            if (this.skipLineFeed) {
+                this.skipLineFeed = false;
+
+                if (this.buffer[this.position] == '\n') {
+                    this.position++;
+                    continue;
+                }
+            }
+
+            final int start = this.position;
+
+            while (this.position < this.limit) {
+                final byte b = this.buffer[this.position];
+
+                if (b == '\n' || b == '\r') {
+                    this.append(start, this.position - start);
+                    this.position++;
+                    this.skipLineFeed = b == '\r';
+                    return this.decode();
+                }
+
+                this.position++;
+            }
+
+            this.append(start, this.position - start);
+        }
+    }
+
+    /**
+     * 読み込み用のバッファの一部を行のバッファへ追加します。
+     *
+     * @param offset 追加する範囲の開始位置
+     * @param length 追加するバイト数
+     */
+    private void append(int offset, int length) {
+
+        if (this.lineLength + length > this.line.length) {
+            this.line = Arrays.copyOf(this.line, Math.max(this.line.length * 2, this.lineLength + length));
+        }
+
+        System.arraycopy(this.buffer, offset, this.line, this.lineLength, length);
+        this.lineLength += length;
+    }
+
+    /**
+     * 行のバッファを文字列へ変換します。
+     *
+     * @return 行
+     */
+    private String decode() {
+        return new String(this.line, 0, this.lineLength, StandardCharsets.UTF_8);
+    }
+}
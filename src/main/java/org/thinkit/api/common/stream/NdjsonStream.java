@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * NDJSON形式のレスポンスを1行ずつ逐次的に読み込むクラスです。
+ * <p>
+ * レスポンスボディ全体をメモリへ読み込まずに、受信したバイト列から行を切り出して返却します。空行は読み飛ばされます。
+ * HTTPステータスが {@code 204} の場合は行を返却せずに反復を終了します。
+ * このクラスは1回のみ反復することができ、反復が終了した時点、または {@link #close()} メソッドを呼び出した時点で接続を閉じます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * try (NdjsonStream stream = NdjsonStream.builder().of(source).build()) {
+ *     stream.forEach(record -&gt; handle(record));
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class NdjsonStream implements Iterable<String>, Closeable {
+
+    /**
+     * 接続処理
+     */
+    private StreamSource source;
+
+    /**
+     * 行の読み込み処理
+     */
+    private LineReader lineReader;
+
+    /**
+     * レスポンスボディの入力ストリーム
+     */
+    private InputStream input;
+
+    /**
+     * 反復を開始したか否か
+     */
+    private boolean iterated;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private NdjsonStream() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link NdjsonStream} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続処理
+         */
+        private StreamSource source;
+
+        /**
+         * 読み込み用のバッファのサイズ
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続処理を設定します。
+         *
+         * @param source 接続処理
+         * @return 自分自身のインスタンス
+         */
+        public Builder of(@NonNull StreamSource source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * 読み込み用のバッファのサイズを設定します。バッファのサイズは初期設定として {@code 8192} バイトが設定されています。
+         *
+         * @param bufferSize 読み込み用のバッファのサイズ
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withBufferSize(int bufferSize) {
+
+            if (bufferSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link NdjsonStream} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link NdjsonStream} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #of(StreamSource)} メソッドが呼び出されていない場合
+         */
+        public NdjsonStream build() {
+
+            if (this.source == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final NdjsonStream stream = new NdjsonStream();
+            stream.source = this.source;
+            stream.lineReader = new LineReader(this.bufferSize);
+
+            return stream;
+        }
+    }
+
+    /**
+     * APIへ接続し、レスポンスの行を逐次的に返却するイテレーターを返却します。
+     *
+     * @return レスポンスの行を返却するイテレーター
+     *
+     * @throws IllegalStateException     既に反復を開始している場合
+     * @throws ApiRequestFailedException HTTPステータスが {@code 200} 、 {@code 204} 以外の場合
+     * @throws UncheckedIOException      接続、または反復中にレスポンスの読み込みに失敗した場合
+     */
+    @Override
+    public Iterator<String> iterator() {
+
+        if (this.iterated) {
+            throw new IllegalStateException("NdjsonStream can be iterated only once");
+        }
+
+        this.iterated = true;
+
+        try {
+            this.input = StreamResponses.open(this.source, RequestOptions.empty());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (this.input == null) {
+            return Collections.emptyIterator();
+        }
+
+        this.lineReader.reset(this.input);
+
+        return new Iterator<String>() {
+
+            /**
+             * 次に返却する行
+             */
+            private String next;
+
+            /**
+             * 終端に達したか否か
+             */
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+
+                if (this.next == null && !this.finished) {
+                    this.next = readRecord();
+                    this.finished = this.next == null;
+                }
+
+                return this.next != null;
+            }
+
+            @Override
+            public String next() {
+
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final String record = this.next;
+                this.next = null;
+
+                return record;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.input != null) {
+            this.input.close();
+        }
+    }
+
+    /**
+     * 空行を読み飛ばし次の行を読み込みます。終端に達した場合は接続を閉じます。
+     *
+     * @return 次の行。終端に達した場合は {@code null}
+     *
+     * @throws UncheckedIOException 読み込みに失敗した場合
+     */
+    private String readRecord() {
+        try {
+            String line;
+
+            while ((line = this.lineReader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    return line;
+                }
+            }
+
+            this.close();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+import lombok.NonNull;
+
+/**
+ * ストリーミング形式のレスポンスの接続処理を定義したユーティリティクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class StreamResponses {
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private StreamResponses() {
+    }
+
+    /**
+     * 引数として渡された {@code source} を介してAPIへ接続し、レスポンスボディの入力ストリームを返却します。
+     *
+     * @param source  接続処理
+     * @param options 通信時のオプション
+     * @return レスポンスボディの入力ストリーム。HTTPステータスが {@code 204} の場合は {@code null}
+     *
+     * @throws IOException               接続に失敗した場合
+     * @throws ApiRequestFailedException HTTPステータスが {@code 200} 、 {@code 204} 以外の場合
+     */
+    static InputStream open(@NonNull StreamSource source, @NonNull RequestOptions options) throws IOException {
+
+        final HttpResponse<InputStream> response = source.open(options);
+        final int statusCode = response.statusCode();
+
+        if (statusCode == HttpStatus.OK.getTag()) {
+            return response.body();
+        }
+
+        closeQuietly(response.body());
+
+        if (statusCode == HttpStatus.NO_CONTENT.getTag()) {
+            return null;
+        }
+
+        throw new ApiRequestFailedException(String.format("Failed to open the stream: HTTP status %d", statusCode));
+    }
+
+    /**
+     * 引数として渡された {@code input} を閉じます。閉じる際に発生した例外は無視します。
+     *
+     * @param input 入力ストリーム
+     */
+    static void closeQuietly(InputStream input) {
+
+        if (input == null) {
+            return;
+        }
+
+        try {
+            input.close();
+        } catch (IOException e) {
+            // 接続は既に破棄されているため例外を無視する
+        }
+    }
+}
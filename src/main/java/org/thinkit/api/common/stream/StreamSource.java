@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+
+import org.thinkit.api.common.RequestOptions;
+
+/**
+ * ストリーミング形式のレスポンスを返却するAPIへの接続処理を定義したインターフェースです。
+ * <p>
+ * 実装クラスは {@link RequestOptions#applyHeaders(java.net.http.HttpRequest.Builder)}
+ * メソッドで再接続時の {@code Last-Event-ID} などのヘッダーをリクエストへ追加し、
+ * {@link java.net.http.HttpResponse.BodyHandlers#ofInputStream()} でレスポンスを受信してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * StreamSource source = options -&gt; {
+ *     try {
+ *         return client.send(
+ *                 options.applyHeaders(HttpRequest.newBuilder(URI.create("https://example.com/events"))).build(),
+ *                 BodyHandlers.ofInputStream());
+ *     } catch (InterruptedException e) {
+ *         Thread.currentThread().interrupt();
+ *         throw new InterruptedIOException(e.getMessage());
+ *     }
+ * };
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface StreamSource {
+
+    /**
+     * 引数として渡された {@code options} を適用してAPIへ接続し、レスポンスボディを入力ストリームとして持つHTTPレスポンスを返却します。
+     *
+     * @param options 通信時のオプション
+     * @return 入力ストリーム型のbody要素を持つHTTPレスポンス
+     *
+     * @throws IOException 接続に失敗した場合
+     */
+    HttpResponse<InputStream> open(RequestOptions options) throws IOException;
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.timeout;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.Resource;
+
+import lombok.NonNull;
+
+/**
+ * リソースごとに観測した応答時間のパーセンタイル値から試行のタイムアウトを算出するクラスです。
+ * <p>
+ * タイムアウトは直近の一定数の応答時間から求めたパーセンタイル値に倍率を掛けた値を、下限と上限の範囲に収めた値です。
+ * 観測数が最小観測数に満たないリソースには初期値を使用します。パーセンタイル値はリクエストごとには計算せず、
+ * 保持する観測数の10分の1の観測を記録するたびに再計算されます。
+ * <p>
+ * {@link org.thinkit.api.common.ApiContext} に設定した場合、算出したタイムアウトは
+ * {@link org.thinkit.api.common.RequestOptions#getTimeout()} として試行ごとに渡されます。
+ * {@link org.thinkit.api.common.Communicable} の実装クラスでは
+ * {@link org.thinkit.api.common.RequestOptions#applyTimeout(java.net.http.HttpRequest.Builder)}
+ * メソッドでリクエストに適用してください。タイムアウトした試行はリトライの対象となり、その応答時間は適用したタイムアウトを上限として記録されます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * AdaptiveTimeout timeout = AdaptiveTimeout.builder().withPercentile(0.99).withMultiplier(1.5)
+ *         .withMinimum(Duration.ofMillis(200)).withMaximum(Duration.ofSeconds(10)).build();
+ * ApiContext context = ApiContext.builder().withAdaptiveTimeout(timeout).withRetry().build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class AdaptiveTimeout {
+
+    /**
+     * リソースが定義されていないリクエストを集計するキー
+     */
+    private static final Object NO_RESOURCE = new Object();
+
+    /**
+     * パーセンタイル
+     */
+    private double percentile;
+
+    /**
+     * パーセンタイル値に掛ける倍率
+     */
+    private double multiplier;
+
+    /**
+     * タイムアウトの下限（ナノ秒）
+     */
+    private long minimum;
+
+    /**
+     * タイムアウトの上限（ナノ秒）
+     */
+    private long maximum;
+
+    /**
+     * 観測数が不足している場合のタイムアウト（ナノ秒）
+     */
+    private long initial;
+
+    /**
+     * 保持する観測数
+     */
+    private int windowSize;
+
+    /**
+     * タイムアウトの算出に必要な最小観測数
+     */
+    private int minSamples;
+
+    /**
+     * リソースごとの観測値
+     */
+    private final Map<Object, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private AdaptiveTimeout() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link AdaptiveTimeout} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * パーセンタイル
+         */
+        private double percentile = 0.99;
+
+        /**
+         * パーセンタイル値に掛ける倍率
+         */
+        private double multiplier = 1.5;
+
+        /**
+         * タイムアウトの下限
+         */
+        private Duration minimum = Duration.ofMillis(100);
+
+        /**
+         * タイムアウトの上限
+         */
+        private Duration maximum = Duration.ofSeconds(30);
+
+        /**
+         * 観測数が不足している場合のタイムアウト
+         */
+        private Duration initial;
+
+        /**
+         * 保持する観測数
+         */
+        private int windowSize = 1000;
+
+        /**
+         * タイムアウトの算出に必要な最小観測数
+         */
+        private int minSamples = 20;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * タイムアウトの算出に使用するパーセンタイルを設定します。初期設定として {@code 0.99} が設定されています。
+         *
+         * @param percentile パーセンタイル
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下、または {@code 1} を超える値が渡された場合
+         */
+        public Builder withPercentile(double percentile) {
+
+            if (!(percentile > 0 && percentile <= 1)) {
+                throw new InvalidContextStateException();
+            }
+
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * パーセンタイル値に掛ける倍率を設定します。初期設定として {@code 1.5} が設定されています。
+         *
+         * @param multiplier パーセンタイル値に掛ける倍率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMultiplier(double multiplier) {
+
+            if (!(multiplier > 0)) {
+                throw new InvalidContextStateException();
+            }
+
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * タイムアウトの下限を設定します。初期設定として100ミリ秒が設定されています。
+         *
+         * @param minimum タイムアウトの下限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withMinimum(@NonNull Duration minimum) {
+
+            if (minimum.isNegative() || minimum.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.minimum = minimum;
+            return this;
+        }
+
+        /**
+         * タイムアウトの上限を設定します。初期設定として30秒が設定されています。
+         *
+         * @param maximum タイムアウトの上限
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withMaximum(@NonNull Duration maximum) {
+
+            if (maximum.isNegative() || maximum.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.maximum = maximum;
+            return this;
+        }
+
+        /**
+         * 観測数が最小観測数に満たない場合に使用するタイムアウトを設定します。このメソッドを呼び出さない場合はタイムアウトの上限が使用されます。
+         *
+         * @param initial 観測数が不足している場合のタイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withInitial(@NonNull Duration initial) {
+
+            if (initial.isNegative() || initial.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.initial = initial;
+            return this;
+        }
+
+        /**
+         * リソースごとに保持する直近の観測数を設定します。初期設定として {@code 1000} が設定されています。
+         *
+         * @param windowSize 保持する観測数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withWindowSize(int windowSize) {
+
+            if (windowSize <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * タイムアウトの算出に必要な最小観測数を設定します。初期設定として {@code 20} が設定されています。
+         *
+         * @param minSamples 最小観測数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withMinSamples(int minSamples) {
+
+            if (minSamples <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link AdaptiveTimeout} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link AdaptiveTimeout} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException 下限が上限を超える場合、または最小観測数が保持する観測数を超える場合
+         */
+        public AdaptiveTimeout build() {
+
+            if (this.minimum.compareTo(this.maximum) > 0 || this.minSamples > this.windowSize) {
+                throw new InvalidContextStateException();
+            }
+
+            final AdaptiveTimeout timeout = new AdaptiveTimeout();
+            timeout.percentile = this.percentile;
+            timeout.multiplier = this.multiplier;
+            timeout.minimum = this.minimum.toNanos();
+            timeout.maximum = this.maximum.toNanos();
+            timeout.initial = Math.min(Math.max((this.initial != null ? this.initial : this.maximum).toNanos(),
+                    timeout.minimum), timeout.maximum);
+            timeout.windowSize = this.windowSize;
+            timeout.minSamples = this.minSamples;
+
+            return timeout;
+        }
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対する現在のタイムアウトを返却します。
+     *
+     * @param resource リクエスト対象のリソース。リソースが定義されていない場合は {@code null}
+     * @return 現在のタイムアウト
+     */
+    public Duration getTimeout(Resource resource) {
+
+        final LatencyWindow window = this.windows.get(resource != null ? resource : NO_RESOURCE);
+
+        return Duration.ofNanos(window != null ? window.timeout : this.initial);
+    }
+
+    /**
+     * 引数として渡された {@code resource} に対するリクエストの応答時間を記録します。
+     *
+     * @param resource    リクエスト対象のリソース。リソースが定義されていない場合は {@code null}
+     * @param latencyNanos 応答時間（ナノ秒）
+     */
+    public void record(Resource resource, long latencyNanos) {
+        this.windows.computeIfAbsent(resource != null ? resource : NO_RESOURCE, key -> new LatencyWindow())
+                .record(Math.max(latencyNanos, 0));
+    }
+
+    /**
+     * リソースごとの直近の応答時間を保持し、タイムアウトを算出するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private final class LatencyWindow {
+
+        /**
+         * 直近の応答時間（ナノ秒）
+         */
+        private final long[] samples = new long[windowSize];
+
+        /**
+         * 記録した観測数
+         */
+        private long count;
+
+        /**
+         * 現在のタイムアウトの算出に使用した観測数
+         */
+        private long appliedCount;
+
+        /**
+         * 現在のタイムアウト（ナノ秒）。ロックを取得せずに読み込まれるため {@code volatile} とし、書き込みはロック内で行います。
+         */
+        private volatile long timeout = initial;
+
+        /**
+         * 応答時間を記録し、必要に応じてタイムアウトを再計算します。
+         *
+         * @param latencyNanos 応答時間（ナノ秒）
+         */
+        void record(long latencyNanos) {
+
+            final long[] sorted;
+            final long snapshotCount;
+
+            synchronized (this) {
+                this.samples[(int) (this.count % this.samples.length)] = latencyNanos;
+                this.count++;
+
+                if (this.count < minSamples
+                        || (this.count != minSamples && this.count % Math.max(this.samples.length / 10, 1) != 0)) {
+                    return;
+                }
+
+                sorted = Arrays.copyOf(this.samples, (int) Math.min(this.count, this.samples.length));
+                snapshotCount = this.count;
+            }
+
+            Arrays.sort(sorted);
+
+            final int index = Math.min((int) Math.ceil(percentile * sorted.length) - 1, sorted.length - 1);
+            final long candidate = (long) (sorted[Math.max(index, 0)] * multiplier);
+
+            synchronized (this) {
+                // ロック外で並行して再計算された場合に、古い観測から算出したタイムアウトで新しい値を上書きしない
+                if (snapshotCount > this.appliedCount) {
+                    this.appliedCount = snapshotCount;
+                    this.timeout = Math.min(Math.max(candidate, minimum), maximum);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.trace;
+
+import org.thinkit.api.common.catalog.TracePhase;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * トレースで記録された1区間の処理時間を表すクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class Span {
+
+    /**
+     * 処理の区間
+     */
+    @Getter
+    private final TracePhase phase;
+
+    /**
+     * トレースID（16進数32桁）
+     */
+    @Getter
+    private final String traceId;
+
+    /**
+     * スパンID（16進数16桁）
+     */
+    @Getter
+    private final String spanId;
+
+    /**
+     * 親のスパンID。親が存在しない場合は {@code null}
+     */
+    @Getter
+    private final String parentSpanId;
+
+    /**
+     * 試行回数（1始まり）。試行に属さない区間の場合は {@code 0}
+     */
+    @Getter
+    private final int attempt;
+
+    /**
+     * 開始日時（エポックからのナノ秒）
+     */
+    @Getter
+    private final long startEpochNanos;
+
+    /**
+     * 所要時間（ナノ秒）
+     */
+    @Getter
+    private final long durationNanos;
+
+    /**
+     * HTTPステータスコード。レスポンスを受信していない区間の場合は {@code 0}
+     */
+    @Getter
+    private final int statusCode;
+}
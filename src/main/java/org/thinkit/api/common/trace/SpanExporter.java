@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.trace;
+
+/**
+ * サンプリングされたトレースの {@link Span} を出力する処理を定義したインターフェースです。
+ * <p>
+ * {@link #export(Span)} メソッドは区間が終了したスレッドから呼び出されるため、実装クラスはスレッドセーフである必要があります。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    /**
+     * 終了した区間を出力します。
+     *
+     * @param span 終了した区間
+     */
+    void export(Span span);
+}
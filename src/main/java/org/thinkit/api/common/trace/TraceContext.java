@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.thinkit.api.common.catalog.TracePhase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * 実行中の1区間のトレース情報を保持するクラスです。
+ * <p>
+ * {@link org.thinkit.api.common.ApiContext} は呼び出しごとに {@link TracePhase#CALL} の区間を、試行ごとに
+ * {@link TracePhase#ATTEMPT} の区間を開始し、試行の区間を {@link org.thinkit.api.common.RequestOptions}
+ * を介して {@link org.thinkit.api.common.Communicable} へ渡します。 {@link org.thinkit.api.common.Communicable}
+ * の実装クラスはクエリの生成や接続の確立などの処理時間を {@link #record(TracePhase, long, long)} メソッドで記録することができます。
+ * <p>
+ * トレースが無効の場合は {@link #disabled()} メソッドが返却するインスタンスが使用され、全ての記録処理は何も行いません。
+ * サンプリングの対象外となったトレースは {@code traceparent} ヘッダーの伝播のみを行い、区間を出力しません。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString(exclude = "exporter")
+public final class TraceContext {
+
+    /**
+     * 無効なトレース情報
+     */
+    private static final TraceContext DISABLED = new TraceContext(null, null, null, null, TracePhase.CALL, 0, false,
+            0L, 0L);
+
+    /**
+     * 16進数の文字
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 区間の出力先
+     */
+    private final SpanExporter exporter;
+
+    /**
+     * トレースID
+     */
+    @Getter
+    private final String traceId;
+
+    /**
+     * スパンID
+     */
+    @Getter
+    private final String spanId;
+
+    /**
+     * 親のスパンID
+     */
+    private final String parentSpanId;
+
+    /**
+     * 処理の区間
+     */
+    @Getter
+    private final TracePhase phase;
+
+    /**
+     * 試行回数
+     */
+    @Getter
+    private final int attempt;
+
+    /**
+     * サンプリングの対象か否か
+     */
+    @Getter
+    private final boolean sampled;
+
+    /**
+     * 単調増加時刻からエポックからのナノ秒への差分
+     */
+    private final long epochOffsetNanos;
+
+    /**
+     * 開始時刻（単調増加時刻のナノ秒）
+     */
+    private final long startNanos;
+
+    /**
+     * コンストラクタ
+     *
+     * @param exporter         区間の出力先
+     * @param traceId          トレースID
+     * @param spanId           スパンID
+     * @param parentSpanId     親のスパンID
+     * @param phase            処理の区間
+     * @param attempt          試行回数
+     * @param sampled          サンプリングの対象か否か
+     * @param epochOffsetNanos 単調増加時刻からエポックからのナノ秒への差分
+     * @param startNanos       開始時刻
+     */
+    private TraceContext(SpanExporter exporter, String traceId, String spanId, String parentSpanId,
+            @NonNull TracePhase phase, int attempt, boolean sampled, long epochOffsetNanos, long startNanos) {
+        this.exporter = exporter;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.phase = phase;
+        this.attempt = attempt;
+        this.sampled = sampled;
+        this.epochOffsetNanos = epochOffsetNanos;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 無効なトレース情報を返却します。
+     *
+     * @return 無効なトレース情報
+     */
+    public static TraceContext disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * 新しいトレースの {@link TracePhase#CALL} の区間を開始します。
+     *
+     * @param exporter 区間の出力先
+     * @param sampled  サンプリングの対象か否か
+     * @return 開始した区間のトレース情報
+     */
+    static TraceContext start(@NonNull SpanExporter exporter, boolean sampled) {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long startNanos = System.nanoTime();
+        final long epochOffsetNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - startNanos;
+
+        return new TraceContext(exporter, toHex(random.nextLong(), random.nextLong() | 1L), newSpanId(), null,
+                TracePhase.CALL, 0, sampled, epochOffsetNanos, startNanos);
+    }
+
+    /**
+     * トレースが有効か判定します。
+     *
+     * @return トレースが有効な場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isEnabled() {
+        return this.traceId != null;
+    }
+
+    /**
+     * この区間を親とする新しい区間を開始します。トレースが無効の場合は自分自身を返却します。
+     *
+     * @param phase   処理の区間
+     * @param attempt 試行回数（1始まり）
+     * @return 開始した区間のトレース情報
+     */
+    public TraceContext startChild(@NonNull TracePhase phase, int attempt) {
+
+        if (!this.isEnabled()) {
+            return this;
+        }
+
+        return new TraceContext(this.exporter, this.traceId, newSpanId(), this.spanId, phase, attempt, this.sampled,
+                this.epochOffsetNanos, System.nanoTime());
+    }
+
+    /**
+     * この区間を終了し、サンプリングの対象の場合は区間を出力します。
+     */
+    public void end() {
+        this.end(0);
+    }
+
+    /**
+     * この区間を終了し、サンプリングの対象の場合は受信したHTTPステータスコードとともに区間を出力します。
+     *
+     * @param statusCode HTTPステータスコード。レスポンスを受信していない場合は {@code 0}
+     */
+    public void end(int statusCode) {
+        if (this.sampled) {
+            this.exporter.export(new Span(this.phase, this.traceId, this.spanId, this.parentSpanId, this.attempt,
+                    this.startNanos + this.epochOffsetNanos, System.nanoTime() - this.startNanos, statusCode));
+        }
+    }
+
+    /**
+     * この区間を親とする完了済みの区間を記録します。開始時刻と終了時刻は {@link System#nanoTime()} の値を渡してください。
+     *
+     * @param phase      処理の区間
+     * @param startNanos 開始時刻
+     * @param endNanos   終了時刻
+     */
+    public void record(@NonNull TracePhase phase, long startNanos, long endNanos) {
+        if (this.sampled) {
+            this.exporter.export(new Span(phase, this.traceId, newSpanId(), this.spanId, this.attempt,
+                    startNanos + this.epochOffsetNanos, endNanos - startNanos, 0));
+        }
+    }
+
+    /**
+     * この区間をW3C Trace Context形式の {@code traceparent} ヘッダーの値として返却します。
+     *
+     * @return {@code traceparent} ヘッダーの値。トレースが無効の場合は {@code null}
+     */
+    public String toTraceparent() {
+
+        if (!this.isEnabled()) {
+            return null;
+        }
+
+        return new StringBuilder(55).append("00-").append(this.traceId).append('-').append(this.spanId)
+                .append(this.sampled ? "-01" : "-00").toString();
+    }
+
+    /**
+     * 新しいスパンIDを生成します。
+     *
+     * @return 16進数16桁のスパンID
+     */
+    private static String newSpanId() {
+        return toHex(ThreadLocalRandom.current().nextLong() | 1L);
+    }
+
+    /**
+     * 引数として渡された値を連結した16進数の文字列を返却します。
+     *
+     * @param values 変換する値
+     * @return 値ごとに16桁で表した16進数の文字列
+     */
+    private static String toHex(long... values) {
+
+        final char[] chars = new char[values.length * 16];
+
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < 16; j++) {
+                chars[i * 16 + j] = HEX_DIGITS[(int) (values[i] >>> (60 - j * 4)) & 0xF];
+            }
+        }
+
+        return new String(chars);
+    }
+}
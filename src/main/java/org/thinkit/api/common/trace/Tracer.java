@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.thinkit.api.common.InvalidContextStateException;
+
+import lombok.NonNull;
+
+/**
+ * {@link org.thinkit.api.common.ApiContext} の呼び出しごとにトレースを開始するクラスです。
+ * <p>
+ * トレースはサンプリング率に従いサンプリングの対象が決定され、対象となったトレースの区間のみが {@link SpanExporter}
+ * へ出力されます。サンプリングの対象外となったトレースでもW3C Trace Context形式の {@code traceparent}
+ * ヘッダーは伝播されるため、下流のサービスでトレースを継続することができます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * Tracer tracer = Tracer.builder().withExporter(span -&gt; logger.info(span.toString())).withSamplingRate(0.01).build();
+ * ApiContext context = ApiContext.builder().of(api).withRetry().withTracer(tracer).build();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class Tracer {
+
+    /**
+     * 区間の出力先
+     */
+    private SpanExporter exporter;
+
+    /**
+     * サンプリング率
+     */
+    private double samplingRate;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private Tracer() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link Tracer} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 区間の出力先
+         */
+        private SpanExporter exporter;
+
+        /**
+         * サンプリング率
+         */
+        private double samplingRate = 1.0;
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 区間の出力先を設定します。
+         *
+         * @param exporter 区間の出力先
+         * @return 自分自身のインスタンス
+         */
+        public Builder withExporter(@NonNull SpanExporter exporter) {
+            this.exporter = exporter;
+            return this;
+        }
+
+        /**
+         * トレースのサンプリング率を設定します。サンプリング率は初期設定として {@code 1.0} が設定されています。
+         *
+         * @param samplingRate {@code 0.0} 以上 {@code 1.0} 以下のサンプリング率
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0.0} 未満、または {@code 1.0} を超える値が渡された場合
+         */
+        public Builder withSamplingRate(double samplingRate) {
+
+            if (samplingRate < 0 || samplingRate > 1) {
+                throw new InvalidContextStateException();
+            }
+
+            this.samplingRate = samplingRate;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link Tracer} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link Tracer} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException {@link #withExporter(SpanExporter)} メソッドが呼び出されていない場合
+         */
+        public Tracer build() {
+
+            if (this.exporter == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final Tracer tracer = new Tracer();
+            tracer.exporter = this.exporter;
+            tracer.samplingRate = this.samplingRate;
+
+            return tracer;
+        }
+    }
+
+    /**
+     * 新しいトレースを開始し、 {@link org.thinkit.api.common.catalog.TracePhase#CALL} の区間のトレース情報を返却します。
+     *
+     * @return 開始したトレースのトレース情報
+     */
+    public TraceContext startTrace() {
+        return TraceContext.start(this.exporter,
+                this.samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < this.samplingRate);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.trace;
+
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.catalog.TracePhase;
+
+import lombok.NonNull;
+
+/**
+ * {@link BodyHandler} を装飾し、レスポンスの最初のバイトを受信するまでの待機時間とレスポンスボディの読み込み時間を記録するクラスです。
+ * <p>
+ * {@link java.net.http.HttpClient} は接続の確立に要した時間を公開しないため、接続の確立に要した時間は
+ * {@link TracePhase#WAITING_FOR_FIRST_BYTE} の区間に含まれます。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * public HttpResponse&lt;String&gt; send(RequestOptions options) {
+ *     HttpRequest request = options.applyHeaders(HttpRequest.newBuilder(options.resolve(path))).build();
+ *     return client.send(request, TracingBodyHandler.of(BodyHandlers.ofString(), options));
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ *
+ * @param <T> レスポンスボディの型
+ */
+public final class TracingBodyHandler<T> implements BodyHandler<T> {
+
+    /**
+     * 装飾対象のハンドラー
+     */
+    private final BodyHandler<T> handler;
+
+    /**
+     * 試行のトレース情報
+     */
+    private final TraceContext traceContext;
+
+    /**
+     * リクエストの送信開始時刻（単調増加時刻のナノ秒）
+     */
+    private final long startNanos;
+
+    /**
+     * コンストラクタ
+     *
+     * @param handler      装飾対象のハンドラー
+     * @param traceContext 試行のトレース情報
+     */
+    private TracingBodyHandler(@NonNull BodyHandler<T> handler, @NonNull TraceContext traceContext) {
+        this.handler = handler;
+        this.traceContext = traceContext;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 引数として渡された {@code handler} を装飾したハンドラーを返却します。待機時間の計測はこのメソッドを呼び出した時点から開始されるため、
+     * リクエストを送信する直前に呼び出してください。トレースが無効、またはサンプリングの対象外の場合は {@code handler} をそのまま返却します。
+     *
+     * @param <T>     レスポンスボディの型
+     * @param handler 装飾対象のハンドラー
+     * @param options 通信時のオプション
+     * @return 処理時間を記録するハンドラー
+     */
+    public static <T> BodyHandler<T> of(@NonNull BodyHandler<T> handler, @NonNull RequestOptions options) {
+        return options.getTraceContext().isSampled() ? new TracingBodyHandler<>(handler, options.getTraceContext())
+                : handler;
+    }
+
+    @Override
+    public BodySubscriber<T> apply(ResponseInfo responseInfo) {
+
+        final long firstByteNanos = System.nanoTime();
+        this.traceContext.record(TracePhase.WAITING_FOR_FIRST_BYTE, this.startNanos, firstByteNanos);
+
+        return new TracingBodySubscriber<>(this.handler.apply(responseInfo), this.traceContext, firstByteNanos);
+    }
+
+    /**
+     * {@link BodySubscriber} を装飾し、レスポンスボディの読み込み時間を記録するクラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     *
+     * @param <T> レスポンスボディの型
+     */
+    private static final class TracingBodySubscriber<T> implements BodySubscriber<T> {
+
+        /**
+         * 装飾対象のサブスクライバー
+         */
+        private final BodySubscriber<T> subscriber;
+
+        /**
+         * 試行のトレース情報
+         */
+        private final TraceContext traceContext;
+
+        /**
+         * 読み込みの開始時刻（単調増加時刻のナノ秒）
+         */
+        private final long startNanos;
+
+        /**
+         * コンストラクタ
+         *
+         * @param subscriber   装飾対象のサブスクライバー
+         * @param traceContext 試行のトレース情報
+         * @param startNanos   読み込みの開始時刻
+         */
+        TracingBodySubscriber(@NonNull BodySubscriber<T> subscriber, @NonNull TraceContext traceContext,
+                long startNanos) {
+            this.subscriber = subscriber;
+            this.traceContext = traceContext;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return this.subscriber.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            this.subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.traceContext.record(TracePhase.READING_BODY, this.startNanos, System.nanoTime());
+            this.subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            this.traceContext.record(TracePhase.READING_BODY, this.startNanos, System.nanoTime());
+            this.subscriber.onComplete();
+        }
+    }
+}
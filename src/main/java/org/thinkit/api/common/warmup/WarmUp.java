@@ -0,0 +1,501 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.warmup;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.ApiResult;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.entity.RequestParameter;
+
+import lombok.NonNull;
+
+/**
+ * サービスの起動時に接続とリクエスト生成処理を事前に準備するクラスです。
+ * <p>
+ * {@link #run()} メソッドを呼び出すと以下の処理を順番に実行します。
+ * <ol>
+ * <li>登録されたホストの名前解決</li>
+ * <li>登録された {@link HttpClient} によるホストごとの接続の事前確立</li>
+ * <li>登録された {@link RequestParameter} に対する {@link Communicable#createQuery(RequestParameter)}
+ * と、 {@link Resource} のバインド処理の事前実行</li>
+ * <li>登録された {@link ApiContext} によるウォームアップ用のリクエストの送信</li>
+ * </ol>
+ * ウォームアップが完了するまで {@link #isReady()} メソッドは {@code false} を返却するため、サービスのヘルスチェックで使用してください。
+ *
+ * <pre>
+ * 使用例:
+ * <code>
+ * WarmUp warmUp = WarmUp.builder().withHttpClient(httpClient).withHost(URI.create("https://api.example.com"))
+ *         .withResources(ConcreteResource.values()).withQuery(new SearchApi(), SearchParameter.builder().build())
+ *         .withWarmUpCall(context, new PingApi()).build();
+ * warmUp.runAsync();
+ * </code>
+ * </pre>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+public final class WarmUp {
+
+    /**
+     * 接続を確立するHTTPクライアント
+     */
+    private HttpClient httpClient;
+
+    /**
+     * ウォームアップ対象のホスト
+     */
+    private List<URI> hosts;
+
+    /**
+     * ウォームアップ対象のリソース
+     */
+    private List<Resource> resources;
+
+    /**
+     * クエリの生成処理を事前に実行するAPIオブジェクトとリクエストパラメータ
+     */
+    private List<Map.Entry<Communicable, RequestParameter>> queries;
+
+    /**
+     * ウォームアップ用のリクエストを送信するコンテキストとAPIオブジェクト
+     */
+    private List<Map.Entry<ApiContext, Communicable>> warmUpCalls;
+
+    /**
+     * ホストごとに事前に確立する接続の数
+     */
+    private int connectionsPerHost;
+
+    /**
+     * リクエスト生成処理とウォームアップ用のリクエストの実行回数
+     */
+    private int iterations;
+
+    /**
+     * 接続の確立時のタイムアウト
+     */
+    private Duration timeout;
+
+    /**
+     * ウォームアップが完了したか否か
+     */
+    private volatile boolean ready;
+
+    /**
+     * デフォルトコンストラクタ
+     */
+    private WarmUp() {
+    }
+
+    /**
+     * {@link Builder} クラスの新しいインスタンスを生成し返却します。
+     *
+     * @return {@link Builder} クラスの新しいインスタンス
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link WarmUp} オブジェクトを生成するビルダークラスです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    public static class Builder {
+
+        /**
+         * 接続を確立するHTTPクライアント
+         */
+        private HttpClient httpClient;
+
+        /**
+         * ウォームアップ対象のホスト
+         */
+        private final List<URI> hosts = new ArrayList<>();
+
+        /**
+         * ウォームアップ対象のリソース
+         */
+        private final List<Resource> resources = new ArrayList<>();
+
+        /**
+         * クエリの生成処理を事前に実行するAPIオブジェクトとリクエストパラメータ
+         */
+        private final List<Map.Entry<Communicable, RequestParameter>> queries = new ArrayList<>();
+
+        /**
+         * ウォームアップ用のリクエストを送信するコンテキストとAPIオブジェクト
+         */
+        private final List<Map.Entry<ApiContext, Communicable>> warmUpCalls = new ArrayList<>();
+
+        /**
+         * ホストごとに事前に確立する接続の数
+         */
+        private int connectionsPerHost = 2;
+
+        /**
+         * リクエスト生成処理とウォームアップ用のリクエストの実行回数
+         */
+        private int iterations = 1;
+
+        /**
+         * 接続の確立時のタイムアウト
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * デフォルトコンストラクタ
+         */
+        private Builder() {
+        }
+
+        /**
+         * 接続を事前に確立するHTTPクライアントを設定します。接続プールを共有するため、 {@link org.thinkit.api.common.Communicable}
+         * の実装クラスが使用するHTTPクライアントと同一のインスタンスを設定してください。
+         *
+         * @param httpClient HTTPクライアント
+         * @return 自分自身のインスタンス
+         */
+        public Builder withHttpClient(@NonNull HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * 名前解決と接続の事前確立を行うホストを追加します。
+         *
+         * @param host ホストのURI
+         * @return 自分自身のインスタンス
+         */
+        public Builder withHost(@NonNull URI host) {
+            this.hosts.add(host);
+            return this;
+        }
+
+        /**
+         * バインド処理を事前に実行するリソースを追加します。
+         *
+         * @param resources リソース（可変長引数）
+         * @return 自分自身のインスタンス
+         */
+        public Builder withResources(@NonNull Resource... resources) {
+            Collections.addAll(this.resources, resources);
+            return this;
+        }
+
+        /**
+         * クエリの生成処理を事前に実行するAPIオブジェクトとリクエストパラメータを追加します。ウォームアップ時には
+         * {@link Communicable#createQuery(RequestParameter)} メソッドを呼び出すため、実際のリクエストと同じ経路で
+         * {@link org.thinkit.api.common.QueryTemplate} の生成とクエリの生成処理が事前に実行されます。
+         *
+         * @param api              APIオブジェクト
+         * @param requestParameter 実際のリクエストと同じ型のリクエストパラメータ
+         * @return 自分自身のインスタンス
+         */
+        public Builder withQuery(@NonNull Communicable api, @NonNull RequestParameter requestParameter) {
+            this.queries.add(Map.entry(api, requestParameter));
+            return this;
+        }
+
+        /**
+         * ウォームアップ用のリクエストを送信するコンテキストとAPIオブジェクトを追加します。実際のリクエストで使用するコンテキストを共有することで、
+         * コンテキストに設定された認証情報やキャッシュなども事前に準備されます。ウォームアップ用のリクエストのレスポンスは破棄されます。
+         *
+         * @param context ウォームアップ用のリクエストを送信するコンテキスト
+         * @param api     ウォームアップ用のAPIオブジェクト
+         * @return 自分自身のインスタンス
+         */
+        public Builder withWarmUpCall(@NonNull ApiContext context, @NonNull Communicable api) {
+            this.warmUpCalls.add(Map.entry(context, api));
+            return this;
+        }
+
+        /**
+         * ホストごとに事前に確立する接続の数を設定します。接続の数は初期設定として {@code 2} が設定されています。
+         *
+         * @param connectionsPerHost ホストごとに事前に確立する接続の数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException 負数が渡された場合
+         */
+        public Builder withConnectionsPerHost(int connectionsPerHost) {
+
+            if (connectionsPerHost < 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.connectionsPerHost = connectionsPerHost;
+            return this;
+        }
+
+        /**
+         * リソースのバインド処理とウォームアップ用のリクエストを実行する回数を設定します。実行回数は初期設定として {@code 1} が設定されています。
+         *
+         * @param iterations 実行回数
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の値が渡された場合
+         */
+        public Builder withIterations(int iterations) {
+
+            if (iterations <= 0) {
+                throw new InvalidContextStateException();
+            }
+
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * 接続を事前に確立する際のタイムアウトを設定します。タイムアウトは初期設定として5秒が設定されています。
+         *
+         * @param timeout タイムアウト
+         * @return 自分自身のインスタンス
+         *
+         * @throws InvalidContextStateException {@code 0} 以下の期間が渡された場合
+         */
+        public Builder withTimeout(@NonNull Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new InvalidContextStateException();
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 設定された値を基に {@link WarmUp} クラスの新しいインスタンスを生成し返却します。
+         *
+         * @return {@link WarmUp} クラスの新しいインスタンス
+         *
+         * @throws InvalidContextStateException ホストが追加されているが {@link #withHttpClient(HttpClient)}
+         *                                      メソッドが呼び出されていない場合
+         */
+        public WarmUp build() {
+
+            if (!this.hosts.isEmpty() && this.connectionsPerHost > 0 && this.httpClient == null) {
+                throw new InvalidContextStateException();
+            }
+
+            final WarmUp warmUp = new WarmUp();
+            warmUp.httpClient = this.httpClient;
+            warmUp.hosts = List.copyOf(this.hosts);
+            warmUp.resources = List.copyOf(this.resources);
+            warmUp.queries = List.copyOf(this.queries);
+            warmUp.warmUpCalls = List.copyOf(this.warmUpCalls);
+            warmUp.connectionsPerHost = this.connectionsPerHost;
+            warmUp.iterations = this.iterations;
+            warmUp.timeout = this.timeout;
+
+            return warmUp;
+        }
+    }
+
+    /**
+     * ウォームアップを実行し、実行結果を返却します。ウォームアップ中の失敗は処理を中断せずに実行結果へ記録されます。
+     *
+     * @return ウォームアップの実行結果
+     */
+    public WarmUpReport run() {
+
+        final long startedAt = System.nanoTime();
+        final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+        this.resolveHosts(failures);
+        final int openedConnections = this.openConnections(failures);
+        this.precompile(failures);
+        final int warmUpCalls = this.sendWarmUpCalls(failures);
+
+        this.ready = true;
+
+        return new WarmUpReport(Duration.ofNanos(System.nanoTime() - startedAt), openedConnections, warmUpCalls,
+                List.copyOf(failures));
+    }
+
+    /**
+     * 別スレッドでウォームアップを実行します。
+     *
+     * @return ウォームアップの実行結果を返却する {@link CompletableFuture}
+     */
+    public CompletableFuture<WarmUpReport> runAsync() {
+        return CompletableFuture.supplyAsync(this::run);
+    }
+
+    /**
+     * ウォームアップが完了したか判定します。
+     *
+     * @return ウォームアップが完了した場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * 登録されたホストの名前解決を行います。
+     *
+     * @param failures 失敗の内容を記録するリスト
+     */
+    private void resolveHosts(@NonNull List<String> failures) {
+        for (URI host : this.hosts) {
+            try {
+                InetAddress.getAllByName(host.getHost());
+            } catch (UnknownHostException e) {
+                failures.add(String.format("Failed to resolve the host: %s", host));
+            }
+        }
+    }
+
+    /**
+     * 登録されたホストに対して {@code HEAD} リクエストを並列で送信し、HTTPクライアントの接続プールに接続を確立します。
+     *
+     * @param failures 失敗の内容を記録するリスト
+     * @return 確立した接続の数
+     */
+    private int openConnections(@NonNull List<String> failures) {
+
+        if (this.httpClient == null || this.connectionsPerHost == 0) {
+            return 0;
+        }
+
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+        for (URI host : this.hosts) {
+            final HttpRequest request = HttpRequest.newBuilder(host).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(this.timeout).build();
+
+            for (int i = 0; i < this.connectionsPerHost; i++) {
+                futures.add(this.httpClient.sendAsync(request, BodyHandlers.discarding()).thenApply(response -> true)
+                        .exceptionally(e -> {
+                            failures.add(String.format("Failed to open a connection to %s: %s", host, e.getMessage()));
+                            return false;
+                        }));
+            }
+        }
+
+        int openedConnections = 0;
+
+        for (CompletableFuture<Boolean> future : futures) {
+            if (future.join()) {
+                openedConnections++;
+            }
+        }
+
+        return openedConnections;
+    }
+
+    /**
+     * 登録されたリクエストパラメータのクエリの生成処理と、リソースのバインド処理を事前に実行します。
+     *
+     * @param failures 失敗の内容を記録するリスト
+     */
+    private void precompile(@NonNull List<String> failures) {
+
+        for (Map.Entry<Communicable, RequestParameter> query : this.queries) {
+            try {
+                for (int i = 0; i < this.iterations; i++) {
+                    query.getKey().createQuery(query.getValue());
+                }
+            } catch (RuntimeException e) {
+                failures.add(String.format("Failed to create the query: %s", query.getValue().getClass().getName()));
+            }
+        }
+
+        for (Resource resource : this.resources) {
+            final int variables = this.countBindVariables(resource.getResource());
+
+            if (variables == 0) {
+                continue;
+            }
+
+            final String[] parameters = new String[variables];
+            Arrays.fill(parameters, "warmup");
+
+            try {
+                for (int i = 0; i < this.iterations; i++) {
+                    resource.bind(parameters);
+                }
+            } catch (RuntimeException e) {
+                failures.add(String.format("Failed to bind the resource: %s", resource.getResource()));
+            }
+        }
+    }
+
+    /**
+     * 登録されたコンテキストでウォームアップ用のリクエストを送信します。
+     *
+     * @param failures 失敗の内容を記録するリスト
+     * @return 送信したリクエストの数
+     */
+    private int sendWarmUpCalls(@NonNull List<String> failures) {
+
+        int warmUpCalls = 0;
+
+        for (Map.Entry<ApiContext, Communicable> warmUpCall : this.warmUpCalls) {
+            for (int i = 0; i < this.iterations; i++) {
+                try {
+                    final ApiResult result = warmUpCall.getKey().sendForResult(warmUpCall.getValue());
+                    warmUpCalls++;
+
+                    if (!result.isSuccess()) {
+                        failures.add(String.format("The warm-up call failed with status: %d", result.getStatusCode()));
+                    }
+                } catch (RuntimeException e) {
+                    failures.add(String.format("The warm-up call failed: %s", e.getMessage()));
+                }
+            }
+        }
+
+        return warmUpCalls;
+    }
+
+    /**
+     * 引数として渡された {@code resource} に含まれるバインド変数の数を返却します。
+     *
+     * @param resource リソース
+     * @return バインド変数の数
+     */
+    private int countBindVariables(@NonNull String resource) {
+
+        int count = 0;
+
+        for (int index = resource.indexOf("%s"); index >= 0; index = resource.indexOf("%s", index + 2)) {
+            count++;
+        }
+
+        return count;
+    }
+}
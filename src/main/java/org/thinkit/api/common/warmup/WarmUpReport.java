@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.warmup;
+
+import java.time.Duration;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * {@link WarmUp} の実行結果を表すクラスです。
+ * <p>
+ * ウォームアップ中の失敗は処理を中断せずに記録されるため、 {@link #getFailures()} メソッドで失敗の内容を確認してください。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class WarmUpReport {
+
+    /**
+     * ウォームアップの所要時間
+     */
+    @Getter
+    @NonNull
+    private final Duration elapsed;
+
+    /**
+     * 事前に確立した接続の数
+     */
+    @Getter
+    private final int openedConnections;
+
+    /**
+     * 送信したウォームアップ用のリクエストの数
+     */
+    @Getter
+    private final int warmUpCalls;
+
+    /**
+     * ウォームアップ中に発生した失敗の内容
+     */
+    @Getter
+    @NonNull
+    private final List<String> failures;
+
+    /**
+     * ウォームアップが失敗なく完了したか判定します。
+     *
+     * @return 失敗が発生しなかった場合は {@code true} 、それ以外は {@code false}
+     */
+    public boolean isSuccessful() {
+        return this.failures.isEmpty();
+    }
+}
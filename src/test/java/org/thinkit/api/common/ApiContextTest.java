@@ -0,0 +1,500 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.net.ssl.SSLSession;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.cache.DiskResponseCache;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.catalog.TracePhase;
+import org.thinkit.api.common.loadbalance.EndpointGroup;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+import org.thinkit.api.common.timeout.AdaptiveTimeout;
+import org.thinkit.api.common.trace.Span;
+import org.thinkit.api.common.trace.Tracer;
+
+/**
+ * {@link ApiContext} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class ApiContextTest {
+
+    @Test
+    void testSend() {
+        final ApiContext context = ApiContext.builder().of(new StatusApi(200)).build();
+        assertEquals("body", context.send());
+    }
+
+    @Test
+    void testSendWhenNotOk() {
+        final ApiContext context = ApiContext.builder().of(new StatusApi(404)).build();
+        assertNull(context.send());
+    }
+
+    @Test
+    void testSendWhenUnsupportedStatus() {
+        final ApiContext context = ApiContext.builder().of(new StatusApi(999)).build();
+        assertThrows(UnsupportedHttpStatusException.class, () -> context.send());
+    }
+
+    @Test
+    void testSendWithStacklessException() {
+        final ApiContext context = ApiContext.builder().of(new StatusApi(999)).withStacklessException().build();
+        final UnsupportedHttpStatusException actual = assertThrows(UnsupportedHttpStatusException.class,
+                () -> context.send());
+
+        assertEquals(0, actual.getStackTrace().length);
+    }
+
+    @Test
+    void testSendForResultWithRetry() {
+        final ApiContext context = ApiContext.builder().of(new StatusApi(500, 500, 200)).withRetry()
+                .withRetryCount(3).withLatencyOnRetry(0).build();
+        final ApiResult actual = context.sendForResult();
+
+        assertTrue(actual.isSuccess());
+        assertEquals("body", actual.getBody());
+        assertEquals(3, actual.getAttemptCount());
+    }
+
+    @Test
+    void testSendForResultWhenUnsupportedStatus() {
+        final ApiResult actual = ApiContext.builder().of(new StatusApi(999)).build().sendForResult();
+
+        assertFalse(actual.isSuccess());
+        assertFalse(actual.isSupportedStatus());
+        assertNull(actual.getHttpStatus());
+        assertEquals(999, actual.getStatusCode());
+        assertEquals(1, actual.getAttemptCount());
+    }
+
+    @Test
+    void testSendForResultWhenRetryExhausted() {
+        final ApiResult actual = ApiContext.builder().of(new StatusApi(408)).withRetry().withRetryCount(1)
+                .withLatencyOnRetry(0).build().sendForResult();
+
+        assertEquals(HttpStatus.REQUEST_TIMEOUT, actual.getHttpStatus());
+        assertNull(actual.getBody());
+        assertEquals(3, actual.getAttemptCount());
+    }
+
+    @Test
+    void testSendForResultFailsOverToAnotherEndpoint() {
+        final EndpointGroup endpointGroup = EndpointGroup.builder().withEndpoint(URI.create("http://replica1"))
+                .withEndpoint(URI.create("http://replica2")).build();
+        final List<URI> actual = new ArrayList<>();
+
+        final Communicable api = new StatusApi(500, 200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                actual.add(options.getBaseUri());
+                return super.send(options);
+            }
+        };
+
+        final ApiResult result = ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .withEndpointGroup(endpointGroup).build().sendForResult();
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, actual.size());
+        assertNotEquals(actual.get(0), actual.get(1));
+    }
+
+    @Test
+    void testSendForResultFailsOverOnServiceUnavailable() {
+        final EndpointGroup endpointGroup = EndpointGroup.builder().withEndpoint(URI.create("http://replica1"))
+                .withEndpoint(URI.create("http://replica2")).build();
+        final List<URI> actual = new ArrayList<>();
+
+        final Communicable api = new StatusApi(503, 200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                actual.add(options.getBaseUri());
+                return super.send(options);
+            }
+        };
+
+        final ApiResult result = ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .withEndpointGroup(endpointGroup).build().sendForResult();
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, actual.size());
+        assertNotEquals(actual.get(0), actual.get(1));
+    }
+
+    @Test
+    void testSendForResultWhenServiceUnavailableWithoutEndpointGroup() {
+        final ApiResult actual = ApiContext.builder().of(new StatusApi(503, 200)).withRetry().withRetryCount(1)
+                .withLatencyOnRetry(0).build().sendForResult();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, actual.getHttpStatus());
+        assertEquals(1, actual.getAttemptCount());
+    }
+
+    @Test
+    void testSendForResultFailsOverOnConnectionFailure() {
+        final EndpointGroup endpointGroup = EndpointGroup.builder().withEndpoint(URI.create("http://replica1"))
+                .withEndpoint(URI.create("http://replica2")).build();
+        final List<URI> actual = new ArrayList<>();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                actual.add(options.getBaseUri());
+
+                if (actual.size() == 1) {
+                    throw new UncheckedIOException(new ConnectException("Connection refused"));
+                }
+
+                return super.send(options);
+            }
+        };
+
+        final ApiResult result = ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .withEndpointGroup(endpointGroup).build().sendForResult();
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getAttemptCount());
+        assertNotEquals(actual.get(0), actual.get(1));
+    }
+
+    @Test
+    void testSendForResultWhenConnectionFailureRetryExhausted() {
+        final AtomicInteger count = new AtomicInteger();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                count.incrementAndGet();
+                throw new UncheckedIOException(new HttpTimeoutException("request timed out"));
+            }
+        };
+
+        final ApiContext context = ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .build();
+
+        assertThrows(UncheckedIOException.class, () -> context.sendForResult());
+        assertEquals(3, count.get());
+    }
+
+    @Test
+    void testSendForResultDoesNotRetryOtherExceptions() {
+        final AtomicInteger count = new AtomicInteger();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                count.incrementAndGet();
+                throw new IllegalStateException();
+            }
+        };
+
+        final ApiContext context = ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .build();
+
+        assertThrows(IllegalStateException.class, () -> context.sendForResult());
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    void testSendForResultWithTracer() {
+        final List<Span> spans = new CopyOnWriteArrayList<>();
+        final List<String> traceparents = new ArrayList<>();
+
+        final Communicable api = new StatusApi(500, 200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                traceparents.add(options.getHeaders().get("traceparent"));
+                return super.send(options);
+            }
+        };
+
+        ApiContext.builder().of(api).withRetry().withRetryCount(1).withLatencyOnRetry(0)
+                .withTracer(Tracer.builder().withExporter(spans::add).build()).build().sendForResult();
+
+        assertEquals(4, spans.size());
+        assertEquals(List.of(TracePhase.ATTEMPT, TracePhase.RETRY_WAIT, TracePhase.ATTEMPT, TracePhase.CALL),
+                spans.stream().map(Span::getPhase).collect(Collectors.toList()));
+
+        final Span call = spans.get(3);
+        assertEquals(200, call.getStatusCode());
+        assertEquals(2, spans.get(2).getAttempt());
+        assertEquals(call.getSpanId(), spans.get(0).getParentSpanId());
+        assertEquals(String.format("00-%s-%s-01", call.getTraceId(), spans.get(0).getSpanId()), traceparents.get(0));
+    }
+
+    @Test
+    void testSendForResultWhenTraceIsNotSampled() {
+        final List<Span> spans = new ArrayList<>();
+        final List<String> traceparents = new ArrayList<>();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                traceparents.add(options.getHeaders().get("traceparent"));
+                return super.send(options);
+            }
+        };
+
+        ApiContext.builder().of(api).withTracer(Tracer.builder().withExporter(spans::add).withSamplingRate(0).build())
+                .build().sendForResult();
+
+        assertTrue(spans.isEmpty());
+        assertTrue(traceparents.get(0).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-00"));
+    }
+
+    @Test
+    void testSendForResultDoesNotCacheMissingBody(@TempDir Path directory) throws Exception {
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(directory).withMaxSize(1 << 20).build()) {
+            final ApiContext context = ApiContext.builder().withResponseCache(cache).build();
+            final Communicable api = new Communicable() {
+
+                @Override
+                public HttpResponse<String> send() {
+                    return BufferedHttpResponse.<String>builder().build();
+                }
+
+                @Override
+                public String getRequestKey() {
+                    return "key";
+                }
+            };
+
+            final ApiResult actual = context.sendForResult(api);
+
+            assertTrue(actual.isSuccess());
+            assertNull(actual.getBody());
+            assertNull(cache.get("key"));
+        }
+    }
+
+    @Test
+    void testSendForResultWithManyRetries() {
+        final ApiResult actual = ApiContext.builder().withRetry().withRetryCount(20000).withLatencyOnRetry(0).build()
+                .sendForResult(new StatusApi(500));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, actual.getHttpStatus());
+        assertEquals(20002, actual.getAttemptCount());
+    }
+
+    @Test
+    void testSendWithSharedContext() throws Exception {
+        final ApiContext context = ApiContext.builder().withRetry().withRetryCount(1).withLatencyOnRetry(0).build();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            final List<Future<ApiResult>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 100; i++) {
+                final StatusApi api = new StatusApi(500, 200);
+                futures.add(executor.submit(() -> context.sendForResult(api)));
+            }
+
+            for (Future<ApiResult> future : futures) {
+                final ApiResult actual = future.get();
+                assertTrue(actual.isSuccess());
+                assertEquals(2, actual.getAttemptCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSendWithoutDefaultApi() {
+        final ApiContext context = ApiContext.builder().build();
+
+        assertThrows(InvalidContextStateException.class, () -> context.send());
+        assertEquals("body", context.send(new StatusApi(200)));
+    }
+
+    @Test
+    void testSendWithAdaptiveTimeout() {
+        final List<Duration> actual = new ArrayList<>();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                actual.add(options.getTimeout());
+                return super.send(options);
+            }
+        };
+
+        final AdaptiveTimeout timeout = AdaptiveTimeout.builder().withMinimum(Duration.ofMillis(50))
+                .withInitial(Duration.ofSeconds(2)).withWindowSize(1).withMinSamples(1).build();
+        final ApiContext context = ApiContext.builder().withAdaptiveTimeout(timeout).build();
+
+        context.send(api);
+        context.send(api);
+
+        assertEquals(Duration.ofSeconds(2), actual.get(0));
+        assertEquals(Duration.ofMillis(50), actual.get(1));
+    }
+
+    @Test
+    void testSendRetriesTimedOutAttemptWithAdaptiveTimeout() {
+        final List<Duration> actual = new ArrayList<>();
+
+        final Communicable api = new StatusApi(200) {
+
+            @Override
+            public HttpResponse<String> send(RequestOptions options) {
+                actual.add(options.getTimeout());
+
+                if (actual.size() == 1) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    throw new UncheckedIOException(new HttpTimeoutException("request timed out"));
+                }
+
+                return super.send(options);
+            }
+        };
+
+        final AdaptiveTimeout timeout = AdaptiveTimeout.builder().withMultiplier(1).withMinimum(Duration.ofMillis(1))
+                .withInitial(Duration.ofMillis(50)).withWindowSize(1).withMinSamples(1).build();
+        final ApiResult result = ApiContext.builder().of(api).withAdaptiveTimeout(timeout).withRetry()
+                .withRetryCount(1).withLatencyOnRetry(0).build().sendForResult();
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getAttemptCount());
+        assertEquals(Duration.ofMillis(50), actual.get(0));
+        assertEquals(Duration.ofMillis(50), actual.get(1));
+    }
+
+    /**
+     * 引数として渡されたステータスコードを順番に返却するAPIです。最後のステータスコードは繰り返し返却されます。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class StatusApi implements Communicable {
+
+        /**
+         * 返却するステータスコード
+         */
+        private final int[] statusCodes;
+
+        /**
+         * 呼び出し回数
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * コンストラクタ
+         *
+         * @param statusCodes 返却するステータスコード
+         */
+        StatusApi(int... statusCodes) {
+            this.statusCodes = statusCodes;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+
+            final int statusCode = this.statusCodes[Math.min(this.count.getAndIncrement(), this.statusCodes.length - 1)];
+
+            return new HttpResponse<String>() {
+
+                @Override
+                public int statusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public HttpRequest request() {
+                    return null;
+                }
+
+                @Override
+                public Optional<HttpResponse<String>> previousResponse() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return HttpHeaders.of(Map.of(), (name, value) -> true);
+                }
+
+                @Override
+                public String body() {
+                    return "body";
+                }
+
+                @Override
+                public Optional<SSLSession> sslSession() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public URI uri() {
+                    return null;
+                }
+
+                @Override
+                public Version version() {
+                    return Version.HTTP_1_1;
+                }
+            };
+        }
+    }
+}
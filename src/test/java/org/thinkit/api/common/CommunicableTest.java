@@ -15,10 +15,17 @@
 package org.thinkit.api.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.lang.reflect.Field;
+import java.net.URLEncoder;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.annotation.ParameterMapping;
+import org.thinkit.api.common.entity.RequestParameter;
 
 /**
  * {@link Communicable} インターフェースのテストクラスです。
@@ -35,6 +42,77 @@ class CommunicableTest {
         assertEquals(null, actual);
     }
 
+    @Test
+    void testCreateQuery() {
+        final SearchParameter parameter = new SearchParameter("java", "10", "name");
+        final String actual = new CommunicableApi().createQuery(parameter);
+
+        assertEquals("?q=java&limit=10&sort=name", actual);
+        assertEquals(createQueryByReflection(parameter), actual);
+    }
+
+    @Test
+    void testCreateQueryWithEmptyValues() {
+        final SearchParameter parameter = new SearchParameter("", "10", "");
+        assertEquals("?limit=10", new CommunicableApi().createQuery(parameter));
+        assertEquals(createQueryByReflection(parameter), new CommunicableApi().createQuery(parameter));
+
+        final SearchParameter empty = new SearchParameter("", "", "");
+        assertEquals("", new CommunicableApi().createQuery(empty));
+        assertEquals(createQueryByReflection(empty), new CommunicableApi().createQuery(empty));
+    }
+
+    @Test
+    void testCreateQueryWithSpecialCharacters() {
+        final SearchParameter parameter = new SearchParameter("a&b=c d?/日本語", "+1", "%s#");
+        final String actual = new CommunicableApi().createQuery(parameter);
+
+        assertEquals("?q=a%26b%3Dc+d%3F%2F%E6%97%A5%E6%9C%AC%E8%AA%9E&limit=%2B1&sort=%25s%23", actual);
+        assertEquals(createQueryByReflection(parameter), actual);
+    }
+
+    @Test
+    void testCreateQueryWithNullValue() {
+        final SearchParameter parameter = new SearchParameter("java", null, "name");
+
+        assertThrows(NullPointerException.class, () -> createQueryByReflection(parameter));
+        assertThrows(NullPointerException.class, () -> new CommunicableApi().createQuery(parameter));
+    }
+
+    /**
+     * {@link QueryTemplate} を使用せずに、リクエストごとにフィールドを解析する方法でクエリを生成します。
+     * {@link Communicable#createQuery(RequestParameter)} メソッドの結果と比較するために使用します。
+     *
+     * @param requestParameter リクエストパラメータ
+     * @return 生成されたクエリ
+     */
+    private static String createQueryByReflection(RequestParameter requestParameter) {
+
+        final StringBuilder query = new StringBuilder();
+        query.append("?");
+
+        for (Field field : requestParameter.getClass().getDeclaredFields()) {
+            if (field.isAnnotationPresent(ParameterMapping.class)) {
+                try {
+                    field.setAccessible(true);
+                    final String value = field.get(requestParameter).toString();
+
+                    if (!StringUtils.isEmpty(value)) {
+                        final String keyAlias = field.getAnnotation(ParameterMapping.class).keyAlias();
+                        query.append(String.format("%s=%s&", StringUtils.isEmpty(keyAlias) ? field.getName() : keyAlias,
+                                URLEncoder.encode(value, StandardCharsets.UTF_8)));
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        query.setLength(query.length() - 1);
+
+        return query.toString();
+    }
+
     /**
      * {@link Communicable#send()} メソッドを実装するクラスです。
      *
@@ -49,4 +127,51 @@ class CommunicableTest {
             return null;
         }
     }
+
+    /**
+     * 検索時のリクエストパラメータです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class SearchParameter implements RequestParameter {
+
+        /**
+         * 検索語
+         */
+        @ParameterMapping(keyAlias = "q")
+        private String query;
+
+        /**
+         * 取得件数
+         */
+        @ParameterMapping
+        private String limit;
+
+        /**
+         * 並び順
+         */
+        @ParameterMapping
+        private String sort;
+
+        /**
+         * マッピング対象外のフィールド
+         */
+        @SuppressWarnings("unused")
+        private String ignored = "ignored";
+
+        /**
+         * コンストラクタ
+         *
+         * @param query 検索語
+         * @param limit 取得件数
+         * @param sort  並び順
+         */
+        SearchParameter(String query, String limit, String sort) {
+            this.query = query;
+            this.limit = limit;
+            this.sort = sort;
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.ApiResult;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link CachingAuthProvider} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class CachingAuthProviderTest {
+
+    @Test
+    void testGetAuthorizationFromCache() {
+        final AtomicInteger count = new AtomicInteger();
+        final CachingAuthProvider provider = CachingAuthProvider.builder()
+                .of(() -> new AccessToken("token-" + count.incrementAndGet(), Instant.now().plusSeconds(3600)))
+                .build();
+
+        assertEquals("Bearer token-1", provider.getAuthorization());
+        assertEquals("Bearer token-1", provider.getAuthorization());
+        assertEquals(1, provider.getFetchCount());
+    }
+
+    @Test
+    void testGetAuthorizationRefreshesAhead() {
+        final AtomicInteger count = new AtomicInteger();
+        final List<Runnable> tasks = new ArrayList<>();
+        final CachingAuthProvider provider = CachingAuthProvider.builder()
+                .of(() -> new AccessToken("token-" + count.incrementAndGet(),
+                        Instant.now().plusSeconds(count.get() == 1 ? 10 : 3600)))
+                .withRefreshBefore(Duration.ofSeconds(20)).withExecutor(tasks::add).build();
+
+        assertEquals("Bearer token-1", provider.getAuthorization());
+        assertEquals("Bearer token-1", provider.getAuthorization());
+        assertEquals("Bearer token-1", provider.getAuthorization());
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+        assertEquals("Bearer token-2", provider.getAuthorization());
+        assertEquals(1, tasks.size());
+        assertEquals(2, provider.getFetchCount());
+    }
+
+    @Test
+    void testSendRetriesOnceWhenUnauthorized() {
+        final AtomicInteger count = new AtomicInteger();
+        final CachingAuthProvider provider = CachingAuthProvider.builder()
+                .of(() -> new AccessToken("token-" + count.incrementAndGet(), Instant.now().plusSeconds(3600)))
+                .build();
+        final ApiContext context = ApiContext.builder().withAuthProvider(provider).build();
+
+        final ApiResult success = context.sendForResult(new TokenApi("Bearer token-2"));
+        assertTrue(success.isSuccess());
+        assertEquals(2, success.getAttemptCount());
+
+        final ApiResult failure = context.sendForResult(new TokenApi("Bearer unknown"));
+        assertEquals(HttpStatus.UNAUTHORIZED, failure.getHttpStatus());
+        assertEquals(2, failure.getAttemptCount());
+        assertEquals(3, provider.getFetchCount());
+    }
+
+    /**
+     * 特定の {@code Authorization} ヘッダーのみを受け付けるAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class TokenApi implements Communicable {
+
+        /**
+         * 受け付ける {@code Authorization} ヘッダーの値
+         */
+        private final String accepted;
+
+        /**
+         * コンストラクタ
+         *
+         * @param accepted 受け付ける {@code Authorization} ヘッダーの値
+         */
+        TokenApi(String accepted) {
+            this.accepted = accepted;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            return this.send(RequestOptions.empty());
+        }
+
+        @Override
+        public HttpResponse<String> send(RequestOptions options) {
+            final boolean authorized = this.accepted.equals(options.getHeaders().get("Authorization"));
+            return BufferedHttpResponse.<String>builder().withStatusCode(authorized ? 200 : 401).withBody("body")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link BatchLoader} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class BatchLoaderTest {
+
+    /**
+     * 全ての一括リクエストで共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testLoadInBatches() throws Exception {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        try (BatchLoader<String, String> loader = BatchLoader.<String, String>builder()
+                .withCombiner(this.context, keys -> new BulkApi(String.join(",", keys), 200))
+                .withSplitter((keys, body) -> Arrays.stream(body.split(","))
+                        .filter(key -> !key.equals("missing"))
+                        .collect(Collectors.toMap(Function.identity(), key -> key.toUpperCase())))
+                .withMaxBatchSize(100).withBatchWindow(50).withBatchListener(batchSizes::add).build()) {
+
+            final List<CompletableFuture<String>> futures = loader.loadAll(
+                    IntStream.range(0, 250).mapToObj(i -> "key" + i).collect(Collectors.toList()));
+            final CompletableFuture<String> duplicate = loader.load("key249");
+            final CompletableFuture<String> missing = loader.load("missing");
+
+            assertEquals("KEY0", futures.get(0).get(5, TimeUnit.SECONDS));
+            assertEquals("KEY249", futures.get(249).get(5, TimeUnit.SECONDS));
+            assertEquals("KEY249", duplicate.get(5, TimeUnit.SECONDS));
+            final ExecutionException actual = assertThrows(ExecutionException.class,
+                    () -> missing.get(5, TimeUnit.SECONDS));
+            assertTrue(actual.getCause() instanceof ApiRequestFailedException);
+
+            assertEquals(List.of(100, 100, 51), batchSizes);
+            assertEquals(3, loader.getBatchCount());
+            assertEquals(251, loader.getKeyCount());
+            assertEquals(100, loader.getLargestBatchSize());
+        }
+    }
+
+    @Test
+    void testLoadWhenBatchFailed() {
+        try (BatchLoader<String, String> loader = BatchLoader.<String, String>builder()
+                .withCombiner(this.context, keys -> new BulkApi("", 500))
+                .withSplitter((keys, body) -> null).withBatchWindow(0).build()) {
+
+            final ExecutionException actual = assertThrows(ExecutionException.class,
+                    () -> loader.load("key").get(5, TimeUnit.SECONDS));
+            assertTrue(actual.getCause() instanceof ApiRequestFailedException);
+        }
+    }
+
+    @Test
+    void testLoadWhenSplitterReturnsNullValue() throws Exception {
+        try (BatchLoader<String, String> loader = BatchLoader.<String, String>builder()
+                .withCombiner(this.context, keys -> new BulkApi("", 200))
+                .withSplitter((keys, body) -> Collections.singletonMap("key", null)).withBatchWindow(0).build()) {
+            assertNull(loader.load("key").get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testLoadWhenBatchListenerThrows() {
+        try (BatchLoader<String, String> loader = BatchLoader.<String, String>builder()
+                .withCombiner(this.context, keys -> new BulkApi("key", 200))
+                .withSplitter((keys, body) -> Map.of(body, body)).withBatchWindow(0).withBatchListener(size -> {
+                    throw new IllegalStateException();
+                }).build()) {
+
+            final ExecutionException actual = assertThrows(ExecutionException.class,
+                    () -> loader.load("key").get(5, TimeUnit.SECONDS));
+            assertTrue(actual.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * 引数として渡されたレスポンスボディを返却するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class BulkApi implements Communicable {
+
+        /**
+         * レスポンスボディ
+         */
+        private final String body;
+
+        /**
+         * HTTPステータスコード
+         */
+        private final int statusCode;
+
+        /**
+         * コンストラクタ
+         *
+         * @param body       レスポンスボディ
+         * @param statusCode HTTPステータスコード
+         */
+        BulkApi(String body, int statusCode) {
+            this.body = body;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            return BufferedHttpResponse.<String>builder().withStatusCode(this.statusCode).withBody(this.body).build();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link CacheRefreshPolicy} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class CacheRefreshPolicyTest {
+
+    @Test
+    void testRefreshAheadInBackground() {
+        final MemoryCache cache = new MemoryCache();
+        final CountingApi api = new CountingApi();
+        final CacheRefreshPolicy policy = CacheRefreshPolicy.builder().withTimeToLive(Duration.ofSeconds(10))
+                .withRefreshAhead(0.5).withExecutor(Runnable::run).build();
+        final ApiContext context = ApiContext.builder().withResponseCache(cache).withCacheRefreshPolicy(policy).build();
+
+        cache.putWithAge("key", "fresh", 1000);
+        assertEquals("fresh", context.send(api));
+        assertEquals(0, api.count.get());
+
+        cache.putWithAge("key", "aging", 6000);
+        assertEquals("aging", context.send(api));
+        assertEquals(1, api.count.get());
+        assertEquals("body-1", cache.get("key").getBody());
+        assertEquals(1, policy.getRefreshCount());
+        assertEquals(0, policy.getStaleCount());
+    }
+
+    @Test
+    void testStaleWhileRevalidateWithSingleRefresh() {
+        final MemoryCache cache = new MemoryCache();
+        final CountingApi api = new CountingApi();
+        final List<Runnable> tasks = new ArrayList<>();
+        final CacheRefreshPolicy policy = CacheRefreshPolicy.builder().withTimeToLive(Duration.ofSeconds(10))
+                .withStaleWhileRevalidate(Duration.ofSeconds(5)).withExecutor(tasks::add).build();
+        final ApiContext context = ApiContext.builder().withResponseCache(cache).withCacheRefreshPolicy(policy).build();
+
+        cache.putWithAge("key", "stale", 12000);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("stale", context.send(api));
+        }
+
+        assertEquals(1, tasks.size());
+        assertEquals(3, policy.getStaleCount());
+        tasks.get(0).run();
+        assertEquals("body-1", context.send(api));
+
+        cache.putWithAge("key", "expired", 16000);
+        assertEquals("body-2", context.send(api));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void testRefreshWithoutBodyKeepsCachedResponse() {
+        final MemoryCache cache = new MemoryCache();
+        final CacheRefreshPolicy policy = CacheRefreshPolicy.builder().withTimeToLive(Duration.ofSeconds(10))
+                .withRefreshAhead(0.5).withExecutor(Runnable::run).build();
+        final ApiContext context = ApiContext.builder().withResponseCache(cache).withCacheRefreshPolicy(policy).build();
+        final CountingApi api = new CountingApi() {
+
+            @Override
+            public BufferedHttpResponse<String> send() {
+                return BufferedHttpResponse.<String>builder().build();
+            }
+        };
+
+        cache.putWithAge("key", "aging", 6000);
+        assertEquals("aging", context.send(api));
+        assertEquals("aging", cache.get("key").getBody());
+    }
+
+    /**
+     * 呼び出し回数をレスポンスボディとして返却するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class CountingApi implements Communicable {
+
+        /**
+         * 呼び出し回数
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String getRequestKey() {
+            return "key";
+        }
+
+        @Override
+        public BufferedHttpResponse<String> send() {
+            return BufferedHttpResponse.<String>builder().withBody("body-" + this.count.incrementAndGet()).build();
+        }
+    }
+
+    /**
+     * キャッシュした日時を指定できるメモリ上のレスポンスキャッシュです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class MemoryCache implements ResponseCache {
+
+        /**
+         * キャッシュ済みのレスポンス
+         */
+        private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+        @Override
+        public CachedResponse get(String key) {
+            return this.responses.get(key);
+        }
+
+        @Override
+        public void put(String key, String body) {
+            this.responses.put(key, new CachedResponse(body, System.currentTimeMillis()));
+        }
+
+        /**
+         * 引数として渡された経過時間が経過したレスポンスとしてキャッシュします。
+         *
+         * @param key  リクエストを一意に識別するキー
+         * @param body レスポンスボディ
+         * @param age  経過時間（ミリ秒）
+         */
+        void putWithAge(String key, String body, long age) {
+            this.responses.put(key, new CachedResponse(body, System.currentTimeMillis() - age));
+        }
+    }
+}
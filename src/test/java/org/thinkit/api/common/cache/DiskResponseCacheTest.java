@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.InvalidContextStateException;
+
+/**
+ * {@link DiskResponseCache} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class DiskResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPutAndGet() throws Exception {
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory).build()) {
+            cache.put("/users?id=1", "{\"name\":\"テスト\"}");
+
+            assertEquals("{\"name\":\"テスト\"}", cache.get("/users?id=1").getBody());
+            assertNull(cache.get("/users?id=2"));
+        }
+    }
+
+    @Test
+    void testReadableAfterRestart() throws Exception {
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory).withSegmentSize(4096).build()) {
+            for (int i = 0; i < 100; i++) {
+                cache.put("key" + i, "body" + i);
+            }
+
+            cache.put("key0", "updated");
+        }
+
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory).withSegmentSize(4096).build()) {
+            assertEquals(100, cache.size());
+            assertEquals("updated", cache.get("key0").getBody());
+            assertEquals("body99", cache.get("key99").getBody());
+        }
+    }
+
+    @Test
+    void testEvictOldestSegment() throws Exception {
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory).withSegmentSize(1024)
+                .withMaxSize(2048).build()) {
+            final String body = "x".repeat(400);
+
+            for (int i = 0; i < 10; i++) {
+                cache.put("key" + i, body);
+            }
+
+            assertNull(cache.get("key0"));
+            assertEquals(body, cache.get("key9").getBody());
+        }
+    }
+
+    @Test
+    void testSegmentSizeDerivedFromMaxSize() throws Exception {
+        final long maxSize = 64 * 1024;
+
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory).withMaxSize(maxSize).build()) {
+            final String body = "x".repeat(1000);
+
+            for (int i = 0; i < 200; i++) {
+                cache.put("key" + i, body);
+            }
+
+            assertEquals(body, cache.get("key199").getBody());
+        }
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            assertTrue(files.mapToLong(file -> file.toFile().length()).sum() <= maxSize);
+        }
+    }
+
+    @Test
+    void testBuildWhenMaxSizeIsSmallerThanTwoSegments() {
+        assertThrows(InvalidContextStateException.class,
+                () -> DiskResponseCache.builder().of(this.directory).withSegmentSize(4096).withMaxSize(4096).build());
+        assertThrows(InvalidContextStateException.class,
+                () -> DiskResponseCache.builder().of(this.directory).withMaxSize(1024).build());
+    }
+
+    @Test
+    void testExpiredEntry() throws Exception {
+        try (DiskResponseCache cache = DiskResponseCache.builder().of(this.directory)
+                .withTimeToLive(Duration.ofMillis(1)).build()) {
+            cache.put("key", "body");
+            Thread.sleep(10);
+
+            assertNull(cache.get("key"));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.compress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.Resource;
+
+/**
+ * {@link GzipRequestCompressor} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class GzipRequestCompressorTest {
+
+    /**
+     * テスト用のリソース
+     */
+    private static final Resource RESOURCE = () -> "/items";
+
+    @Test
+    void testCompress() throws Exception {
+        final StringBuilder json = new StringBuilder("[");
+
+        for (int i = 0; i < 5000; i++) {
+            json.append(String.format("{\"id\":%d,\"name\":\"item-%d\"},", i, i));
+        }
+
+        final String expected = json.append("{}]").toString();
+        final GzipRequestCompressor compressor = GzipRequestCompressor.builder().withBufferSize(512).build();
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost/items"));
+        final BodyPublisher body = compressor.compress(RESOURCE, BodyPublishers.ofString(expected), request);
+
+        assertEquals("gzip", request.POST(body).build().headers().firstValue("Content-Encoding").orElse(null));
+
+        for (int i = 0; i < 2; i++) {
+            try (InputStream actual = new GZIPInputStream(new ByteArrayInputStream(this.read(body)))) {
+                assertEquals(expected, new String(actual.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        final CompressionStats stats = compressor.getStats(RESOURCE);
+        assertEquals(1, stats.getRequestCount());
+        assertEquals(expected.length(), stats.getOriginalBytes());
+        assertTrue(stats.getRatio() < 0.5);
+    }
+
+    @Test
+    void testCompressWhenBelowThreshold() {
+        final GzipRequestCompressor compressor = GzipRequestCompressor.builder().build();
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost/items"));
+        final BodyPublisher body = BodyPublishers.ofString("{\"id\":1}");
+
+        assertSame(body, compressor.compress(RESOURCE, body, request));
+        assertFalse(request.POST(body).build().headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(0, compressor.getStats(RESOURCE).getRequestCount());
+    }
+
+    @Test
+    void testCompressWhenCancelled() throws Exception {
+        final GzipRequestCompressor compressor = GzipRequestCompressor.builder().withThreshold(0).build();
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost/items"));
+        final BodyPublisher body = compressor.compress(RESOURCE, BodyPublishers.ofString("{\"id\":1}"), request);
+        final CompletableFuture<Void> received = new CompletableFuture<>();
+
+        body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                this.subscription.cancel();
+                received.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                received.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                received.completeExceptionally(new AssertionError("completed after cancel"));
+            }
+        });
+
+        received.get(5, TimeUnit.SECONDS);
+        assertEquals(0, compressor.getStats(RESOURCE).getRequestCount());
+
+        try (InputStream actual = new GZIPInputStream(new ByteArrayInputStream(this.read(body)))) {
+            assertEquals("{\"id\":1}", new String(actual.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals(1, compressor.getStats(RESOURCE).getRequestCount());
+    }
+
+    /**
+     * 引数として渡された {@code body} を1バッファずつ要求して読み込みます。
+     *
+     * @param body リクエストボディ
+     * @return 読み込んだバイト列
+     */
+    private byte[] read(BodyPublisher body) throws Exception {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                final byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                output.writeBytes(bytes);
+                this.subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(output.toByteArray());
+            }
+        });
+
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
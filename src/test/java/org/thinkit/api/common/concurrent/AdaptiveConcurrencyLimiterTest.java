@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+/**
+ * {@link AdaptiveConcurrencyLimiter} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testLimitIncreasesOnSuccess() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(1).build();
+
+        limiter.acquire(null).release(0, HttpStatus.OK);
+
+        assertEquals(2, limiter.getLimit(null));
+        assertEquals(0, limiter.getInFlight(null));
+    }
+
+    @Test
+    void testLimitDecreasesOnOverload() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(10)
+                .withBackoffRatio(0.5).withLatencyThreshold(Duration.ofSeconds(1)).build();
+
+        limiter.acquire(null).release(0, HttpStatus.SERVICE_UNAVAILABLE);
+        assertEquals(5, limiter.getLimit(null));
+
+        limiter.acquire(null).release(TimeUnit.SECONDS.toNanos(2), HttpStatus.OK);
+        assertEquals(2, limiter.getLimit(null));
+
+        limiter.acquire(null).release(0, null);
+        assertEquals(1, limiter.getLimit(null));
+    }
+
+    @Test
+    void testLimitStaysWithinBounds() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withMinLimit(2)
+                .withInitialLimit(2).withMaxLimit(3).withBackoffRatio(0.5).build();
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(null).release(0, HttpStatus.GATEWAY_TIMEOUT);
+        }
+
+        assertEquals(2, limiter.getLimit(null));
+
+        for (int i = 0; i < 20; i++) {
+            final ConcurrencyLimiter.Permit first = limiter.acquire(null);
+            final ConcurrencyLimiter.Permit second = limiter.acquire(null);
+            first.release(0, HttpStatus.OK);
+            second.release(0, HttpStatus.OK);
+        }
+
+        assertEquals(3, limiter.getLimit(null));
+    }
+
+    @Test
+    void testReleaseIsIdempotent() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(2).build();
+        final ConcurrencyLimiter.Permit first = limiter.acquire(null);
+        final ConcurrencyLimiter.Permit second = limiter.acquire(null);
+
+        first.release(0, HttpStatus.OK);
+        first.release(0, HttpStatus.OK);
+
+        assertEquals(1, limiter.getInFlight(null));
+
+        second.release(0, HttpStatus.OK);
+        assertEquals(0, limiter.getInFlight(null));
+    }
+
+    @Test
+    void testAcquireRejectsWhenLimitReached() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(1).build();
+        final ConcurrencyLimiter.Permit permit = limiter.acquire(null);
+
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(null));
+        assertEquals(1, limiter.getRejectedCount(null));
+
+        permit.release(0, HttpStatus.OK);
+        limiter.acquire(null).release(0, HttpStatus.OK);
+    }
+
+    @Test
+    void testAcquireRejectsAfterMaxWait() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(1)
+                .withMaxQueueSize(1).withMaxWait(Duration.ofMillis(50)).build();
+        limiter.acquire(null);
+
+        assertThrows(RequestRejectedException.class, () -> limiter.acquire(null));
+        assertEquals(1, limiter.getRejectedCount(null));
+    }
+
+    @Test
+    void testPermitIsReleasedWhenApiThrows() {
+        final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder().withInitialLimit(10)
+                .withBackoffRatio(0.5).build();
+
+        final Communicable api = new Communicable() {
+
+            @Override
+            public HttpResponse<String> send() {
+                throw new IllegalStateException();
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> ApiContext.builder().of(api)
+                .withConcurrencyLimiter(limiter).build().send());
+
+        assertEquals(0, limiter.getInFlight(null));
+        assertEquals(5, limiter.getLimit(null));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.exception.RequestRejectedException;
+
+/**
+ * {@link Bulkhead} クラスと {@link BulkheadRegistry} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class BulkheadTest {
+
+    @Test
+    void testAcquireRejectsWhenSaturated() {
+        final Bulkhead bulkhead = Bulkhead.builder().withName("search").withMaxConcurrentCalls(1).build();
+        final ConcurrencyLimiter.Permit permit = bulkhead.acquire();
+
+        assertEquals(1.0, bulkhead.getSaturation());
+        assertThrows(RequestRejectedException.class, () -> bulkhead.acquire());
+        assertEquals(1, bulkhead.getRejectedCount());
+
+        permit.release(0, HttpStatus.OK);
+        assertEquals(0, bulkhead.getActiveCalls());
+    }
+
+    @Test
+    void testReleaseIsIdempotent() {
+        final Bulkhead bulkhead = Bulkhead.builder().withMaxConcurrentCalls(1).build();
+        final ConcurrencyLimiter.Permit permit = bulkhead.acquire();
+
+        permit.release(0, HttpStatus.OK);
+        permit.release(0, HttpStatus.OK);
+        assertEquals(0, bulkhead.getActiveCalls());
+
+        bulkhead.acquire();
+        assertThrows(RequestRejectedException.class, () -> bulkhead.acquire());
+        assertEquals(1.0, bulkhead.getSaturation());
+    }
+
+    @Test
+    void testAcquireTimesOutWhileWaiting() {
+        final Bulkhead bulkhead = Bulkhead.builder().withMaxConcurrentCalls(1).withMaxWaitingCalls(1)
+                .withMaxWait(Duration.ofMillis(50)).build();
+        bulkhead.acquire();
+
+        final long startedAt = System.nanoTime();
+
+        assertThrows(RequestRejectedException.class, () -> bulkhead.acquire());
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, bulkhead.getWaitingCalls());
+        assertEquals(1, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    void testAcquireWaitsForRelease() throws Exception {
+        final Bulkhead bulkhead = Bulkhead.builder().withMaxConcurrentCalls(1).withMaxWaitingCalls(1)
+                .withMaxWait(Duration.ofSeconds(5)).build();
+        final ConcurrencyLimiter.Permit permit = bulkhead.acquire();
+
+        final CompletableFuture<ConcurrencyLimiter.Permit> waiting = CompletableFuture.supplyAsync(bulkhead::acquire);
+
+        while (bulkhead.getWaitingCalls() == 0) {
+            Thread.sleep(1);
+        }
+
+        permit.release(0, HttpStatus.OK);
+        waiting.get(5, TimeUnit.SECONDS).release(0, HttpStatus.OK);
+
+        assertEquals(0, bulkhead.getActiveCalls());
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    void testPermitIsReleasedWhenApiThrows() {
+        final BulkheadRegistry registry = BulkheadRegistry.builder().build();
+
+        final Communicable api = new Communicable() {
+
+            @Override
+            public HttpResponse<String> send() {
+                throw new IllegalStateException();
+            }
+        };
+
+        final ApiContext context = ApiContext.builder().of(api).withBulkheads(registry).build();
+
+        assertThrows(IllegalStateException.class, () -> context.send());
+        assertEquals(0, registry.getBulkhead(null).getActiveCalls());
+    }
+
+    @Test
+    void testRegistryReturnsSameBulkheadForSameResource() {
+        final Bulkhead shared = Bulkhead.builder().withName("shared").build();
+        final BulkheadRegistry registry = BulkheadRegistry.builder()
+                .assign(shared, TestResource.USER, TestResource.REPOSITORY).build();
+
+        assertSame(shared, registry.getBulkhead(TestResource.USER));
+        assertSame(shared, registry.getBulkhead(TestResource.REPOSITORY));
+        assertSame(registry.getBulkhead(TestResource.SEARCH), registry.getBulkhead(TestResource.SEARCH));
+        assertSame(registry.getBulkhead(null), registry.getBulkhead(null));
+        assertNotSame(shared, registry.getBulkhead(TestResource.SEARCH));
+        assertNotSame(registry.getBulkhead(TestResource.SEARCH), registry.getBulkhead(null));
+        assertEquals(3, registry.getBulkheads().size());
+    }
+
+    /**
+     * バルクヘッドを割り当てるリソースです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private enum TestResource implements Resource {
+
+        USER, REPOSITORY, SEARCH;
+
+        @Override
+        public String getResource() {
+            return this.name();
+        }
+    }
+}
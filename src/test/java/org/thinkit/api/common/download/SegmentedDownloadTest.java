@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.download;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+import org.thinkit.api.common.stream.StreamSource;
+
+/**
+ * {@link SegmentedDownload} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class SegmentedDownloadTest {
+
+    /**
+     * ダウンロード対象のリソース
+     */
+    private static final byte[] CONTENT = new byte[10_000];
+
+    /**
+     * リソースの最終更新日時
+     */
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    static {
+        new Random(1).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDownloadRetriesFailedSegment() throws Exception {
+        final Path target = this.directory.resolve("archive.zip");
+        final Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+
+        final DownloadReport report = SegmentedDownload.builder()
+                .of(options -> serve(options, range -> range.startsWith("bytes=3000-") && failedOnce.add(range)))
+                .withTarget(target).withSegmentSize(1000).withParallelism(3).withRetryDelay(0).build().download();
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(10, report.getSegmentCount());
+        assertEquals(1, report.getRetries());
+        assertTrue(report.isRangeSupported());
+        assertFalse(Files.exists(this.directory.resolve("archive.zip.state")));
+    }
+
+    @Test
+    void testDownloadResumesAfterFailure() throws Exception {
+        final Path target = this.directory.resolve("archive.zip");
+
+        final SegmentedDownload failing = SegmentedDownload.builder()
+                .of(options -> serve(options, range -> range.matches("bytes=[789]000-.*"))).withTarget(target)
+                .withSegmentSize(1000).withParallelism(1).withRetryCount(0).build();
+
+        assertThrows(ApiRequestFailedException.class, () -> failing.download());
+        assertTrue(Files.exists(this.directory.resolve("archive.zip.state")));
+
+        final DownloadReport report = SegmentedDownload.builder().of(options -> serve(options, range -> false))
+                .withTarget(target).withSegmentSize(1000).build().download();
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(7, report.getResumedSegments());
+        assertEquals(3000, report.getTransferredBytes());
+    }
+
+    @Test
+    void testDownloadWhenRangeIsNotSupported() throws Exception {
+        final Path target = this.directory.resolve("archive.zip");
+        final StreamSource source = options -> BufferedHttpResponse.<InputStream>builder()
+                .withBody(new ByteArrayInputStream(CONTENT)).build();
+
+        final DownloadReport report = SegmentedDownload.builder().of(source).withTarget(target).build().download();
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertFalse(report.isRangeSupported());
+    }
+
+    @Test
+    void testDownloadWithWeakEtag() throws Exception {
+        final Path target = this.directory.resolve("archive.zip");
+        final Set<String> validators = ConcurrentHashMap.newKeySet();
+
+        final DownloadReport report = SegmentedDownload.builder().of(options -> {
+            final String validator = options.getHeaders().get("If-Range");
+
+            if (validator != null) {
+                validators.add(validator);
+
+                if (validator.startsWith("W/")) {
+                    return BufferedHttpResponse.<InputStream>builder().withBody(new ByteArrayInputStream(CONTENT))
+                            .build();
+                }
+            }
+
+            return serve(options, "W/\"v1\"", range -> false);
+        }).withTarget(target).withSegmentSize(1000).withRetryCount(0).build().download();
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(10, report.getSegmentCount());
+        assertTrue(report.isRangeSupported());
+        assertEquals(Set.of(LAST_MODIFIED), validators);
+    }
+
+    /**
+     * {@code Range} ヘッダーに従いリソースの一部を返却します。 {@code truncated} が {@code true}
+     * を返却した範囲は途中で切断されたレスポンスを返却します。
+     *
+     * @param options   通信時のオプション
+     * @param truncated 切断する範囲を判定する関数
+     * @return HTTPレスポンス
+     */
+    private static HttpResponse<InputStream> serve(RequestOptions options, Predicate<String> truncated) {
+        return serve(options, "\"v1\"", truncated);
+    }
+
+    /**
+     * {@code Range} ヘッダーに従いリソースの一部を、引数として渡された {@code etag} と共に返却します。 {@code truncated} が
+     * {@code true} を返却した範囲は途中で切断されたレスポンスを返却します。
+     *
+     * @param options   通信時のオプション
+     * @param etag      リソースのETag
+     * @param truncated 切断する範囲を判定する関数
+     * @return HTTPレスポンス
+     */
+    private static HttpResponse<InputStream> serve(RequestOptions options, String etag,
+            Predicate<String> truncated) {
+        final String range = options.getHeaders().get("Range");
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final int start = Integer.parseInt(bounds[0]);
+        final int end = Integer.parseInt(bounds[1]);
+        final int length = truncated.test(range) ? (end - start) / 2 : end - start + 1;
+
+        return BufferedHttpResponse.<InputStream>builder().withStatusCode(206)
+                .withHeaders(Map.of("Content-Range",
+                        List.of(String.format("bytes %d-%d/%d", start, end, CONTENT.length)), "ETag",
+                        List.of(etag), "Last-Modified", List.of(LAST_MODIFIED)))
+                .withBody(new ByteArrayInputStream(CONTENT, start, length)).build();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.net.ssl.SSLSession;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.catalog.ExportFormat;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.pagination.Page;
+
+/**
+ * {@link PageExport} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class PageExportTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 全てのページの取得で共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testToCsvRow() {
+        assertEquals("1,\"a,b\",\"say \"\"hi\"\"\",", PageExport.toCsvRow("1", "a,b", "say \"hi\"", null));
+    }
+
+    @Test
+    void testExportCsv() throws IOException {
+        final Path target = this.directory.resolve("export.csv");
+
+        final ExportReport actual = PageExport.builder().of(this.context, page -> new PageApi(page, 200))
+                .withTransformer(PageExportTest::toCsvRows).withTarget(target).withHeader("id,name")
+                .withTotalCount(95).withPageSize(10).withBufferSize(64).build().export();
+
+        assertEquals(new ExportReport(10, 95, Files.size(target), 0), actual);
+        assertEquals(expectedCsv(95), Files.readString(target));
+        assertFalse(Files.exists(this.directory.resolve("export.csv.checkpoint")));
+    }
+
+    @Test
+    void testExportNdjsonUntilEmptyPage() throws IOException {
+        final Path target = this.directory.resolve("export.ndjson");
+
+        final ExportReport actual = PageExport.builder().of(this.context, page -> new PageApi(page, 200))
+                .withTransformer((page, body) -> page.getOffset() >= 25 ? List.of()
+                        : List.of(String.format("{\"offset\":%s}", body)))
+                .withTarget(target).withFormat(ExportFormat.NDJSON).withPageSize(5).build().export();
+
+        assertEquals(5, actual.getPageCount());
+        assertEquals("{\"offset\":0}\n{\"offset\":5}\n{\"offset\":10}\n{\"offset\":15}\n{\"offset\":20}\n",
+                Files.readString(target));
+    }
+
+    @Test
+    void testExportResumesFromCheckpoint() throws IOException {
+        final Path target = this.directory.resolve("export.csv");
+        final PageExport failing = PageExport.builder()
+                .of(this.context, page -> new PageApi(page, page.getIndex() == 5 ? 404 : 200))
+                .withTransformer(PageExportTest::toCsvRows).withTarget(target).withHeader("id,name")
+                .withTotalCount(100).withPageSize(10).withCheckpointInterval(2).build();
+
+        assertThrows(ApiRequestFailedException.class, () -> failing.export());
+        assertTrue(Files.exists(this.directory.resolve("export.csv.checkpoint")));
+
+        final ExportReport actual = PageExport.builder().of(this.context, page -> new PageApi(page, 200))
+                .withTransformer(PageExportTest::toCsvRows).withTarget(target).withHeader("id,name")
+                .withTotalCount(100).withPageSize(10).withCheckpointInterval(2).build().export();
+
+        assertEquals(4, actual.getResumedPages());
+        assertEquals(6, actual.getPageCount());
+        assertEquals(100, actual.getRecordCount());
+        assertEquals(expectedCsv(100), Files.readString(target, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * ページのオフセットを基に、ページに含まれるレコードをCSV形式の行へ変換します。
+     *
+     * @param page ページ
+     * @param body レスポンスボディ
+     * @return CSV形式の行
+     */
+    private static List<String> toCsvRows(Page page, String body) {
+
+        final long offset = Long.parseLong(body);
+        final List<String> rows = new ArrayList<>(page.getLimit());
+
+        for (long id = offset; id < offset + page.getLimit(); id++) {
+            rows.add(PageExport.toCsvRow(String.valueOf(id), "name, " + id));
+        }
+
+        return rows;
+    }
+
+    /**
+     * 期待するCSV形式のファイルの内容を返却します。
+     *
+     * @param count レコード数
+     * @return ファイルの内容
+     */
+    private static String expectedCsv(int count) {
+
+        final StringBuilder expected = new StringBuilder("id,name\r\n");
+
+        for (int id = 0; id < count; id++) {
+            expected.append(id).append(",\"name, ").append(id).append("\"\r\n");
+        }
+
+        return expected.toString();
+    }
+
+    /**
+     * ページのオフセットをレスポンスボディとして返却するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class PageApi implements Communicable {
+
+        /**
+         * ページ
+         */
+        private final Page page;
+
+        /**
+         * HTTPステータスコード
+         */
+        private final int statusCode;
+
+        /**
+         * コンストラクタ
+         *
+         * @param page       ページ
+         * @param statusCode HTTPステータスコード
+         */
+        PageApi(Page page, int statusCode) {
+            this.page = page;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            return new HttpResponse<String>() {
+
+                @Override
+                public int statusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public HttpRequest request() {
+                    return null;
+                }
+
+                @Override
+                public Optional<HttpResponse<String>> previousResponse() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return HttpHeaders.of(Map.of(), (name, value) -> true);
+                }
+
+                @Override
+                public String body() {
+                    return String.valueOf(page.getOffset());
+                }
+
+                @Override
+                public Optional<SSLSession> sslSession() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public URI uri() {
+                    return null;
+                }
+
+                @Override
+                public Version version() {
+                    return Version.HTTP_1_1;
+                }
+            };
+        }
+    }
+}
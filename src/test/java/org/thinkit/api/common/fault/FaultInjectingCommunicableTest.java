@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.fault;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.InvalidContextStateException;
+import org.thinkit.api.common.catalog.FaultType;
+import org.thinkit.api.common.catalog.HttpStatus;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link FaultInjectingCommunicable} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class FaultInjectingCommunicableTest {
+
+    /**
+     * 常にHTTPステータス {@code 200} を返却するAPI
+     */
+    private static final Communicable OK_API = () -> BufferedHttpResponse.<String>builder()
+            .withBody("0123456789abcdef").build();
+
+    @Test
+    void testSendIsReproducibleWithSeed() {
+        assertEquals(this.outcomes(7), this.outcomes(7));
+    }
+
+    @Test
+    void testSendInjectsFaultsAtConfiguredRates() {
+        final FaultInjectingCommunicable api = FaultInjectingCommunicable.builder().of(OK_API).withSeed(1)
+                .withStatusFault(HttpStatus.INTERNAL_SERVER_ERROR, 0.2).withConnectionError(0.1)
+                .withTruncatedBody(0.5).build();
+
+        for (int i = 0; i < 10000; i++) {
+            try {
+                final String body = api.send().body();
+                assertTrue(body.length() <= 16);
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getCause() instanceof ConnectException);
+            }
+        }
+
+        assertEquals(10000, api.getRequestCount());
+        assertEquals(0.2, api.getInjectedCount(FaultType.HTTP_STATUS) / 10000.0, 0.02);
+        assertEquals(0.1, api.getInjectedCount(FaultType.CONNECTION_ERROR) / 10000.0, 0.02);
+        assertEquals(0.35, api.getInjectedCount(FaultType.TRUNCATED_BODY) / 10000.0, 0.02);
+    }
+
+    @Test
+    void testBuildWhenProbabilitiesExceedOne() {
+        assertThrows(InvalidContextStateException.class,
+                () -> FaultInjectingCommunicable.builder().of(OK_API)
+                        .withStatusFault(HttpStatus.SERVICE_UNAVAILABLE, 0.6).withConnectionError(0.5).build());
+    }
+
+    /**
+     * 引数として渡された {@code seed} で障害を注入した100回分の結果を返却します。
+     *
+     * @param seed 乱数のシード値
+     * @return ステータスコード、または接続の失敗を表す {@code -1} とレスポンスボディの長さを連結した結果
+     */
+    private List<String> outcomes(long seed) {
+
+        final Communicable api = FaultInjectingCommunicable.builder().of(OK_API).withSeed(seed)
+                .withStatusFault(HttpStatus.INTERNAL_SERVER_ERROR, 0.2)
+                .withStatusFault(HttpStatus.SERVICE_UNAVAILABLE, 0.1).withConnectionError(0.1)
+                .withTruncatedBody(0.3).build();
+        final List<String> outcomes = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            try {
+                final HttpResponse<String> response = api.send();
+                outcomes.add(response.statusCode() + ":" + response.body().length());
+            } catch (UncheckedIOException e) {
+                outcomes.add("-1");
+            }
+        }
+
+        return outcomes;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.multipart;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.annotation.ParameterMapping;
+import org.thinkit.api.common.catalog.ContentType;
+import org.thinkit.api.common.entity.RequestParameter;
+
+/**
+ * {@link MultipartBodyPublisher} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class MultipartBodyPublisherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSubscribeRepeatedly() throws Exception {
+        final byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        final Path file = Files.write(this.directory.resolve("report.pdf"), content);
+
+        final MultipartBodyPublisher publisher = MultipartBodyPublisher.builder().withBoundary("boundary")
+                .withParameter(new UploadParameter()).withFile("document", file, ContentType.PDF).withChunkSize(1000)
+                .build();
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.writeBytes(("--boundary\r\nContent-Disposition: form-data; name=\"title\"\r\n\r\nreport\r\n"
+                + "--boundary\r\nContent-Disposition: form-data; name=\"document\"; filename=\"report.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        expected.writeBytes(content);
+        expected.writeBytes("\r\n--boundary--\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("multipart/form-data; boundary=boundary", publisher.getContentType());
+        assertEquals(expected.size(), publisher.contentLength());
+        assertArrayEquals(expected.toByteArray(), this.read(publisher));
+        assertArrayEquals(expected.toByteArray(), this.read(publisher));
+    }
+
+    @Test
+    void testRequestNonPositiveSignalsErrorAfterOnNext() throws Exception {
+        final MultipartBodyPublisher publisher = MultipartBodyPublisher.builder().withBoundary("boundary")
+                .withParameter(new UploadParameter()).build();
+        final List<String> events = new ArrayList<>();
+        final CompletableFuture<Throwable> future = new CompletableFuture<>();
+
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                events.add("onNext:start");
+                this.subscription.request(0);
+                events.add("onNext:end");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("onError");
+                future.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                events.add("onComplete");
+                future.complete(null);
+            }
+        });
+
+        assertTrue(future.get(10, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+        assertEquals(List.of("onNext:start", "onNext:end", "onError"), events);
+    }
+
+    /**
+     * 引数として渡された {@code publisher} を1件ずつ要求しながら購読し、発行されたバイト列を返却します。
+     *
+     * @param publisher 購読対象
+     * @return 発行されたバイト列
+     *
+     * @throws Exception 購読に失敗した場合
+     */
+    private byte[] read(MultipartBodyPublisher publisher) throws Exception {
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                final byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                actual.writeBytes(bytes);
+                this.subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(actual.toByteArray());
+            }
+        });
+
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * アップロード時のリクエストパラメータです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class UploadParameter implements RequestParameter {
+
+        /**
+         * タイトル
+         */
+        @ParameterMapping
+        private String title = "report";
+
+        /**
+         * 説明
+         */
+        @ParameterMapping
+        private String description = "";
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * テスト用のHTTP/1.1サーバーです。接続ごとに1つのスレッドでリクエストを順番に処理するため、パイプライン化されたリクエストにも対応しています。
+ * <p>
+ * パスに応じて以下のレスポンスを返却します。
+ * <ul>
+ * <li>{@code /chunked} : チャンク形式のボディ</li>
+ * <li>{@code /slow} : 500ミリ秒待機した後のレスポンス</li>
+ * <li>{@code /close} : {@code Connection: close} を付与したレスポンス</li>
+ * <li>上記以外 : HTTPメソッド、パス、リクエストボディを連結したボディ。 {@code X-Echo} ヘッダーはレスポンスヘッダーとして返却します</li>
+ * </ul>
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+final class LocalHttpServer implements Closeable {
+
+    /**
+     * サーバーソケット
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * 接続を処理するスレッドプール
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "local-http-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 受け付けた接続の数
+     */
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * コンストラクタ
+     *
+     * @throws IOException サーバーソケットの生成に失敗した場合
+     */
+    LocalHttpServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        this.executor.execute(this::accept);
+    }
+
+    /**
+     * 引数として渡された {@code path} に対するURIを返却します。
+     *
+     * @param path パス
+     * @return URI
+     */
+    URI uri(String path) {
+        return URI.create(String.format("http://127.0.0.1:%d%s", this.serverSocket.getLocalPort(), path));
+    }
+
+    /**
+     * 受け付けた接続の数を返却します。
+     *
+     * @return 受け付けた接続の数
+     */
+    int getConnectionCount() {
+        return this.connectionCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdownNow();
+
+        try {
+            this.executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 接続を受け付けます。
+     */
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                final Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                this.connectionCount.incrementAndGet();
+                this.executor.execute(() -> this.serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 1つの接続のリクエストを順番に処理します。
+     *
+     * @param socket 接続
+     */
+    private void serve(Socket socket) {
+        try (socket;
+                InputStream input = new BufferedInputStream(socket.getInputStream());
+                OutputStream output = new BufferedOutputStream(socket.getOutputStream())) {
+
+            String requestLine;
+
+            while ((requestLine = readLine(input)) != null && !requestLine.isEmpty()) {
+                int contentLength = 0;
+                String echo = null;
+                String line;
+
+                while ((line = readLine(input)) != null && !line.isEmpty()) {
+                    final int colon = line.indexOf(':');
+                    final String name = line.substring(0, colon).trim();
+                    final String value = line.substring(colon + 1).trim();
+
+                    if ("Content-Length".equalsIgnoreCase(name)) {
+                        contentLength = Integer.parseInt(value);
+                    } else if ("X-Echo".equalsIgnoreCase(name)) {
+                        echo = value;
+                    }
+                }
+
+                final byte[] content = input.readNBytes(contentLength);
+                final String[] parts = requestLine.split(" ");
+                final String path = parts[1];
+
+                if ("/slow".equals(path)) {
+                    Thread.sleep(500);
+                }
+
+                if ("/chunked".equals(path)) {
+                    output.write(("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                            + "5;ext=1\r\nhello\r\n7\r\n, world\r\n0\r\nX-Trailer: done\r\n\r\n")
+                                    .getBytes(StandardCharsets.ISO_8859_1));
+                } else {
+                    final String body = parts[0] + " " + path
+                            + (content.length > 0 ? " " + new String(content, StandardCharsets.UTF_8) : "");
+                    final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+                    final StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\n")
+                            .append("Content-Type: text/plain; charset=UTF-8\r\n").append("Content-Length: ")
+                            .append(bodyBytes.length).append("\r\n");
+
+                    if (echo != null) {
+                        head.append("X-Echo: ").append(echo).append("\r\n");
+                    }
+
+                    if ("/close".equals(path)) {
+                        head.append("Connection: close\r\n");
+                    }
+
+                    output.write(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+                    output.write(bodyBytes);
+                }
+
+                if ("/close".equals(path)) {
+                    output.flush();
+                    return;
+                }
+
+                if (input.available() == 0) {
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 切断された接続は破棄する
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 改行までの1行を読み込みます。
+     *
+     * @param input 入力ストリーム
+     * @return 行末の改行を除いた1行。ストリームの終端に達した場合は {@code null}
+     *
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static String readLine(InputStream input) throws IOException {
+
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+
+        while ((b = input.read()) >= 0) {
+            if (b == '\n') {
+                final byte[] bytes = line.toByteArray();
+                final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1
+                        : bytes.length;
+                return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+            }
+
+            line.write(b);
+        }
+
+        return null;
+    }
+}
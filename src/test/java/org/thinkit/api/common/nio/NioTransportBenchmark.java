@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.catalog.HttpMethod;
+
+/**
+ * ローカルのサーバーに対する {@link NioTransport} と {@link HttpClient} のスループットを比較するベンチマークです。
+ * <p>
+ * 通常のテストからは除外されており、 {@code gradle benchmark} で実行します。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+@Tag("benchmark")
+class NioTransportBenchmark {
+
+    /**
+     * 計測するリクエスト数
+     */
+    private static final int REQUESTS = 50000;
+
+    /**
+     * ウォームアップのリクエスト数
+     */
+    private static final int WARMUP_REQUESTS = 10000;
+
+    /**
+     * 同時に送信中とするリクエストの最大数
+     */
+    private static final int CONCURRENCY = 64;
+
+    @Test
+    void benchmark() throws Exception {
+        try (LocalHttpServer server = new LocalHttpServer()) {
+            final URI uri = server.uri("/items/1");
+
+            final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            final HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            this.run("HttpClient", i -> client.sendAsync(request, BodyHandlers.ofString()));
+
+            try (NioTransport transport = NioTransport.builder().withMaxConnectionsPerHost(4).build()) {
+                final NioRequest nioRequest = NioRequest.builder().of(HttpMethod.GET, uri).build();
+                this.run("NioTransport", i -> transport.sendAsync(nioRequest));
+            }
+
+            try (NioTransport transport = NioTransport.builder().withMaxConnectionsPerHost(4).withPipelining(16)
+                    .build()) {
+                final NioRequest nioRequest = NioRequest.builder().of(HttpMethod.GET, uri).build();
+                this.run("NioTransport (pipelining=16)", i -> transport.sendAsync(nioRequest));
+            }
+        }
+    }
+
+    /**
+     * ウォームアップの後にリクエストを送信し、スループットを出力します。
+     *
+     * @param name   計測対象の名前
+     * @param sender リクエストを非同期に送信する処理
+     *
+     * @throws InterruptedException 待機中に割り込みが発生した場合
+     */
+    private void run(String name, Function<Integer, CompletableFuture<HttpResponse<String>>> sender)
+            throws InterruptedException {
+
+        this.measure(sender, WARMUP_REQUESTS);
+
+        final long startedAt = System.nanoTime();
+        this.measure(sender, REQUESTS);
+        final double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        System.out.printf("%-30s %,10.0f requests/s%n", name, REQUESTS / seconds);
+    }
+
+    /**
+     * 同時に送信中のリクエスト数を上限として、指定された数のリクエストを送信し全ての完了を待機します。
+     *
+     * @param sender   リクエストを非同期に送信する処理
+     * @param requests リクエスト数
+     *
+     * @throws InterruptedException 待機中に割り込みが発生した場合
+     */
+    private void measure(Function<Integer, CompletableFuture<HttpResponse<String>>> sender, int requests)
+            throws InterruptedException {
+
+        final Semaphore semaphore = new Semaphore(CONCURRENCY);
+        final AtomicInteger succeeded = new AtomicInteger();
+
+        for (int i = 0; i < requests; i++) {
+            semaphore.acquire();
+            sender.apply(i).whenComplete((response, e) -> {
+                if (response != null && response.statusCode() == 200) {
+                    succeeded.incrementAndGet();
+                }
+
+                semaphore.release();
+            });
+        }
+
+        semaphore.acquire(CONCURRENCY);
+        assertEquals(requests, succeeded.get());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.nio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.catalog.HttpMethod;
+
+/**
+ * {@link NioTransport} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class NioTransportTest {
+
+    @Test
+    void testSend() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer(); NioTransport transport = NioTransport.builder().build()) {
+            final HttpResponse<String> actual = transport.send(NioRequest.builder()
+                    .of(HttpMethod.POST, server.uri("/users?id=1")).withHeader("X-Echo", "value")
+                    .withBody("こんにちは").build());
+
+            assertEquals(200, actual.statusCode());
+            assertEquals("POST /users?id=1 こんにちは", actual.body());
+            assertEquals("value", actual.headers().firstValue("x-echo").orElse(null));
+        }
+    }
+
+    @Test
+    void testSendChunked() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer(); NioTransport transport = NioTransport.builder().build()) {
+            final HttpResponse<String> actual = transport
+                    .send(NioRequest.builder().of(HttpMethod.GET, server.uri("/chunked")).build());
+
+            assertEquals("hello, world", actual.body());
+        }
+    }
+
+    @Test
+    void testSendWithPipelining() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer();
+                NioTransport transport = NioTransport.builder().withMaxConnectionsPerHost(1).withPipelining(16)
+                        .withBufferSize(1024).build()) {
+
+            final List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 500; i++) {
+                futures.add(transport
+                        .sendAsync(NioRequest.builder().of(HttpMethod.GET, server.uri("/items/" + i)).build()));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals("GET /items/" + i, futures.get(i).join().body());
+            }
+
+            assertEquals(1, server.getConnectionCount());
+            assertEquals(2, transport.getAllocatedBufferCount());
+        }
+    }
+
+    @Test
+    void testSendRetriesPipelinedRequestsAfterConnectionClose() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer();
+                NioTransport transport = NioTransport.builder().withMaxConnectionsPerHost(1).withPipelining(8)
+                        .build()) {
+
+            final List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            futures.add(transport.sendAsync(NioRequest.builder().of(HttpMethod.GET, server.uri("/close")).build()));
+
+            for (int i = 0; i < 7; i++) {
+                futures.add(transport
+                        .sendAsync(NioRequest.builder().of(HttpMethod.GET, server.uri("/items/" + i)).build()));
+            }
+
+            assertEquals("GET /close", futures.get(0).join().body());
+
+            for (int i = 0; i < 7; i++) {
+                assertEquals("GET /items/" + i, futures.get(i + 1).join().body());
+            }
+
+            assertTrue(server.getConnectionCount() >= 2);
+        }
+    }
+
+    @Test
+    void testSendWhenTimedOut() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer();
+                NioTransport transport = NioTransport.builder().withTimeout(Duration.ofMillis(100)).build()) {
+
+            final UncheckedIOException actual = assertThrows(UncheckedIOException.class,
+                    () -> transport.send(NioRequest.builder().of(HttpMethod.GET, server.uri("/slow")).build()));
+
+            assertTrue(actual.getCause() instanceof HttpTimeoutException);
+            assertEquals("GET /items/1",
+                    transport.send(NioRequest.builder().of(HttpMethod.GET, server.uri("/items/1")).build()).body());
+        }
+    }
+
+    @Test
+    void testCommunicable() throws IOException {
+        try (LocalHttpServer server = new LocalHttpServer(); NioTransport transport = NioTransport.builder().build()) {
+            final Communicable api = transport.communicable(
+                    options -> NioRequest.builder().of(HttpMethod.GET, server.uri("/users")).build());
+
+            assertEquals("GET /users", ApiContext.builder().build().send(api));
+            assertEquals("a", api.send(RequestOptions.builder().withHeader("X-Echo", "a").build()).headers()
+                    .firstValue("X-Echo").orElse(null));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+
+/**
+ * {@link ParallelPaginator} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class ParallelPaginatorTest {
+
+    /**
+     * 全てのページの取得で共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testGetPages() {
+        final List<Page> actual = ParallelPaginator.builder().of(this.context, page -> null).withTotalCount(250)
+                .withPageSize(100).build().getPages();
+
+        assertEquals(3, actual.size());
+        assertEquals(new Page(2, 200, 50), actual.get(2));
+        assertEquals(3, actual.get(2).getNumber());
+    }
+
+    @Test
+    void testFetchAllInPageOrder() {
+        final List<String> actual = ParallelPaginator.builder().of(this.context, page -> new PageApi(page, 200))
+                .withTotalCount(1000).withPageSize(10).withParallelism(8).build().fetchAll();
+
+        assertEquals(100, actual.size());
+
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(String.valueOf(i * 10), actual.get(i));
+        }
+    }
+
+    @Test
+    void testFetchEach() {
+        final Map<Integer, String> actual = new ConcurrentHashMap<>();
+
+        ParallelPaginator.builder().of(this.context, page -> new PageApi(page, 200)).withTotalCount(95)
+                .withPageSize(10).withParallelism(3).build()
+                .fetchEach((page, body) -> actual.put(page.getIndex(), body));
+
+        assertEquals(10, actual.size());
+        assertEquals("90", actual.get(9));
+    }
+
+    @Test
+    void testFetchAllWhenPageFailed() {
+        final ParallelPaginator paginator = ParallelPaginator.builder()
+                .of(this.context, page -> new PageApi(page, page.getIndex() == 3 ? 404 : 200))
+                .withTotalCount(100).withPageSize(10).build();
+
+        assertThrows(ApiRequestFailedException.class, () -> paginator.fetchAll());
+    }
+
+    @Test
+    void testRateLimitIsSharedAcrossCalls() {
+        final ParallelPaginator paginator = ParallelPaginator.builder().of(this.context, page -> new PageApi(page, 200))
+                .withTotalCount(20).withPageSize(10).withParallelism(2).withRateLimit(10.0).build();
+        final long startedAt = System.nanoTime();
+
+        paginator.fetchAll();
+        paginator.fetchAll();
+
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    /**
+     * ページのオフセットをレスポンスボディとして返却するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class PageApi implements Communicable {
+
+        /**
+         * ページ
+         */
+        private final Page page;
+
+        /**
+         * HTTPステータスコード
+         */
+        private final int statusCode;
+
+        /**
+         * コンストラクタ
+         *
+         * @param page       ページ
+         * @param statusCode HTTPステータスコード
+         */
+        PageApi(Page page, int statusCode) {
+            this.page = page;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            return new HttpResponse<String>() {
+
+                @Override
+                public int statusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public HttpRequest request() {
+                    return null;
+                }
+
+                @Override
+                public Optional<HttpResponse<String>> previousResponse() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public HttpHeaders headers() {
+                    return HttpHeaders.of(Map.of(), (name, value) -> true);
+                }
+
+                @Override
+                public String body() {
+                    return String.valueOf(page.getOffset());
+                }
+
+                @Override
+                public Optional<SSLSession> sslSession() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public URI uri() {
+                    return null;
+                }
+
+                @Override
+                public Version version() {
+                    return Version.HTTP_1_1;
+                }
+            };
+        }
+    }
+}
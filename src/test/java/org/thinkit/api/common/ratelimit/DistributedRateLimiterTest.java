@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.exception.RequestRejectedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link DistributedRateLimiter} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class DistributedRateLimiterTest {
+
+    /**
+     * テスト用のリソース
+     */
+    private static final Resource RESOURCE = () -> "/items";
+
+    @Test
+    void testAcquireSharesQuotaInMemory() {
+        final PermitStore store = new InMemoryPermitStore();
+        final DistributedRateLimiter first = this.createRateLimiter(store);
+        final DistributedRateLimiter second = this.createRateLimiter(store);
+
+        assertEquals(30, this.acquireAll(first, second));
+        assertEquals(5, first.getStoreAccessCount() + second.getStoreAccessCount());
+    }
+
+    @Test
+    void testAcquireSharesQuotaThroughFiles(@TempDir Path directory) {
+        final DistributedRateLimiter first = this.createRateLimiter(FilePermitStore.of(directory));
+        final DistributedRateLimiter second = this.createRateLimiter(FilePermitStore.of(directory));
+
+        assertEquals(30, this.acquireAll(first, second));
+    }
+
+    @Test
+    void testSendWhenQuotaExhausted() {
+        final DistributedRateLimiter rateLimiter = DistributedRateLimiter.builder().of(new InMemoryPermitStore())
+                .withLimit(1, Duration.ofDays(1)).withMaxWait(Duration.ZERO).build();
+        final ApiContext context = ApiContext.builder().withRateLimiter(rateLimiter).build();
+
+        assertEquals("body", context.send(() -> BufferedHttpResponse.<String>builder().withBody("body").build()));
+        assertThrows(RequestRejectedException.class,
+                () -> context.send(() -> BufferedHttpResponse.<String>builder().withBody("body").build()));
+        assertEquals(1, rateLimiter.getRejectedCount());
+    }
+
+    /**
+     * 引数として渡された {@code store} を共有するリクエスト数の制限を生成します。
+     *
+     * @param store 実行許可の貸し出し元
+     * @return リクエスト数の制限
+     */
+    private DistributedRateLimiter createRateLimiter(PermitStore store) {
+        return DistributedRateLimiter.builder().of(store).withLimit(30, Duration.ofDays(1)).withLeaseSize(10)
+                .withMaxWait(Duration.ZERO).build();
+    }
+
+    /**
+     * 2つのリクエスト数の制限から交互に実行許可を取得し、取得できた実行許可の数を返却します。
+     *
+     * @param first  リクエスト数の制限
+     * @param second リクエスト数の制限
+     * @return 取得できた実行許可の数
+     */
+    private int acquireAll(DistributedRateLimiter first, DistributedRateLimiter second) {
+
+        int acquired = 0;
+
+        for (int i = 0; i < 50; i++) {
+            for (DistributedRateLimiter rateLimiter : new DistributedRateLimiter[] { first, second }) {
+                try {
+                    rateLimiter.acquire(RESOURCE);
+                    acquired++;
+                } catch (RequestRejectedException e) {
+                    // 上限に達した場合は拒否される
+                }
+            }
+        }
+
+        return acquired;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link ApiProcessor} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class ApiProcessorTest {
+
+    /**
+     * 全ての要素の実行で共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testOrderedEmissionWithinMaxInFlight() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObserved = new AtomicInteger();
+
+        final ApiProcessor<Integer> processor = ApiProcessor.<Integer>builder()
+                .of(this.context, item -> new EchoApi(item, inFlight, maxObserved))
+                .withMaxInFlight(4).withOrderedEmission().build();
+
+        final List<String> actual = this.run(processor, 50).get(10, TimeUnit.SECONDS);
+
+        assertEquals(IntStream.range(0, 50).mapToObj(String::valueOf).collect(Collectors.toList()), actual);
+        assertTrue(maxObserved.get() <= 4);
+    }
+
+    @Test
+    void testUnorderedEmission() throws Exception {
+        final ApiProcessor<Integer> processor = ApiProcessor.<Integer>builder()
+                .of(this.context, item -> new EchoApi(item, new AtomicInteger(), new AtomicInteger()))
+                .withMaxInFlight(8).build();
+
+        final List<String> actual = this.run(processor, 30).get(10, TimeUnit.SECONDS);
+
+        assertEquals(30, actual.size());
+        assertEquals(IntStream.range(0, 30).mapToObj(String::valueOf).collect(Collectors.toSet()),
+                actual.stream().collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testErrorIsEmittedAsItemResult() throws Exception {
+        final List<ItemResult<Integer>> actual = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        final ApiProcessor<Integer> processor = ApiProcessor.<Integer>builder().of(this.context, item -> {
+            throw new IllegalStateException("failed");
+        }).build();
+
+        processor.subscribe(new Flow.Subscriber<ItemResult<Integer>>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ItemResult<Integer> item) {
+                actual.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            publisher.submit(1);
+        }
+
+        completed.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, actual.size());
+        assertFalse(actual.get(0).isSuccess());
+        assertTrue(actual.get(0).getError() instanceof IllegalStateException);
+    }
+
+    /**
+     * {@code 0} から {@code count} 未満の整数を {@code processor} へ発行し、1件ずつ要求しながら受け取ったレスポンスボディを返却します。
+     *
+     * @param processor 処理対象のプロセッサー
+     * @param count     発行する要素数
+     * @return 受け取ったレスポンスボディ
+     */
+    private CompletableFuture<List<String>> run(ApiProcessor<Integer> processor, int count) {
+        final List<String> bodies = new CopyOnWriteArrayList<>();
+        final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+        processor.subscribe(new Flow.Subscriber<ItemResult<Integer>>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ItemResult<Integer> item) {
+                bodies.add(item.getResult().getBody());
+                this.subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(bodies);
+            }
+        });
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            IntStream.range(0, count).forEach(publisher::submit);
+        }
+
+        return future;
+    }
+
+    /**
+     * 要素をレスポンスボディとして返却し、同時実行数を記録するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class EchoApi implements Communicable {
+
+        /**
+         * 要素
+         */
+        private final int item;
+
+        /**
+         * 実行中の数
+         */
+        private final AtomicInteger inFlight;
+
+        /**
+         * 観測した最大同時実行数
+         */
+        private final AtomicInteger maxObserved;
+
+        /**
+         * コンストラクタ
+         *
+         * @param item        要素
+         * @param inFlight    実行中の数
+         * @param maxObserved 観測した最大同時実行数
+         */
+        EchoApi(int item, AtomicInteger inFlight, AtomicInteger maxObserved) {
+            this.item = item;
+            this.inFlight = inFlight;
+            this.maxObserved = maxObserved;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            this.maxObserved.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.inFlight.decrementAndGet();
+            }
+
+            return BufferedHttpResponse.<String>builder().withBody(String.valueOf(this.item)).build();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.RequestOptions;
+import org.thinkit.api.common.exception.ApiRequestFailedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link RecordingCommunicable} クラスと {@link ReplayTransport} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class RecordReplayTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayByRequestKey() throws IOException {
+        final Path path = this.directory.resolve("recording.bin");
+
+        try (RecordingWriter writer = RecordingWriter.open(path)) {
+            for (String key : List.of("users", "items", "users")) {
+                final Communicable api = RecordingCommunicable.builder().of(new KeyApi(key, 200)).withWriter(writer)
+                        .build();
+                ApiContext.builder().of(api).build().send();
+            }
+        }
+
+        final ReplayTransport transport = ReplayTransport.builder().of(path).withTimeScale(0).build();
+        assertEquals(3, transport.size());
+
+        final HttpResponse<String> response = transport.replay(new KeyApi("items", 500)).send();
+        assertEquals(200, response.statusCode());
+        assertEquals("items", response.body());
+        assertEquals(List.of("text/plain"), response.headers().allValues("Content-Type"));
+
+        assertEquals("users", ApiContext.builder().of(transport.replay(new KeyApi("users", 500))).build().send());
+        assertEquals("users", transport.sequential().send().body());
+    }
+
+    @Test
+    void testReplayWhenRecordingIsMissing() throws IOException {
+        final Path path = this.directory.resolve("empty.bin");
+        RecordingWriter.open(path).close();
+
+        final ReplayTransport transport = ReplayTransport.builder().of(path).build();
+
+        assertEquals(0, transport.size());
+        assertThrows(ApiRequestFailedException.class, () -> transport.replay(new KeyApi("users", 200)).send());
+    }
+
+    @Test
+    void testRecordRequestAndFailure() throws IOException {
+        final Path path = this.directory.resolve("recording.bin");
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("https://example.com/users"))
+                .header("Authorization", "Bearer secret").header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString("{\"name\":\"日本語\"}")).build();
+        final RequestOptions options = RequestOptions.builder().withBaseUri(URI.create("https://example.com"))
+                .withHeader("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01").build();
+
+        try (RecordingWriter writer = RecordingWriter.open(path)) {
+            RecordingCommunicable.builder().of(() -> BufferedHttpResponse.<String>builder().withStatusCode(201)
+                    .withRequest(request).withBody("created").build()).withWriter(writer).build().send(options);
+
+            final Communicable failing = RecordingCommunicable.builder().of(() -> {
+                throw new UncheckedIOException(new ConnectException("Connection refused"));
+            }).withWriter(writer).build();
+
+            assertThrows(UncheckedIOException.class, () -> failing.send(options));
+        }
+
+        final ReplayTransport transport = ReplayTransport.builder().of(path).withTimeScale(0).build();
+        final Recording created = transport.getRecordings().get(0);
+        final Recording failed = transport.getRecordings().get(1);
+
+        assertEquals("POST https://example.com/users", created.getRequestKey());
+        assertEquals("POST", created.getMethod());
+        assertEquals("https://example.com/users", created.getUri());
+        assertEquals(List.of("<redacted>"), created.getRequestHeaders().get("Authorization"));
+        assertEquals(List.of("application/json"), created.getRequestHeaders().get("Content-Type"));
+        assertEquals("{\"name\":\"日本語\"}", created.getRequestBody());
+        assertFalse(created.isFailed());
+
+        assertTrue(failed.isFailed());
+        assertEquals("https://example.com", failed.getRequestKey());
+        assertEquals(List.of("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"),
+                failed.getRequestHeaders().get("traceparent"));
+        assertEquals(0, failed.getStatusCode());
+
+        assertEquals("created", transport.sequential().send().body());
+
+        final UncheckedIOException exception = assertThrows(UncheckedIOException.class,
+                () -> transport.sequential().send());
+        assertTrue(exception.getCause() instanceof ConnectException);
+        assertThrows(ApiRequestFailedException.class, () -> transport.replay(() -> null).send());
+    }
+
+    /**
+     * リクエストキーをレスポンスボディとして返却するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class KeyApi implements Communicable {
+
+        /**
+         * リクエストキー
+         */
+        private final String requestKey;
+
+        /**
+         * HTTPステータスコード
+         */
+        private final int statusCode;
+
+        /**
+         * コンストラクタ
+         *
+         * @param requestKey リクエストキー
+         * @param statusCode HTTPステータスコード
+         */
+        KeyApi(String requestKey, int statusCode) {
+            this.requestKey = requestKey;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            return BufferedHttpResponse.<String>builder().withStatusCode(this.statusCode)
+                    .withHeaders(Map.of("Content-Type", List.of("text/plain"))).withBody(this.requestKey).build();
+        }
+
+        @Override
+        public String getRequestKey() {
+            return this.requestKey;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.response;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link ResponseBody} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class ResponseBodyTest {
+
+    @Test
+    void testCharsetOf() {
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charsetOf(null));
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charsetOf("application/json"));
+        assertEquals(StandardCharsets.ISO_8859_1, ResponseBody.charsetOf("text/plain; Charset=\"ISO-8859-1\""));
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charsetOf("text/plain; charset=unknown-charset"));
+    }
+
+    @Test
+    void testAsStringWithCharset() {
+        final byte[] bytes = "café".getBytes(StandardCharsets.ISO_8859_1);
+        final ResponseBody actual = ResponseBody.of(bytes, "text/plain; charset=ISO-8859-1");
+
+        assertEquals(4, actual.size());
+        assertEquals("café", actual.asString());
+    }
+
+    @Test
+    void testAsByteBufferWithoutCopy() {
+        final ByteBuffer buffer = ByteBuffer.wrap("{\"id\":1}xyz".getBytes(StandardCharsets.UTF_8), 0, 8);
+        final ResponseBody actual = ResponseBody.of(buffer, null);
+        final ByteBuffer view = actual.asByteBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(8, view.remaining());
+        assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), actual.toByteArray());
+        assertEquals("{\"id\":1}", actual.asString());
+        assertEquals(0, buffer.position());
+    }
+}
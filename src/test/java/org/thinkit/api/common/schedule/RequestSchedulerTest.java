@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.ApiResult;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.catalog.RequestPriority;
+import org.thinkit.api.common.exception.RequestRejectedException;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link RequestScheduler} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class RequestSchedulerTest {
+
+    /**
+     * 全てのリクエストで共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testPriorityAndDeadlineOrdering() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final CountDownLatch blocker = new CountDownLatch(1);
+
+        try (RequestScheduler scheduler = RequestScheduler.builder().withConcurrency(1).build()) {
+            final CompletableFuture<ApiResult> blocking = scheduler.submit(this.context,
+                    this.api("blocking", executed, blocker), RequestPriority.NORMAL);
+            Thread.sleep(50);
+
+            scheduler.submit(this.context, this.api("low", executed, null), RequestPriority.LOW);
+            scheduler.submit(this.context, this.api("high-late", executed, null), RequestPriority.HIGH,
+                    Duration.ofMinutes(2));
+            scheduler.submit(this.context, this.api("normal", executed, null), RequestPriority.NORMAL);
+            final CompletableFuture<ApiResult> last = scheduler.submit(this.context,
+                    this.api("high-early", executed, null), RequestPriority.HIGH, Duration.ofMinutes(1));
+
+            assertEquals(2, scheduler.getQueueSize(RequestPriority.HIGH));
+            blocker.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+            last.get(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+
+            assertEquals(List.of("blocking", "high-early", "high-late", "normal", "low"), executed);
+            assertTrue(scheduler.getMaxQueueTime(RequestPriority.LOW).toNanos() > 0);
+        }
+    }
+
+    @Test
+    void testShedLowPriorityWhenSaturated() throws Exception {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final CountDownLatch blocker = new CountDownLatch(1);
+
+        try (RequestScheduler scheduler = RequestScheduler.builder().withConcurrency(1).withMaxQueueSize(1).build()) {
+            scheduler.submit(this.context, this.api("blocking", executed, blocker), RequestPriority.NORMAL);
+            Thread.sleep(50);
+
+            final CompletableFuture<ApiResult> low = scheduler.submit(this.context, this.api("low", executed, null),
+                    RequestPriority.LOW);
+            final CompletableFuture<ApiResult> high = scheduler.submit(this.context, this.api("high", executed, null),
+                    RequestPriority.HIGH);
+            final CompletableFuture<ApiResult> rejected = scheduler.submit(this.context,
+                    this.api("normal", executed, null), RequestPriority.NORMAL);
+
+            blocker.countDown();
+            high.get(5, TimeUnit.SECONDS);
+
+            assertTrue(assertThrows(ExecutionException.class, () -> low.get())
+                    .getCause() instanceof RequestRejectedException);
+            assertTrue(assertThrows(ExecutionException.class, () -> rejected.get())
+                    .getCause() instanceof RequestRejectedException);
+            assertEquals(1, scheduler.getShedCount(RequestPriority.LOW));
+            assertEquals(1, scheduler.getRejectedCount(RequestPriority.NORMAL));
+        }
+    }
+
+    /**
+     * 実行時に名前を記録するAPIオブジェクトを生成します。
+     *
+     * @param name     名前
+     * @param executed 実行された名前の記録先
+     * @param blocker  実行を待機させるラッチ。待機しない場合は {@code null}
+     * @return APIオブジェクト
+     */
+    private Communicable api(String name, List<String> executed, CountDownLatch blocker) {
+        return () -> {
+            executed.add(name);
+
+            try {
+                if (blocker != null) {
+                    blocker.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            final HttpResponse<String> response = BufferedHttpResponse.<String>builder().withBody(name).build();
+            return response;
+        };
+    }
+}
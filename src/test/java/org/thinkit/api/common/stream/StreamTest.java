@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link NdjsonStream} クラスと {@link EventStream} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class StreamTest {
+
+    @Test
+    void testNdjsonStream() throws IOException {
+        final List<String> actual = new ArrayList<>();
+
+        try (NdjsonStream stream = NdjsonStream.builder()
+                .of(options -> response(200, "{\"id\":1}\n\n{\"name\":\"日本語\"}\r\n{\"id\":3}")).withBufferSize(4)
+                .build()) {
+            stream.forEach(actual::add);
+        }
+
+        assertEquals(List.of("{\"id\":1}", "{\"name\":\"日本語\"}", "{\"id\":3}"), actual);
+    }
+
+    @Test
+    void testEventStreamReconnectsWithLastEventId() throws IOException {
+        final List<String> lastEventIds = new ArrayList<>();
+        final List<String> bodies = List.of(": comment\nid: 1\nevent: update\ndata: a\ndata: b\n\ndata: lost",
+                "retry: 0\ndata:c\r\n\r\n");
+
+        final StreamSource source = options -> {
+            lastEventIds.add(options.getHeaders().get("Last-Event-ID"));
+            return lastEventIds.size() <= bodies.size() ? response(200, bodies.get(lastEventIds.size() - 1))
+                    : response(204, "");
+        };
+
+        final List<ServerSentEvent> actual = new ArrayList<>();
+
+        try (EventStream stream = EventStream.builder().of(source).withReconnectDelay(0).build()) {
+            stream.forEach(actual::add);
+        }
+
+        assertEquals(2, actual.size());
+        assertEquals("update", actual.get(0).getEvent());
+        assertEquals("a\nb", actual.get(0).getData());
+        assertEquals("1", actual.get(1).getId());
+        assertEquals("message", actual.get(1).getEvent());
+        assertEquals("c", actual.get(1).getData());
+
+        assertEquals(3, lastEventIds.size());
+        assertNull(lastEventIds.get(0));
+        assertEquals("1", lastEventIds.get(1));
+    }
+
+    @Test
+    void testEventStreamIgnoresIdOfIncompleteEvent() throws IOException {
+        final List<String> lastEventIds = new ArrayList<>();
+        final List<String> bodies = List.of("id: 1\ndata: a\n\nid: 2\ndata: lost", "retry: 0\nid: 2\ndata: b\n\n");
+
+        final StreamSource source = options -> {
+            lastEventIds.add(options.getHeaders().get("Last-Event-ID"));
+            return lastEventIds.size() <= bodies.size() ? response(200, bodies.get(lastEventIds.size() - 1))
+                    : response(204, "");
+        };
+
+        final List<ServerSentEvent> actual = new ArrayList<>();
+
+        try (EventStream stream = EventStream.builder().of(source).withReconnectDelay(0).build()) {
+            stream.forEach(actual::add);
+        }
+
+        assertEquals(2, actual.size());
+        assertEquals("1", actual.get(0).getId());
+        assertEquals("2", actual.get(1).getId());
+        assertEquals("b", actual.get(1).getData());
+        assertEquals("1", lastEventIds.get(1));
+        assertEquals("2", lastEventIds.get(2));
+    }
+
+    @Test
+    void testEventStreamReconnectsWhenOpenFails() throws IOException {
+        final List<String> lastEventIds = new ArrayList<>();
+
+        final StreamSource source = options -> {
+            lastEventIds.add(options.getHeaders().get("Last-Event-ID"));
+
+            switch (lastEventIds.size()) {
+                case 1:
+                    return response(200, "id: 1\ndata: a\n\n");
+                case 2:
+                    throw new ConnectException("Connection refused");
+                case 3:
+                    return response(503, "");
+                case 4:
+                    return response(200, "id: 2\ndata: b\n\n");
+                default:
+                    return response(204, "");
+            }
+        };
+
+        final List<ServerSentEvent> actual = new ArrayList<>();
+
+        try (EventStream stream = EventStream.builder().of(source).withReconnectDelay(0).build()) {
+            stream.forEach(actual::add);
+        }
+
+        assertEquals(2, actual.size());
+        assertEquals("b", actual.get(1).getData());
+        assertEquals(Arrays.asList(null, "1", "1", "1", "2"), lastEventIds);
+    }
+
+    @Test
+    void testEventStreamWhenOpenFailuresExceedMaxReconnects() {
+        final AtomicInteger opens = new AtomicInteger();
+
+        final StreamSource source = options -> {
+            opens.incrementAndGet();
+            throw new ConnectException("Connection refused");
+        };
+
+        final EventStream stream = EventStream.builder().of(source).withReconnectDelay(0).withMaxReconnects(2).build();
+        final UncheckedIOException exception = assertThrows(UncheckedIOException.class,
+                () -> stream.iterator().hasNext());
+
+        assertTrue(exception.getCause() instanceof ConnectException);
+        assertEquals(3, opens.get());
+    }
+
+    /**
+     * 引数として渡された {@code body} を入力ストリームとして持つHTTPレスポンスを生成します。
+     *
+     * @param statusCode ステータスコード
+     * @param body       レスポンスボディ
+     * @return HTTPレスポンス
+     */
+    private static BufferedHttpResponse<InputStream> response(int statusCode, String body) {
+        return BufferedHttpResponse.<InputStream>builder().withStatusCode(statusCode)
+                .withBody(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package org.thinkit.api.common.timeout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.InvalidContextStateException;
+
+/**
+ * {@link AdaptiveTimeout} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class AdaptiveTimeoutTest {
+
+    @Test
+    void testGetTimeoutBeforeMinSamples() {
+        final AdaptiveTimeout timeout = AdaptiveTimeout.builder().withMaximum(Duration.ofSeconds(5))
+                .withMinSamples(10).build();
+
+        for (int i = 0; i < 9; i++) {
+            timeout.record(null, Duration.ofMillis(200).toNanos());
+        }
+
+        assertEquals(Duration.ofSeconds(5), timeout.getTimeout(null));
+    }
+
+    @Test
+    void testGetTimeoutFromPercentile() {
+        final AdaptiveTimeout timeout = AdaptiveTimeout.builder().withPercentile(0.9).withMultiplier(2)
+                .withMinimum(Duration.ofMillis(1)).withWindowSize(100).withMinSamples(10).build();
+
+        for (int i = 1; i <= 100; i++) {
+            timeout.record(null, Duration.ofMillis(i).toNanos());
+        }
+
+        assertEquals(Duration.ofMillis(180), timeout.getTimeout(null));
+    }
+
+    @Test
+    void testGetTimeoutIsBounded() {
+        final AdaptiveTimeout timeout = AdaptiveTimeout.builder().withMinimum(Duration.ofMillis(100))
+                .withMaximum(Duration.ofSeconds(1)).withWindowSize(10).withMinSamples(10).build();
+
+        for (int i = 0; i < 10; i++) {
+            timeout.record(null, Duration.ofMillis(1).toNanos());
+        }
+
+        assertEquals(Duration.ofMillis(100), timeout.getTimeout(null));
+
+        for (int i = 0; i < 10; i++) {
+            timeout.record(null, Duration.ofSeconds(10).toNanos());
+        }
+
+        assertEquals(Duration.ofSeconds(1), timeout.getTimeout(null));
+    }
+
+    @Test
+    void testBuildWhenMinimumExceedsMaximum() {
+        assertThrows(InvalidContextStateException.class, () -> AdaptiveTimeout.builder()
+                .withMinimum(Duration.ofSeconds(2)).withMaximum(Duration.ofSeconds(1)).build());
+    }
+}
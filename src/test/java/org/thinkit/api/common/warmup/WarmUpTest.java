@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020 Kato Shinya.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.thinkit.api.common.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.Test;
+import org.thinkit.api.common.ApiContext;
+import org.thinkit.api.common.Communicable;
+import org.thinkit.api.common.Resource;
+import org.thinkit.api.common.annotation.ParameterMapping;
+import org.thinkit.api.common.entity.RequestParameter;
+import org.thinkit.api.common.response.BufferedHttpResponse;
+
+/**
+ * {@link WarmUp} クラスのテストクラスです。
+ *
+ * @author Kato Shinya
+ * @since 1.0
+ * @version 1.0
+ */
+class WarmUpTest {
+
+    /**
+     * ウォームアップ用のリクエストで共有するコンテキスト
+     */
+    private final ApiContext context = ApiContext.builder().build();
+
+    @Test
+    void testRun() throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            final StatusApi api = new StatusApi(200);
+            final WarmUp warmUp = WarmUp.builder().withHttpClient(HttpClient.newHttpClient())
+                    .withHost(URI.create(String.format("http://127.0.0.1:%d/", server.getAddress().getPort())))
+                    .withConnectionsPerHost(2).withResources(TestResource.values())
+                    .withQuery(api, new SearchParameter("java")).withWarmUpCall(this.context, api)
+                    .withIterations(3).build();
+
+            assertFalse(warmUp.isReady());
+
+            final WarmUpReport report = warmUp.run();
+
+            assertTrue(warmUp.isReady());
+            assertTrue(report.isSuccessful(), report.getFailures().toString());
+            assertEquals(2, report.getOpenedConnections());
+            assertEquals(3, report.getWarmUpCalls());
+            assertEquals(3, api.createdQueries.get());
+            assertEquals(3, api.sentRequests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testRunRecordsFailures() {
+        final WarmUp warmUp = WarmUp.builder().withQuery(new StatusApi(200), new SearchParameter(null))
+                .withWarmUpCall(this.context, new StatusApi(500)).withWarmUpCall(this.context, new FailingApi())
+                .withIterations(2).build();
+
+        final WarmUpReport report = warmUp.run();
+
+        assertTrue(warmUp.isReady());
+        assertFalse(report.isSuccessful());
+        assertEquals(0, report.getOpenedConnections());
+        assertEquals(2, report.getWarmUpCalls());
+        assertEquals(List.of(String.format("Failed to create the query: %s", SearchParameter.class.getName()),
+                "The warm-up call failed with status: 500", "The warm-up call failed with status: 500",
+                "The warm-up call failed: connection refused", "The warm-up call failed: connection refused"),
+                report.getFailures());
+    }
+
+    /**
+     * 常に同じステータスコードを返却し、クエリの生成回数と送信回数を記録するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class StatusApi implements Communicable {
+
+        /**
+         * 返却するステータスコード
+         */
+        private final int statusCode;
+
+        /**
+         * クエリの生成回数
+         */
+        private final AtomicInteger createdQueries = new AtomicInteger();
+
+        /**
+         * 送信回数
+         */
+        private final AtomicInteger sentRequests = new AtomicInteger();
+
+        /**
+         * コンストラクタ
+         *
+         * @param statusCode 返却するステータスコード
+         */
+        StatusApi(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public String createQuery(RequestParameter requestParameter) {
+            this.createdQueries.incrementAndGet();
+            return Communicable.super.createQuery(requestParameter);
+        }
+
+        @Override
+        public HttpResponse<String> send() {
+            this.sentRequests.incrementAndGet();
+            return BufferedHttpResponse.<String>builder().withStatusCode(this.statusCode).withBody("").build();
+        }
+    }
+
+    /**
+     * 常に例外を送出するAPIです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class FailingApi implements Communicable {
+
+        @Override
+        public HttpResponse<String> send() {
+            throw new IllegalStateException("connection refused");
+        }
+    }
+
+    /**
+     * バインド変数を含むリソースです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private enum TestResource implements Resource {
+
+        USER("/users/%s"), HEALTH("/health");
+
+        /**
+         * リソース
+         */
+        private final String resource;
+
+        /**
+         * コンストラクタ
+         *
+         * @param resource リソース
+         */
+        TestResource(String resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public String getResource() {
+            return this.resource;
+        }
+    }
+
+    /**
+     * 検索時のリクエストパラメータです。
+     *
+     * @author Kato Shinya
+     * @since 1.0
+     * @version 1.0
+     */
+    private static class SearchParameter implements RequestParameter {
+
+        /**
+         * 検索語
+         */
+        @ParameterMapping(keyAlias = "q")
+        private String query;
+
+        /**
+         * コンストラクタ
+         *
+         * @param query 検索語
+         */
+        SearchParameter(String query) {
+            this.query = query;
+        }
+    }
+}